@@ -0,0 +1,81 @@
+package bookfronterab.config;
+
+import bookfronterab.service.RateLimitingService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo por petición de {@link RateLimitFilter} (resolución de la IP, regla y balde).
+ * <p>
+ * {@code steady}: pocos clientes que se repiten. {@code spoofed-flood}: cada petición llega
+ * del balanceador con una IP distinta en X-Forwarded-For, muchas más que el máximo de
+ * baldes en memoria, de modo que la caché está siempre llena y desalojando.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RateLimitFilterBenchmark {
+
+    private static final int MAX_BUCKETS = 10_000;
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> { };
+
+    @Param({"steady", "spoofed-flood"})
+    public String traffic;
+
+    private RateLimitFilter filter;
+    private MockHttpServletRequest[] requests;
+    private MockHttpServletResponse response;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        RateLimitingService rateLimitingService = new RateLimitingService(Optional.empty(), new SimpleMeterRegistry(), MAX_BUCKETS);
+        // Baldes enormes: se mide el costo del filtro, no los rechazos
+        ReflectionTestUtils.setField(rateLimitingService, "readCapacity", 1_000_000_000L);
+        ReflectionTestUtils.setField(rateLimitingService, "readRefillPerMinute", 1_000_000_000L);
+        ReflectionTestUtils.setField(rateLimitingService, "writeCapacity", 1_000_000_000L);
+        ReflectionTestUtils.setField(rateLimitingService, "writeRefillPerMinute", 1_000_000_000L);
+
+        filter = new RateLimitFilter(rateLimitingService, List.of("127.0.0.1", "10.0.0.0/8"));
+        response = new MockHttpServletResponse();
+
+        int distinctClients = "steady".equals(traffic) ? 64 : MAX_BUCKETS * 6;
+        requests = new MockHttpServletRequest[distinctClients];
+        for (int i = 0; i < distinctClients; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/availability");
+            request.setRemoteAddr("10.0.0.2");
+            request.addHeader("X-Forwarded-For",
+                    "203.0.113." + (i & 0xFF) + ", 198.18." + ((i >> 8) & 0xFF) + "." + (i & 0xFF) + ", 10.0.0.1");
+            requests[i] = request;
+        }
+    }
+
+    @Benchmark
+    public void doFilter() throws Exception {
+        MockHttpServletRequest request = requests[cursor];
+        cursor = cursor + 1 == requests.length ? 0 : cursor + 1;
+        filter.doFilter(request, response, NO_OP_CHAIN);
+    }
+}
@@ -0,0 +1,73 @@
+package bookfronterab.service;
+
+import bookfronterab.dto.AvailabilityDto;
+import bookfronterab.dto.RoomDto;
+import bookfronterab.model.Reservation;
+import bookfronterab.model.Room;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Construcción de la matriz de disponibilidad diaria ({@link AvailabilityService#buildAvailabilityMatrix}),
+ * sin base de datos: las salas y reservas del día se generan en memoria.
+ * <p>
+ * {@code reservationsPerRoom} va de un día vacío a uno con todos los bloques ocupados (11).
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AvailabilityServiceBenchmark {
+
+    private static final LocalDate DATE = LocalDate.of(2025, 3, 12);
+
+    @Param({"10", "50", "200"})
+    public int rooms;
+
+    @Param({"0", "5", "11"})
+    public int reservationsPerRoom;
+
+    private AvailabilityService availabilityService;
+    private List<RoomDto> roomDtos;
+    private List<AvailabilityDto.TimeSlotDto> slots;
+    private List<Reservation> reservations;
+
+    @Setup
+    public void setUp() {
+        availabilityService = new AvailabilityService(null, null,
+                new TimeService(BenchmarkFixtures.ZONE), new ImageVariantService(320, 960, 1000));
+
+        List<Room> roomEntities = BenchmarkFixtures.rooms(rooms);
+        roomDtos = roomEntities.stream()
+                .map(room -> RoomDto.builder().id(room.getId()).name(room.getName()).build())
+                .toList();
+        slots = availabilityService.generateTimeSlots();
+        reservations = BenchmarkFixtures.reservationsForDay(roomEntities, DATE, reservationsPerRoom);
+    }
+
+    @Benchmark
+    public List<AvailabilityDto.AvailabilityMatrixItemDto> buildMatrix() {
+        return availabilityService.buildAvailabilityMatrix(DATE, roomDtos, slots, reservations);
+    }
+
+    @Benchmark
+    public List<AvailabilityDto.TimeSlotDto> generateTimeSlots() {
+        return availabilityService.generateTimeSlots();
+    }
+}
@@ -0,0 +1,98 @@
+package bookfronterab.service;
+
+import bookfronterab.model.Reservation;
+import bookfronterab.model.Room;
+import bookfronterab.model.User;
+import bookfronterab.model.UserRole;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Datos sintéticos compartidos por los benchmarks: salas con imagen de Cloudinary y
+ * reservas de una hora alineadas con los bloques de la grilla.
+ */
+final class BenchmarkFixtures {
+
+    static final ZoneId ZONE = ZoneId.of("America/Santiago");
+    static final String IMAGE_URL = "https://res.cloudinary.com/demo/image/upload/v1/salas/sala-%d.jpg";
+
+    /**
+     * Inicio de los bloques de la grilla (ver AvailabilityService#generateTimeSlots).
+     */
+    private static final LocalTime[] SLOT_STARTS = {
+            LocalTime.of(8, 30), LocalTime.of(9, 40), LocalTime.of(10, 50), LocalTime.of(12, 0),
+            LocalTime.of(13, 10), LocalTime.of(14, 30), LocalTime.of(15, 40), LocalTime.of(16, 50),
+            LocalTime.of(18, 0), LocalTime.of(19, 10), LocalTime.of(20, 20)
+    };
+
+    private BenchmarkFixtures() {
+    }
+
+    static List<Room> rooms(int count) {
+        List<Room> rooms = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            rooms.add(Room.builder()
+                    .id((long) i)
+                    .name("Sala " + i)
+                    .capacity(4 + i % 8)
+                    .floor(1 + i % 4)
+                    .equipment(List.of("Proyector", "Pizarra"))
+                    .imageUrl(String.format(IMAGE_URL, i))
+                    .build());
+        }
+        return rooms;
+    }
+
+    static User user(long id) {
+        User user = new User();
+        user.setId(id);
+        user.setEmail("estudiante" + id + "@ufromail.cl");
+        user.setNombre("Estudiante " + id);
+        user.setRol(UserRole.STUDENT);
+        return user;
+    }
+
+    /**
+     * Reparte {@code perRoom} reservas por sala en los bloques del día, rotando el bloque
+     * inicial para que no todas las salas estén ocupadas a la misma hora.
+     */
+    static List<Reservation> reservationsForDay(List<Room> rooms, LocalDate date, int perRoom) {
+        List<Reservation> reservations = new ArrayList<>(rooms.size() * perRoom);
+        long id = 1;
+        for (Room room : rooms) {
+            for (int i = 0; i < perRoom; i++) {
+                LocalTime start = SLOT_STARTS[(int) ((room.getId() + i) % SLOT_STARTS.length)];
+                reservations.add(reservation(id, room, user(id), ZonedDateTime.of(date, start, ZONE)));
+                id++;
+            }
+        }
+        return reservations;
+    }
+
+    /**
+     * Reservas de un mismo usuario, una por semana alrededor de {@code now}.
+     */
+    static List<Reservation> reservationsOfUser(User user, List<Room> rooms, ZonedDateTime now, int count) {
+        List<Reservation> reservations = new ArrayList<>(count);
+        ZonedDateTime first = now.minusWeeks(count / 2).withHour(10).withMinute(50).withSecond(0).withNano(0);
+        for (int i = 0; i < count; i++) {
+            reservations.add(reservation(i + 1L, rooms.get(i % rooms.size()), user, first.plusWeeks(i)));
+        }
+        return reservations;
+    }
+
+    private static Reservation reservation(long id, Room room, User user, ZonedDateTime startAt) {
+        return Reservation.builder()
+                .id(id)
+                .room(room)
+                .user(user)
+                .startAt(startAt)
+                .endAt(startAt.plusHours(1))
+                .build();
+    }
+}
@@ -0,0 +1,72 @@
+package bookfronterab.service;
+
+import bookfronterab.dto.ReservationDto;
+import bookfronterab.model.Reservation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ayudantes de {@link ReservationService} que se ejecutan en cada creación, modificación
+ * y listado de reservas: validación de la petición, cálculo de la semana laboral y
+ * conversión a {@link ReservationDto.Detail}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReservationServiceBenchmark {
+
+    private ReservationService reservationService;
+    private ReservationDto.CreateRequest validRequest;
+    private ZonedDateTime reservationStart;
+    private List<Reservation> reservations;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        reservationService = new ReservationService(null, null, null, null, null, null,
+                new TimeService(BenchmarkFixtures.ZONE), new ImageVariantService(320, 960, 1000),
+                new ReservationMetrics(new SimpleMeterRegistry()));
+
+        // validateReservationRequest compara contra el reloj real: mañana a las 10:50
+        reservationStart = ZonedDateTime.now(BenchmarkFixtures.ZONE).plusDays(1)
+                .withHour(10).withMinute(50).withSecond(0).withNano(0);
+        validRequest = new ReservationDto.CreateRequest(1L, reservationStart, reservationStart.plusHours(1), false);
+
+        reservations = BenchmarkFixtures.reservationsOfUser(BenchmarkFixtures.user(1L),
+                BenchmarkFixtures.rooms(20), reservationStart, 64);
+    }
+
+    @Benchmark
+    public void validateReservationRequest() {
+        reservationService.validateReservationRequest(validRequest);
+    }
+
+    @Benchmark
+    public ReservationService.WorkWeek workWeekOf() {
+        return ReservationService.workWeekOf(reservationStart);
+    }
+
+    @Benchmark
+    public void mapToDetailDto(Blackhole blackhole) {
+        Reservation reservation = reservations.get(cursor);
+        cursor = cursor + 1 == reservations.size() ? 0 : cursor + 1;
+        blackhole.consume(reservationService.mapToDetailDto(reservation));
+    }
+}
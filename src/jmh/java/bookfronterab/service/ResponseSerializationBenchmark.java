@@ -0,0 +1,111 @@
+package bookfronterab.service;
+
+import bookfronterab.dto.AvailabilityDto;
+import bookfronterab.dto.ReservationDto;
+import bookfronterab.dto.RoomDto;
+import bookfronterab.model.Reservation;
+import bookfronterab.model.Room;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialización JSON de las dos respuestas más pedidas: la grilla de disponibilidad
+ * ({@link AvailabilityDto.DailyAvailabilityResponse}) y "Mis reservas"
+ * ({@link ReservationDto.MyReservationsResponse}).
+ * <p>
+ * El {@link ObjectMapper} se configura como el de Spring Boot (módulos de java.time y
+ * fechas como texto ISO-8601).
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseSerializationBenchmark {
+
+    private static final LocalDate DATE = LocalDate.of(2025, 3, 12);
+
+    @Param({"10", "50", "200"})
+    public int rooms;
+
+    /**
+     * Reservas en el historial del usuario.
+     */
+    @Param({"10", "100"})
+    public int userReservations;
+
+    private ObjectMapper objectMapper;
+    private AvailabilityDto.DailyAvailabilityResponse dailyAvailability;
+    private ReservationDto.MyReservationsResponse myReservations;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+
+        ImageVariantService imageVariantService = new ImageVariantService(320, 960, 1000);
+        TimeService timeService = new TimeService(BenchmarkFixtures.ZONE);
+        AvailabilityService availabilityService = new AvailabilityService(null, null, timeService, imageVariantService);
+        ReservationService reservationService = new ReservationService(null, null, null, null, null, null,
+                timeService, imageVariantService, new ReservationMetrics(new SimpleMeterRegistry()));
+
+        List<Room> roomEntities = BenchmarkFixtures.rooms(rooms);
+        List<RoomDto> roomDtos = roomEntities.stream()
+                .map(room -> RoomDto.builder()
+                        .id(room.getId())
+                        .name(room.getName())
+                        .capacity(room.getCapacity())
+                        .equipment(room.getEquipment())
+                        .floor(room.getFloor())
+                        .imageUrl(imageVariantService.thumbnailFor(room.getImageUrl()))
+                        .imageVariants(imageVariantService.variantsFor(room.getImageUrl()))
+                        .build())
+                .toList();
+        List<AvailabilityDto.TimeSlotDto> slots = availabilityService.generateTimeSlots();
+        List<Reservation> dayReservations = BenchmarkFixtures.reservationsForDay(roomEntities, DATE, 5);
+        dailyAvailability = new AvailabilityDto.DailyAvailabilityResponse(roomDtos, slots,
+                availabilityService.buildAvailabilityMatrix(DATE, roomDtos, slots, dayReservations));
+
+        ZonedDateTime now = ZonedDateTime.of(DATE.atTime(12, 0), BenchmarkFixtures.ZONE);
+        List<ReservationDto.Detail> future = new ArrayList<>();
+        List<ReservationDto.Detail> past = new ArrayList<>();
+        for (Reservation reservation : BenchmarkFixtures.reservationsOfUser(BenchmarkFixtures.user(1L),
+                roomEntities, now, userReservations)) {
+            (reservation.getStartAt().isAfter(now) ? future : past).add(reservationService.mapToDetailDto(reservation));
+        }
+        myReservations = new ReservationDto.MyReservationsResponse(null, future, past);
+    }
+
+    @Benchmark
+    public byte[] dailyAvailability() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(dailyAvailability);
+    }
+
+    @Benchmark
+    public byte[] myReservations() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(myReservations);
+    }
+}
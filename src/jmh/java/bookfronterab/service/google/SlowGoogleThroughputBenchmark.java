@@ -0,0 +1,125 @@
+package bookfronterab.service.google;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tiempo para atender una ráfaga de peticiones cuando Google responde lento, con los hilos
+ * de Tomcat como pool fijo ({@code platform}, 200 hilos como {@code server.tomcat.threads.max})
+ * o con un hilo virtual por petición ({@code virtual}, {@code spring.threads.virtual.enabled=true}).
+ * <p>
+ * Una parte de las peticiones sincroniza con Google a través de {@link GoogleApiGateway}
+ * (bulkhead de 16 llamadas, tiempo máximo de 1 s); el resto solo simula una consulta JDBC
+ * corta. Con el pool fijo, los hilos que esperan a Google retrasan al resto de las peticiones.
+ * </p>
+ * Ejecutar con {@code mvn -Pjmh test-compile exec:exec -Djmh.includes=SlowGoogleThroughput}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SlowGoogleThroughputBenchmark {
+
+    private static final int TOMCAT_MAX_THREADS = 200;
+    private static final int REQUESTS_PER_BURST = 2_000;
+    private static final long DB_QUERY_MS = 2;
+
+    @Param({"platform", "virtual"})
+    public String threads;
+
+    @Param({"200"})
+    public long googleLatencyMs;
+
+    /**
+     * Porcentaje de las peticiones que llaman a Google.
+     */
+    @Param({"10"})
+    public int googlePercent;
+
+    private ExecutorService requestExecutor;
+    private ThreadPoolTaskExecutor bulkhead;
+    private GoogleApiGateway gateway;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        boolean virtual = "virtual".equals(threads);
+        requestExecutor = virtual
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(TOMCAT_MAX_THREADS);
+
+        // Igual que googleApiExecutor en GoogleApiConfig
+        bulkhead = new ThreadPoolTaskExecutor();
+        bulkhead.setCorePoolSize(16);
+        bulkhead.setMaxPoolSize(16);
+        bulkhead.setQueueCapacity(32);
+        bulkhead.setVirtualThreads(virtual);
+        bulkhead.initialize();
+
+        // Circuito que no se abre: se mide la espera, no el corte
+        CircuitBreaker circuitBreaker = CircuitBreaker.of("google-benchmark", CircuitBreakerConfig.custom()
+                .failureRateThreshold(100)
+                .minimumNumberOfCalls(Integer.MAX_VALUE)
+                .build());
+        gateway = new GoogleApiGateway(circuitBreaker, bulkhead);
+        ReflectionTestUtils.setField(gateway, "callTimeoutMs", 1_000L);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        requestExecutor.shutdownNow();
+        bulkhead.shutdown();
+    }
+
+    @Benchmark
+    public void burst() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(REQUESTS_PER_BURST);
+        for (int i = 0; i < REQUESTS_PER_BURST; i++) {
+            boolean callsGoogle = i % 100 < googlePercent;
+            requestExecutor.execute(() -> {
+                try {
+                    sleep(DB_QUERY_MS);
+                    if (callsGoogle) {
+                        gateway.call("benchmark", () -> sleep(googleLatencyMs));
+                    }
+                } catch (IOException e) {
+                    // Bulkhead lleno o tiempo agotado: la reserva queda para reintentar
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+    }
+
+    private static Void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+}
@@ -2,8 +2,10 @@ package bookfronterab;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.session.SessionAutoConfiguration;
 
-@SpringBootApplication
+// Spring Session se configura en SessionConfig, solo en el modo de autenticación por sesión
+@SpringBootApplication(exclude = SessionAutoConfiguration.class)
 public class BookFronteraBApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,76 @@
+package bookfronterab.config;
+
+import bookfronterab.service.AccessTokenClaims;
+import bookfronterab.service.AccessTokenService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.context.SecurityContextHolderStrategy;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Autentica las peticiones que traen {@code Authorization: Bearer <token>} en el modo sin sesión.
+ * <p>
+ * El principal se reconstruye a partir del token (sin consultar la base de datos) con los mismos
+ * atributos que entrega Google ("sub", "email", "name"), así los controladores que usan
+ * {@code @AuthenticationPrincipal OAuth2User} funcionan igual en ambos modos.
+ * Un token inválido o vencido deja la petición como anónima y la regla de autorización responde 401.
+ * </p>
+ * No es un {@code @Component}: solo se registra dentro de la cadena de seguridad (ver {@link SecurityConfig}).
+ */
+public class AccessTokenAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final String REGISTRATION_ID = "google";
+
+    private final AccessTokenService accessTokenService;
+    private final SecurityContextHolderStrategy securityContextHolderStrategy =
+            SecurityContextHolder.getContextHolderStrategy();
+
+    public AccessTokenAuthenticationFilter(AccessTokenService accessTokenService) {
+        this.accessTokenService = accessTokenService;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header != null && header.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+            accessTokenService.verifyAccessToken(header.substring(BEARER_PREFIX.length()).trim())
+                    .ifPresent(this::authenticate);
+        }
+        chain.doFilter(request, response);
+    }
+
+    private void authenticate(AccessTokenClaims claims) {
+        List<GrantedAuthority> authorities = List.of(new SimpleGrantedAuthority("ROLE_" + claims.role().name()));
+
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("sub", claims.subject());
+        attributes.put("uid", claims.userId());
+        attributes.put("email", claims.email());
+        if (claims.name() != null) {
+            attributes.put("name", claims.name());
+        }
+
+        OAuth2AuthenticationToken authentication = new OAuth2AuthenticationToken(
+                new DefaultOAuth2User(authorities, attributes, "sub"), authorities, REGISTRATION_ID);
+
+        SecurityContext context = securityContextHolderStrategy.createEmptyContext();
+        context.setAuthentication(authentication);
+        securityContextHolderStrategy.setContext(context);
+    }
+}
@@ -0,0 +1,64 @@
+package bookfronterab.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Executors para trabajos internos de larga duración (no relacionados con Google).
+ * <p>
+ * Con {@code spring.threads.virtual.enabled=true} los hilos de los pools son virtuales;
+ * el tamaño del pool se mantiene como límite de concurrencia.
+ * </p>
+ */
+@Configuration
+public class AsyncConfig {
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Value("${app.rooms.decommission.pool-size:1}")
+    private int decommissionPoolSize;
+
+    @Value("${app.rooms.images.upload-pool-size:2}")
+    private int imageUploadPoolSize;
+
+    @Value("${app.rooms.images.upload-queue-capacity:50}")
+    private int imageUploadQueueCapacity;
+
+    /**
+     * Executor para las bajas de salas. Con un solo hilo por defecto, las bajas se
+     * procesan una a la vez y no compiten entre sí por la base de datos.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor roomDecommissionExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(decommissionPoolSize);
+        executor.setMaxPoolSize(decommissionPoolSize);
+        executor.setThreadNamePrefix("room-decommission-");
+        executor.setVirtualThreads(virtualThreads);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    /**
+     * Executor para subir imágenes de salas a Cloudinary fuera del hilo de la petición.
+     * Es acotado: si la cola se llena, la tarea se rechaza y la sala queda con la imagen
+     * en FAILED (ver {@link bookfronterab.service.RoomImageUploadService}), en vez de
+     * subirla en el hilo de la petición.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor roomImageUploadExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(imageUploadPoolSize);
+        executor.setMaxPoolSize(imageUploadPoolSize);
+        executor.setQueueCapacity(imageUploadQueueCapacity);
+        executor.setThreadNamePrefix("room-image-");
+        executor.setVirtualThreads(virtualThreads);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+}
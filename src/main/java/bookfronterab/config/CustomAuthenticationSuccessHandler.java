@@ -3,12 +3,15 @@ package bookfronterab.config;
 import bookfronterab.model.User;
 import bookfronterab.model.UserRole;
 import bookfronterab.repo.UserRepository;
+import bookfronterab.service.AccessTokenService;
 import bookfronterab.service.TimeService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
 import org.springframework.security.oauth2.client.OAuth2AuthorizedClientService;
@@ -36,6 +39,7 @@ public class CustomAuthenticationSuccessHandler implements AuthenticationSuccess
     private final OAuth2AuthorizedClientService authorizedClientService;
     private final UserRepository userRepository;
     private final TimeService timeService;
+    private final AccessTokenService accessTokenService;
     @Value("${app.frontend.url}")
     private String frontendUrl;
 
@@ -63,10 +67,34 @@ public class CustomAuthenticationSuccessHandler implements AuthenticationSuccess
 
         userRepository.save(user);
 
+        if (accessTokenService.isEnabled()) {
+            redirectWithTokens(request, response, user, oauthToken.getName());
+            return;
+        }
+
         //  Redirigir al frontend
         response.sendRedirect(frontendUrl);
     }
 
+    /**
+     * Modo sin sesión: entrega el token de acceso en el fragmento de la URL (no llega a los logs
+     * de ningún servidor) y el de refresco en una cookie HttpOnly. La sesión solo se usó para el
+     * intercambio con Google, así que se descarta.
+     */
+    private void redirectWithTokens(HttpServletRequest request, HttpServletResponse response,
+                                    User user, String subject) throws IOException {
+        String accessToken = accessTokenService.issueAccessToken(user, subject);
+        String refreshToken = accessTokenService.issueRefreshToken(user, subject);
+        response.addHeader(HttpHeaders.SET_COOKIE, accessTokenService.refreshCookie(refreshToken).toString());
+
+        HttpSession session = request.getSession(false);
+        if (session != null) {
+            session.invalidate();
+        }
+
+        response.sendRedirect(frontendUrl + "#access_token=" + accessToken);
+    }
+
     /**
      * Busca el usuario en la BD o crea uno nuevo si no existe.
      *
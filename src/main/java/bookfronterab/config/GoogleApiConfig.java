@@ -0,0 +1,146 @@
+package bookfronterab.config;
+
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.http.apache.v2.ApacheHttpTransport;
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.gson.GsonFactory;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configuración compartida para los clientes de las APIs de Google (Calendar y OAuth2).
+ * <p>
+ * Expone un único {@link HttpTransport} con pool de conexiones para toda la aplicación,
+ * de modo que las llamadas a Google reutilicen conexiones TCP y sesiones TLS en lugar
+ * de abrir un transporte nuevo en cada petición.
+ * </p>
+ */
+@Configuration
+@Slf4j
+public class GoogleApiConfig {
+
+    @Value("${app.google.http.max-connections:50}")
+    private int maxConnections;
+
+    @Value("${app.google.http.max-connections-per-route:20}")
+    private int maxConnectionsPerRoute;
+
+    @Value("${app.google.http.connection-ttl-seconds:300}")
+    private long connectionTtlSeconds;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Value("${app.google.executor.pool-size:4}")
+    private int executorPoolSize;
+
+    @Value("${app.google.executor.queue-capacity:500}")
+    private int executorQueueCapacity;
+
+    @Value("${app.google.bulkhead.max-concurrent-calls:16}")
+    private int bulkheadMaxConcurrentCalls;
+
+    @Value("${app.google.bulkhead.queue-capacity:32}")
+    private int bulkheadQueueCapacity;
+
+    @Value("${app.google.circuit-breaker.failure-rate-threshold:50}")
+    private float failureRateThreshold;
+
+    @Value("${app.google.circuit-breaker.sliding-window-size:20}")
+    private int slidingWindowSize;
+
+    @Value("${app.google.circuit-breaker.minimum-calls:10}")
+    private int minimumNumberOfCalls;
+
+    @Value("${app.google.circuit-breaker.open-seconds:30}")
+    private long openStateSeconds;
+
+    /**
+     * Transporte HTTP basado en Apache HttpClient con pool de conexiones.
+     * Spring invoca {@code shutdown()} al cerrar el contexto para liberar el pool.
+     */
+    @Bean
+    public HttpTransport googleHttpTransport() {
+        return new ApacheHttpTransport(ApacheHttpTransport.newDefaultHttpClientBuilder()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnectionsPerRoute)
+                .setConnectionTimeToLive(connectionTtlSeconds, TimeUnit.SECONDS)
+                .build());
+    }
+
+    @Bean
+    public JsonFactory googleJsonFactory() {
+        return GsonFactory.getDefaultInstance();
+    }
+
+    /**
+     * Executor acotado para trabajo en segundo plano contra Google (p. ej. limpieza masiva
+     * de eventos). El tamaño del pool limita cuántos usuarios se procesan en paralelo.
+     * Si la cola se llena, la tarea se rechaza: quien la envía la deja en la cola persistente
+     * de reintentos en vez de ejecutarla en su propio hilo (que suele ser uno de Tomcat).
+     */
+    @Bean
+    public ThreadPoolTaskExecutor googleCalendarExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(executorPoolSize);
+        executor.setMaxPoolSize(executorPoolSize);
+        executor.setQueueCapacity(executorQueueCapacity);
+        executor.setThreadNamePrefix("google-calendar-");
+        executor.setVirtualThreads(virtualThreads);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    /**
+     * Executor que actúa como bulkhead para las llamadas HTTP a Google: limita cuántas
+     * hay en vuelo a la vez. Si se llena, la tarea se rechaza de inmediato (en vez de
+     * bloquear al hilo de Tomcat) y la sincronización se difiere.
+     * Con hilos virtuales el límite se mantiene: protege a Google y al pool de conexiones
+     * HTTP, no a los hilos.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor googleApiExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(bulkheadMaxConcurrentCalls);
+        executor.setMaxPoolSize(bulkheadMaxConcurrentCalls);
+        executor.setQueueCapacity(bulkheadQueueCapacity);
+        executor.setThreadNamePrefix("google-api-");
+        executor.setVirtualThreads(virtualThreads);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
+
+    /**
+     * Circuit breaker compartido por todas las llamadas a Google.
+     * Se abre si falla al menos {@code failure-rate-threshold}% de las últimas
+     * {@code sliding-window-size} llamadas, y tras {@code open-seconds} deja pasar
+     * unas pocas de prueba antes de cerrarse.
+     */
+    @Bean
+    public CircuitBreaker googleCircuitBreaker() {
+        CircuitBreakerConfig config = CircuitBreakerConfig.custom()
+                .failureRateThreshold(failureRateThreshold)
+                .slidingWindowSize(slidingWindowSize)
+                .minimumNumberOfCalls(minimumNumberOfCalls)
+                .waitDurationInOpenState(Duration.ofSeconds(openStateSeconds))
+                .permittedNumberOfCallsInHalfOpenState(3)
+                .automaticTransitionFromOpenToHalfOpenEnabled(true)
+                .build();
+
+        CircuitBreaker circuitBreaker = CircuitBreaker.of("google", config);
+        circuitBreaker.getEventPublisher().onStateTransition(event ->
+                log.warn("Circuit breaker de Google: {}", event.getStateTransition()));
+        return circuitBreaker;
+    }
+}
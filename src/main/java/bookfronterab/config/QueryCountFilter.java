@@ -0,0 +1,90 @@
+package bookfronterab.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.QueryCount;
+import net.ttddyy.dsproxy.QueryCountHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cuenta las sentencias SQL de cada petición y las publica por endpoint:
+ * {@code http.server.requests.queries} (cantidad) y {@code http.server.requests.query.time}
+ * (tiempo total en la base de datos), etiquetadas con el método y el patrón de la ruta.
+ * <p>
+ * Corre después de la cadena de seguridad y de Spring Session, así que no incluye la
+ * lectura ni el guardado de la sesión. El contador se reinicia al comenzar y no al terminar,
+ * para que las pruebas puedan leerlo después de la petición (ver {@code QueryBudget}).
+ * Se registra en {@link QueryInstrumentationConfig}.
+ * </p>
+ */
+@Slf4j
+public class QueryCountFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Sobre esta cantidad de sentencias se deja un aviso en el log (síntoma típico de N+1).
+     */
+    private final long warnThreshold;
+
+    public QueryCountFilter(MeterRegistry meterRegistry, long warnThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.warnThreshold = warnThreshold;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        QueryCountHolder.clear();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            record(request);
+        }
+    }
+
+    private void record(HttpServletRequest request) {
+        QueryCount queryCount = QueryCountHolder.getGrandTotal();
+        long statements = queryCount.getTotal();
+        String uri = uriPattern(request);
+
+        DistributionSummary.builder("http.server.requests.queries")
+                .description("Sentencias SQL ejecutadas por petición")
+                .baseUnit("statements")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(statements);
+        Timer.builder("http.server.requests.query.time")
+                .description("Tiempo total en la base de datos por petición")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(queryCount.getTime(), TimeUnit.MILLISECONDS);
+
+        if (statements > warnThreshold) {
+            log.warn("{} {} ejecutó {} sentencias SQL (select={}, insert={}, update={}, delete={}); posible N+1",
+                    request.getMethod(), uri, statements, queryCount.getSelect(), queryCount.getInsert(),
+                    queryCount.getUpdate(), queryCount.getDelete());
+        }
+    }
+
+    /**
+     * El patrón de la ruta (p. ej. {@code /api/v1/reservations/{id}}) en vez de la URI
+     * concreta, para no crear una serie de métricas por cada ID.
+     */
+    private static String uriPattern(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : "UNKNOWN";
+    }
+}
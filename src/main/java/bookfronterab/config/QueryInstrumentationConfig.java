@@ -0,0 +1,69 @@
+package bookfronterab.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import net.ttddyy.dsproxy.listener.logging.SLF4JLogLevel;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Envuelve el DataSource con datasource-proxy para contar las sentencias SQL de cada
+ * petición (ver {@link QueryCountFilter}) y registrar las consultas lentas.
+ * <p>
+ * El conteo se guarda en un ThreadLocal ({@code QueryCountHolder}), así que solo cuenta
+ * lo que ejecuta el hilo de la petición; las tareas {@code @Async} no se suman.
+ * Las consultas lentas se escriben en el logger {@code bookfronterab.sql.slow} con sus
+ * parámetros, para poder reproducirlas con EXPLAIN.
+ * </p>
+ */
+@Configuration
+public class QueryInstrumentationConfig {
+
+    /**
+     * Nombre del DataSource en los contadores de datasource-proxy.
+     */
+    public static final String DATA_SOURCE_NAME = "main";
+
+    /**
+     * Estático: los BeanPostProcessor deben existir antes que el resto de los beans.
+     */
+    @Bean
+    static BeanPostProcessor queryCountingDataSourcePostProcessor(
+            @Value("${app.sql.slow-query-threshold-ms:200}") long slowQueryThresholdMs) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof ProxyDataSource) {
+                    return bean;
+                }
+                return ProxyDataSourceBuilder.create(dataSource)
+                        .name(DATA_SOURCE_NAME)
+                        .countQuery()
+                        .logSlowQueryBySlf4j(slowQueryThresholdMs, TimeUnit.MILLISECONDS,
+                                SLF4JLogLevel.WARN, "bookfronterab.sql.slow")
+                        .build();
+            }
+        };
+    }
+
+    /**
+     * El filtro va al final de la cadena, dentro de la seguridad y de Spring Session.
+     */
+    @Bean
+    FilterRegistrationBean<QueryCountFilter> queryCountFilter(
+            MeterRegistry meterRegistry,
+            @Value("${app.sql.request-query-warn-threshold:30}") long warnThreshold) {
+        FilterRegistrationBean<QueryCountFilter> registration =
+                new FilterRegistrationBean<>(new QueryCountFilter(meterRegistry, warnThreshold));
+        registration.setOrder(Ordered.LOWEST_PRECEDENCE);
+        return registration;
+    }
+}
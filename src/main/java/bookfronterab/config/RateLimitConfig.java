@@ -0,0 +1,95 @@
+package bookfronterab.config;
+
+import io.github.bucket4j.distributed.jdbc.BucketTableSettings;
+import io.github.bucket4j.distributed.jdbc.PrimaryKeyMapper;
+import io.github.bucket4j.distributed.jdbc.SQLProxyConfiguration;
+import io.github.bucket4j.distributed.jdbc.SQLProxyConfigurationBuilder;
+import io.github.bucket4j.distributed.proxy.ProxyManager;
+import io.github.bucket4j.postgresql.PostgreSQLadvisoryLockBasedProxyManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Guarda el estado de los baldes de límite de peticiones en PostgreSQL, para que el
+ * límite sea el mismo con varias instancias detrás del balanceador.
+ * <p>
+ * Solo se activa con {@code app.rate-limit.backend=jdbc}; por defecto cada instancia
+ * mantiene sus baldes en memoria (ver {@link bookfronterab.service.RateLimitingService}).
+ * La tabla la crea la migración {@code V6__rate_limit_buckets.sql}.
+ * </p>
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.rate-limit.backend", havingValue = "jdbc")
+@Slf4j
+public class RateLimitConfig {
+
+    static final String TABLE_NAME = "rate_limit_buckets";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Tiempo que tarda en llenarse por completo el balde más lento de recargar.
+     */
+    private final Duration fullRefillPeriod;
+
+    public RateLimitConfig(JdbcTemplate jdbcTemplate,
+                           @Value("${app.rate-limit.read.capacity:120}") long readCapacity,
+                           @Value("${app.rate-limit.read.refill-per-minute:120}") long readRefillPerMinute,
+                           @Value("${app.rate-limit.write.capacity:30}") long writeCapacity,
+                           @Value("${app.rate-limit.write.refill-per-minute:30}") long writeRefillPerMinute) {
+        this.jdbcTemplate = jdbcTemplate;
+        Duration read = refillPeriod(readCapacity, readRefillPerMinute);
+        Duration write = refillPeriod(writeCapacity, writeRefillPerMinute);
+        this.fullRefillPeriod = read.compareTo(write) >= 0 ? read : write;
+    }
+
+    /**
+     * Proxy de bucket4j sobre la tabla {@value #TABLE_NAME}. Cada actualización de un balde
+     * se serializa con un advisory lock de PostgreSQL sobre su clave.
+     */
+    @Bean
+    public ProxyManager<String> rateLimitProxyManager(DataSource dataSource) {
+        SQLProxyConfiguration<String> configuration = SQLProxyConfigurationBuilder.builder()
+                .withTableSettings(BucketTableSettings.customSettings(TABLE_NAME, "id", "state"))
+                .withPrimaryKeyMapper(PrimaryKeyMapper.STRING)
+                .build(dataSource);
+        log.info("Límite de peticiones compartido entre instancias (tabla {}).", TABLE_NAME);
+        return new PostgreSQLadvisoryLockBasedProxyManager<>(configuration);
+    }
+
+    /**
+     * Borra los baldes sin cambios durante más de un período completo de recarga, para que
+     * la tabla no crezca sin límite con IPs que no vuelven. Cada consumo actualiza
+     * {@code updated_at} (trigger de la migración V6), así que esos baldes ya están llenos y
+     * borrarlos no le devuelve tokens a nadie; un cliente limitado en este momento conserva
+     * su balde. La antigüedad se mide con el reloj de la base de datos, el mismo que la escribe.
+     *
+     * @return La cantidad de baldes eliminados.
+     */
+    @Scheduled(cron = "${app.rate-limit.jdbc.cleanup-cron:0 0 * * * *}")
+    public int purgeBuckets() {
+        int deleted = jdbcTemplate.update("DELETE FROM " + TABLE_NAME
+                + " WHERE updated_at < now() - ? * interval '1 second'", fullRefillPeriod.toSeconds());
+        if (deleted > 0) {
+            log.info("Eliminados {} baldes de límite de peticiones inactivos.", deleted);
+        }
+        return deleted;
+    }
+
+    Duration getFullRefillPeriod() {
+        return fullRefillPeriod;
+    }
+
+    private static Duration refillPeriod(long capacity, long refillPerMinute) {
+        // Se redondea hacia arriba: un balde a medio recargar no debe borrarse
+        return Duration.ofSeconds((capacity * 60 + refillPerMinute - 1) / refillPerMinute);
+    }
+}
@@ -1,28 +1,48 @@
 package bookfronterab.config;
 
+import bookfronterab.service.RateLimitRule;
 import bookfronterab.service.RateLimitingService;
 import io.github.bucket4j.Bucket;
+import io.github.bucket4j.ConsumptionProbe;
 import jakarta.servlet.Filter;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletRequestWrapper;
 import jakarta.servlet.ServletResponse;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @Component
 @Order(1) // Se ejecuta antes que otros filtros (excepto los de seguridad crítica de Spring)
-@RequiredArgsConstructor
 public class RateLimitFilter implements Filter {
 
     private final RateLimitingService rateLimitingService;
 
+    /**
+     * Proxies (balanceador, gateway de Docker) cuyo X-Forwarded-For se considera confiable.
+     */
+    private final TrustedProxies trustedProxies;
+
+    public RateLimitFilter(RateLimitingService rateLimitingService,
+                           @Value("#{'${app.rate-limit.trusted-proxies:127.0.0.1,::1,0:0:0:0:0:0:0:1,10.0.0.0/8,172.16.0.0/12,192.168.0.0/16}'.split(',')}")
+                           List<String> trustedProxies) {
+        this.rateLimitingService = rateLimitingService;
+        this.trustedProxies = new TrustedProxies(trustedProxies);
+    }
+
     @Override
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
             throws IOException, ServletException {
@@ -30,35 +50,63 @@ public class RateLimitFilter implements Filter {
         HttpServletRequest httpRequest = (HttpServletRequest) request;
         HttpServletResponse httpResponse = (HttpServletResponse) response;
 
-        //  Obtener la IP real del cliente
-        String clientIp = getClientIp(httpRequest);
+        //  Costo y clase de límite según la ruta (las lecturas no compiten con las escrituras)
+        RateLimitRule rule = rateLimitingService.resolveRule(httpRequest.getMethod(), httpRequest.getRequestURI());
+
+        //  Obtener el Bucket del cliente (usuario autenticado o, si no hay sesión, su IP)
+        String clientKey = getClientKey(httpRequest);
+        Bucket bucket = rateLimitingService.resolveBucket(clientKey, rule.policy());
 
-        //  Obtener el Bucket asignado a esa IP
-        Bucket bucket = rateLimitingService.resolveBucket(clientIp);
+        //  Intentar consumir los tokens que cuesta la petición
+        ConsumptionProbe probe = bucket.tryConsumeAndReturnRemaining(rule.cost());
+        httpResponse.setHeader("RateLimit-Limit", String.valueOf(rateLimitingService.capacityOf(rule.policy())));
+        httpResponse.setHeader("RateLimit-Remaining", String.valueOf(probe.getRemainingTokens()));
 
-        //  Intentar consumir 1 token
-        if (bucket.tryConsume(1)) {
+        if (probe.isConsumed()) {
             // Si tiene tokens, deja pasar la petición
             chain.doFilter(request, response);
         } else {
-            // Si no tiene tokens, devuelve error 429 (Too Many Requests)
+            // Si no tiene tokens, devuelve error 429 (Too Many Requests) indicando cuándo reintentar,
+            // para que los clientes no reintenten de inmediato y empeoren la carga
+            long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(probe.getNanosToWaitForRefill() + 999_999_999L));
+            httpResponse.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            rateLimitingService.recordRejection(rule, clientKey.startsWith("user:") ? "user" : "ip");
+
             httpResponse.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
             httpResponse.getWriter().write("Has excedido el límite de peticiones. Intenta más tarde.");
         }
     }
 
+    /**
+     * Identifica al cliente por su usuario si está autenticado, para que un curso entero
+     * detrás de la misma IP (NAT de la universidad) no comparta un único balde.
+     * El filtro corre dentro de la cadena de Spring Security, así que el contexto ya está cargado.
+     */
+    private String getClientKey(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken)) {
+            return "user:" + authentication.getName();
+        }
+        return "ip:" + getClientIp(request);
+    }
+
     /**
      * Extrae la IP real, fundamental si usas Docker, Nginx o Cloudflare.
      * Si solo usas getRemoteAddr() en Docker, verás la IP interna del gateway (ej: 172.18.0.1)
      * para todos los usuarios, y bloquearás a todos al mismo tiempo.
+     * <p>
+     * Se lee la petición original del contenedor: con {@code server.forward-headers-strategy=framework},
+     * el ForwardedHeaderFilter de Spring ya reemplazó getRemoteAddr() por la primera IP de
+     * X-Forwarded-For (la que escribe el cliente, falsificable) y ocultó la cabecera.
+     * </p>
      */
     private String getClientIp(HttpServletRequest request) {
-        String xForwardedFor = request.getHeader("X-Forwarded-For");
-        if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
-            // X-Forwarded-For puede ser una lista: "client, proxy1, proxy2"
-            // Nos interesa la primera, que es la del cliente original.
-            return xForwardedFor.split(",")[0].trim();
+        ServletRequest raw = request;
+        while (raw instanceof ServletRequestWrapper wrapper) {
+            raw = wrapper.getRequest();
         }
-        return request.getRemoteAddr();
+        HttpServletRequest original = (HttpServletRequest) raw;
+        return trustedProxies.resolveClientIp(original.getRemoteAddr(), original.getHeader("X-Forwarded-For"));
     }
-}
\ No newline at end of file
+}
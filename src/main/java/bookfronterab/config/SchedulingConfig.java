@@ -0,0 +1,13 @@
+package bookfronterab.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Habilita las tareas programadas (@Scheduled) de la aplicación,
+ * como el refresco proactivo de tokens de Google.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -1,16 +1,23 @@
 package bookfronterab.config;
 
+import bookfronterab.service.AccessTokenService;
 import bookfronterab.service.google.CustomOidcUserService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.annotation.web.configurers.HeadersConfigurer;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.AnonymousAuthenticationFilter;
+import org.springframework.security.web.context.DelegatingSecurityContextRepository;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
+import org.springframework.security.web.context.SecurityContextRepository;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
@@ -26,14 +33,37 @@ public class SecurityConfig {
     private final CustomOidcUserService customOidcUserService;
     private final CustomAuthenticationSuccessHandler authenticationSuccessHandler;
     private final CustomAuthenticationFailureHandler authenticationFailureHandler;
+    private final AccessTokenService accessTokenService;
 
     // Inyectamos la URL de producción desde las variables de entorno
     @Value("${app.frontend.url}")
     private String frontendUrl;
 
+    /**
+     * Dónde se guarda la autenticación entre peticiones.
+     * En el modo token ({@code app.auth.mode=token}) no se guarda: cada petición trae su token
+     * y cualquier instancia puede atenderla. En el modo sesión se guarda en la HttpSession.
+     */
     @Bean
-    SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    SecurityContextRepository securityContextRepository() {
+        if (accessTokenService.isEnabled()) {
+            return new RequestAttributeSecurityContextRepository();
+        }
+        return new DelegatingSecurityContextRepository(
+                new RequestAttributeSecurityContextRepository(),
+                new HttpSessionSecurityContextRepository());
+    }
+
+    @Bean
+    SecurityFilterChain filterChain(HttpSecurity http, SecurityContextRepository securityContextRepository) throws Exception {
+        if (accessTokenService.isEnabled()) {
+            // Modo sin sesión: la autenticación llega en la cabecera Authorization
+            http.addFilterBefore(new AccessTokenAuthenticationFilter(accessTokenService), AnonymousAuthenticationFilter.class);
+        }
+
         http
+                .securityContext(context -> context.securityContextRepository(securityContextRepository))
+
                 // 1. Configuración de CORS
                 .cors(cors -> cors.configurationSource(corsConfig()))
 
@@ -48,7 +78,13 @@ public class SecurityConfig {
                                 "/", "/.well-known/**", "/favicon.ico", "/swagger-ui/**", "/v3/api-docs/**",
                                 "/api/v1", "/api/v1/", "/api/v1/availability/**", "/h2-console/**", "/api/v1/auth-debug"
                         ).permitAll()
+                        // Renovación del token de acceso (se autentica con la cookie de refresco)
+                        .requestMatchers("/api/v1/auth/token/**").permitAll()
+                        // Actuator solo se sirve en el puerto de administración (management.server.port)
+                        .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll()
                         .requestMatchers("/api/v1/rooms/**").hasRole("ADMIN")
+                        // Grabaciones de Flight Recorder (ver FlightRecorderController)
+                        .requestMatchers("/api/v1/admin/**").hasRole("ADMIN")
                         .anyRequest().authenticated()
                 )
                 .exceptionHandling(exception -> exception
@@ -65,6 +101,9 @@ public class SecurityConfig {
                         .logoutSuccessUrl(frontendUrl) // Redirige a Vercel al salir
                         .invalidateHttpSession(true)
                         .deleteCookies("JSESSIONID")
+                        // La cookie de refresco tiene su propia ruta, se borra explícitamente
+                        .addLogoutHandler((request, response, authentication) ->
+                                response.addHeader(HttpHeaders.SET_COOKIE, accessTokenService.clearRefreshCookie().toString()))
                 );
 
         return http.build();
@@ -82,6 +121,10 @@ public class SecurityConfig {
         // Permitir todos los headers (Authorization, Content-Type, etc.)
         cfg.setAllowedHeaders(List.of("*"));
 
+        // Cabeceras de límite de peticiones legibles desde el frontend (para esperar antes de reintentar)
+        cfg.setExposedHeaders(List.of("RateLimit-Limit", "RateLimit-Remaining", "Retry-After",
+                AccessTokenService.ACCESS_TOKEN_HEADER));
+
         // IMPORTANTE: Permitir credenciales (cookies)
         cfg.setAllowCredentials(true);
 
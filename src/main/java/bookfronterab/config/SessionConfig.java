@@ -0,0 +1,104 @@
+package bookfronterab.config;
+
+import bookfronterab.service.TimeService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.session.FlushMode;
+import org.springframework.session.SaveMode;
+import org.springframework.session.jdbc.JdbcIndexedSessionRepository;
+import org.springframework.session.jdbc.config.annotation.web.http.EnableJdbcHttpSession;
+import org.springframework.session.web.http.CookieSerializer;
+import org.springframework.session.web.http.DefaultCookieSerializer;
+
+/**
+ * Sesiones HTTP compartidas entre instancias (Spring Session JDBC sobre PostgreSQL).
+ * <p>
+ * Solo se activa en el modo {@code app.auth.mode=session}: en el modo token no hay sesiones
+ * en el servidor, así que ni se envuelven las peticiones ni se limpia la tabla. Por eso la
+ * autoconfiguración de Spring Boot está excluida ({@link bookfronterab.BookFronteraBApplication})
+ * y el repositorio se declara aquí. Las tablas las crea Flyway
+ * ({@code V7__spring_session_tables.sql}), no la aplicación al arrancar. Sin la
+ * autoconfiguración tampoco se aplican las propiedades {@code server.servlet.session.cookie.*}
+ * a la cookie de Spring Session, así que se declara aquí ({@link #cookieSerializer()}).
+ * </p>
+ * <p>
+ * Solo se escriben los atributos modificados en la petición ({@link SaveMode#ON_SET_ATTRIBUTE})
+ * y una sola vez al final de ella ({@link FlushMode#ON_SAVE}). La limpieza propia de Spring
+ * Session borra todas las sesiones vencidas en un único DELETE; aquí se desactiva y se
+ * reemplaza por borrados en lotes que no bloquean la tabla.
+ * </p>
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.auth.mode", havingValue = "session", matchIfMissing = true)
+@EnableJdbcHttpSession(flushMode = FlushMode.ON_SAVE, saveMode = SaveMode.ON_SET_ATTRIBUTE,
+        cleanupCron = Scheduled.CRON_DISABLED)
+@Slf4j
+public class SessionConfig {
+
+    /**
+     * Borra un lote de sesiones vencidas (sus atributos se borran en cascada).
+     * {@code SKIP LOCKED} permite que varias instancias limpien a la vez sin esperarse
+     * entre sí ni chocar con las sesiones que se están guardando.
+     */
+    private static final String DELETE_EXPIRED_BATCH = "DELETE FROM %1$s WHERE PRIMARY_ID IN ("
+            + "SELECT PRIMARY_ID FROM %1$s WHERE EXPIRY_TIME < ? LIMIT ? FOR UPDATE SKIP LOCKED)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TimeService timeService;
+    private final String deleteExpiredBatch;
+    private final int batchSize;
+    private final int maxBatches;
+
+    public SessionConfig(JdbcTemplate jdbcTemplate,
+                         TimeService timeService,
+                         @Value("${app.session.cleanup.batch-size:500}") int batchSize,
+                         @Value("${app.session.cleanup.max-batches:100}") int maxBatches) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.timeService = timeService;
+        this.deleteExpiredBatch = String.format(DELETE_EXPIRED_BATCH, JdbcIndexedSessionRepository.DEFAULT_TABLE_NAME);
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+    }
+
+    /**
+     * Cookie de sesión: el frontend está en otro dominio que la API, así que debe viajar en
+     * peticiones entre sitios ({@code SameSite=None}, que los navegadores solo aceptan con
+     * {@code Secure}). Se mantiene el nombre de Tomcat (Spring Session usa "SESSION").
+     */
+    @Bean
+    public CookieSerializer cookieSerializer() {
+        DefaultCookieSerializer serializer = new DefaultCookieSerializer();
+        serializer.setCookieName("JSESSIONID");
+        serializer.setSameSite("None");
+        serializer.setUseSecureCookie(true);
+        serializer.setUseHttpOnlyCookie(true);
+        return serializer;
+    }
+
+    /**
+     * Borra las sesiones vencidas en lotes de {@code batch-size}, cada uno en su propia
+     * transacción corta. Lo que no alcance a borrarse ({@code max-batches}) queda para la
+     * siguiente ejecución.
+     */
+    @Scheduled(cron = "${app.session.cleanup.cron:0 * * * * *}")
+    public void purgeExpiredSessions() {
+        // EXPIRY_TIME se guarda en milisegundos desde la época
+        long now = timeService.nowOffset().toInstant().toEpochMilli();
+        int total = 0;
+        for (int batch = 0; batch < maxBatches; batch++) {
+            int deleted = jdbcTemplate.update(deleteExpiredBatch, now, batchSize);
+            total += deleted;
+            if (deleted < batchSize) {
+                break;
+            }
+        }
+        if (total > 0) {
+            log.debug("Eliminadas {} sesiones vencidas.", total);
+        }
+    }
+}
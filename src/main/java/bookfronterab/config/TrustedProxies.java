@@ -0,0 +1,154 @@
+package bookfronterab.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lista de proxies de confianza (IPs exactas o rangos CIDR IPv4) y resolución de la IP
+ * del cliente a partir de la cabecera X-Forwarded-For.
+ * <p>
+ * Se evalúa en cada petición, así que la cabecera se recorre por índices, sin
+ * {@code split} ni expresiones regulares: la única asignación es el substring de la IP final.
+ * </p>
+ */
+final class TrustedProxies {
+
+    private final int[] networks;
+    private final int[] masks;
+
+    /**
+     * Entradas que no son IPv4 (p. ej. IPv6), comparadas de forma exacta.
+     */
+    private final String[] exact;
+
+    TrustedProxies(List<String> entries) {
+        List<int[]> ranges = new ArrayList<>();
+        List<String> literals = new ArrayList<>();
+        for (String raw : entries) {
+            String entry = raw.trim();
+            if (entry.isEmpty()) {
+                continue;
+            }
+            int slash = entry.indexOf('/');
+            String address = slash < 0 ? entry : entry.substring(0, slash);
+            long ip = parseIpv4(address, 0, address.length());
+            if (ip < 0) {
+                literals.add(address);
+                continue;
+            }
+            int prefix = slash < 0 ? 32 : Integer.parseInt(entry.substring(slash + 1));
+            if (prefix < 0 || prefix > 32) {
+                throw new IllegalArgumentException("Prefijo CIDR inválido en proxy de confianza: " + entry);
+            }
+            int mask = prefix == 0 ? 0 : -1 << (32 - prefix);
+            ranges.add(new int[]{(int) ip & mask, mask});
+        }
+
+        this.networks = new int[ranges.size()];
+        this.masks = new int[ranges.size()];
+        for (int i = 0; i < ranges.size(); i++) {
+            networks[i] = ranges.get(i)[0];
+            masks[i] = ranges.get(i)[1];
+        }
+        this.exact = literals.toArray(String[]::new);
+    }
+
+    /**
+     * Determina la IP del cliente.
+     * <p>
+     * Si la conexión no viene de un proxy de confianza, la cabecera se ignora (cualquiera
+     * puede enviarla). Si viene de uno, se recorre X-Forwarded-For de derecha a izquierda
+     * saltando los proxies de confianza: la primera IP ajena es la que se conectó a nuestra
+     * infraestructura. Las entradas a su izquierda las escribió el propio cliente.
+     * </p>
+     *
+     * @param remoteAddr    La IP de la conexión TCP.
+     * @param forwardedFor  El valor de X-Forwarded-For (puede ser null).
+     * @return La IP del cliente.
+     */
+    String resolveClientIp(String remoteAddr, String forwardedFor) {
+        if (remoteAddr == null || forwardedFor == null || !contains(remoteAddr, 0, remoteAddr.length())) {
+            return remoteAddr;
+        }
+
+        int end = forwardedFor.length();
+        int leftmostStart = -1;
+        int leftmostEnd = -1;
+        while (true) {
+            int comma = forwardedFor.lastIndexOf(',', end - 1);
+            int start = comma + 1;
+            int hopEnd = end;
+            while (start < hopEnd && forwardedFor.charAt(start) <= ' ') {
+                start++;
+            }
+            while (hopEnd > start && forwardedFor.charAt(hopEnd - 1) <= ' ') {
+                hopEnd--;
+            }
+            if (start < hopEnd) {
+                if (!contains(forwardedFor, start, hopEnd)) {
+                    return forwardedFor.substring(start, hopEnd);
+                }
+                leftmostStart = start;
+                leftmostEnd = hopEnd;
+            }
+            if (comma < 0) {
+                break;
+            }
+            end = comma;
+        }
+        // Todos los saltos son proxies propios: el cliente es el primero de la cadena
+        return leftmostStart < 0 ? remoteAddr : forwardedFor.substring(leftmostStart, leftmostEnd);
+    }
+
+    /**
+     * Indica si {@code value[start, end)} es un proxy de confianza.
+     */
+    boolean contains(String value, int start, int end) {
+        long ip = parseIpv4(value, start, end);
+        if (ip >= 0) {
+            for (int i = 0; i < networks.length; i++) {
+                if (((int) ip & masks[i]) == networks[i]) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        int length = end - start;
+        for (String literal : exact) {
+            if (literal.length() == length && value.regionMatches(true, start, literal, 0, length)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Interpreta {@code value[start, end)} como IPv4 con puntos.
+     *
+     * @return La dirección como entero sin signo, o -1 si no es una IPv4 válida.
+     */
+    static long parseIpv4(String value, int start, int end) {
+        long result = 0;
+        int octets = 0;
+        int current = -1;
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                current = current < 0 ? c - '0' : current * 10 + (c - '0');
+                if (current > 255) {
+                    return -1;
+                }
+            } else if (c == '.' && current >= 0 && octets < 3) {
+                result = (result << 8) | current;
+                octets++;
+                current = -1;
+            } else {
+                return -1;
+            }
+        }
+        if (current < 0 || octets != 3) {
+            return -1;
+        }
+        return (result << 8) | current;
+    }
+}
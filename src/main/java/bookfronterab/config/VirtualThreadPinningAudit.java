@@ -0,0 +1,140 @@
+package bookfronterab.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Auditoría de hilos virtuales "clavados" (pinned) a su hilo portador.
+ * <p>
+ * En Java 21 un hilo virtual que bloquea dentro de un bloque {@code synchronized} (p. ej. en
+ * la librería cliente de Google o en un driver JDBC) no libera su hilo portador, y con pocos
+ * portadores eso frena a toda la aplicación. Se escuchan los eventos JFR
+ * {@code jdk.VirtualThreadPinned} y se registra una vez cada punto donde ocurre, con su pila,
+ * para poder corregirlo. El total y la duración quedan en la métrica
+ * {@code jvm.threads.virtual.pinned} (micrometer-java21).
+ * </p>
+ */
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+@Slf4j
+public class VirtualThreadPinningAudit {
+
+    static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    /**
+     * Límite de puntos distintos que se recuerdan, para no crecer sin control.
+     */
+    private static final int MAX_SITES = 200;
+    private static final int LOGGED_FRAMES = 12;
+    private static final String APP_PACKAGE = "bookfronterab.";
+    private static final List<String> JDK_PACKAGES = List.of("java.", "jdk.");
+
+    private final Duration threshold;
+    private final Map<String, LongAdder> pinnedSites = new ConcurrentHashMap<>();
+    private RecordingStream recordingStream;
+
+    public VirtualThreadPinningAudit(@Value("${app.virtual-threads.pinning-audit.threshold-ms:20}") long thresholdMs) {
+        this.threshold = Duration.ofMillis(thresholdMs);
+    }
+
+    @PostConstruct
+    void start() {
+        recordingStream = new RecordingStream();
+        recordingStream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        recordingStream.onEvent(PINNED_EVENT, this::onEvent);
+        recordingStream.startAsync();
+        log.info("Auditoría de hilos virtuales clavados activa (umbral {} ms).", threshold.toMillis());
+    }
+
+    @PreDestroy
+    void stop() {
+        if (recordingStream != null) {
+            recordingStream.close();
+        }
+    }
+
+    /**
+     * Cantidad de eventos por punto, clave = primer marco de la pila fuera del JDK.
+     */
+    public Map<String, Long> pinnedSites() {
+        Map<String, Long> snapshot = new HashMap<>();
+        pinnedSites.forEach((site, count) -> snapshot.put(site, count.sum()));
+        return snapshot;
+    }
+
+    private void onEvent(RecordedEvent event) {
+        List<String> frames = new ArrayList<>();
+        if (event.getStackTrace() != null) {
+            for (RecordedFrame frame : event.getStackTrace().getFrames()) {
+                if (frame.isJavaFrame()) {
+                    frames.add(frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                            + ":" + frame.getLineNumber());
+                }
+            }
+        }
+        recordPinning(frames, event.getDuration());
+    }
+
+    /**
+     * Acumula un evento. La primera vez que aparece un punto se registra con su pila.
+     * <p>
+     * El punto es el primer marco fuera del JDK: la pila casi siempre empieza en
+     * {@code java.lang.VirtualThread.parkOnCarrierThread} o en un lock de {@code java.util.concurrent},
+     * y con ese marco como clave todos los puntos se juntarían en uno solo.
+     * </p>
+     *
+     * @param frames   Los marcos de la pila, del más interno al más externo.
+     * @param duration Cuánto estuvo clavado el hilo.
+     */
+    void recordPinning(List<String> frames, Duration duration) {
+        String site = pinningSite(frames);
+        LongAdder count = pinnedSites.get(site);
+        if (count == null) {
+            if (pinnedSites.size() >= MAX_SITES) {
+                return;
+            }
+            LongAdder created = new LongAdder();
+            count = pinnedSites.putIfAbsent(site, created);
+            if (count == null) {
+                count = created;
+                log.warn("Hilo virtual clavado {} ms en {} (llamado desde {}). Pila:\n  {}",
+                        duration.toMillis(), site, firstAppFrame(frames),
+                        String.join("\n  ", frames.subList(0, Math.min(LOGGED_FRAMES, frames.size()))));
+            }
+        }
+        count.increment();
+    }
+
+    private static String pinningSite(List<String> frames) {
+        for (String frame : frames) {
+            if (JDK_PACKAGES.stream().noneMatch(frame::startsWith)) {
+                return frame;
+            }
+        }
+        return frames.isEmpty() ? "desconocido" : frames.get(0);
+    }
+
+    private static String firstAppFrame(List<String> frames) {
+        for (String frame : frames) {
+            if (frame.startsWith(APP_PACKAGE)) {
+                return frame;
+            }
+        }
+        return "código de terceros";
+    }
+}
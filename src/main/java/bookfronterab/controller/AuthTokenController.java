@@ -0,0 +1,58 @@
+package bookfronterab.controller;
+
+import bookfronterab.dto.AccessTokenDto;
+import bookfronterab.model.User;
+import bookfronterab.repo.UserRepository;
+import bookfronterab.service.AccessTokenClaims;
+import bookfronterab.service.AccessTokenService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CookieValue;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Optional;
+
+/**
+ * Renovación de tokens del modo sin sesión ({@code app.auth.mode=token}).
+ */
+@RestController
+@RequestMapping("/api/v1/auth/token")
+@RequiredArgsConstructor
+public class AuthTokenController {
+
+    private final AccessTokenService accessTokenService;
+    private final UserRepository userRepository;
+
+    /**
+     * Emite un token de acceso nuevo a partir de la cookie de refresco y la rota.
+     * El usuario se vuelve a leer de la base de datos, así un cambio de rol se refleja
+     * a más tardar al vencer el token de acceso anterior.
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<AccessTokenDto> refresh(
+            @CookieValue(name = AccessTokenService.REFRESH_COOKIE, required = false) String refreshToken) {
+        if (!accessTokenService.isEnabled()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+
+        Optional<AccessTokenClaims> claims = accessTokenService.verifyRefreshToken(refreshToken);
+        Optional<User> user = claims.flatMap(c -> userRepository.findById(c.userId()));
+        if (user.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .header(HttpHeaders.SET_COOKIE, accessTokenService.clearRefreshCookie().toString())
+                    .build();
+        }
+
+        String subject = claims.get().subject();
+        String accessToken = accessTokenService.issueAccessToken(user.get(), subject);
+        String rotatedRefreshToken = accessTokenService.issueRefreshToken(user.get(), subject);
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.SET_COOKIE, accessTokenService.refreshCookie(rotatedRefreshToken).toString())
+                .body(new AccessTokenDto(accessToken, accessTokenService.accessTtl().toSeconds()));
+    }
+}
@@ -0,0 +1,72 @@
+package bookfronterab.controller;
+
+import bookfronterab.dto.FlightRecordingDto;
+import bookfronterab.service.FlightRecorderService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Grabaciones de JDK Flight Recorder bajo demanda (solo administradores, ver SecurityConfig).
+ * <p>
+ * Flujo típico: {@code POST /start}, reproducir el problema (o esperar a que ocurra) y
+ * {@code GET /dump} para descargar el .jfr y abrirlo con JDK Mission Control.
+ * </p>
+ */
+@RestController
+@RequestMapping("/api/v1/admin/jfr")
+@RequiredArgsConstructor
+public class FlightRecorderController {
+
+    private final FlightRecorderService flightRecorderService;
+
+    @PostMapping("/start")
+    public FlightRecordingDto start(@RequestParam(defaultValue = "default") String settings) {
+        return flightRecorderService.start(settings);
+    }
+
+    @PostMapping("/stop")
+    public FlightRecordingDto stop() {
+        return flightRecorderService.stop();
+    }
+
+    @GetMapping
+    public ResponseEntity<FlightRecordingDto> status() {
+        return ResponseEntity.of(flightRecorderService.status());
+    }
+
+    /**
+     * Descarga lo grabado hasta ahora. El archivo temporal se borra al terminar el envío.
+     */
+    @GetMapping("/dump")
+    public ResponseEntity<StreamingResponseBody> dump() throws IOException {
+        Path file = flightRecorderService.dump();
+        StreamingResponseBody body = out -> {
+            try {
+                Files.copy(file, out);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .contentLength(Files.size(file))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(file.getFileName().toString())
+                        .build()
+                        .toString())
+                .body(body);
+    }
+}
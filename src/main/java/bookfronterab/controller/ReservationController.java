@@ -96,7 +96,7 @@ public class ReservationController {
     }
     /**
      * Endpoint para que el ADMIN vea las reservas de una sala específica.
-     * Útil para gestionar conflictos o ver disponibilidad.
+     * Útil para gestionar conflictos o ver disponibilidad. Incluye los meses archivados.
      */
     @GetMapping("/room/{roomId}")
     @ResponseStatus(HttpStatus.OK)
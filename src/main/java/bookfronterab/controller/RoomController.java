@@ -1,6 +1,8 @@
 package bookfronterab.controller;
 
+import bookfronterab.dto.RoomDecommissionDto;
 import bookfronterab.dto.RoomDto;
+import bookfronterab.service.RoomDecommissionService;
 import bookfronterab.service.RoomService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -21,6 +23,7 @@ import java.util.List;
 public class RoomController {
 
     private final RoomService roomService;
+    private final RoomDecommissionService roomDecommissionService;
 
     @GetMapping
     public List<RoomDto> getAllRooms() {
@@ -36,10 +39,23 @@ public class RoomController {
         return new ResponseEntity<>(newRoom, HttpStatus.CREATED);
     }
 
+    /**
+     * Inicia la baja de la sala. La sala se oculta de inmediato y sus reservas se
+     * eliminan en segundo plano; el progreso se consulta en /decommission-jobs/{jobId}.
+     */
     @DeleteMapping("{id}")
-    public ResponseEntity<HttpStatus> deleteRoom(@PathVariable Long id) {
-        roomService.deleteRoom(id);
-        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    public ResponseEntity<RoomDecommissionDto> deleteRoom(@PathVariable Long id) {
+        return new ResponseEntity<>(roomDecommissionService.start(id), HttpStatus.ACCEPTED);
+    }
+
+    @GetMapping("decommission-jobs")
+    public List<RoomDecommissionDto> getDecommissionJobs() {
+        return roomDecommissionService.getRecentJobs();
+    }
+
+    @GetMapping("decommission-jobs/{jobId}")
+    public RoomDecommissionDto getDecommissionJob(@PathVariable Long jobId) {
+        return roomDecommissionService.getJob(jobId);
     }
 
     @PatchMapping(value = "{id}", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
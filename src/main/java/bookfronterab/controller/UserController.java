@@ -4,8 +4,9 @@ import bookfronterab.dto.UserDto;
 import bookfronterab.model.User;
 import bookfronterab.model.UserRole;
 import bookfronterab.repo.UserRepository;
+import bookfronterab.service.AccessTokenService;
 import jakarta.servlet.http.HttpServletRequest;
-import jakarta.servlet.http.HttpSession;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -13,9 +14,11 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
 import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.security.web.context.SecurityContextRepository;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
@@ -34,6 +37,8 @@ import java.util.List;
 public class UserController {
 
     private final UserRepository userRepository;
+    private final SecurityContextRepository securityContextRepository;
+    private final AccessTokenService accessTokenService;
     //  INYECTAR LA LISTA DE CORREOS PERMITIDOS
     @Value("#{'${app.admin.emails}'.split(',')}")
     private List<String> allowedAdminEmails;
@@ -56,7 +61,8 @@ public class UserController {
      */
     @PatchMapping("/toggle-role")
     @Transactional
-    public ResponseEntity<UserDto> toggleRole(@AuthenticationPrincipal OAuth2User principal, HttpServletRequest request) {
+    public ResponseEntity<UserDto> toggleRole(@AuthenticationPrincipal OAuth2User principal,
+                                              HttpServletRequest request, HttpServletResponse response) {
         if (principal == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
@@ -88,11 +94,16 @@ public class UserController {
                 ((OAuth2AuthenticationToken) auth).getAuthorizedClientRegistrationId()
         );
 
-        SecurityContextHolder.getContext().setAuthentication(newAuth);
+        SecurityContext context = SecurityContextHolder.getContext();
+        context.setAuthentication(newAuth);
+        securityContextRepository.saveContext(context, request, response);
 
-        HttpSession session = request.getSession(false);
-        if (session != null) {
-            session.setAttribute("SPRING_SECURITY_CONTEXT", SecurityContextHolder.getContext());
+        if (accessTokenService.isEnabled()) {
+            // Sin sesión no hay nada que actualizar: el cliente debe usar un token con el nuevo rol
+            return ResponseEntity.ok()
+                    .header(AccessTokenService.ACCESS_TOKEN_HEADER,
+                            accessTokenService.issueAccessToken(savedUser, principal.getName()))
+                    .body(mapToDto(savedUser));
         }
 
         return ResponseEntity.ok(mapToDto(savedUser));
@@ -0,0 +1,13 @@
+package bookfronterab.dto;
+
+/**
+ * Token de acceso entregado al renovar la autenticación en el modo sin sesión.
+ *
+ * @param accessToken      El token a enviar como {@code Authorization: Bearer}.
+ * @param expiresInSeconds Segundos hasta su vencimiento (para renovarlo antes).
+ */
+public record AccessTokenDto(
+        String accessToken,
+        long expiresInSeconds
+) {
+}
@@ -0,0 +1,23 @@
+package bookfronterab.dto;
+
+import java.time.Instant;
+
+/**
+ * Estado de la grabación de Flight Recorder iniciada desde la administración.
+ *
+ * @param id            Identificador de la grabación en la JVM.
+ * @param state         NEW, RUNNING, STOPPED o CLOSED.
+ * @param settings      Configuración usada ("default" o "profile").
+ * @param startTime     Inicio de la grabación (null si aún no empezó).
+ * @param maxAgeSeconds Antigüedad máxima de los datos que se conservan.
+ * @param maxSizeBytes  Tamaño máximo en disco antes de descartar lo más antiguo.
+ */
+public record FlightRecordingDto(
+        long id,
+        String state,
+        String settings,
+        Instant startTime,
+        long maxAgeSeconds,
+        long maxSizeBytes
+) {
+}
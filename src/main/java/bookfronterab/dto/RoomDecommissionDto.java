@@ -0,0 +1,32 @@
+package bookfronterab.dto;
+
+import bookfronterab.model.DecommissionStatus;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Estado de un trabajo de baja de sala, expuesto en el panel de administración.
+ *
+ * @param jobId               El ID del trabajo.
+ * @param roomId              El ID de la sala que se está eliminando.
+ * @param roomName            El nombre de la sala.
+ * @param status              Estado actual del trabajo.
+ * @param totalReservations   Reservas que tenía la sala al iniciar el trabajo.
+ * @param deletedReservations Reservas eliminadas hasta ahora.
+ * @param progressPercent     Avance aproximado (0-100).
+ * @param createdAt           Fecha de creación del trabajo.
+ * @param finishedAt          Fecha de término (null si sigue en curso).
+ * @param errorMessage        Motivo del fallo, si lo hubo.
+ */
+public record RoomDecommissionDto(
+        Long jobId,
+        Long roomId,
+        String roomName,
+        DecommissionStatus status,
+        long totalReservations,
+        long deletedReservations,
+        int progressPercent,
+        OffsetDateTime createdAt,
+        OffsetDateTime finishedAt,
+        String errorMessage
+) {}
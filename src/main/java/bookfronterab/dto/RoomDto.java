@@ -1,5 +1,6 @@
 package bookfronterab.dto;
 
+import bookfronterab.model.ImageStatus;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -17,5 +18,18 @@ public class RoomDto {
     private int capacity;
     private List<String> equipment;
     private int floor;
+    /**
+     * URL de la imagen. En las respuestas de disponibilidad y reservas es la miniatura.
+     */
     private String imageUrl;
+
+    /**
+     * La imagen en tamaño miniatura, mediano y completo (null si la sala no tiene imagen).
+     */
+    private RoomImageVariants imageVariants;
+
+    /**
+     * PENDING mientras una imagen nueva se sube en segundo plano (imageUrl sigue siendo la anterior).
+     */
+    private ImageStatus imageStatus;
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+package bookfronterab.dto;
+
+/**
+ * URLs de la imagen de una sala en distintos tamaños, para que el cliente descargue
+ * solo la resolución que va a mostrar.
+ *
+ * @param thumbnail Miniatura para listados y grillas.
+ * @param medium    Tamaño intermedio para vistas de detalle.
+ * @param full      Imagen completa (optimizada en formato y calidad).
+ */
+public record RoomImageVariants(
+        String thumbnail,
+        String medium,
+        String full
+) {
+}
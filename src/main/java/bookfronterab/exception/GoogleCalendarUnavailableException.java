@@ -0,0 +1,21 @@
+package bookfronterab.exception;
+
+import java.io.IOException;
+
+/**
+ * Excepción lanzada cuando una llamada a Google no se intenta o se abandona porque
+ * el servicio se considera no disponible: circuito abierto, bulkhead lleno o
+ * tiempo de espera agotado.
+ * * Extiende IOException para que los llamadores existentes la traten como cualquier
+ * otro fallo de comunicación, pero pueden distinguirla para diferir la sincronización.
+ */
+public class GoogleCalendarUnavailableException extends IOException {
+
+    public GoogleCalendarUnavailableException(String message) {
+        super(message);
+    }
+
+    public GoogleCalendarUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
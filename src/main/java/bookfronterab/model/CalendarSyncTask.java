@@ -0,0 +1,61 @@
+package bookfronterab.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Sincronización con Google Calendar que falló y queda pendiente de reintento.
+ * Al estar en la base de datos sobrevive a reinicios y se guarda en la misma
+ * transacción que el cambio de la reserva que la originó.
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "\"calendar_sync_tasks\"",
+        indexes = @Index(name = "idx_calendar_sync_tasks_next_attempt", columnList = "nextAttemptAt"))
+public class CalendarSyncTask {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "calendar_sync_task_seq")
+    @SequenceGenerator(name = "calendar_sync_task_seq", sequenceName = "calendar_sync_task_id_seq", allocationSize = 1)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private CalendarSyncType type;
+
+    /**
+     * Reserva afectada (CREATE y UPDATE). Sin FK: la reserva puede cancelarse mientras espera.
+     */
+    private Long reservationId;
+
+    /**
+     * Dueño del calendario; permite agrupar los reintentos por usuario.
+     */
+    @Column(nullable = false)
+    private Long userId;
+
+    /**
+     * Evento a eliminar (DELETE), ya que la reserva ya no existe.
+     */
+    private String googleEventId;
+
+    private int attempts;
+
+    @Column(nullable = false)
+    private OffsetDateTime nextAttemptAt;
+
+    @Column(length = 1024)
+    private String lastError;
+
+    private OffsetDateTime createdAt;
+}
@@ -0,0 +1,10 @@
+package bookfronterab.model;
+
+/**
+ * Tipo de operación pendiente contra Google Calendar.
+ */
+public enum CalendarSyncType {
+    CREATE,
+    UPDATE,
+    DELETE
+}
@@ -0,0 +1,8 @@
+package bookfronterab.model;
+
+public enum DecommissionStatus {
+    PENDING,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,37 @@
+package bookfronterab.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Índice de imágenes ya subidas a Cloudinary, por hash de contenido (SHA-256 del archivo original).
+ * Permite reutilizar la URL cuando se vuelve a subir exactamente el mismo archivo.
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "\"image_assets\"",
+        indexes = @Index(name = "idx_image_assets_secure_url", columnList = "secureUrl"))
+public class ImageAsset {
+
+    /**
+     * SHA-256 del archivo original, en hexadecimal.
+     */
+    @Id
+    @Column(length = 64)
+    private String contentHash;
+
+    @Column(nullable = false, length = 512)
+    private String secureUrl;
+
+    private OffsetDateTime createdAt;
+}
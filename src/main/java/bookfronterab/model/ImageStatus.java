@@ -0,0 +1,13 @@
+package bookfronterab.model;
+
+/**
+ * Estado de la imagen de una sala respecto de su subida a Cloudinary.
+ */
+public enum ImageStatus {
+    /** La imagen está en Cloudinary y {@code imageUrl} la referencia. */
+    READY,
+    /** Hay una imagen nueva subiéndose en segundo plano; {@code imageUrl} aún es la anterior. */
+    PENDING,
+    /** La última subida falló tras reintentarse; se conserva la imagen anterior. */
+    FAILED
+}
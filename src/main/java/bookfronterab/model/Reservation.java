@@ -44,4 +44,11 @@ public class Reservation {
     @Column(nullable = true) // es opcional
     private String googleEventId;
 
+    /**
+     * ETag del evento en Google Calendar tras la última escritura o reconciliación.
+     * Se envía como If-Match al actualizar para no pisar cambios hechos en Google.
+     */
+    @Column(length = 64)
+    private String googleEventEtag;
+
 }
\ No newline at end of file
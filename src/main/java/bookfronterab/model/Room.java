@@ -7,6 +7,7 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import java.time.OffsetDateTime;
 import java.util.List;
 
 /**
@@ -77,4 +78,33 @@ public class Room {
     @Column(name = "image_url")
     private String imageUrl;
 
+    /**
+     * Estado de la subida de la imagen. Null en salas que nunca tuvieron una subida en
+     * segundo plano, lo que equivale a {@link ImageStatus#READY}.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private ImageStatus imageStatus;
+
+    /**
+     * Hash de la imagen que se está subiendo. Si llega una imagen más nueva mientras tanto,
+     * la subida anterior ve que el hash cambió y no pisa la URL.
+     */
+    @Column(length = 64)
+    private String pendingImageHash;
+
+    /**
+     * Desde cuándo está pendiente la subida. Permite cerrar solo las subidas que quedaron
+     * huérfanas (p. ej. por la caída de una instancia) sin tocar las que siguen en curso.
+     */
+    private OffsetDateTime pendingImageSince;
+
+    /**
+     * Indica que la sala está siendo dada de baja (ver {@link RoomDecommissionJob}).
+     * Una sala retirada no aparece en la disponibilidad ni acepta nuevas reservas,
+     * mientras sus reservas históricas se eliminan en segundo plano.
+     */
+    @Column(nullable = false, columnDefinition = "boolean default false")
+    private boolean retired;
+
 }
\ No newline at end of file
@@ -0,0 +1,59 @@
+package bookfronterab.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Trabajo en segundo plano que da de baja una sala: elimina sus reservas
+ * por bloques, limpia los eventos de Google Calendar y finalmente borra la sala.
+ * Guarda el progreso para poder consultarlo desde el panel de administración.
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "\"room_decommission_jobs\"")
+public class RoomDecommissionJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "room_decommission_job_seq")
+    @SequenceGenerator(name = "room_decommission_job_seq", sequenceName = "room_decommission_job_id_seq", allocationSize = 1)
+    private Long id;
+
+    /**
+     * ID de la sala (sin FK, ya que la sala se elimina al terminar el trabajo).
+     */
+    @Column(nullable = false)
+    private Long roomId;
+
+    private String roomName;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private DecommissionStatus status;
+
+    private long totalReservations;
+
+    private long deletedReservations;
+
+    private OffsetDateTime createdAt;
+
+    private OffsetDateTime finishedAt;
+
+    /**
+     * Última señal de vida de la instancia que ejecuta el trabajo. Un trabajo RUNNING
+     * sin señal reciente quedó huérfano y otra instancia puede reclamarlo.
+     */
+    private OffsetDateTime heartbeatAt;
+
+    @Column(length = 1024)
+    private String errorMessage;
+}
@@ -42,4 +42,11 @@ public class User {
     private String googleRefreshToken;
 
     private OffsetDateTime googleTokenExpiryDate;
+
+    /**
+     * Token de sincronización incremental de Google Calendar (events.list syncToken).
+     * Es 'null' hasta la primera reconciliación o si Google lo invalida (410 Gone).
+     */
+    @Column(length = 512)
+    private String googleCalendarSyncToken;
 }
\ No newline at end of file
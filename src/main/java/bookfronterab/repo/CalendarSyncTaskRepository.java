@@ -0,0 +1,38 @@
+package bookfronterab.repo;
+
+import bookfronterab.model.CalendarSyncTask;
+import bookfronterab.model.CalendarSyncType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface CalendarSyncTaskRepository extends JpaRepository<CalendarSyncTask, Long> {
+
+    /**
+     * Reclama en una sola transacción hasta {@code limit} tareas vencidas, de la más antigua
+     * a la más nueva, y corre su próximo intento hasta {@code leaseUntil}. Con
+     * {@code FOR UPDATE SKIP LOCKED} dos instancias que drenan a la vez se reparten las
+     * tareas en vez de reintentar las mismas; si la instancia cae antes de terminar, las
+     * tareas vuelven a estar vencidas al expirar el plazo.
+     */
+    @Transactional
+    @Query(value = """
+            UPDATE calendar_sync_tasks SET next_attempt_at = :leaseUntil
+            WHERE id IN (SELECT id FROM calendar_sync_tasks
+                         WHERE next_attempt_at <= :now
+                         ORDER BY next_attempt_at
+                         LIMIT :limit
+                         FOR UPDATE SKIP LOCKED)
+            RETURNING *
+            """, nativeQuery = true)
+    List<CalendarSyncTask> claimDue(@Param("now") OffsetDateTime now,
+                                    @Param("leaseUntil") OffsetDateTime leaseUntil,
+                                    @Param("limit") int limit);
+
+    boolean existsByReservationIdAndTypeIn(Long reservationId, Collection<CalendarSyncType> types);
+}
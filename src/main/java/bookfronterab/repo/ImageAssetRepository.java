@@ -0,0 +1,36 @@
+package bookfronterab.repo;
+
+import bookfronterab.model.ImageAsset;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface ImageAssetRepository extends JpaRepository<ImageAsset, String> {
+
+    /**
+     * Busca la imagen por hash y bloquea su fila (PESSIMISTIC_WRITE) hasta el fin de la
+     * transacción. Serializa la reutilización de una imagen con su borrado.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM ImageAsset a WHERE a.contentHash = :contentHash")
+    Optional<ImageAsset> findByIdWithLock(@Param("contentHash") String contentHash);
+
+    /**
+     * Igual que {@link #findByIdWithLock}, pero por URL (una URL puede venir de varios hashes).
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM ImageAsset a WHERE a.secureUrl = :secureUrl")
+    List<ImageAsset> findBySecureUrlWithLock(@Param("secureUrl") String secureUrl);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ImageAsset a WHERE a.secureUrl = :secureUrl")
+    int deleteBySecureUrl(@Param("secureUrl") String secureUrl);
+}
@@ -1,13 +1,18 @@
 package bookfronterab.repo;
 
 import bookfronterab.model.Reservation;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.ZonedDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Repositorio para acceder a los datos de las entidades {@link Reservation}.
@@ -15,6 +20,20 @@ import java.util.List;
  */
 public interface ReservationRepository extends JpaRepository<Reservation, Long> {
 
+    /**
+     * Cota de la duración de una reserva. Permite acotar por abajo el start_at de las búsquedas
+     * por solapamiento, para que PostgreSQL solo lea las particiones mensuales de esas fechas
+     * (ver V3__partition_reservations_by_month.sql).
+     * <p>
+     * Es a propósito mucho mayor que el máximo de 60 minutos que valida
+     * {@code ReservationService} al crear o modificar: ese límite no lo impone la base de datos
+     * y puede cambiar, y una reserva más larga que esta cota quedaría fuera de la búsqueda y su
+     * solapamiento no se detectaría. El margen solo cuesta leer un día más de la partición
+     * vecina. No reducirla a una hora.
+     * </p>
+     */
+    Duration MAX_RESERVATION_SPAN = Duration.ofDays(1);
+
     /**
      * Busca reservas que se solapen con un intervalo de tiempo específico para una sala determinada.
      * <p>
@@ -29,9 +48,18 @@ public interface ReservationRepository extends JpaRepository<Reservation, Long>
      * @param newEndAt La hora de fin del nuevo intervalo de reserva (excluyente para el inicio).
      * @return Una lista de reservas que entran en conflicto con el horario solicitado.
      */
-    @Query("SELECT r FROM Reservation r WHERE r.room.id = :roomId AND r.startAt < :newEndAt AND r.endAt > :newStartAt")
-    List<Reservation> findConflictingReservations(
+    default List<Reservation> findConflictingReservations(Long roomId, ZonedDateTime newStartAt, ZonedDateTime newEndAt) {
+        return findConflictingReservationsStartingAfter(roomId, newStartAt.minus(MAX_RESERVATION_SPAN), newStartAt, newEndAt);
+    }
+
+    /**
+     * Igual que {@link #findConflictingReservations}, con una cota inferior explícita para start_at.
+     */
+    @Query("SELECT r FROM Reservation r WHERE r.room.id = :roomId AND r.startAt > :earliestStartAt " +
+            "AND r.startAt < :newEndAt AND r.endAt > :newStartAt")
+    List<Reservation> findConflictingReservationsStartingAfter(
             @Param("roomId") Long roomId,
+            @Param("earliestStartAt") ZonedDateTime earliestStartAt,
             @Param("newStartAt") ZonedDateTime newStartAt,
             @Param("newEndAt") ZonedDateTime newEndAt
     );
@@ -44,8 +72,17 @@ public interface ReservationRepository extends JpaRepository<Reservation, Long>
      * @param endOfDay El fin del día (ej. 23:59:59).
      * @return Una lista de todas las reservas que ocurren en ese día.
      */
-    @Query("SELECT r FROM Reservation r WHERE r.startAt < :endOfDay AND r.endAt > :startOfDay")
-    List<Reservation> findAllReservationsBetween(
+    default List<Reservation> findAllReservationsBetween(ZonedDateTime startOfDay, ZonedDateTime endOfDay) {
+        return findAllReservationsStartingAfter(startOfDay.minus(MAX_RESERVATION_SPAN), startOfDay, endOfDay);
+    }
+
+    /**
+     * Igual que {@link #findAllReservationsBetween}, con una cota inferior explícita para start_at.
+     */
+    @Query("SELECT r FROM Reservation r WHERE r.startAt > :earliestStartAt " +
+            "AND r.startAt < :endOfDay AND r.endAt > :startOfDay")
+    List<Reservation> findAllReservationsStartingAfter(
+            @Param("earliestStartAt") ZonedDateTime earliestStartAt,
             @Param("startOfDay") ZonedDateTime startOfDay,
             @Param("endOfDay") ZonedDateTime endOfDay
     );
@@ -56,6 +93,15 @@ public interface ReservationRepository extends JpaRepository<Reservation, Long>
      */
     List<Reservation> findByUserEmailOrderByStartAtAsc(String userEmail);
 
+    /**
+     * Reservas de un usuario en los meses archivados (particiones movidas a
+     * {@code reservations_archive} por ReservationPartitionService), ordenadas por fecha.
+     * Son todas anteriores a las de {@link #findByUserEmailOrderByStartAtAsc}.
+     */
+    @Query(value = "SELECT r.* FROM reservations_archive r JOIN users u ON u.id = r.user_id " +
+            "WHERE u.email = :email ORDER BY r.start_at", nativeQuery = true)
+    List<Reservation> findArchivedByUserEmail(@Param("email") String userEmail);
+
     long countByUserEmailAndStartAtBetween(String email, ZonedDateTime start, ZonedDateTime end);
     /**
      * Busca todas las reservas de una sala específica, ordenadas por fecha.
@@ -63,6 +109,14 @@ public interface ReservationRepository extends JpaRepository<Reservation, Long>
      */
     List<Reservation> findByRoomIdOrderByStartAtAsc(Long roomId);
 
+    /**
+     * Reservas de una sala en los meses archivados, ordenadas por fecha. Son todas anteriores
+     * a las de {@link #findByRoomIdOrderByStartAtAsc}.
+     */
+    @Query(value = "SELECT r.* FROM reservations_archive r WHERE r.room_id = :roomId ORDER BY r.start_at",
+            nativeQuery = true)
+    List<Reservation> findArchivedByRoomId(@Param("roomId") Long roomId);
+
     // Cuenta reservas en un rango de fechas EXCLUYENDO una reserva específica (por ID).
     // Esto es vital para permitir modificaciones dentro de la misma semana sin chocar con el límite.
     long countByUserEmailAndStartAtBetweenAndIdNot(
@@ -72,13 +126,74 @@ public interface ReservationRepository extends JpaRepository<Reservation, Long>
             Long excludedId
     );
 
+    /**
+     * Busca una reserva cargando su usuario y sala, para usarla fuera de una transacción
+     * (p. ej. al reintentar la sincronización con Google Calendar).
+     */
+    @Query("SELECT r FROM Reservation r JOIN FETCH r.user JOIN FETCH r.room WHERE r.id = :id")
+    Optional<Reservation> findWithUserAndRoomById(@Param("id") Long id);
+
+    /**
+     * Reservas de un usuario vinculadas a los eventos de Google indicados, con su sala cargada.
+     * Se usa para aplicar los cambios de la reconciliación incremental.
+     */
+    @Query("SELECT r FROM Reservation r JOIN FETCH r.room WHERE r.user.id = :userId AND r.googleEventId IN :eventIds")
+    List<Reservation> findSyncedByUserAndEventIds(@Param("userId") Long userId, @Param("eventIds") Collection<String> eventIds);
+
+    /**
+     * Actualiza solo el vínculo con Google Calendar, sin pisar cambios locales concurrentes
+     * sobre la reserva (sala, horario).
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Reservation r SET r.googleEventId = :eventId, r.googleEventEtag = :etag WHERE r.id = :id")
+    int updateGoogleEventLink(@Param("id") Long id, @Param("eventId") String eventId, @Param("etag") String etag);
+
+    long countByRoomId(Long roomId);
+
+    /**
+     * Obtiene un bloque de IDs de reservas de una sala, para eliminarlas por partes.
+     *
+     * @param roomId   El ID de la sala.
+     * @param pageable Tamaño del bloque (se usa siempre la primera página).
+     */
+    @Query("SELECT r.id FROM Reservation r WHERE r.room.id = :roomId ORDER BY r.id")
+    List<Long> findIdsByRoomId(@Param("roomId") Long roomId, Pageable pageable);
+
+    /**
+     * Reservas del bloque que tienen un evento de Google Calendar asociado.
+     */
+    List<Reservation> findByIdInAndGoogleEventIdIsNotNull(List<Long> ids);
+
+    /**
+     * Elimina un bloque de reservas con una sola sentencia DELETE.
+     *
+     * @param ids Los IDs de las reservas a eliminar.
+     * @return La cantidad de filas eliminadas.
+     */
+    @Modifying
+    @Query("DELETE FROM Reservation r WHERE r.id IN :ids")
+    int deleteByIdIn(@Param("ids") List<Long> ids);
+
     /**
      * Elimina todas las reservas asociadas a una sala específica.
-     * Se utiliza antes de eliminar una sala para mantener la integridad referencial.
+     * Se utiliza como barrido final antes de eliminar una sala (ver RoomDecommissionService),
+     * para mantener la integridad referencial.
      * * @param roomId El ID de la sala cuyas reservas se eliminarán.
      */
     @Modifying // Modifica la db
     @Query("DELETE FROM Reservation r WHERE r.room.id = :roomId")
     void deleteByRoomId(@Param("roomId") Long roomId);
 
+    /**
+     * Elimina las reservas archivadas de una sala; siguen referenciando la sala y
+     * bloquearían su eliminación.
+     *
+     * @param roomId El ID de la sala.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM reservations_archive WHERE room_id = :roomId", nativeQuery = true)
+    void deleteArchivedByRoomId(@Param("roomId") Long roomId);
+
 }
\ No newline at end of file
@@ -0,0 +1,54 @@
+package bookfronterab.repo;
+
+import bookfronterab.model.DecommissionStatus;
+import bookfronterab.model.RoomDecommissionJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface RoomDecommissionJobRepository extends JpaRepository<RoomDecommissionJob, Long> {
+
+    Optional<RoomDecommissionJob> findFirstByRoomIdAndStatusIn(Long roomId, Collection<DecommissionStatus> statuses);
+
+    List<RoomDecommissionJob> findTop20ByOrderByIdDesc();
+
+    /**
+     * Trabajos que nadie está ejecutando: pendientes desde antes del corte (su evento
+     * de inicio se perdió) o en curso sin señal de vida desde el corte.
+     */
+    @Query("""
+            SELECT j.id FROM RoomDecommissionJob j
+            WHERE (j.status = :pending AND j.createdAt < :staleBefore)
+               OR (j.status = :running AND (j.heartbeatAt IS NULL OR j.heartbeatAt < :staleBefore))
+            """)
+    List<Long> findStaleJobIds(@Param("pending") DecommissionStatus pending,
+                               @Param("running") DecommissionStatus running,
+                               @Param("staleBefore") OffsetDateTime staleBefore);
+
+    /**
+     * Reclama el trabajo para esta instancia en un solo UPDATE: solo una de las
+     * instancias que lo intenten a la vez obtiene la fila.
+     *
+     * @return 1 si el trabajo quedó reclamado, 0 si otra instancia lo tiene o ya terminó.
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+            UPDATE RoomDecommissionJob j SET j.status = :running, j.heartbeatAt = :now
+            WHERE j.id = :id
+              AND (j.status = :pending
+                   OR (j.status = :running AND (j.heartbeatAt IS NULL OR j.heartbeatAt < :staleBefore)))
+            """)
+    int claim(@Param("id") Long id,
+              @Param("pending") DecommissionStatus pending,
+              @Param("running") DecommissionStatus running,
+              @Param("now") OffsetDateTime now,
+              @Param("staleBefore") OffsetDateTime staleBefore);
+}
@@ -1,11 +1,16 @@
 package bookfronterab.repo;
 
+import bookfronterab.model.ImageStatus;
 import bookfronterab.model.Room;
 import org.springframework.data.jpa.repository.JpaRepository;
 import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.OffsetDateTime;
+import java.util.List;
 import java.util.Optional;
 
 public interface RoomRepository extends JpaRepository<Room, Long> {
@@ -23,5 +28,30 @@ public interface RoomRepository extends JpaRepository<Room, Long> {
     @Query("SELECT r FROM Room r WHERE r.id = :id")
     Optional<Room> findByIdWithLock(@Param("id") Long id);
 
+    /**
+     * Devuelve las salas activas, omitiendo las que están siendo dadas de baja.
+     */
+    List<Room> findByRetiredFalse();
+
+    /**
+     * Indica si alguna sala usa la imagen. Las imágenes se comparten entre salas cuando
+     * se sube el mismo archivo, así que solo se borran de Cloudinary si nadie las referencia.
+     */
+    boolean existsByImageUrl(String imageUrl);
+
+    /**
+     * Marca como fallidas las subidas pendientes desde antes de {@code staleBefore}
+     * (o sin fecha). Cierra las subidas que un reinicio o la caída de una instancia dejó
+     * a medias, sin tocar las que otra instancia sigue procesando.
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+            UPDATE Room r SET r.imageStatus = :failed, r.pendingImageHash = NULL, r.pendingImageSince = NULL
+            WHERE r.imageStatus = :pending AND (r.pendingImageSince IS NULL OR r.pendingImageSince < :staleBefore)
+            """)
+    int failStaleUploads(@Param("pending") ImageStatus pending,
+                         @Param("failed") ImageStatus failed,
+                         @Param("staleBefore") OffsetDateTime staleBefore);
 
 }
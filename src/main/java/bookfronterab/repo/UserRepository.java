@@ -2,9 +2,67 @@ package bookfronterab.repo;
 
 import bookfronterab.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
+
+    /**
+     * Busca usuarios con trabajo pendiente en Google Calendar (reservas sincronizadas que
+     * aún no terminan y que comienzan antes del horizonte) cuyo token expira antes del umbral.
+     * Se usa para refrescar tokens de forma proactiva antes de que los necesite una sincronización.
+     *
+     * @param now            Instante actual; solo cuentan reservas que terminan después.
+     * @param horizon        Solo cuentan reservas que comienzan antes de este instante.
+     * @param expiringBefore Umbral de expiración del token de acceso.
+     * @return Usuarios (sin repetir) cuyo token conviene refrescar.
+     */
+    @Query("SELECT DISTINCT u FROM Reservation r JOIN r.user u " +
+            "WHERE r.googleEventId IS NOT NULL AND r.endAt > :now AND r.startAt < :horizon " +
+            "AND u.googleRefreshToken IS NOT NULL " +
+            "AND (u.googleTokenExpiryDate IS NULL OR u.googleTokenExpiryDate < :expiringBefore)")
+    List<User> findUsersWithPendingCalendarWork(
+            @Param("now") ZonedDateTime now,
+            @Param("horizon") ZonedDateTime horizon,
+            @Param("expiringBefore") OffsetDateTime expiringBefore
+    );
+
+    /**
+     * Usuarios conectados a Google con al menos una reserva sincronizada que aún no termina.
+     * Son los que revisa la reconciliación incremental con Google Calendar.
+     */
+    @Query("SELECT DISTINCT u FROM Reservation r JOIN r.user u " +
+            "WHERE r.googleEventId IS NOT NULL AND r.endAt > :now AND u.googleRefreshToken IS NOT NULL")
+    List<User> findUsersWithSyncedReservations(@Param("now") ZonedDateTime now);
+
+    /**
+     * Guarda solo el syncToken, sin pisar otros campos del usuario (p. ej. un token recién refrescado).
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.googleCalendarSyncToken = :syncToken WHERE u.id = :userId")
+    int updateCalendarSyncToken(@Param("userId") Long userId, @Param("syncToken") String syncToken);
+
+    /**
+     * Guarda solo los tokens de Google, sin pisar otros campos que hayan cambiado desde que se
+     * cargó el usuario (p. ej. el rol o el syncToken). Si Google no rotó el refresh token
+     * ({@code refreshToken} nulo), se conserva el actual.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.googleAccessToken = :accessToken, " +
+            "u.googleRefreshToken = COALESCE(:refreshToken, u.googleRefreshToken), " +
+            "u.googleTokenExpiryDate = :expiryDate WHERE u.id = :userId")
+    int updateGoogleTokens(@Param("userId") Long userId,
+                           @Param("accessToken") String accessToken,
+                           @Param("refreshToken") String refreshToken,
+                           @Param("expiryDate") OffsetDateTime expiryDate);
 }
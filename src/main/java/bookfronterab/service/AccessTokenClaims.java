@@ -0,0 +1,25 @@
+package bookfronterab.service;
+
+import bookfronterab.model.UserRole;
+
+import java.time.Instant;
+
+/**
+ * Datos de un token firmado por {@link AccessTokenService}.
+ *
+ * @param subject   Identificador del usuario en Google ("sub").
+ * @param userId    ID del usuario en la base de datos.
+ * @param email     Email del usuario (null en los tokens de refresco).
+ * @param name      Nombre del usuario (null en los tokens de refresco).
+ * @param role      Rol al momento de emitir el token (null en los tokens de refresco).
+ * @param expiresAt Vencimiento del token.
+ */
+public record AccessTokenClaims(
+        String subject,
+        Long userId,
+        String email,
+        String name,
+        UserRole role,
+        Instant expiresAt
+) {
+}
@@ -0,0 +1,213 @@
+package bookfronterab.service;
+
+import bookfronterab.model.User;
+import bookfronterab.model.UserRole;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Emite y valida los tokens del modo de autenticación sin sesión ({@code app.auth.mode=token}).
+ * <p>
+ * Tras el login con Google se entrega un token de acceso de vida corta (JWT HS256 con el ID,
+ * email y rol del usuario) que el frontend envía como {@code Authorization: Bearer}. Validarlo
+ * solo requiere verificar la firma, sin sesión ni consulta a la base de datos, así que cualquier
+ * instancia atiende cualquier petición y el balanceador no necesita sesiones pegajosas.
+ * El token de refresco viaja en una cookie HttpOnly y solo sirve para pedir uno nuevo, momento
+ * en que se vuelve a leer el rol desde la base de datos.
+ * </p>
+ */
+@Service
+@Slf4j
+public class AccessTokenService {
+
+    public static final String REFRESH_COOKIE = "BF_REFRESH";
+    public static final String REFRESH_PATH = "/api/v1/auth/token";
+
+    /**
+     * Cabecera con el token nuevo cuando cambia el rol del usuario.
+     */
+    public static final String ACCESS_TOKEN_HEADER = "X-Access-Token";
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final String TYPE_ACCESS = "access";
+    private static final String TYPE_REFRESH = "refresh";
+    private static final Base64.Encoder BASE64 = Base64.getUrlEncoder().withoutPadding();
+    private static final String JWT_HEADER =
+            BASE64.encodeToString("{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8));
+
+    private final ObjectMapper objectMapper;
+    private final TimeService timeService;
+    private final boolean enabled;
+    private final SecretKeySpec signingKey;
+    private final Duration accessTtl;
+    private final Duration refreshTtl;
+
+    public AccessTokenService(ObjectMapper objectMapper,
+                              TimeService timeService,
+                              @Value("${app.auth.mode:session}") String mode,
+                              @Value("${app.auth.token.secret:}") String secret,
+                              @Value("${app.auth.token.access-ttl-minutes:15}") long accessTtlMinutes,
+                              @Value("${app.auth.token.refresh-ttl-days:7}") long refreshTtlDays) {
+        this.objectMapper = objectMapper;
+        this.timeService = timeService;
+        this.enabled = "token".equalsIgnoreCase(mode);
+        this.accessTtl = Duration.ofMinutes(accessTtlMinutes);
+        this.refreshTtl = Duration.ofDays(refreshTtlDays);
+
+        byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+        if (enabled && keyBytes.length < 32) {
+            throw new IllegalStateException("app.auth.token.secret debe tener al menos 32 bytes en el modo token.");
+        }
+        this.signingKey = keyBytes.length == 0 ? null : new SecretKeySpec(keyBytes, HMAC_ALGORITHM);
+    }
+
+    /**
+     * @return true si la API se autentica con tokens en lugar de la sesión HTTP.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Duration accessTtl() {
+        return accessTtl;
+    }
+
+    /**
+     * Emite un token de acceso con los datos que necesitan los controladores y la autorización.
+     *
+     * @param user    El usuario autenticado.
+     * @param subject Su identificador en Google ("sub").
+     */
+    public String issueAccessToken(User user, String subject) {
+        Map<String, Object> claims = baseClaims(TYPE_ACCESS, user, subject, accessTtl);
+        claims.put("email", user.getEmail());
+        claims.put("name", user.getNombre());
+        claims.put("role", user.getRol().name());
+        return sign(claims);
+    }
+
+    /**
+     * Emite un token de refresco (solo identifica al usuario).
+     */
+    public String issueRefreshToken(User user, String subject) {
+        return sign(baseClaims(TYPE_REFRESH, user, subject, refreshTtl));
+    }
+
+    public Optional<AccessTokenClaims> verifyAccessToken(String token) {
+        return verify(token, TYPE_ACCESS);
+    }
+
+    public Optional<AccessTokenClaims> verifyRefreshToken(String token) {
+        return verify(token, TYPE_REFRESH);
+    }
+
+    /**
+     * Cookie con el token de refresco, limitada a los endpoints de tokens.
+     */
+    public ResponseCookie refreshCookie(String refreshToken) {
+        return refreshCookieBuilder(refreshToken).maxAge(refreshTtl).build();
+    }
+
+    public ResponseCookie clearRefreshCookie() {
+        return refreshCookieBuilder("").maxAge(0).build();
+    }
+
+    private ResponseCookie.ResponseCookieBuilder refreshCookieBuilder(String value) {
+        // SameSite=None: el frontend está en otro dominio (igual que la cookie de sesión)
+        return ResponseCookie.from(REFRESH_COOKIE, value)
+                .httpOnly(true)
+                .secure(true)
+                .sameSite("None")
+                .path(REFRESH_PATH);
+    }
+
+    private Map<String, Object> baseClaims(String type, User user, String subject, Duration ttl) {
+        Instant now = timeService.nowOffset().toInstant();
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("typ", type);
+        claims.put("sub", subject);
+        claims.put("uid", user.getId());
+        claims.put("iat", now.getEpochSecond());
+        claims.put("exp", now.plus(ttl).getEpochSecond());
+        return claims;
+    }
+
+    private String sign(Map<String, Object> claims) {
+        if (signingKey == null) {
+            throw new IllegalStateException("No hay una clave configurada para firmar tokens (app.auth.token.secret).");
+        }
+        try {
+            String payload = BASE64.encodeToString(objectMapper.writeValueAsBytes(claims));
+            String signingInput = JWT_HEADER + "." + payload;
+            return signingInput + "." + BASE64.encodeToString(hmac(signingInput));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar el token.", e);
+        }
+    }
+
+    private Optional<AccessTokenClaims> verify(String token, String expectedType) {
+        if (signingKey == null || token == null) {
+            return Optional.empty();
+        }
+        int firstDot = token.indexOf('.');
+        int lastDot = token.lastIndexOf('.');
+        if (firstDot <= 0 || lastDot == firstDot || !JWT_HEADER.equals(token.substring(0, firstDot))) {
+            return Optional.empty();
+        }
+
+        try {
+            byte[] expected = hmac(token.substring(0, lastDot));
+            byte[] actual = Base64.getUrlDecoder().decode(token.substring(lastDot + 1));
+            if (!MessageDigest.isEqual(expected, actual)) {
+                return Optional.empty();
+            }
+
+            JsonNode claims = objectMapper.readTree(Base64.getUrlDecoder().decode(token.substring(firstDot + 1, lastDot)));
+            Instant expiresAt = Instant.ofEpochSecond(claims.path("exp").asLong());
+            if (!expectedType.equals(claims.path("typ").asText())
+                    || !expiresAt.isAfter(timeService.nowOffset().toInstant())) {
+                return Optional.empty();
+            }
+
+            return Optional.of(new AccessTokenClaims(
+                    claims.path("sub").asText(),
+                    claims.path("uid").asLong(),
+                    claims.hasNonNull("email") ? claims.get("email").asText() : null,
+                    claims.hasNonNull("name") ? claims.get("name").asText() : null,
+                    claims.hasNonNull("role") ? UserRole.valueOf(claims.get("role").asText()) : null,
+                    expiresAt));
+        } catch (IllegalArgumentException | IOException e) {
+            // Base64 o JSON inválido, o un rol desconocido
+            log.debug("Token rechazado: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private byte[] hmac(String input) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(signingKey);
+            return mac.doFinal(input.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 no disponible.", e);
+        }
+    }
+}
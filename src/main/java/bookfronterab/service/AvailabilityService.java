@@ -6,6 +6,7 @@ import bookfronterab.model.Reservation;
 import bookfronterab.model.Room;
 import bookfronterab.repo.ReservationRepository;
 import bookfronterab.repo.RoomRepository;
+import bookfronterab.service.jfr.AvailabilityComputationEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -26,10 +27,14 @@ public class AvailabilityService {
     private final RoomRepository roomRepo;
     private final ReservationRepository reservationRepo;
     private final TimeService timeService;
+    private final ImageVariantService imageVariantService;
 
     public AvailabilityDto.DailyAvailabilityResponse getDailyAvailability(LocalDate date) {
-        // Obtener todas las salas
-        List<RoomDto> rooms = roomRepo.findAll().stream()
+        AvailabilityComputationEvent event = new AvailabilityComputationEvent();
+        event.begin();
+
+        // Obtener las salas activas (las retiradas se ocultan mientras se eliminan)
+        List<RoomDto> rooms = roomRepo.findByRetiredFalse().stream()
                 .map(this::mapRoomToDto)
                 .toList();
 
@@ -43,12 +48,38 @@ public class AvailabilityService {
         // Obtener reservas
         List<Reservation> allReservationsForDay = reservationRepo.findAllReservationsBetween(startOfDay, endOfDay);
 
+        log.info("Calculando disponibilidad para {} salas y {} reservas en {}", rooms.size(), allReservationsForDay.size(), date);
+
+        List<AvailabilityDto.AvailabilityMatrixItemDto> availabilityMatrix =
+                buildAvailabilityMatrix(date, rooms, slots, allReservationsForDay);
+
+        if (event.shouldCommit()) {
+            event.date = date.toString();
+            event.rooms = rooms.size();
+            event.reservations = allReservationsForDay.size();
+            event.cells = availabilityMatrix.size();
+            event.commit();
+        }
+        return new AvailabilityDto.DailyAvailabilityResponse(rooms, slots, availabilityMatrix);
+    }
+
+    /**
+     * Construye la matriz sala × bloque indicando si cada bloque está libre.
+     * Visible en el paquete para los benchmarks (src/jmh).
+     *
+     * @param date         El día consultado.
+     * @param rooms        Las salas a mostrar.
+     * @param slots        Los bloques horarios del día.
+     * @param reservations Las reservas que se solapan con el día.
+     * @return Una celda por cada combinación de sala y bloque.
+     */
+    List<AvailabilityDto.AvailabilityMatrixItemDto> buildAvailabilityMatrix(LocalDate date, List<RoomDto> rooms,
+                                                                           List<AvailabilityDto.TimeSlotDto> slots,
+                                                                           List<Reservation> reservations) {
         // Agrupar reservas
-        Map<Long, List<Reservation>> reservationsByRoomId = allReservationsForDay.stream()
+        Map<Long, List<Reservation>> reservationsByRoomId = reservations.stream()
                 .collect(Collectors.groupingBy(r -> r.getRoom().getId()));
 
-        log.info("Calculando disponibilidad para {} salas y {} reservas en {}", rooms.size(), allReservationsForDay.size(), date);
-
         // Construir matriz
         List<AvailabilityDto.AvailabilityMatrixItemDto> availabilityMatrix = new ArrayList<>();
 
@@ -71,13 +102,13 @@ public class AvailabilityService {
             }
         }
 
-        return new AvailabilityDto.DailyAvailabilityResponse(rooms, slots, availabilityMatrix);
+        return availabilityMatrix;
     }
 
     /**
      * Genera los bloques horarios específicos de la UFRO según intranet.
      */
-    private List<AvailabilityDto.TimeSlotDto> generateTimeSlots() {
+    List<AvailabilityDto.TimeSlotDto> generateTimeSlots() {
         List<AvailabilityDto.TimeSlotDto> slots = new ArrayList<>();
 
         // Formato: Hora Inicio, Hora Fin, Etiqueta (Periodo)
@@ -108,6 +139,9 @@ public class AvailabilityService {
         list.add(new AvailabilityDto.TimeSlotDto(id, label, start, end));
     }
 
+    /**
+     * La grilla de disponibilidad muestra las salas en pequeño, así que se envía la miniatura.
+     */
     private RoomDto mapRoomToDto(Room room) {
         return RoomDto.builder()
                 .id(room.getId())
@@ -115,6 +149,8 @@ public class AvailabilityService {
                 .capacity(room.getCapacity())
                 .equipment(room.getEquipment())
                 .floor(room.getFloor())
+                .imageUrl(imageVariantService.thumbnailFor(room.getImageUrl()))
+                .imageVariants(imageVariantService.variantsFor(room.getImageUrl()))
                 .build();
     }
 }
\ No newline at end of file
@@ -1,25 +1,221 @@
 package bookfronterab.service;
 
+import bookfronterab.model.ImageAsset;
+import bookfronterab.repo.ImageAssetRepository;
+import bookfronterab.repo.RoomRepository;
+import bookfronterab.service.jfr.ExternalCallEvent;
 import com.cloudinary.Cloudinary;
 import com.cloudinary.utils.ObjectUtils;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class CloudinaryService {
 
     private final Cloudinary cloudinary;
+    private final ImageOptimizer imageOptimizer;
+    private final ImageAssetRepository imageAssetRepository;
+    private final RoomRepository roomRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TimeService timeService;
 
-    public String uploadFile(MultipartFile file) throws IOException {
-        // Retorna la URL segura (https)
-        return (String) cloudinary.uploader().upload(file.getBytes(), ObjectUtils.emptyMap()).get("secure_url");
+    /**
+     * Copia el multipart a {@code target} por bloques y calcula su SHA-256 en el mismo recorrido.
+     *
+     * @return El hash del contenido, en hexadecimal.
+     */
+    public String copyAndHash(MultipartFile file, Path target) throws IOException {
+        MessageDigest digest = sha256();
+        try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+            Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Busca la URL de una imagen ya subida con el mismo contenido.
+     */
+    public Optional<String> findByContentHash(String contentHash) {
+        return imageAssetRepository.findById(contentHash).map(ImageAsset::getSecureUrl);
+    }
+
+    /**
+     * Bloquea la entrada del índice de la imagen hasta el fin de la transacción en curso y
+     * confirma que sigue apuntando a {@code secureUrl}. Mientras se tenga el bloqueo,
+     * {@link #deleteIfUnreferenced} no puede borrarla, así que quien la reutiliza debe
+     * asignarla a su sala dentro de la misma transacción. Debe llamarse dentro de una transacción.
+     *
+     * @return false si la imagen se borró desde que se encontró con {@link #findByContentHash}.
+     */
+    public boolean lockAsset(String contentHash, String secureUrl) {
+        return imageAssetRepository.findByIdWithLock(contentHash)
+                .filter(asset -> asset.getSecureUrl().equals(secureUrl))
+                .isPresent();
+    }
+
+    /**
+     * Reduce la imagen si hace falta, la sube y la registra en el índice por hash.
+     *
+     * @param original    Archivo con la imagen original (no se borra).
+     * @param contentHash SHA-256 del archivo original.
+     * @return La URL segura (https) de la imagen en Cloudinary.
+     * @throws IOException Si falla el procesamiento o la subida.
+     */
+    public String uploadOptimized(Path original, String contentHash) throws IOException {
+        Path optimized = imageOptimizer.downscale(original);
+        try {
+            String secureUrl = uploadLocalFile(optimized != null ? optimized : original);
+            rememberAsset(contentHash, secureUrl);
+            return secureUrl;
+        } finally {
+            if (optimized != null) {
+                Files.deleteIfExists(optimized);
+            }
+        }
+    }
+
+    /**
+     * Sube un archivo local a Cloudinary. El cliente HTTP lo envía por streaming desde disco.
+     *
+     * @param image Archivo de la imagen.
+     * @return La URL segura (https) de la imagen en Cloudinary.
+     * @throws IOException Si falla la subida.
+     */
+    public String uploadLocalFile(Path image) throws IOException {
+        ExternalCallEvent event = new ExternalCallEvent("cloudinary", "upload");
+        event.begin();
+        try {
+            String secureUrl = (String) cloudinary.uploader().upload(image.toFile(), ObjectUtils.emptyMap()).get("secure_url");
+            event.status = "ok";
+            return secureUrl;
+        } catch (IOException | RuntimeException e) {
+            event.status = "error";
+            throw e;
+        } finally {
+            event.commit();
+        }
+    }
+
+    /**
+     * Borra una imagen de Cloudinary solo si ninguna sala la sigue usando, ya que la
+     * deduplicación por hash hace que varias salas puedan compartir la misma URL.
+     * <p>
+     * La comprobación y la salida del índice se hacen con la fila del índice bloqueada
+     * (ver {@link #lockAsset}): una subida que reutiliza la imagen en paralelo o ya la
+     * asignó a su sala (y aquí se ve la referencia), o espera y ya no la encuentra.
+     * </p>
+     *
+     * @param imageUrl URL de la imagen que dejó de usarse.
+     * @return true si se borró de Cloudinary.
+     * @throws IOException Si falla la llamada a Cloudinary.
+     */
+    public boolean deleteIfUnreferenced(String imageUrl) throws IOException {
+        if (imageUrl == null || imageUrl.isBlank()) {
+            return false;
+        }
+        boolean released = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            imageAssetRepository.findBySecureUrlWithLock(imageUrl);
+            if (roomRepository.existsByImageUrl(imageUrl)) {
+                return false;
+            }
+            // Se saca del índice antes de borrarla para que nadie más la reutilice
+            imageAssetRepository.deleteBySecureUrl(imageUrl);
+            return true;
+        }));
+        if (!released) {
+            log.info("La imagen {} sigue en uso por otra sala; no se borra de Cloudinary.", imageUrl);
+            return false;
+        }
+
+        String publicId = extractPublicIdFromUrl(imageUrl);
+        if (publicId == null) {
+            return false;
+        }
+        deleteFile(publicId);
+        return true;
+    }
+
+    private void rememberAsset(String contentHash, String secureUrl) {
+        try {
+            imageAssetRepository.save(ImageAsset.builder()
+                    .contentHash(contentHash)
+                    .secureUrl(secureUrl)
+                    .createdAt(timeService.nowOffset())
+                    .build());
+        } catch (DataIntegrityViolationException e) {
+            // Otra subida concurrente del mismo archivo ya lo registró
+            log.debug("El hash {} ya estaba registrado.", contentHash);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible en la JVM", e);
+        }
     }
 
     // borra imagen si borras la sala
     public void deleteFile(String publicId) throws IOException {
-        cloudinary.uploader().destroy(publicId, ObjectUtils.emptyMap());
+        ExternalCallEvent event = new ExternalCallEvent("cloudinary", "destroy");
+        event.begin();
+        try {
+            cloudinary.uploader().destroy(publicId, ObjectUtils.emptyMap());
+            event.status = "ok";
+        } catch (IOException | RuntimeException e) {
+            event.status = "error";
+            throw e;
+        } finally {
+            event.commit();
+        }
+    }
+
+    /**
+     * Obtiene el public_id de Cloudinary a partir de la URL segura de una imagen
+     * (sin la versión ni la extensión).
+     *
+     * @param url La URL de la imagen.
+     * @return El public_id, o null si la URL no es de Cloudinary.
+     */
+    public String extractPublicIdFromUrl(String url) {
+        try {
+            int uploadIndex = url.indexOf("/upload/");
+            if (uploadIndex == -1) return null;
+
+            String path = url.substring(uploadIndex + 8);
+
+            if (path.matches("^v\\d+/.*")) {
+                int slashIndex = path.indexOf('/');
+                if (slashIndex != -1) {
+                    path = path.substring(slashIndex + 1);
+                }
+            }
+
+            int dotIndex = path.lastIndexOf('.');
+            if (dotIndex != -1) {
+                path = path.substring(0, dotIndex);
+            }
+
+            return path;
+        } catch (Exception e) {
+            return null;
+        }
     }
 }
\ No newline at end of file
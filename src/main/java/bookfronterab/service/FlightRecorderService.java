@@ -0,0 +1,147 @@
+package bookfronterab.service;
+
+import bookfronterab.dto.FlightRecordingDto;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Grabaciones de JDK Flight Recorder bajo demanda, para perfilar producción sin agentes.
+ * <p>
+ * Hay como máximo una grabación a la vez. Se guarda en un buffer circular en disco
+ * acotado por antigüedad y tamaño, así que puede quedar corriendo: al volcarla se obtiene
+ * lo ocurrido en los últimos minutos, incluidos los eventos propios de la aplicación
+ * (paquete {@code bookfronterab.service.jfr}).
+ * </p>
+ */
+@Service
+@Slf4j
+public class FlightRecorderService {
+
+    /**
+     * Configuraciones incluidas en el JDK: "default" (~1% de sobrecarga) y "profile" (~2%,
+     * más muestras de CPU y asignaciones).
+     */
+    private static final Set<String> ALLOWED_SETTINGS = Set.of("default", "profile");
+
+    private final Duration maxAge;
+    private final long maxSizeBytes;
+
+    private Recording recording;
+    private String recordingSettings;
+
+    public FlightRecorderService(@Value("${app.jfr.max-age-minutes:30}") long maxAgeMinutes,
+                                 @Value("${app.jfr.max-size-mb:100}") long maxSizeMb) {
+        this.maxAge = Duration.ofMinutes(maxAgeMinutes);
+        this.maxSizeBytes = maxSizeMb * 1024 * 1024;
+    }
+
+    /**
+     * Inicia una grabación.
+     *
+     * @param settings "default" o "profile".
+     * @return El estado de la nueva grabación.
+     * @throws IllegalArgumentException Si la configuración no es válida.
+     * @throws IllegalStateException    Si ya hay una grabación en curso.
+     */
+    public synchronized FlightRecordingDto start(String settings) {
+        if (!ALLOWED_SETTINGS.contains(settings)) {
+            throw new IllegalArgumentException("Configuración de JFR inválida: " + settings + ". Use default o profile.");
+        }
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            throw new IllegalStateException("Ya hay una grabación de JFR en curso (id " + recording.getId() + ").");
+        }
+        closeCurrent();
+
+        Recording newRecording;
+        try {
+            newRecording = new Recording(Configuration.getConfiguration(settings));
+        } catch (IOException | ParseException e) {
+            throw new IllegalStateException("No se pudo cargar la configuración de JFR " + settings, e);
+        }
+        newRecording.setName("bookfronterab-on-demand");
+        newRecording.setToDisk(true);
+        newRecording.setMaxAge(maxAge);
+        newRecording.setMaxSize(maxSizeBytes);
+        newRecording.start();
+
+        recording = newRecording;
+        recordingSettings = settings;
+        log.info("Grabación de JFR {} iniciada con la configuración {}.", recording.getId(), settings);
+        return toDto(recording);
+    }
+
+    /**
+     * Vuelca el contenido actual de la grabación a un archivo temporal, sin detenerla.
+     * El llamador debe borrar el archivo.
+     *
+     * @return El archivo .jfr, legible con JDK Mission Control o {@code jfr print}.
+     * @throws IllegalStateException Si no hay grabación o ya se cerró.
+     */
+    public synchronized Path dump() throws IOException {
+        if (recording == null || recording.getState() == RecordingState.CLOSED
+                || recording.getState() == RecordingState.NEW) {
+            throw new IllegalStateException("No hay una grabación de JFR para volcar.");
+        }
+        Path file = Files.createTempFile("bookfronterab-", ".jfr");
+        try {
+            recording.dump(file);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        log.info("Grabación de JFR {} volcada ({} bytes).", recording.getId(), Files.size(file));
+        return file;
+    }
+
+    /**
+     * Detiene la grabación. Sus datos se pueden seguir volcando hasta iniciar otra.
+     *
+     * @throws IllegalStateException Si no hay grabación en curso.
+     */
+    public synchronized FlightRecordingDto stop() {
+        if (recording == null || recording.getState() != RecordingState.RUNNING) {
+            throw new IllegalStateException("No hay una grabación de JFR en curso.");
+        }
+        recording.stop();
+        log.info("Grabación de JFR {} detenida.", recording.getId());
+        return toDto(recording);
+    }
+
+    /**
+     * Estado de la grabación actual, si existe.
+     */
+    public synchronized Optional<FlightRecordingDto> status() {
+        return Optional.ofNullable(recording).map(this::toDto);
+    }
+
+    @PreDestroy
+    synchronized void closeCurrent() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+
+    private FlightRecordingDto toDto(Recording current) {
+        return new FlightRecordingDto(
+                current.getId(),
+                current.getState().name(),
+                recordingSettings,
+                current.getStartTime(),
+                maxAge.toSeconds(),
+                maxSizeBytes);
+    }
+}
@@ -0,0 +1,239 @@
+package bookfronterab.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.w3c.dom.NodeList;
+
+import javax.imageio.IIOException;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+/**
+ * Reduce las imágenes de las salas a una resolución máxima antes de subirlas a Cloudinary.
+ * <p>
+ * Trabaja siempre sobre archivos: las dimensiones se leen de la cabecera sin decodificar
+ * la imagen, y si hay que reducirla se decodifica con submuestreo, de modo que en memoria
+ * nunca está la foto original completa (una foto de 48 MP ocuparía ~190 MB decodificada).
+ * </p>
+ */
+@Component
+@Slf4j
+public class ImageOptimizer {
+
+    private static final String JPEG_METADATA_FORMAT = "javax_imageio_jpeg_image_1.0";
+    private static final int APP1_MARKER = 0xE1;
+    private static final int EXIF_ORIENTATION_TAG = 0x0112;
+
+    @Value("${app.images.max-dimension:1920}")
+    private int maxDimension;
+
+    @Value("${app.images.jpeg-quality:0.82}")
+    private float jpegQuality;
+
+    /**
+     * Reduce la imagen si su lado mayor supera {@code app.images.max-dimension}.
+     * El resultado se re-codifica como JPEG (o PNG si tiene transparencia).
+     *
+     * @param source Archivo con la imagen original.
+     * @return Un archivo temporal nuevo con la imagen reducida (el llamador debe borrarlo),
+     *         o null si la imagen ya es suficientemente pequeña o no es un formato conocido.
+     * @throws IOException Si la imagen está corrupta o falla la escritura.
+     */
+    public Path downscale(Path source) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(source.toFile())) {
+            if (input == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                // No es un formato que sepamos procesar; se sube tal cual y Cloudinary decide
+                return null;
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, false);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                int longest = Math.max(width, height);
+                if (longest <= maxDimension) {
+                    return null;
+                }
+
+                int orientation = exifOrientation(reader.getImageMetadata(0));
+
+                // Submuestreo al decodificar: se leen solo 1 de cada "step" píxeles por eje
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, longest / maxDimension);
+                param.setSourceSubsampling(step, step, 0, 0);
+                BufferedImage decoded;
+                try {
+                    decoded = reader.read(0, param);
+                } catch (IIOException e) {
+                    // Variantes que ImageIO no decodifica (p. ej. JPEG CMYK): se sube el original
+                    log.warn("No se pudo decodificar la imagen para reducirla; se sube el original: {}", e.getMessage());
+                    return null;
+                }
+
+                BufferedImage resized = resize(decoded, orientation);
+                boolean transparent = resized.getColorModel().hasAlpha();
+                Path target = Files.createTempFile("room-image-", transparent ? ".png" : ".jpg");
+                try {
+                    write(resized, target, transparent);
+                } catch (IOException | RuntimeException e) {
+                    Files.deleteIfExists(target);
+                    throw e;
+                }
+
+                log.info("Imagen reducida de {}x{} a {}x{} ({} -> {} bytes).", width, height,
+                        resized.getWidth(), resized.getHeight(), Files.size(source), Files.size(target));
+                return target;
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Escala al tamaño final aplicando la orientación EXIF, ya que al re-codificar se
+     * pierden los metadatos y las fotos de celular quedarían giradas.
+     */
+    private BufferedImage resize(BufferedImage decoded, int orientation) {
+        double scale = Math.min(1.0, (double) maxDimension / Math.max(decoded.getWidth(), decoded.getHeight()));
+        int scaledWidth = Math.max(1, (int) Math.round(decoded.getWidth() * scale));
+        int scaledHeight = Math.max(1, (int) Math.round(decoded.getHeight() * scale));
+
+        boolean quarterTurn = orientation == 6 || orientation == 8;
+        int targetWidth = quarterTurn ? scaledHeight : scaledWidth;
+        int targetHeight = quarterTurn ? scaledWidth : scaledHeight;
+
+        AffineTransform transform = new AffineTransform();
+        switch (orientation) {
+            case 3 -> {
+                transform.translate(targetWidth, targetHeight);
+                transform.rotate(Math.PI);
+            }
+            case 6 -> {
+                transform.translate(targetWidth, 0);
+                transform.rotate(Math.PI / 2);
+            }
+            case 8 -> {
+                transform.translate(0, targetHeight);
+                transform.rotate(-Math.PI / 2);
+            }
+            default -> {
+                // 1 (normal) o espejados, que no vale la pena corregir
+            }
+        }
+        transform.scale(scale, scale);
+
+        int type = decoded.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage resized = new BufferedImage(targetWidth, targetHeight, type);
+        Graphics2D graphics = resized.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(decoded, transform, null);
+        } finally {
+            graphics.dispose();
+        }
+        return resized;
+    }
+
+    private void write(BufferedImage image, Path target, boolean transparent) throws IOException {
+        if (transparent) {
+            ImageIO.write(image, "png", target.toFile());
+            return;
+        }
+
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(jpegQuality);
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(target.toFile())) {
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    /**
+     * Lee la etiqueta Orientation del bloque EXIF (APP1) de un JPEG.
+     *
+     * @return La orientación EXIF (1 a 8), o 1 si no hay EXIF.
+     */
+    static int exifOrientation(IIOMetadata metadata) {
+        if (metadata == null || !JPEG_METADATA_FORMAT.equals(metadata.getNativeMetadataFormatName())) {
+            return 1;
+        }
+        IIOMetadataNode root = (IIOMetadataNode) metadata.getAsTree(JPEG_METADATA_FORMAT);
+        NodeList markers = root.getElementsByTagName("unknown");
+        for (int i = 0; i < markers.getLength(); i++) {
+            IIOMetadataNode marker = (IIOMetadataNode) markers.item(i);
+            if (String.valueOf(APP1_MARKER).equals(marker.getAttribute("MarkerTag"))
+                    && marker.getUserObject() instanceof byte[] data) {
+                int orientation = parseOrientation(data);
+                if (orientation > 0) {
+                    return orientation;
+                }
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * Busca la etiqueta Orientation en el primer IFD de un bloque "Exif\0\0" + TIFF.
+     */
+    static int parseOrientation(byte[] app1) {
+        if (app1.length < 14 || app1[0] != 'E' || app1[1] != 'x' || app1[2] != 'i' || app1[3] != 'f') {
+            return 0;
+        }
+        int tiff = 6;
+        boolean littleEndian = app1[tiff] == 'I';
+        int ifd = tiff + readInt(app1, tiff + 4, littleEndian);
+        if (ifd < 0 || ifd + 2 > app1.length) {
+            return 0;
+        }
+        int entries = readShort(app1, ifd, littleEndian);
+        for (int i = 0; i < entries; i++) {
+            int entry = ifd + 2 + i * 12;
+            if (entry + 12 > app1.length) {
+                break;
+            }
+            if (readShort(app1, entry, littleEndian) == EXIF_ORIENTATION_TAG) {
+                return readShort(app1, entry + 8, littleEndian);
+            }
+        }
+        return 0;
+    }
+
+    private static int readShort(byte[] data, int offset, boolean littleEndian) {
+        int b0 = data[offset] & 0xFF;
+        int b1 = data[offset + 1] & 0xFF;
+        return littleEndian ? (b1 << 8) | b0 : (b0 << 8) | b1;
+    }
+
+    private static int readInt(byte[] data, int offset, boolean littleEndian) {
+        int high = readShort(data, offset + (littleEndian ? 2 : 0), littleEndian);
+        int low = readShort(data, offset + (littleEndian ? 0 : 2), littleEndian);
+        return (high << 16) | low;
+    }
+}
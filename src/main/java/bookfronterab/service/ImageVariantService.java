@@ -0,0 +1,78 @@
+package bookfronterab.service;
+
+import bookfronterab.dto.RoomImageVariants;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Deriva las variantes (miniatura, mediana y completa) de las imágenes de las salas.
+ * <p>
+ * Cloudinary genera cada tamaño al vuelo a partir de una transformación en la URL
+ * ({@code /upload/c_limit,w_320,f_auto,q_auto/...}) y lo guarda en su CDN, así que no
+ * hace falta subir copias. Las URLs derivadas se cachean porque el mismo puñado de
+ * imágenes se repite en cada respuesta de disponibilidad y de reservas.
+ * </p>
+ */
+@Service
+public class ImageVariantService {
+
+    private static final String UPLOAD_SEGMENT = "/image/upload/";
+
+    private final int thumbnailWidth;
+    private final int mediumWidth;
+    private final Cache<String, RoomImageVariants> variantCache;
+
+    public ImageVariantService(@Value("${app.images.variants.thumbnail-width:320}") int thumbnailWidth,
+                               @Value("${app.images.variants.medium-width:960}") int mediumWidth,
+                               @Value("${app.images.variants.cache-size:1000}") long cacheSize) {
+        this.thumbnailWidth = thumbnailWidth;
+        this.mediumWidth = mediumWidth;
+        this.variantCache = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .build();
+    }
+
+    /**
+     * Devuelve las variantes de una imagen.
+     *
+     * @param imageUrl La URL original de la imagen (puede ser null).
+     * @return Las variantes, o null si la sala no tiene imagen. Si la URL no es de
+     *         Cloudinary, las tres variantes son la URL original.
+     */
+    public RoomImageVariants variantsFor(String imageUrl) {
+        if (imageUrl == null || imageUrl.isBlank()) {
+            return null;
+        }
+        return variantCache.get(imageUrl, this::derive);
+    }
+
+    /**
+     * Atajo para las respuestas que muestran la sala en tamaño pequeño.
+     *
+     * @param imageUrl La URL original de la imagen (puede ser null).
+     * @return La URL de la miniatura, o null si no hay imagen.
+     */
+    public String thumbnailFor(String imageUrl) {
+        RoomImageVariants variants = variantsFor(imageUrl);
+        return variants != null ? variants.thumbnail() : null;
+    }
+
+    private RoomImageVariants derive(String imageUrl) {
+        int index = imageUrl.indexOf(UPLOAD_SEGMENT);
+        if (index < 0) {
+            // Imágenes antiguas o externas: no sabemos transformarlas
+            return new RoomImageVariants(imageUrl, imageUrl, imageUrl);
+        }
+        int insertAt = index + UPLOAD_SEGMENT.length();
+        return new RoomImageVariants(
+                transform(imageUrl, insertAt, "c_limit,w_" + thumbnailWidth + ",f_auto,q_auto"),
+                transform(imageUrl, insertAt, "c_limit,w_" + mediumWidth + ",f_auto,q_auto"),
+                transform(imageUrl, insertAt, "f_auto,q_auto"));
+    }
+
+    private static String transform(String imageUrl, int insertAt, String transformation) {
+        return imageUrl.substring(0, insertAt) + transformation + "/" + imageUrl.substring(insertAt);
+    }
+}
@@ -0,0 +1,17 @@
+package bookfronterab.service;
+
+/**
+ * Clases de límite de peticiones. Cada cliente tiene un balde independiente por clase,
+ * así las lecturas baratas no consumen el presupuesto de las escrituras costosas.
+ */
+public enum RateLimitPolicy {
+    /**
+     * Consultas (GET): disponibilidad, listados, detalle.
+     */
+    READ,
+    /**
+     * Operaciones que escriben en la base de datos o llaman a servicios externos
+     * (Google Calendar, Cloudinary).
+     */
+    WRITE
+}
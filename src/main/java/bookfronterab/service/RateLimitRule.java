@@ -0,0 +1,11 @@
+package bookfronterab.service;
+
+/**
+ * Límite aplicable a una petición.
+ *
+ * @param route  Nombre de la regla (método y patrón de ruta), usado en las métricas.
+ * @param policy El balde del que se descuentan los tokens.
+ * @param cost   Cantidad de tokens que cuesta la petición.
+ */
+public record RateLimitRule(String route, RateLimitPolicy policy, long cost) {
+}
@@ -4,31 +4,190 @@ import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import io.github.bucket4j.Bandwidth;
 import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.distributed.proxy.ProxyManager;
+import io.github.bucket4j.distributed.proxy.optimization.DelayParameters;
+import io.github.bucket4j.distributed.proxy.optimization.Optimizations;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
 import org.springframework.stereotype.Service;
+import org.springframework.util.AntPathMatcher;
 
 import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * Resuelve el límite de peticiones de cada ruta y el balde de cada cliente.
+ * <p>
+ * Cada ruta tiene un costo en tokens y pertenece a una clase ({@link RateLimitPolicy});
+ * cada cliente (usuario autenticado o IP) tiene un balde por clase. Así, consultar la
+ * disponibilidad no gasta el presupuesto de crear reservas, y una reserva o una subida
+ * de imagen cuestan más que una consulta.
+ * </p>
+ * <p>
+ * Si hay un {@link ProxyManager} configurado ({@code app.rate-limit.backend=jdbc}), el estado
+ * de los baldes vive en PostgreSQL y es compartido por todas las instancias. Cada instancia
+ * acumula localmente hasta {@code app.rate-limit.sync.max-unsynchronized-tokens} tokens (o
+ * {@code max-unsynchronized-ms}) antes de sincronizar, así que no hay un viaje a la base de
+ * datos por petición; a cambio, el límite puede excederse en ese margen por instancia.
+ * </p>
+ */
 @Service
 public class RateLimitingService {
 
-    private final Cache<String, Bucket> bucketCache = Caffeine.newBuilder()
-            .expireAfterAccess(1, TimeUnit.HOURS)
-            .build();
+    private static final RateLimitRule DEFAULT_READ = new RateLimitRule("default-read", RateLimitPolicy.READ, 1);
+    private static final RateLimitRule DEFAULT_WRITE = new RateLimitRule("default-write", RateLimitPolicy.WRITE, 1);
 
-    public Bucket resolveBucket(String ip) {
-        return bucketCache.get(ip, this::createNewBucket);
+    /**
+     * Rutas con costo propio; la primera que coincide gana. El resto usa los valores por defecto.
+     */
+    private static final List<Route> ROUTES = List.of(
+            // Crear/modificar reservas valida solapamientos y sincroniza con Google Calendar
+            new Route(HttpMethod.POST, "/api/v1/reservations/**", RateLimitPolicy.WRITE, 5),
+            new Route(HttpMethod.PUT, "/api/v1/reservations/**", RateLimitPolicy.WRITE, 5),
+            new Route(HttpMethod.DELETE, "/api/v1/reservations/**", RateLimitPolicy.WRITE, 3),
+            // Crear/actualizar salas puede incluir una imagen de varios MB
+            new Route(HttpMethod.POST, "/api/v1/rooms/**", RateLimitPolicy.WRITE, 10),
+            new Route(HttpMethod.PATCH, "/api/v1/rooms/**", RateLimitPolicy.WRITE, 10),
+            new Route(HttpMethod.DELETE, "/api/v1/rooms/**", RateLimitPolicy.WRITE, 5),
+            new Route(HttpMethod.GET, "/api/v1/reservations/my-reservations", RateLimitPolicy.READ, 2)
+    );
+
+    /**
+     * Backend compartido de baldes; vacío si cada instancia los mantiene en memoria.
+     */
+    private final Optional<ProxyManager<String>> proxyManager;
+
+    private final MeterRegistry meterRegistry;
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    private final Cache<String, Bucket> bucketCache;
+
+    @Value("${app.rate-limit.read.capacity:120}")
+    private long readCapacity;
+
+    @Value("${app.rate-limit.read.refill-per-minute:120}")
+    private long readRefillPerMinute;
+
+    @Value("${app.rate-limit.write.capacity:30}")
+    private long writeCapacity;
+
+    @Value("${app.rate-limit.write.refill-per-minute:30}")
+    private long writeRefillPerMinute;
+
+    @Value("${app.rate-limit.sync.max-unsynchronized-tokens:5}")
+    private long maxUnsynchronizedTokens;
+
+    @Value("${app.rate-limit.sync.max-unsynchronized-ms:500}")
+    private long maxUnsynchronizedMs;
+
+    /**
+     * @param proxyManager  Backend compartido de baldes, si está configurado.
+     * @param meterRegistry Registro de métricas (rechazos por ruta y tipo de cliente).
+     * @param maxBuckets    Máximo de baldes en memoria. Al llenarse, la admisión W-TinyLFU de
+     *                      Caffeine descarta primero las claves de un solo uso (p. ej. una ráfaga
+     *                      de IPs falsificadas) y conserva las de los clientes frecuentes.
+     */
+    public RateLimitingService(Optional<ProxyManager<String>> proxyManager,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.rate-limit.max-buckets:100000}") long maxBuckets) {
+        this.proxyManager = proxyManager;
+        this.meterRegistry = meterRegistry;
+        this.bucketCache = Caffeine.newBuilder()
+                .maximumSize(maxBuckets)
+                .expireAfterAccess(1, TimeUnit.HOURS)
+                .build();
+    }
+
+    /**
+     * Determina la clase y el costo de una petición.
+     *
+     * @param method El método HTTP.
+     * @param path   La ruta de la petición (sin query string).
+     * @return La regla a aplicar; nunca null.
+     */
+    public RateLimitRule resolveRule(String method, String path) {
+        for (Route route : ROUTES) {
+            if (route.method().matches(method) && pathMatcher.match(route.pattern(), path)) {
+                return route.rule();
+            }
+        }
+        return isSafe(method) ? DEFAULT_READ : DEFAULT_WRITE;
     }
 
-    private Bucket createNewBucket(String ip) {
+    /**
+     * Devuelve el balde de un cliente para una clase de límite.
+     *
+     * @param clientKey Identificador del cliente ("user:..." o "ip:...").
+     * @param policy    La clase de límite.
+     * @return El balde, creado si no existía.
+     */
+    public Bucket resolveBucket(String clientKey, RateLimitPolicy policy) {
+        // La instancia se cachea también con el backend compartido: guarda los tokens aún sin sincronizar
+        return bucketCache.get(policy.name() + '|' + clientKey, key -> createNewBucket(key, policy));
+    }
+
+    /**
+     * Capacidad de los baldes de una clase, para la cabecera RateLimit-Limit.
+     */
+    public long capacityOf(RateLimitPolicy policy) {
+        return policy == RateLimitPolicy.READ ? readCapacity : writeCapacity;
+    }
+
+    /**
+     * Registra una petición rechazada en la métrica {@code ratelimit.rejected}.
+     *
+     * @param rule        La regla que se aplicó.
+     * @param clientClass "user" o "ip", según cómo se identificó al cliente.
+     */
+    public void recordRejection(RateLimitRule rule, String clientClass) {
+        Counter.builder("ratelimit.rejected")
+                .description("Peticiones rechazadas por el límite de peticiones")
+                .tag("route", rule.route())
+                .tag("policy", rule.policy().name())
+                .tag("client", clientClass)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private Bucket createNewBucket(String key, RateLimitPolicy policy) {
+        long capacity = capacityOf(policy);
+        long refill = policy == RateLimitPolicy.READ ? readRefillPerMinute : writeRefillPerMinute;
+
         Bandwidth limit = Bandwidth.builder()
-                // Ajusta estos valores según tus necesidades reales.
-                .capacity(20) // Capacidad del balde
-                .refillGreedy(20, Duration.ofMinutes(1)) // Recarga 20 tokens cada minuto
+                .capacity(capacity) // Capacidad del balde
+                .refillGreedy(refill, Duration.ofMinutes(1)) // Tokens que se recargan cada minuto
                 .build();
 
-        return Bucket.builder()
+        if (proxyManager.isEmpty()) {
+            return Bucket.builder()
+                    .addLimit(limit)
+                    .build();
+        }
+
+        BucketConfiguration configuration = BucketConfiguration.builder()
                 .addLimit(limit)
                 .build();
+        DelayParameters delay = new DelayParameters(maxUnsynchronizedTokens, Duration.ofMillis(maxUnsynchronizedMs));
+        return proxyManager.get().builder()
+                .withOptimization(Optimizations.delaying(delay))
+                .build(key, () -> configuration);
+    }
+
+    private static boolean isSafe(String method) {
+        return HttpMethod.GET.matches(method) || HttpMethod.HEAD.matches(method) || HttpMethod.OPTIONS.matches(method);
+    }
+
+    private record Route(HttpMethod method, String pattern, RateLimitRule rule) {
+
+        Route(HttpMethod method, String pattern, RateLimitPolicy policy, long cost) {
+            // El nombre de la regla se usa como etiqueta de métricas: debe tener cardinalidad acotada
+            this(method, pattern, new RateLimitRule(method.name() + " " + pattern, policy, cost));
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,172 @@
+package bookfronterab.service;
+
+import bookfronterab.service.jfr.ReservationOperationEvent;
+import bookfronterab.service.jfr.ReservationPhaseEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Métricas de las operaciones de reserva, expuestas en /actuator/prometheus.
+ * <ul>
+ *   <li>{@code reservation.operation}: duración total de create, create_on_behalf, modify y
+ *       cancel, con {@code outcome} success/failure. No incluye el commit, que ocurre al
+ *       salir del proxy transaccional.</li>
+ *   <li>{@code reservation.phase}: duración de cada fase (búsqueda del usuario, conflictos,
+ *       límite semanal, inserción, Google Calendar...), para saber dónde se fue el tiempo.</li>
+ *   <li>{@code reservation.lock.acquire}: espera por el bloqueo pesimista de la sala
+ *       ({@code RoomRepository.findByIdWithLock}).</li>
+ *   <li>{@code reservation.rejected}: reservas rechazadas por conflicto o límite semanal.</li>
+ * </ul>
+ * Cada operación y fase emite además un evento JFR ({@link ReservationOperationEvent},
+ * {@link ReservationPhaseEvent}), visible en las grabaciones de Flight Recorder.
+ */
+@Component
+public class ReservationMetrics {
+
+    /**
+     * Operaciones instrumentadas de {@link ReservationService}.
+     */
+    public enum Operation {
+        CREATE, CREATE_ON_BEHALF, MODIFY, CANCEL;
+
+        final String tag = name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Fases dentro de una operación.
+     */
+    public enum Phase {
+        VALIDATE, LOAD_RESERVATION, USER_LOOKUP, ROOM_LOOKUP, CONFLICT_CHECK, WEEKLY_LIMIT,
+        INSERT, UPDATE, DELETE, GOOGLE_SYNC;
+
+        final String tag = name().toLowerCase(Locale.ROOT);
+    }
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Los medidores se registran una vez por combinación de etiquetas y se reutilizan.
+     */
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public ReservationMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Comienza a medir una operación completa. Usar con try-with-resources y llamar a
+     * {@link OperationTimer#succeeded()} antes de salir; si no, se registra como failure.
+     */
+    public OperationTimer operation(Operation operation) {
+        return new OperationTimer(operation, meterRegistry.config().clock().monotonicTime());
+    }
+
+    /**
+     * Mide una fase de la operación.
+     */
+    public <T> T phase(Operation operation, Phase phase, Supplier<T> step) {
+        ReservationPhaseEvent event = new ReservationPhaseEvent(operation.tag, phase.tag);
+        event.begin();
+        try {
+            return phaseTimer(operation, phase).record(step);
+        } finally {
+            event.commit();
+        }
+    }
+
+    public void phase(Operation operation, Phase phase, Runnable step) {
+        phase(operation, phase, () -> {
+            step.run();
+            return null;
+        });
+    }
+
+    /**
+     * Mide la espera por el bloqueo pesimista de la sala.
+     */
+    public <T> T lockAcquire(Operation operation, Supplier<T> lookup) {
+        ReservationPhaseEvent event = new ReservationPhaseEvent(operation.tag, "lock_acquire");
+        event.begin();
+        try {
+            return timers.computeIfAbsent("lock|" + operation.tag, key -> Timer.builder("reservation.lock.acquire")
+                            .description("Espera por el bloqueo pesimista de la sala")
+                            .tag("operation", operation.tag)
+                            .publishPercentileHistogram()
+                            .register(meterRegistry))
+                    .record(lookup);
+        } finally {
+            event.commit();
+        }
+    }
+
+    /**
+     * Cuenta una reserva rechazada por una regla de negocio.
+     *
+     * @param reason "conflict" o "weekly_limit".
+     */
+    public void rejected(Operation operation, String reason) {
+        Counter.builder("reservation.rejected")
+                .description("Reservas rechazadas por conflicto de horario o límite semanal")
+                .tag("operation", operation.tag)
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private Timer phaseTimer(Operation operation, Phase phase) {
+        return timers.computeIfAbsent("phase|" + operation.tag + '|' + phase.tag, key -> Timer.builder("reservation.phase")
+                .description("Duración de cada fase de una operación de reserva")
+                .tag("operation", operation.tag)
+                .tag("phase", phase.tag)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+
+    private Timer operationTimer(Operation operation, String outcome) {
+        return timers.computeIfAbsent("op|" + operation.tag + '|' + outcome, key -> Timer.builder("reservation.operation")
+                .description("Duración total de una operación de reserva")
+                .tag("operation", operation.tag)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+
+    /**
+     * Medición en curso de una operación completa.
+     */
+    public final class OperationTimer implements AutoCloseable {
+
+        private final Operation operation;
+        private final long startNanos;
+        private final ReservationOperationEvent event;
+        private boolean succeeded;
+
+        private OperationTimer(Operation operation, long startNanos) {
+            this.operation = operation;
+            this.startNanos = startNanos;
+            this.event = new ReservationOperationEvent(operation.tag);
+            event.begin();
+        }
+
+        public void succeeded() {
+            this.succeeded = true;
+        }
+
+        @Override
+        public void close() {
+            long elapsed = meterRegistry.config().clock().monotonicTime() - startNanos;
+            String outcome = succeeded ? "success" : "failure";
+            operationTimer(operation, outcome).record(elapsed, TimeUnit.NANOSECONDS);
+            event.outcome = outcome;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package bookfronterab.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Mantiene las particiones mensuales de la tabla reservations
+ * (ver {@code V3__partition_reservations_by_month.sql}).
+ * <p>
+ * Crea por adelantado las particiones de los meses que cubre el horizonte de reserva (3 meses),
+ * para que ninguna reserva caiga en {@code reservations_default}, y mueve a
+ * {@code reservations_archive} los meses más antiguos que la retención. Así las consultas
+ * de conflictos, disponibilidad y límite semanal trabajan sobre pocas particiones pequeñas;
+ * el historial archivado sigue visible en "mis reservas"
+ * ({@link bookfronterab.repo.ReservationRepository#findArchivedByUserEmail}).
+ * Los meses se cuentan en UTC, igual que los límites de las particiones.
+ * </p>
+ */
+@Service
+@ConditionalOnProperty(name = "app.reservations.partitions.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class ReservationPartitionService {
+
+    private static final Pattern PARTITION_NAME = Pattern.compile("reservations_(\\d{4})_(\\d{2})");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TimeService timeService;
+
+    /**
+     * Meses hacia adelante (además del actual) con partición creada. Debe cubrir el
+     * horizonte de reserva de 3 meses.
+     */
+    private final int monthsAhead;
+
+    /**
+     * Meses completos que se mantienen en reservations antes de archivarse.
+     */
+    private final int retentionMonths;
+
+    public ReservationPartitionService(JdbcTemplate jdbcTemplate,
+                                       TimeService timeService,
+                                       @Value("${app.reservations.partitions.months-ahead:4}") int monthsAhead,
+                                       @Value("${app.reservations.partitions.retention-months:12}") int retentionMonths) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.timeService = timeService;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+    }
+
+    /**
+     * Al arrancar y luego una vez al día. Si falla (p. ej. por un bloqueo), la siguiente
+     * ejecución lo reintenta: las dos operaciones son idempotentes.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${app.reservations.partitions.cron:0 30 3 * * *}")
+    public void maintainPartitions() {
+        try {
+            int created = createUpcomingPartitions();
+            int archived = archiveExpiredPartitions();
+            if (created > 0 || archived > 0) {
+                log.info("Particiones de reservas: {} creadas, {} archivadas.", created, archived);
+            }
+        } catch (DataAccessException e) {
+            log.error("No se pudieron mantener las particiones de reservas: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Crea las particiones del mes actual y de los {@code monthsAhead} siguientes que falten.
+     *
+     * @return La cantidad de particiones creadas.
+     */
+    public int createUpcomingPartitions() {
+        YearMonth current = currentMonth();
+        int created = 0;
+        for (int i = 0; i <= monthsAhead; i++) {
+            YearMonth month = current.plusMonths(i);
+            if (Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                    "SELECT create_reservation_partition(?)", Boolean.class, month.atDay(1)))) {
+                log.info("Creada la partición de reservas de {}.", month);
+                created++;
+            }
+        }
+        return created;
+    }
+
+    /**
+     * Archiva las particiones de los meses anteriores a la retención. Desacoplar una partición
+     * toma un bloqueo exclusivo breve sobre reservations, por eso corre de madrugada.
+     *
+     * @return La cantidad de particiones archivadas.
+     */
+    public int archiveExpiredPartitions() {
+        YearMonth oldestKept = currentMonth().minusMonths(retentionMonths);
+        int archived = 0;
+        for (YearMonth month : activePartitions()) {
+            if (month.isBefore(oldestKept) && Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                    "SELECT archive_reservation_partition(?)", Boolean.class, month.atDay(1)))) {
+                log.info("Archivada la partición de reservas de {}.", month);
+                archived++;
+            }
+        }
+        return archived;
+    }
+
+    /**
+     * Meses con partición adjunta a reservations, en orden (sin la partición por defecto).
+     */
+    public List<YearMonth> activePartitions() {
+        return jdbcTemplate.queryForList("""
+                        SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+                        WHERE i.inhparent = to_regclass('reservations')
+                        ORDER BY c.relname
+                        """, String.class).stream()
+                .map(ReservationPartitionService::parseMonth)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private YearMonth currentMonth() {
+        return YearMonth.from(timeService.nowOffset().atZoneSameInstant(ZoneOffset.UTC));
+    }
+
+    private static YearMonth parseMonth(String partitionName) {
+        Matcher matcher = PARTITION_NAME.matcher(partitionName);
+        if (!matcher.matches()) {
+            return null;
+        }
+        return YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+    }
+}
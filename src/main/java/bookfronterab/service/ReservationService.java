@@ -12,6 +12,10 @@ import bookfronterab.model.UserRole;
 import bookfronterab.repo.ReservationRepository;
 import bookfronterab.repo.RoomRepository;
 import bookfronterab.repo.UserRepository;
+import bookfronterab.service.ReservationMetrics.Operation;
+import bookfronterab.service.ReservationMetrics.Phase;
+import bookfronterab.service.google.CalendarSyncOperation;
+import bookfronterab.service.google.CalendarSyncRetryQueue;
 import bookfronterab.service.google.GoogleCalendarService;
 import bookfronterab.service.google.GoogleCredentialsService;
 import com.google.api.client.auth.oauth2.Credential;
@@ -63,8 +67,23 @@ public class ReservationService {
      */
     private final GoogleCredentialsService googleCredentialsService;
 
+    /**
+     * Cola de sincronizaciones diferidas mientras Google no está disponible.
+     */
+    private final CalendarSyncRetryQueue calendarSyncRetryQueue;
+
     private final TimeService timeService;
 
+    /**
+     * Deriva las URLs de las variantes de la imagen de la sala.
+     */
+    private final ImageVariantService imageVariantService;
+
+    /**
+     * Tiempos por fase de cada operación (ver {@link ReservationMetrics}).
+     */
+    private final ReservationMetrics metrics;
+
     /**
      * Crea una nueva reserva, valida la disponibilidad y, opcionalmente,
      * la añade al Google Calendar del usuario.
@@ -76,38 +95,42 @@ public class ReservationService {
      */
     @Transactional
     public void create(String userEmail, ReservationDto.CreateRequest req) {
+        try (ReservationMetrics.OperationTimer operation = metrics.operation(Operation.CREATE)) {
+
+            //  Validación y búsqueda de User/Room
+            metrics.phase(Operation.CREATE, Phase.VALIDATE, () -> validateReservationRequest(req));
+            User user = metrics.phase(Operation.CREATE, Phase.USER_LOOKUP, () -> userRepo.findByEmail(userEmail)
+                    .orElseThrow(() -> new IllegalStateException("Usuario no encontrado: " + userEmail)));
+            Room room = metrics.lockAcquire(Operation.CREATE, () -> roomRepo.findByIdWithLock(req.roomId())) // Usando el bloqueo pesimista
+                    .orElseThrow(() -> new IllegalArgumentException("Sala no encontrada: " + req.roomId()));
+            ensureRoomIsActive(room);
+
+            // 3. Validar disponibilidad
+            checkAvailability(Operation.CREATE, req.roomId(), req.startAt(), req.endAt());
+            //validar limite semanal (si no es admin verificamos si ya reservo esta semana)
+            if (user.getRol() != UserRole.ADMIN) {
+                validateUserWeeklyLimit(user, req.startAt());
+            }
 
-        //  Validación y búsqueda de User/Room
-        validateReservationRequest(req);
-        User user = userRepo.findByEmail(userEmail)
-                .orElseThrow(() -> new IllegalStateException("Usuario no encontrado: " + userEmail));
-        Room room = roomRepo.findByIdWithLock(req.roomId()) // Usando el bloqueo pesimista
-                .orElseThrow(() -> new IllegalArgumentException("Sala no encontrada: " + req.roomId()));
-
-        // 3. Validar disponibilidad
-        checkAvailability(req.roomId(), req.startAt(), req.endAt());
-       //validar limite semanal (si no es admin verificamos si ya reservo esta semana)
-        if (user.getRol() != UserRole.ADMIN) {
-            validateUserWeeklyLimit(user, req.startAt());
-        }
-
-        // 4. Crear y guardar la reserva SIN EL ID DE GOOGLE
-        Reservation reservation = Reservation.builder()
-                .user(user)
-                .room(room)
-                .startAt(req.startAt())
-                .endAt(req.endAt())
-                .build();
-
-        Reservation savedReservation = reservationRepo.save(reservation);
-        log.info("Reserva {} creada (localmente) para usuario {}", savedReservation.getId(), userEmail);
-
-        // 5. (Opcional) Sincronizar con Google Calendar
-        if (req.addToGoogleCalendar()) {
-            // ahora guardará el ID de Google en la reserva
-            handleGoogleCalendarSync(user, savedReservation);
-        } else {
-            log.info("Usuario no solicitó añadir la reserva {} a Google Calendar. Omitiendo.", savedReservation.getId());
+            // 4. Crear y guardar la reserva SIN EL ID DE GOOGLE
+            Reservation reservation = Reservation.builder()
+                    .user(user)
+                    .room(room)
+                    .startAt(req.startAt())
+                    .endAt(req.endAt())
+                    .build();
+
+            Reservation savedReservation = metrics.phase(Operation.CREATE, Phase.INSERT, () -> reservationRepo.save(reservation));
+            log.info("Reserva {} creada (localmente) para usuario {}", savedReservation.getId(), userEmail);
+
+            // 5. (Opcional) Sincronizar con Google Calendar
+            if (req.addToGoogleCalendar()) {
+                // ahora guardará el ID de Google en la reserva
+                metrics.phase(Operation.CREATE, Phase.GOOGLE_SYNC, () -> handleGoogleCalendarSync(user, savedReservation));
+            } else {
+                log.info("Usuario no solicitó añadir la reserva {} a Google Calendar. Omitiendo.", savedReservation.getId());
+            }
+            operation.succeeded();
         }
     }
     @Transactional
@@ -121,57 +144,61 @@ public class ReservationService {
             throw new IllegalArgumentException("El correo del destinatario es inválido o peligroso.");
         }
 
-        //  Validación y búsqueda de User/Room
-        validateReservationRequest(req);
-
-        Room room = roomRepo.findByIdWithLock(req.roomId())
-                .orElseThrow(() -> new RoomNotFoundException("Sala no encontrada: " + req.roomId()));
-
-        User other = userRepo.findByEmail(othersEmail)
-                .orElseThrow(() -> new UserNotFoundException("Usuario no encontrado: " + sanitizedEmail));
-
-        //  Validar disponibilidad
-        checkAvailability(req.roomId(), req.startAt(), req.endAt());
-
-        //  Crear y guardar la reserva
-        Reservation reservation = Reservation.builder()
-                .user(other) // La reserva queda a nombre del "otro"
-                .room(room)
-                .startAt(req.startAt())
-                .endAt(req.endAt())
-                .build();
-
-        Reservation savedReservation = reservationRepo.save(reservation);
-        log.info("Reserva {} creada por Admin {} para usuario {}", savedReservation.getId(), userEmail, othersEmail);
-
-        // Verificamos si el Admin pidió agregarlo (req.addToGoogleCalendar())
-        // Y si el usuario tiene tokens (other.getGoogleRefreshToken() != null)
-        if (req.addToGoogleCalendar()) {
-            if (other.getGoogleRefreshToken() != null) {
-                log.info("Sincronizando con el calendario de {}", othersEmail);
-                handleGoogleCalendarSync(other, savedReservation);
-            } else {
-                log.warn("El admin solicitó Google Calendar, pero el usuario {} no tiene tokens conectados.", othersEmail);
+        try (ReservationMetrics.OperationTimer operation = metrics.operation(Operation.CREATE_ON_BEHALF)) {
+
+            //  Validación y búsqueda de User/Room
+            metrics.phase(Operation.CREATE_ON_BEHALF, Phase.VALIDATE, () -> validateReservationRequest(req));
+
+            Room room = metrics.lockAcquire(Operation.CREATE_ON_BEHALF, () -> roomRepo.findByIdWithLock(req.roomId()))
+                    .orElseThrow(() -> new RoomNotFoundException("Sala no encontrada: " + req.roomId()));
+            ensureRoomIsActive(room);
+
+            User other = metrics.phase(Operation.CREATE_ON_BEHALF, Phase.USER_LOOKUP, () -> userRepo.findByEmail(othersEmail)
+                    .orElseThrow(() -> new UserNotFoundException("Usuario no encontrado: " + sanitizedEmail)));
+
+            //  Validar disponibilidad
+            checkAvailability(Operation.CREATE_ON_BEHALF, req.roomId(), req.startAt(), req.endAt());
+
+            //  Crear y guardar la reserva
+            Reservation reservation = Reservation.builder()
+                    .user(other) // La reserva queda a nombre del "otro"
+                    .room(room)
+                    .startAt(req.startAt())
+                    .endAt(req.endAt())
+                    .build();
+
+            Reservation savedReservation = metrics.phase(Operation.CREATE_ON_BEHALF, Phase.INSERT, () -> reservationRepo.save(reservation));
+            log.info("Reserva {} creada por Admin {} para usuario {}", savedReservation.getId(), userEmail, othersEmail);
+
+            // Verificamos si el Admin pidió agregarlo (req.addToGoogleCalendar())
+            // Y si el usuario tiene tokens (other.getGoogleRefreshToken() != null)
+            if (req.addToGoogleCalendar()) {
+                if (other.getGoogleRefreshToken() != null) {
+                    log.info("Sincronizando con el calendario de {}", othersEmail);
+                    metrics.phase(Operation.CREATE_ON_BEHALF, Phase.GOOGLE_SYNC, () -> handleGoogleCalendarSync(other, savedReservation));
+                } else {
+                    log.warn("El admin solicitó Google Calendar, pero el usuario {} no tiene tokens conectados.", othersEmail);
+                }
             }
+            operation.succeeded();
         }
     }
 
     /**
      * ayuda para validar la lógica de negocio y disponibilidad.
      *
-     * @param roomId  El ID de la sala.
-     * @param startAt La fecha/hora de inicio.
-     * @param endAt   La fecha/hora de fin.
+     * @param operation La operación que se está midiendo.
+     * @param roomId    El ID de la sala.
+     * @param startAt   La fecha/hora de inicio.
+     * @param endAt     La fecha/hora de fin.
      * @throws IllegalStateException Si se encuentran reservas conflictivas.
      */
-    private void checkAvailability(Long roomId, ZonedDateTime startAt, ZonedDateTime endAt) {
-        List<Reservation> conflictingReservations = reservationRepo.findConflictingReservations(
-                roomId,
-                startAt,
-                endAt
-        );
+    private void checkAvailability(Operation operation, Long roomId, ZonedDateTime startAt, ZonedDateTime endAt) {
+        List<Reservation> conflictingReservations = metrics.phase(operation, Phase.CONFLICT_CHECK,
+                () -> reservationRepo.findConflictingReservations(roomId, startAt, endAt));
 
         if (!conflictingReservations.isEmpty()) {
+            metrics.rejected(operation, "conflict");
             log.warn("Conflicto de reserva detectado para la sala {} en el horario {} a {}", roomId, startAt, endAt);
             throw new IllegalStateException("La sala ya está reservada en ese horario. Por favor, elige otro.");
         }
@@ -184,7 +211,7 @@ public class ReservationService {
      * @param req El DTO de creación con las fechas de inicio y fin.
      * @throws IllegalArgumentException Si las fechas son nulas, incoherentes o violan las reglas de negocio.
      */
-    private void validateReservationRequest(ReservationDto.CreateRequest req) {
+    void validateReservationRequest(ReservationDto.CreateRequest req) {
         if (req.startAt() == null || req.endAt() == null) {
             throw new IllegalArgumentException("Las fechas de inicio y fin no pueden ser nulas.");
         }
@@ -238,29 +265,25 @@ public class ReservationService {
             log.info("Reserva {} registrada en Google Calendar con ID: {}", savedReservation.getId(), googleEventId);
 
         } catch (IOException e) {
-            // No fallamos la reserva si Google Calendar falla.
-            log.error("No se pudo crear el evento de Google Calendar para la reserva {}: {}", savedReservation.getId(), e.getMessage());
+            // No fallamos la reserva si Google Calendar falla: queda pendiente para reintentarse.
+            log.warn("No se pudo crear el evento de Google Calendar para la reserva {}; se reintentará: {}", savedReservation.getId(), e.getMessage());
+            calendarSyncRetryQueue.defer(CalendarSyncOperation.create(savedReservation.getId(), user.getId()));
         }
     }
     /**
      * (NUEVO) Valida 1 reserva por semana laboral (Lunes-Viernes). (jose)
      */
     private void validateUserWeeklyLimit(User user, ZonedDateTime reservationDate) {
-        // Inicio de semana: Lunes 00:00
-        ZonedDateTime startOfWeek = reservationDate.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY))
-                .withHour(0).withMinute(0).withSecond(0).withNano(0);
-
-        // Fin de semana laboral: VIERNES 23:59
-        ZonedDateTime endOfWeek = reservationDate.with(TemporalAdjusters.nextOrSame(DayOfWeek.FRIDAY))
-                .withHour(23).withMinute(59).withSecond(59).withNano(999999999);
+        WorkWeek week = workWeekOf(reservationDate);
 
-        long count = reservationRepo.countByUserEmailAndStartAtBetween(
-                user.getEmail(), startOfWeek, endOfWeek
-        );
+        long count = metrics.phase(Operation.CREATE, Phase.WEEKLY_LIMIT, () -> reservationRepo.countByUserEmailAndStartAtBetween(
+                user.getEmail(), week.start(), week.end()
+        ));
 
         if (count >= 1) {
+            metrics.rejected(Operation.CREATE, "weekly_limit");
             log.warn("Bloqueo: Usuario {} ya tiene reserva entre el lunes {} y viernes {}.",
-                    user.getEmail(), startOfWeek.toLocalDate(), endOfWeek.toLocalDate());
+                    user.getEmail(), week.start().toLocalDate(), week.end().toLocalDate());
             throw new IllegalStateException("Límite alcanzado: Solo puedes realizar 1 reserva por semana laboral (Lun-Vie).");
         }
     }
@@ -282,7 +305,9 @@ public class ReservationService {
             throw new SecurityException("Acceso denegado.");
         }
 
-        List<Reservation> reservations = reservationRepo.findByRoomIdOrderByStartAtAsc(roomId);
+        // Igual que en "mis reservas": los meses archivados van primero para mantener el orden por fecha
+        List<Reservation> reservations = new ArrayList<>(reservationRepo.findArchivedByRoomId(roomId));
+        reservations.addAll(reservationRepo.findByRoomIdOrderByStartAtAsc(roomId));
 
         return reservations.stream()
                 .map(this::mapToDetailDto)
@@ -295,8 +320,10 @@ public class ReservationService {
         // Obtenemos la hora actual en la zona horaria de la app
         ZonedDateTime now = timeService.nowOffset().toZonedDateTime();
 
-        // 1. Obtenemos todas las reservas del usuario desde la BD
-        List<Reservation> allReservations = reservationRepo.findByUserEmailOrderByStartAtAsc(userEmail);
+        // 1. Obtenemos todas las reservas del usuario desde la BD. Los meses archivados son
+        //    anteriores a los activos, así que van primero para mantener el orden por fecha.
+        List<Reservation> allReservations = new ArrayList<>(reservationRepo.findArchivedByUserEmail(userEmail));
+        allReservations.addAll(reservationRepo.findByUserEmailOrderByStartAtAsc(userEmail));
 
         ReservationDto.Detail currentReservation = null;
         List<ReservationDto.Detail> futureReservations = new ArrayList<>();
@@ -368,45 +395,58 @@ public class ReservationService {
     public void cancel(Long id, String userEmail) {
         log.info("Intento de cancelación para reserva ID: {} por usuario: {}", id, userEmail);
 
-        // 1. Buscar la reserva por 'id'.
-        Reservation reservation = reservationRepo.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("Reserva no encontrada con ID: " + id));
-        //Para que el servicio ya no pregunte si es admin y lo averigue por el solo
-        User requestor = userRepo.findByEmail(userEmail)
-                .orElseThrow(() -> new IllegalStateException("Usuario no encontrado"));
-        // 2. Verificar permisos.
-        boolean isOwner = reservation.getUser().getEmail().equals(userEmail);
-        boolean isAdmin = requestor.getRol() == UserRole.ADMIN;
-        if (!isOwner && !isAdmin) {
-            log.warn("¡Acceso denegado! Usuario {} intentó cancelar la reserva {} (Dueño: {}) sin permisos.",
-                    userEmail, id, reservation.getUser().getEmail());
-            throw new SecurityException("No tienes permiso para cancelar esta reserva. Solo el dueño o un administrador pueden hacerlo.");
-        }
+        try (ReservationMetrics.OperationTimer operation = metrics.operation(Operation.CANCEL)) {
+            // 1. Buscar la reserva por 'id'.
+            Reservation reservation = metrics.phase(Operation.CANCEL, Phase.LOAD_RESERVATION, () -> reservationRepo.findById(id)
+                    .orElseThrow(() -> new IllegalArgumentException("Reserva no encontrada con ID: " + id)));
+            //Para que el servicio ya no pregunte si es admin y lo averigue por el solo
+            User requestor = metrics.phase(Operation.CANCEL, Phase.USER_LOOKUP, () -> userRepo.findByEmail(userEmail)
+                    .orElseThrow(() -> new IllegalStateException("Usuario no encontrado")));
+            // 2. Verificar permisos.
+            boolean isOwner = reservation.getUser().getEmail().equals(userEmail);
+            boolean isAdmin = requestor.getRol() == UserRole.ADMIN;
+            if (!isOwner && !isAdmin) {
+                log.warn("¡Acceso denegado! Usuario {} intentó cancelar la reserva {} (Dueño: {}) sin permisos.",
+                        userEmail, id, reservation.getUser().getEmail());
+                throw new SecurityException("No tienes permiso para cancelar esta reserva. Solo el dueño o un administrador pueden hacerlo.");
+            }
 
-        // 3. Sincronizar con Google Calendar para borrar el evento.
-        // Verificamos si nuestra reserva tiene un ID de Google guardado.
-        if (reservation.getGoogleEventId() != null) {
-            log.info("La reserva {} tiene un evento de Google Calendar ({}). Intentando borrar...", id, reservation.getGoogleEventId());
-            try {
-                // Obtenemos las credenciales del usuario QUE HIZO la reserva
-                User owner = reservation.getUser();
-                Credential credential = googleCredentialsService.getCredential(owner);
-
-                // Llamamos al servicio de borrado
-                googleCalendarService.deleteEvent(reservation.getGoogleEventId(), credential.getAccessToken());
-
-            } catch (IOException e) {
-                // Si falla la API de Google, solo lo logueamos.
-                // NO detenemos la cancelación local.
-                log.error("No se pudo borrar el evento de Google Calendar ({}). La reserva local se borrará de todos modos. Error: {}",
-                        reservation.getGoogleEventId(), e.getMessage());
+            // 3. Sincronizar con Google Calendar para borrar el evento.
+            // Verificamos si nuestra reserva tiene un ID de Google guardado.
+            if (reservation.getGoogleEventId() != null) {
+                log.info("La reserva {} tiene un evento de Google Calendar ({}). Intentando borrar...", id, reservation.getGoogleEventId());
+                metrics.phase(Operation.CANCEL, Phase.GOOGLE_SYNC, () -> deleteGoogleEvent(reservation));
             }
+
+            // 4. Borrar la reserva de la base de datos local.
+            metrics.phase(Operation.CANCEL, Phase.DELETE, () -> reservationRepo.delete(reservation));
+
+            log.info("Reserva {} cancelada exitosamente por {}.", id, (isAdmin && !isOwner) ? "Admin " + userEmail : userEmail);
+            operation.succeeded();
         }
+    }
+
+    /**
+     * ayuda para borrar el evento de Google Calendar de una reserva cancelada.
+     * Si Google falla, el borrado queda pendiente y la cancelación local continúa.
+     *
+     * @param reservation La reserva que se está cancelando (con ID de evento de Google).
+     */
+    private void deleteGoogleEvent(Reservation reservation) {
+        try {
+            // Obtenemos las credenciales del usuario QUE HIZO la reserva
+            User owner = reservation.getUser();
+            Credential credential = googleCredentialsService.getCredential(owner);
 
-        // 4. Borrar la reserva de la base de datos local.
-        reservationRepo.delete(reservation);
+            // Llamamos al servicio de borrado
+            googleCalendarService.deleteEvent(reservation.getGoogleEventId(), credential.getAccessToken());
 
-        log.info("Reserva {} cancelada exitosamente por {}.", id, (isAdmin && !isOwner) ? "Admin " + userEmail : userEmail);
+        } catch (IOException e) {
+            // NO detenemos la cancelación local; el borrado en Google queda pendiente.
+            log.warn("No se pudo borrar el evento de Google Calendar ({}). La reserva local se borrará de todos modos y se reintentará. Error: {}",
+                    reservation.getGoogleEventId(), e.getMessage());
+            calendarSyncRetryQueue.defer(CalendarSyncOperation.delete(reservation.getUser().getId(), reservation.getGoogleEventId()));
+        }
     }
 
     /**
@@ -417,84 +457,98 @@ public class ReservationService {
     public ReservationDto.Detail modify(Long reservationId, String userEmail, ReservationDto.CreateRequest request) {
         log.info("Modificando reserva ID: {} solicitada por {}", reservationId, userEmail);
 
-        //  Buscar la reserva original
-        Reservation reservation = reservationRepo.findById(reservationId)
-                .orElseThrow(() -> new IllegalArgumentException("La reserva no existe."));
+        try (ReservationMetrics.OperationTimer operation = metrics.operation(Operation.MODIFY)) {
+            //  Buscar la reserva original
+            Reservation reservation = metrics.phase(Operation.MODIFY, Phase.LOAD_RESERVATION, () -> reservationRepo.findById(reservationId)
+                    .orElseThrow(() -> new IllegalArgumentException("La reserva no existe.")));
 
-        //  Verificar Permisos (Dueño o Admin)
-        User requestor = userRepo.findByEmail(userEmail)
-                .orElseThrow(() -> new IllegalStateException("Usuario solicitante no encontrado."));
+            //  Verificar Permisos (Dueño o Admin)
+            User requestor = metrics.phase(Operation.MODIFY, Phase.USER_LOOKUP, () -> userRepo.findByEmail(userEmail)
+                    .orElseThrow(() -> new IllegalStateException("Usuario solicitante no encontrado.")));
 
-        boolean isOwner = reservation.getUser().getEmail().equals(userEmail);
-        boolean isAdmin = requestor.getRol() == UserRole.ADMIN;
+            boolean isOwner = reservation.getUser().getEmail().equals(userEmail);
+            boolean isAdmin = requestor.getRol() == UserRole.ADMIN;
 
-        if (!isOwner && !isAdmin) {
-            throw new SecurityException("No tienes permiso para modificar esta reserva.");
-        }
+            if (!isOwner && !isAdmin) {
+                throw new SecurityException("No tienes permiso para modificar esta reserva.");
+            }
 
-        //  Validar las nuevas fechas (Reglas de Negocio: futuro, duración, etc.)
-        validateReservationRequest(request);
+            //  Validar las nuevas fechas (Reglas de Negocio: futuro, duración, etc.)
+            metrics.phase(Operation.MODIFY, Phase.VALIDATE, () -> validateReservationRequest(request));
 
-        //  Validar Disponibilidad (Excluyendo la reserva actual para evitar auto-conflicto)
-        checkAvailabilityForModification(request.roomId(), request.startAt(), request.endAt(), reservationId);
+            //  Validar Disponibilidad (Excluyendo la reserva actual para evitar auto-conflicto)
+            checkAvailabilityForModification(request.roomId(), request.startAt(), request.endAt(), reservationId);
 
-        // Validar Límite Semanal (Solo si es Estudiante)
-        // Usamos la validación especial que excluye la reserva actual
-        if (!isAdmin) {
-            validateUserWeeklyLimitForModification(reservation.getUser(), request.startAt(), reservationId);
-        }
+            // Validar Límite Semanal (Solo si es Estudiante)
+            // Usamos la validación especial que excluye la reserva actual
+            if (!isAdmin) {
+                validateUserWeeklyLimitForModification(reservation.getUser(), request.startAt(), reservationId);
+            }
+
+            //  Actualizar Datos Locales
+            Room newRoom = metrics.phase(Operation.MODIFY, Phase.ROOM_LOOKUP, () -> roomRepo.findById(request.roomId())
+                    .orElseThrow(() -> new IllegalArgumentException("La nueva sala seleccionada no existe.")));
+            ensureRoomIsActive(newRoom);
 
-        //  Actualizar Datos Locales
-        Room newRoom = roomRepo.findById(request.roomId())
-                .orElseThrow(() -> new IllegalArgumentException("La nueva sala seleccionada no existe."));
-
-        reservation.setRoom(newRoom);
-        reservation.setStartAt(request.startAt());
-        reservation.setEndAt(request.endAt());
-        // El estado o auditoría podría actualizarse aquí si tuvieras esa lógica
-
-        Reservation updatedReservation = reservationRepo.save(reservation);
-
-        //  Sincronizar con Google Calendar (Si aplica)
-        if (reservation.getGoogleEventId() != null) {
-            try {
-                // Usamos las credenciales del DUEÑO de la reserva para actualizar SU calendario
-                Credential credential = googleCredentialsService.getCredential(reservation.getUser());
-
-                googleCalendarService.updateEvent(
-                        reservation.getGoogleEventId(),
-                        updatedReservation,
-                        credential.getAccessToken()
-                );
-            } catch (Exception e) {
-                log.error("Error actualizando Google Calendar para reserva {}: {}", reservationId, e.getMessage());
-                // No lanzamos error fatal para no revertir el cambio local, pero queda registrado.
+            reservation.setRoom(newRoom);
+            reservation.setStartAt(request.startAt());
+            reservation.setEndAt(request.endAt());
+            // El estado o auditoría podría actualizarse aquí si tuvieras esa lógica
+
+            Reservation updatedReservation = metrics.phase(Operation.MODIFY, Phase.UPDATE, () -> reservationRepo.save(reservation));
+
+            //  Sincronizar con Google Calendar (Si aplica)
+            if (reservation.getGoogleEventId() != null) {
+                metrics.phase(Operation.MODIFY, Phase.GOOGLE_SYNC, () -> updateGoogleEvent(reservationId, updatedReservation));
             }
+
+            log.info("Reserva {} modificada con éxito.", reservationId);
+            ReservationDto.Detail detail = mapToDetailDto(updatedReservation);
+            operation.succeeded();
+            return detail;
         }
+    }
 
-        log.info("Reserva {} modificada con éxito.", reservationId);
-        return mapToDetailDto(updatedReservation);
+    /**
+     * ayuda para actualizar el evento de Google Calendar de una reserva modificada.
+     * Si Google falla, la actualización queda pendiente y el cambio local se mantiene.
+     *
+     * @param reservationId      El ID de la reserva.
+     * @param updatedReservation La reserva ya guardada con los nuevos datos.
+     */
+    private void updateGoogleEvent(Long reservationId, Reservation updatedReservation) {
+        try {
+            // Usamos las credenciales del DUEÑO de la reserva para actualizar SU calendario
+            Credential credential = googleCredentialsService.getCredential(updatedReservation.getUser());
+
+            googleCalendarService.updateEvent(
+                    updatedReservation.getGoogleEventId(),
+                    updatedReservation,
+                    credential.getAccessToken()
+            );
+        } catch (IOException e) {
+            // No lanzamos error fatal para no revertir el cambio local; la actualización queda pendiente.
+            log.warn("Error actualizando Google Calendar para reserva {}; se reintentará: {}", reservationId, e.getMessage());
+            calendarSyncRetryQueue.defer(CalendarSyncOperation.update(reservationId, updatedReservation.getUser().getId()));
+        } catch (Exception e) {
+            log.error("Error actualizando Google Calendar para reserva {}: {}", reservationId, e.getMessage());
+        }
     }
 
     /**
      *  Valida límite semanal excluyendo la reserva que se está modificando.
      */
     private void validateUserWeeklyLimitForModification(User user, ZonedDateTime reservationDate, Long excludedReservationId) {
-        // Inicio de semana: Lunes 00:00
-        ZonedDateTime startOfWeek = reservationDate.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY))
-                .withHour(0).withMinute(0).withSecond(0).withNano(0);
-
-        // Fin de semana laboral: VIERNES 23:59
-        ZonedDateTime endOfWeek = reservationDate.with(TemporalAdjusters.nextOrSame(DayOfWeek.FRIDAY))
-                .withHour(23).withMinute(59).withSecond(59).withNano(999999999);
+        WorkWeek week = workWeekOf(reservationDate);
 
-        long count = reservationRepo.countByUserEmailAndStartAtBetweenAndIdNot(
-                user.getEmail(), startOfWeek, endOfWeek, excludedReservationId
-        );
+        long count = metrics.phase(Operation.MODIFY, Phase.WEEKLY_LIMIT, () -> reservationRepo.countByUserEmailAndStartAtBetweenAndIdNot(
+                user.getEmail(), week.start(), week.end(), excludedReservationId
+        ));
 
         if (count >= 1) {
+            metrics.rejected(Operation.MODIFY, "weekly_limit");
             log.warn("Bloqueo modificación: Usuario {} ya tiene otra reserva en la semana del {} (excluyendo la actual).",
-                    user.getEmail(), startOfWeek.toLocalDate());
+                    user.getEmail(), week.start().toLocalDate());
             throw new IllegalStateException("Límite alcanzado: Ya tienes otra reserva distinta en esa semana.");
         }
     }
@@ -506,24 +560,51 @@ public class ReservationService {
      */
     private void checkAvailabilityForModification(Long roomId, ZonedDateTime start, ZonedDateTime end, Long excludeReservationId) {
         // Obtenemos TODAS las reservas conflictivas en ese horario y sala
-        List<Reservation> conflicts = reservationRepo.findConflictingReservations(roomId, start, end);
+        List<Reservation> conflicts = metrics.phase(Operation.MODIFY, Phase.CONFLICT_CHECK,
+                () -> reservationRepo.findConflictingReservations(roomId, start, end));
 
         // Filtramos la lista para quitar la reserva actual (si aparece)
         boolean hasRealConflict = conflicts.stream()
                 .anyMatch(res -> !res.getId().equals(excludeReservationId));
 
         if (hasRealConflict) {
+            metrics.rejected(Operation.MODIFY, "conflict");
             throw new IllegalStateException("La sala ya está ocupada en el nuevo horario seleccionado.");
         }
     }
 
+    /**
+     * Semana laboral (lunes 00:00 a viernes 23:59:59.999999999) en la que cae una reserva.
+     */
+    record WorkWeek(ZonedDateTime start, ZonedDateTime end) {}
+
+    /**
+     * Calcula la semana laboral de una fecha, para el límite de una reserva por semana.
+     * Visible en el paquete para los benchmarks (src/jmh).
+     *
+     * @param reservationDate La fecha de inicio de la reserva.
+     * @return La semana laboral que la contiene.
+     */
+    static WorkWeek workWeekOf(ZonedDateTime reservationDate) {
+        // Inicio de semana: Lunes 00:00
+        ZonedDateTime startOfWeek = reservationDate.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY))
+                .withHour(0).withMinute(0).withSecond(0).withNano(0);
+
+        // Fin de semana laboral: VIERNES 23:59
+        ZonedDateTime endOfWeek = reservationDate.with(TemporalAdjusters.nextOrSame(DayOfWeek.FRIDAY))
+                .withHour(23).withMinute(59).withSecond(59).withNano(999999999);
+
+        return new WorkWeek(startOfWeek, endOfWeek);
+    }
+
     /**
      * Convierte una entidad {@link Reservation} a su DTO de detalle.
+     * Visible en el paquete para los benchmarks (src/jmh).
      *
      * @param reservation La entidad a convertir.
      * @return El DTO {@link ReservationDto.Detail}.
      */
-    private ReservationDto.Detail mapToDetailDto(Reservation reservation) {
+    ReservationDto.Detail mapToDetailDto(Reservation reservation) {
         return new ReservationDto.Detail(
                 reservation.getId(),
                 reservation.getStartAt(),
@@ -534,7 +615,17 @@ public class ReservationService {
     }
 
     /**
-     * Convierte una entidad {@link Room} a su DTO.
+     * Rechaza reservas sobre salas que están siendo dadas de baja.
+     */
+    private void ensureRoomIsActive(Room room) {
+        if (room.isRetired()) {
+            throw new IllegalStateException("La sala " + room.getName() + " está siendo dada de baja y no acepta reservas.");
+        }
+    }
+
+    /**
+     * Convierte una entidad {@link Room} a su DTO. Las reservas muestran la sala en
+     * pequeño, así que {@code imageUrl} es la miniatura.
      *
      * @param room La entidad a convertir.
      * @return El DTO {@link RoomDto}.
@@ -546,7 +637,8 @@ public class ReservationService {
                 .capacity(room.getCapacity())
                 .equipment(room.getEquipment())
                 .floor(room.getFloor())
-                .imageUrl(room.getImageUrl())
+                .imageUrl(imageVariantService.thumbnailFor(room.getImageUrl()))
+                .imageVariants(imageVariantService.variantsFor(room.getImageUrl()))
                 .build();
     }
 
@@ -0,0 +1,8 @@
+package bookfronterab.service;
+
+/**
+ * Evento publicado al crear un trabajo de baja de sala; se procesa tras el commit.
+ *
+ * @param jobId El ID del {@link bookfronterab.model.RoomDecommissionJob}.
+ */
+public record RoomDecommissionRequestedEvent(Long jobId) {}
@@ -0,0 +1,291 @@
+package bookfronterab.service;
+
+import bookfronterab.dto.RoomDecommissionDto;
+import bookfronterab.exception.ResourceNotFoundException;
+import bookfronterab.model.DecommissionStatus;
+import bookfronterab.model.Room;
+import bookfronterab.model.RoomDecommissionJob;
+import bookfronterab.repo.ReservationRepository;
+import bookfronterab.repo.RoomDecommissionJobRepository;
+import bookfronterab.repo.RoomRepository;
+import bookfronterab.service.google.CalendarEventRef;
+import bookfronterab.service.google.GoogleEventsCleanupEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+
+/**
+ * Da de baja salas en segundo plano.
+ * <p>
+ * Al solicitar la baja, la sala se marca como retirada (deja de aparecer en la
+ * disponibilidad y no acepta reservas) y se crea un {@link RoomDecommissionJob}.
+ * Tras el commit, el trabajo elimina las reservas por bloques, cada bloque en su propia
+ * transacción y con un único DELETE, y al final borra la sala y su imagen.
+ * Así una sala con años de historial no genera una transacción gigante.
+ * </p>
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RoomDecommissionService {
+
+    private static final List<DecommissionStatus> ACTIVE_STATUSES =
+            List.of(DecommissionStatus.PENDING, DecommissionStatus.RUNNING);
+
+    private final RoomRepository roomRepo;
+    private final ReservationRepository reservationRepo;
+    private final RoomDecommissionJobRepository jobRepo;
+    private final CloudinaryService cloudinaryService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final TimeService timeService;
+
+    /**
+     * Executor de un solo hilo para las bajas (ver {@link bookfronterab.config.AsyncConfig}).
+     */
+    private final Executor roomDecommissionExecutor;
+
+    @Value("${app.rooms.decommission.chunk-size:500}")
+    private int chunkSize;
+
+    /**
+     * Tiempo sin señal de vida tras el cual un trabajo en curso se considera huérfano.
+     * Debe ser bastante mayor que lo que tarda un bloque.
+     */
+    @Value("${app.rooms.decommission.stale-after-seconds:300}")
+    private long staleAfterSeconds;
+
+    /**
+     * Marca la sala como retirada y registra el trabajo de baja.
+     * Si ya hay un trabajo en curso para la sala, lo devuelve sin crear otro.
+     *
+     * @param roomId El ID de la sala a eliminar.
+     * @return El estado del trabajo.
+     * @throws ResourceNotFoundException Si la sala no existe.
+     */
+    @Transactional
+    public RoomDecommissionDto start(Long roomId) {
+        // El bloqueo evita que se cree una reserva en paralelo sobre una sala recién retirada
+        Room room = roomRepo.findByIdWithLock(roomId)
+                .orElseThrow(() -> new ResourceNotFoundException("Sala no encontrada con id " + roomId));
+
+        Optional<RoomDecommissionJob> existing = jobRepo.findFirstByRoomIdAndStatusIn(roomId, ACTIVE_STATUSES);
+        if (existing.isPresent()) {
+            return toDto(existing.get());
+        }
+
+        room.setRetired(true);
+        roomRepo.save(room);
+
+        RoomDecommissionJob job = jobRepo.save(RoomDecommissionJob.builder()
+                .roomId(roomId)
+                .roomName(room.getName())
+                .status(DecommissionStatus.PENDING)
+                .totalReservations(reservationRepo.countByRoomId(roomId))
+                .createdAt(timeService.nowOffset())
+                .build());
+
+        log.info("Baja de la sala {} solicitada (trabajo {}, {} reservas).",
+                roomId, job.getId(), job.getTotalReservations());
+
+        eventPublisher.publishEvent(new RoomDecommissionRequestedEvent(job.getId()));
+        return toDto(job);
+    }
+
+    @Transactional(readOnly = true)
+    public RoomDecommissionDto getJob(Long jobId) {
+        return jobRepo.findById(jobId)
+                .map(this::toDto)
+                .orElseThrow(() -> new ResourceNotFoundException("Trabajo de baja no encontrado con id " + jobId));
+    }
+
+    /**
+     * Últimos trabajos de baja, del más reciente al más antiguo.
+     */
+    @Transactional(readOnly = true)
+    public List<RoomDecommissionDto> getRecentJobs() {
+        return jobRepo.findTop20ByOrderByIdDesc().stream()
+                .map(this::toDto)
+                .toList();
+    }
+
+    /**
+     * Lanza el trabajo solo si la transacción que lo creó se confirma.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onDecommissionRequested(RoomDecommissionRequestedEvent event) {
+        roomDecommissionExecutor.execute(() -> run(event.jobId()));
+    }
+
+    /**
+     * Retoma los trabajos que quedaron a medias por un reinicio o por la caída de otra
+     * instancia: los pendientes cuyo evento se perdió y los que dejaron de dar señal de vida.
+     * Es seguro repetirlos: cada bloque solo borra lo que aún existe, y {@link #run} reclama
+     * el trabajo antes de tocarlo, así que dos instancias no lo ejecutan a la vez.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${app.rooms.decommission.resume-cron:0 */5 * * * *}")
+    public void resumeInterruptedJobs() {
+        List<Long> stale = jobRepo.findStaleJobIds(
+                DecommissionStatus.PENDING, DecommissionStatus.RUNNING, staleBefore());
+        if (!stale.isEmpty()) {
+            log.info("Retomando {} trabajos de baja de salas pendientes.", stale.size());
+        }
+        stale.forEach(jobId -> roomDecommissionExecutor.execute(() -> run(jobId)));
+    }
+
+    /**
+     * Ejecuta el trabajo de baja: borra las reservas por bloques y luego la sala.
+     *
+     * @param jobId El ID del trabajo.
+     */
+    void run(Long jobId) {
+        int claimed = jobRepo.claim(jobId, DecommissionStatus.PENDING, DecommissionStatus.RUNNING,
+                timeService.nowOffset(), staleBefore());
+        if (claimed == 0) {
+            log.debug("El trabajo de baja {} ya lo ejecuta otra instancia o terminó.", jobId);
+            return;
+        }
+        RoomDecommissionJob job = jobRepo.findById(jobId).orElse(null);
+        if (job == null) {
+            return;
+        }
+        Long roomId = job.getRoomId();
+
+        try {
+            Integer deleted;
+            do {
+                deleted = transactionTemplate.execute(status -> deleteChunk(jobId, roomId));
+            } while (deleted != null && deleted > 0);
+
+            String imageUrl = transactionTemplate.execute(status -> finish(jobId, roomId));
+            deleteImage(roomId, imageUrl);
+
+            log.info("Baja de la sala {} completada (trabajo {}).", roomId, jobId);
+        } catch (Exception e) {
+            log.error("Error en la baja de la sala {} (trabajo {}): {}", roomId, jobId, e.getMessage());
+            transactionTemplate.executeWithoutResult(status ->
+                    updateJob(jobId, DecommissionStatus.FAILED, e.getMessage()));
+        }
+    }
+
+    /**
+     * Elimina un bloque de reservas con un solo DELETE y programa la limpieza de
+     * sus eventos de Google para después del commit del bloque. Cada bloque renueva
+     * la señal de vida del trabajo.
+     *
+     * @return La cantidad de reservas del bloque (0 si ya no quedan).
+     */
+    private int deleteChunk(Long jobId, Long roomId) {
+        List<Long> ids = reservationRepo.findIdsByRoomId(roomId, PageRequest.of(0, chunkSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        List<CalendarEventRef> calendarEvents = reservationRepo.findByIdInAndGoogleEventIdIsNotNull(ids).stream()
+                .map(res -> new CalendarEventRef(res.getUser().getId(), res.getGoogleEventId()))
+                .toList();
+
+        int deleted = reservationRepo.deleteByIdIn(ids);
+
+        RoomDecommissionJob job = jobRepo.findById(jobId).orElseThrow();
+        job.setDeletedReservations(job.getDeletedReservations() + deleted);
+        job.setHeartbeatAt(timeService.nowOffset());
+        jobRepo.save(job);
+
+        if (!calendarEvents.isEmpty()) {
+            eventPublisher.publishEvent(new GoogleEventsCleanupEvent(calendarEvents));
+        }
+        return ids.size();
+    }
+
+    /**
+     * Barrido final, borrado de la sala y cierre del trabajo.
+     *
+     * @return La URL de la imagen de la sala, para borrarla fuera de la transacción.
+     */
+    private String finish(Long jobId, Long roomId) {
+        reservationRepo.deleteByRoomId(roomId);
+        reservationRepo.deleteArchivedByRoomId(roomId);
+
+        String imageUrl = null;
+        Optional<Room> room = roomRepo.findById(roomId);
+        if (room.isPresent()) {
+            imageUrl = room.get().getImageUrl();
+            roomRepo.delete(room.get());
+        }
+
+        RoomDecommissionJob job = jobRepo.findById(jobId).orElseThrow();
+        job.setStatus(DecommissionStatus.COMPLETED);
+        job.setFinishedAt(timeService.nowOffset());
+        jobRepo.save(job);
+        return imageUrl;
+    }
+
+    private void updateJob(Long jobId, DecommissionStatus status, String errorMessage) {
+        jobRepo.findById(jobId).ifPresent(job -> {
+            job.setStatus(status);
+            job.setErrorMessage(errorMessage);
+            if (status == DecommissionStatus.FAILED) {
+                job.setFinishedAt(timeService.nowOffset());
+            }
+            jobRepo.save(job);
+        });
+    }
+
+    private OffsetDateTime staleBefore() {
+        return timeService.nowOffset().minusSeconds(staleAfterSeconds);
+    }
+
+    private void deleteImage(Long roomId, String imageUrl) {
+        if (imageUrl == null || imageUrl.isBlank()) {
+            return;
+        }
+        try {
+            // Otra sala puede compartir la misma imagen (deduplicación por hash)
+            cloudinaryService.deleteIfUnreferenced(imageUrl);
+        } catch (Exception e) {
+            log.warn("No se pudo borrar la imagen de Cloudinary para la sala {}: {}", roomId, e.getMessage());
+        }
+    }
+
+    private RoomDecommissionDto toDto(RoomDecommissionJob job) {
+        int progress;
+        if (job.getStatus() == DecommissionStatus.COMPLETED) {
+            progress = 100;
+        } else if (job.getTotalReservations() == 0) {
+            progress = 0;
+        } else {
+            // Se limita a 99 hasta que la sala se borre efectivamente
+            progress = (int) Math.min(99, job.getDeletedReservations() * 100 / job.getTotalReservations());
+        }
+
+        return new RoomDecommissionDto(
+                job.getId(),
+                job.getRoomId(),
+                job.getRoomName(),
+                job.getStatus(),
+                job.getTotalReservations(),
+                job.getDeletedReservations(),
+                progress,
+                job.getCreatedAt(),
+                job.getFinishedAt(),
+                job.getErrorMessage()
+        );
+    }
+}
@@ -0,0 +1,9 @@
+package bookfronterab.service;
+
+/**
+ * Evento publicado al guardar una sala con una imagen nueva; la subida se hace tras el commit.
+ *
+ * @param roomId La sala a la que pertenece la imagen.
+ * @param image  La imagen copiada a disco.
+ */
+public record RoomImageUploadRequestedEvent(Long roomId, StagedImage image) {}
@@ -0,0 +1,259 @@
+package bookfronterab.service;
+
+import bookfronterab.model.ImageStatus;
+import bookfronterab.model.Room;
+import bookfronterab.repo.RoomRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Sube las imágenes de las salas a Cloudinary en segundo plano.
+ * <p>
+ * En la petición solo se copia el archivo a disco y se marca la sala con
+ * {@link ImageStatus#PENDING}; tras el commit, un executor acotado hace la subida
+ * (con reintentos) y actualiza {@code imageUrl}. Así el tiempo de guardado de una
+ * sala no depende de Cloudinary. Si el executor está lleno, la subida se descarta y la
+ * sala queda en {@link ImageStatus#FAILED}.
+ * </p>
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RoomImageUploadService {
+
+    private final RoomRepository roomRepo;
+    private final CloudinaryService cloudinaryService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final TimeService timeService;
+
+    /**
+     * Executor acotado para las subidas (ver {@link bookfronterab.config.AsyncConfig}).
+     */
+    private final Executor roomImageUploadExecutor;
+
+    @Value("${app.rooms.images.staging-dir:${java.io.tmpdir}/bookfrontera-uploads}")
+    private String stagingDir;
+
+    @Value("${app.rooms.images.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${app.rooms.images.retry-backoff-ms:2000}")
+    private long retryBackoffMs;
+
+    /**
+     * Tiempo tras el cual una subida pendiente se da por perdida. Debe cubrir la espera en
+     * la cola y todos los reintentos.
+     */
+    @Value("${app.rooms.images.stale-after-seconds:900}")
+    private long staleAfterSeconds;
+
+    /**
+     * Copia la imagen recibida a disco y calcula su hash. Debe llamarse en el hilo de la
+     * petición, ya que el archivo temporal del multipart se borra al terminar la petición.
+     *
+     * @param file La imagen recibida.
+     * @return La imagen copiada, lista para {@link #requestUpload}.
+     * @throws IOException Si no se puede leer o copiar el archivo.
+     */
+    public StagedImage stage(MultipartFile file) throws IOException {
+        Path directory = Paths.get(stagingDir);
+        Files.createDirectories(directory);
+        Path target = Files.createTempFile(directory, "room-", ".upload");
+        try {
+            return new StagedImage(target, cloudinaryService.copyAndHash(file, target));
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(target);
+            throw e;
+        }
+    }
+
+    /**
+     * Marca la sala como pendiente de imagen y programa la subida para después del commit.
+     * Debe llamarse dentro de la transacción que guarda la sala.
+     *
+     * @param room  La sala (ya persistida, con ID).
+     * @param image La imagen copiada con {@link #stage}.
+     */
+    public void requestUpload(Room room, StagedImage image) {
+        room.setImageStatus(ImageStatus.PENDING);
+        room.setPendingImageHash(image.contentHash());
+        room.setPendingImageSince(timeService.nowOffset());
+        eventPublisher.publishEvent(new RoomImageUploadRequestedEvent(room.getId(), image));
+    }
+
+    /**
+     * Programa la subida tras el commit. Corre en una transacción nueva, ya que si el
+     * executor la rechaza hay que guardar el fallo y la transacción original ya se confirmó.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onUploadRequested(RoomImageUploadRequestedEvent event) {
+        try {
+            roomImageUploadExecutor.execute(() -> upload(event.roomId(), event.image()));
+        } catch (RejectedExecutionException e) {
+            log.warn("Cola de subidas de imágenes llena: se descarta la imagen de la sala {}.", event.roomId());
+            markFailed(event.roomId(), event.image().contentHash());
+            deleteStaged(event.image());
+        }
+    }
+
+    /**
+     * Si el guardado de la sala se revierte, la imagen copiada ya no sirve.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_ROLLBACK)
+    public void onUploadRolledBack(RoomImageUploadRequestedEvent event) {
+        deleteStaged(event.image());
+    }
+
+    /**
+     * Las copias en disco no sobreviven a un reinicio con garantías, así que las subidas
+     * pendientes desde hace más de {@code stale-after-seconds} se marcan como fallidas (la
+     * sala conserva su imagen anterior). Las más recientes pueden estar en curso en otra
+     * instancia y no se tocan; si también quedaron huérfanas, las cierra una pasada posterior.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${app.rooms.images.stale-sweep-cron:0 */5 * * * *}")
+    public void failInterruptedUploads() {
+        int interrupted = roomRepo.failStaleUploads(ImageStatus.PENDING, ImageStatus.FAILED,
+                timeService.nowOffset().minusSeconds(staleAfterSeconds));
+        if (interrupted > 0) {
+            log.warn("{} subidas de imágenes de salas quedaron interrumpidas.", interrupted);
+        }
+    }
+
+    /**
+     * Sube la imagen (o reutiliza una idéntica) y la asigna a la sala. Si la imagen
+     * reutilizada se borra de Cloudinary antes de poder asignarla, se sube de nuevo.
+     */
+    void upload(Long roomId, StagedImage image) {
+        try {
+            if (!complete(roomId, image.contentHash(), uploadWithRetries(image))
+                    && !complete(roomId, image.contentHash(), uploadWithRetries(image))) {
+                throw new IllegalStateException("La imagen se borró de Cloudinary antes de asignarla");
+            }
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            log.error("No se pudo subir la imagen de la sala {}: {}", roomId, e.getMessage());
+            markFailed(roomId, image.contentHash());
+        } finally {
+            deleteStaged(image);
+        }
+    }
+
+    /**
+     * Marca la subida como fallida, salvo que ya se haya pedido una imagen más nueva.
+     */
+    private void markFailed(Long roomId, String contentHash) {
+        transactionTemplate.executeWithoutResult(status -> roomRepo.findById(roomId)
+                .filter(room -> contentHash.equals(room.getPendingImageHash()))
+                .ifPresent(room -> {
+                    room.setImageStatus(ImageStatus.FAILED);
+                    room.setPendingImageHash(null);
+                    room.setPendingImageSince(null);
+                    roomRepo.save(room);
+                }));
+    }
+
+    private String uploadWithRetries(StagedImage image) throws Exception {
+        Optional<String> existing = cloudinaryService.findByContentHash(image.contentHash());
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return cloudinaryService.uploadOptimized(image.file(), image.contentHash());
+            } catch (Exception e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                long backoff = retryBackoffMs << (attempt - 1);
+                log.warn("Fallo al subir imagen (intento {}/{}); se reintenta en {} ms: {}",
+                        attempt, maxAttempts, backoff, e.getMessage());
+                Thread.sleep(backoff);
+            }
+        }
+    }
+
+    /**
+     * Asigna la URL a la sala solo si la imagen sigue siendo la última pedida para ella,
+     * y después libera la imagen reemplazada (o la recién subida, si quedó obsoleta).
+     * La imagen queda bloqueada en el índice durante la asignación, para que
+     * {@link CloudinaryService#deleteIfUnreferenced} no la borre en el intertanto.
+     *
+     * @return false si la imagen ya no existe y hay que volver a subirla.
+     */
+    private boolean complete(Long roomId, String contentHash, String secureUrl) {
+        Assignment assignment = transactionTemplate.execute(status -> {
+            if (!cloudinaryService.lockAsset(contentHash, secureUrl)) {
+                return new Assignment(false, null);
+            }
+            Room room = roomRepo.findByIdWithLock(roomId).orElse(null);
+            if (room == null || !contentHash.equals(room.getPendingImageHash())) {
+                // La sala se eliminó o llegó una imagen más nueva mientras subíamos esta
+                return new Assignment(true, secureUrl);
+            }
+            String previous = room.getImageUrl();
+            room.setImageUrl(secureUrl);
+            room.setImageStatus(ImageStatus.READY);
+            room.setPendingImageHash(null);
+            room.setPendingImageSince(null);
+            roomRepo.save(room);
+            return new Assignment(true, previous);
+        });
+
+        if (assignment == null || !assignment.assetAvailable()) {
+            log.warn("La imagen {} de la sala {} se borró antes de asignarla.", secureUrl, roomId);
+            return false;
+        }
+        log.info("Subida de imagen de la sala {} terminada: {}", roomId, secureUrl);
+        String released = assignment.released();
+        if (released == null) {
+            return true;
+        }
+        // Solo se borra si ninguna sala la usa (p. ej. si era la misma imagen, se conserva)
+        try {
+            cloudinaryService.deleteIfUnreferenced(released);
+        } catch (Exception e) {
+            log.warn("No se pudo borrar la imagen {} de Cloudinary: {}", released, e.getMessage());
+        }
+        return true;
+    }
+
+    /**
+     * Resultado de {@link #complete}: si la imagen seguía disponible y qué URL quedó sin usar.
+     */
+    private record Assignment(boolean assetAvailable, String released) {
+    }
+
+    private void deleteStaged(StagedImage image) {
+        try {
+            Files.deleteIfExists(image.file());
+        } catch (IOException e) {
+            log.warn("No se pudo borrar la imagen temporal {}: {}", image.file(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package bookfronterab.service;
+
+import java.nio.file.Path;
+
+/**
+ * Imagen recibida y copiada a disco, lista para subirse en segundo plano.
+ *
+ * @param file        Archivo temporal con el contenido original.
+ * @param contentHash SHA-256 del contenido.
+ */
+public record StagedImage(Path file, String contentHash) {}
@@ -0,0 +1,13 @@
+package bookfronterab.service.google;
+
+import com.google.api.services.calendar.model.Event;
+
+import java.util.List;
+
+/**
+ * Resultado de una lectura incremental del calendario de un usuario.
+ *
+ * @param events        Eventos creados, modificados o eliminados (status "cancelled").
+ * @param nextSyncToken Token a usar en la próxima lectura incremental.
+ */
+public record CalendarChanges(List<Event> events, String nextSyncToken) {}
@@ -0,0 +1,12 @@
+package bookfronterab.service.google;
+
+/**
+ * Referencia mínima a un evento de Google Calendar: su dueño y su ID.
+ * Permite programar operaciones sobre Google después de que la transacción
+ * haya terminado, sin depender de entidades JPA desasociadas.
+ *
+ * @param userId        ID del usuario dueño del calendario.
+ * @param googleEventId ID del evento en Google Calendar.
+ */
+public record CalendarEventRef(Long userId, String googleEventId) {
+}
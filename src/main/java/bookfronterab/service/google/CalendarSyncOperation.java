@@ -0,0 +1,26 @@
+package bookfronterab.service.google;
+
+import bookfronterab.model.CalendarSyncType;
+
+/**
+ * Operación de sincronización con Google Calendar que quedó pendiente.
+ *
+ * @param type          Tipo de operación.
+ * @param reservationId Reserva afectada (CREATE y UPDATE).
+ * @param userId        Dueño del evento.
+ * @param googleEventId Evento a eliminar (DELETE, ya que la reserva ya no existe).
+ */
+public record CalendarSyncOperation(CalendarSyncType type, Long reservationId, Long userId, String googleEventId) {
+
+    public static CalendarSyncOperation create(Long reservationId, Long userId) {
+        return new CalendarSyncOperation(CalendarSyncType.CREATE, reservationId, userId, null);
+    }
+
+    public static CalendarSyncOperation update(Long reservationId, Long userId) {
+        return new CalendarSyncOperation(CalendarSyncType.UPDATE, reservationId, userId, null);
+    }
+
+    public static CalendarSyncOperation delete(Long userId, String googleEventId) {
+        return new CalendarSyncOperation(CalendarSyncType.DELETE, null, userId, googleEventId);
+    }
+}
@@ -0,0 +1,240 @@
+package bookfronterab.service.google;
+
+import bookfronterab.exception.GoogleCalendarUnavailableException;
+import bookfronterab.model.CalendarSyncTask;
+import bookfronterab.model.CalendarSyncType;
+import bookfronterab.model.Reservation;
+import bookfronterab.model.User;
+import bookfronterab.repo.CalendarSyncTaskRepository;
+import bookfronterab.repo.ReservationRepository;
+import bookfronterab.repo.UserRepository;
+import bookfronterab.service.TimeService;
+import com.google.api.client.http.HttpResponseException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * Cola persistente de sincronizaciones con Google Calendar que fallaron.
+ * <p>
+ * Cada operación fallida se guarda en la tabla {@code calendar_sync_tasks} dentro de la
+ * misma transacción que el cambio de la reserva, por lo que no se pierde ante un reinicio.
+ * Un proceso programado toma las tareas vencidas por lotes, las agrupa por usuario (un solo
+ * token por usuario y pasada) y las reintenta. Cada fallo reprograma la tarea con backoff
+ * exponencial y jitter, de modo que tras una caída de Google los reintentos se reparten
+ * en el tiempo en vez de llegar todos juntos.
+ * </p>
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CalendarSyncRetryQueue {
+
+    private final CalendarSyncTaskRepository calendarSyncTaskRepository;
+    private final ReservationRepository reservationRepository;
+    private final UserRepository userRepository;
+    private final GoogleCredentialsService googleCredentialsService;
+    private final GoogleCalendarService googleCalendarService;
+    private final GoogleApiGateway googleApiGateway;
+    private final TimeService timeService;
+
+    @Value("${app.google.retry.batch-size:100}")
+    private int batchSize;
+
+    @Value("${app.google.retry.max-attempts:12}")
+    private int maxAttempts;
+
+    @Value("${app.google.retry.base-delay-seconds:30}")
+    private long baseDelaySeconds;
+
+    @Value("${app.google.retry.max-delay-seconds:3600}")
+    private long maxDelaySeconds;
+
+    /**
+     * Plazo durante el cual una tarea reclamada no la toma otra instancia. Debe cubrir
+     * un lote completo de llamadas a Google.
+     */
+    @Value("${app.google.retry.claim-seconds:300}")
+    private long claimSeconds;
+
+    /**
+     * Registra una operación para reintentarla más tarde. Si hay una transacción activa,
+     * la tarea se guarda en ella: si la transacción se revierte, la tarea tampoco queda.
+     * Una creación o actualización ya pendiente para la misma reserva cubre la nueva,
+     * porque al reintentar se leen los datos vigentes de la reserva.
+     *
+     * @param operation La operación a reintentar.
+     */
+    public void defer(CalendarSyncOperation operation) {
+        if (operation.type() != CalendarSyncType.DELETE
+                && calendarSyncTaskRepository.existsByReservationIdAndTypeIn(
+                        operation.reservationId(), EnumSet.of(CalendarSyncType.CREATE, operation.type()))) {
+            log.debug("Ya hay una sincronización pendiente que cubre {}", operation);
+            return;
+        }
+
+        OffsetDateTime now = timeService.nowOffset();
+        calendarSyncTaskRepository.save(CalendarSyncTask.builder()
+                .type(operation.type())
+                .reservationId(operation.reservationId())
+                .userId(operation.userId())
+                .googleEventId(operation.googleEventId())
+                .attempts(0)
+                .nextAttemptAt(now.plus(backoff(1)))
+                .createdAt(now)
+                .build());
+        log.info("Sincronización con Google Calendar diferida: {}", operation);
+    }
+
+    public long size() {
+        return calendarSyncTaskRepository.count();
+    }
+
+    /**
+     * Reintenta las tareas vencidas si el circuito lo permite.
+     * Si Google vuelve a estar no disponible, la tarea se reprograma y se detiene la
+     * pasada para no insistir contra un servicio caído; las demás tareas del lote ya
+     * reclamado se reintentan al vencer su plazo.
+     */
+    @Scheduled(fixedDelayString = "${app.google.retry.interval-ms:30000}",
+            initialDelayString = "${app.google.retry.interval-ms:30000}")
+    public void drain() {
+        if (!googleApiGateway.isAvailable()) {
+            return;
+        }
+
+        OffsetDateTime now = timeService.nowOffset();
+        List<CalendarSyncTask> due = calendarSyncTaskRepository.claimDue(
+                now, now.plusSeconds(claimSeconds), batchSize);
+        if (due.isEmpty()) {
+            return;
+        }
+        log.info("Reintentando {} sincronizaciones pendientes con Google Calendar.", due.size());
+
+        Map<Long, List<CalendarSyncTask>> byUser = due.stream()
+                .collect(Collectors.groupingBy(CalendarSyncTask::getUserId, LinkedHashMap::new, Collectors.toList()));
+
+        for (Map.Entry<Long, List<CalendarSyncTask>> entry : byUser.entrySet()) {
+            if (!drainUser(entry.getKey(), entry.getValue())) {
+                log.warn("Google sigue sin estar disponible; se pausan los reintentos.");
+                return;
+            }
+        }
+    }
+
+    /**
+     * Reintenta las tareas de un usuario con un único token de acceso.
+     *
+     * @return false si Google dejó de estar disponible y hay que cortar la pasada.
+     */
+    private boolean drainUser(Long userId, List<CalendarSyncTask> tasks) {
+        User owner = userRepository.findById(userId).orElse(null);
+        if (owner == null) {
+            calendarSyncTaskRepository.deleteAll(tasks);
+            return true;
+        }
+
+        String accessToken;
+        try {
+            accessToken = googleCredentialsService.getCredential(owner).getAccessToken();
+        } catch (IOException e) {
+            tasks.forEach(task -> reschedule(task, e));
+            return !(e instanceof GoogleCalendarUnavailableException);
+        }
+
+        for (CalendarSyncTask task : tasks) {
+            try {
+                apply(task, accessToken);
+                calendarSyncTaskRepository.delete(task);
+            } catch (IOException e) {
+                reschedule(task, e);
+                if (e instanceof GoogleCalendarUnavailableException) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private void reschedule(CalendarSyncTask task, IOException error) {
+        int attempts = task.getAttempts() + 1;
+        if (!isRetryable(error) || attempts >= maxAttempts) {
+            log.error("Se descarta la sincronización {} ({}) tras {} intentos: {}",
+                    task.getId(), task.getType(), attempts, error.getMessage());
+            calendarSyncTaskRepository.delete(task);
+            return;
+        }
+
+        task.setAttempts(attempts);
+        task.setNextAttemptAt(timeService.nowOffset().plus(backoff(attempts + 1)));
+        task.setLastError(truncate(error.getMessage()));
+        calendarSyncTaskRepository.save(task);
+    }
+
+    /**
+     * Espera antes del intento {@code attempt}: base * 2^(attempt-1), con tope, de la cual se
+     * sortea la mitad superior ("equal jitter") para que las tareas no se sincronicen entre sí.
+     */
+    Duration backoff(int attempt) {
+        long exponential = baseDelaySeconds << Math.min(attempt - 1, 20);
+        long capped = Math.min(maxDelaySeconds, exponential);
+        long half = capped / 2;
+        return Duration.ofSeconds(half + ThreadLocalRandom.current().nextLong(half + 1));
+    }
+
+    /**
+     * Los errores de red, timeouts, 429 y 5xx son transitorios; el resto de 4xx
+     * (p. ej. permisos revocados) no se arreglará reintentando.
+     */
+    private static boolean isRetryable(IOException error) {
+        if (error instanceof HttpResponseException httpError) {
+            int status = httpError.getStatusCode();
+            return status == 408 || status == 429 || status >= 500;
+        }
+        return true;
+    }
+
+    private static String truncate(String message) {
+        if (message == null || message.length() <= 1024) {
+            return message;
+        }
+        return message.substring(0, 1024);
+    }
+
+    void apply(CalendarSyncTask task, String accessToken) throws IOException {
+        switch (task.getType()) {
+            case CREATE -> {
+                Reservation reservation = reservationRepository.findWithUserAndRoomById(task.getReservationId()).orElse(null);
+                // La reserva pudo cancelarse o sincronizarse mientras esperaba
+                if (reservation == null || reservation.getGoogleEventId() != null) {
+                    return;
+                }
+                String googleEventId = googleCalendarService.createEventForReservation(reservation, accessToken);
+                reservationRepository.updateGoogleEventLink(reservation.getId(), googleEventId, reservation.getGoogleEventEtag());
+            }
+            case UPDATE -> {
+                Reservation reservation = reservationRepository.findWithUserAndRoomById(task.getReservationId()).orElse(null);
+                if (reservation == null || reservation.getGoogleEventId() == null) {
+                    return;
+                }
+                googleCalendarService.updateEvent(reservation.getGoogleEventId(), reservation, accessToken);
+                // Persistimos el ETag nuevo (o el desvínculo si el evento ya no existía)
+                reservationRepository.updateGoogleEventLink(
+                        reservation.getId(), reservation.getGoogleEventId(), reservation.getGoogleEventEtag());
+            }
+            case DELETE -> googleCalendarService.deleteEvent(task.getGoogleEventId(), accessToken);
+        }
+    }
+}
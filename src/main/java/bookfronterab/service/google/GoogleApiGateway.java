@@ -0,0 +1,162 @@
+package bookfronterab.service.google;
+
+import bookfronterab.exception.GoogleCalendarUnavailableException;
+import bookfronterab.service.jfr.ExternalCallEvent;
+import com.google.api.client.http.HttpResponseException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Punto único por el que pasan todas las llamadas HTTP a Google (Calendar y OAuth2).
+ * <p>
+ * Cada llamada se ejecuta en un executor acotado (bulkhead) con un tiempo máximo propio,
+ * de modo que un Google lento no retiene a los hilos de Tomcat más allá de ese límite.
+ * Un circuit breaker corta las llamadas mientras Google falla de forma sostenida; en ese
+ * caso se lanza {@link GoogleCalendarUnavailableException} sin tocar la red, y los
+ * llamadores difieren la sincronización a {@link CalendarSyncRetryQueue}.
+ * Cada llamada emite un {@link ExternalCallEvent} de JFR con su resultado.
+ * </p>
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class GoogleApiGateway {
+
+    /**
+     * Circuit breaker compartido (ver {@link bookfronterab.config.GoogleApiConfig}).
+     */
+    private final CircuitBreaker googleCircuitBreaker;
+
+    /**
+     * Executor acotado que actúa como bulkhead para las llamadas a Google.
+     */
+    private final Executor googleApiExecutor;
+
+    @Value("${app.google.call-timeout-ms:8000}")
+    private long callTimeoutMs;
+
+    /**
+     * Llamada bloqueante a una API de Google.
+     */
+    @FunctionalInterface
+    public interface GoogleCall<T> {
+        T execute() throws IOException;
+    }
+
+    /**
+     * Ejecuta la llamada protegida por el circuit breaker, el bulkhead y el tiempo máximo.
+     *
+     * @param operation Nombre de la operación, para los logs.
+     * @param call      La llamada a ejecutar.
+     * @return El resultado de la llamada.
+     * @throws GoogleCalendarUnavailableException Si el circuito está abierto, el bulkhead está
+     *                                            lleno o se agotó el tiempo de espera.
+     * @throws IOException                        Si la propia llamada falla.
+     */
+    public <T> T call(String operation, GoogleCall<T> call) throws IOException {
+        ExternalCallEvent event = new ExternalCallEvent("google", operation);
+        event.begin();
+        try {
+            return callWithEvent(operation, call, event);
+        } finally {
+            event.commit();
+        }
+    }
+
+    private <T> T callWithEvent(String operation, GoogleCall<T> call, ExternalCallEvent event) throws IOException {
+        if (!googleCircuitBreaker.tryAcquirePermission()) {
+            event.status = "circuit_open";
+            throw new GoogleCalendarUnavailableException("Google no disponible (circuito abierto): se omite " + operation);
+        }
+
+        long start = System.nanoTime();
+        CompletableFuture<T> future;
+        try {
+            future = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return call.execute();
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+            }, googleApiExecutor);
+        } catch (RejectedExecutionException e) {
+            // Saturación local, no un fallo de Google: no cuenta para el circuito
+            googleCircuitBreaker.releasePermission();
+            event.status = "rejected";
+            throw new GoogleCalendarUnavailableException("Demasiadas llamadas a Google en curso: se omite " + operation, e);
+        }
+
+        try {
+            T result = future.get(callTimeoutMs, TimeUnit.MILLISECONDS);
+            googleCircuitBreaker.onSuccess(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            event.status = "ok";
+            return result;
+
+        } catch (TimeoutException e) {
+            // cancel() no interrumpe la llamada: el hilo del bulkhead sigue ocupado hasta que el
+            // socket supere su read timeout (app.google.http.read-timeout-ms), y Google puede
+            // completar la operación igual. Por eso las escrituras deben ser idempotentes
+            // (ver GoogleCalendarService#createEventForReservation).
+            future.cancel(true);
+            googleCircuitBreaker.onError(System.nanoTime() - start, TimeUnit.NANOSECONDS, e);
+            event.status = "timeout";
+            log.warn("La llamada {} a Google superó {} ms.", operation, callTimeoutMs);
+            throw new GoogleCalendarUnavailableException(operation + " superó el tiempo máximo de " + callTimeoutMs + " ms", e);
+
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (isClientError(cause)) {
+                // Google respondió: un 404 o 400 no indica que el servicio esté caído
+                googleCircuitBreaker.onSuccess(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                event.status = "client_error";
+            } else {
+                googleCircuitBreaker.onError(System.nanoTime() - start, TimeUnit.NANOSECONDS, cause);
+                event.status = "error";
+            }
+            if (cause instanceof HttpResponseException responseException) {
+                event.httpStatus = responseException.getStatusCode();
+            }
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IOException("Error inesperado en " + operation + ": " + cause.getMessage(), cause);
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            googleCircuitBreaker.releasePermission();
+            event.status = "interrupted";
+            throw new GoogleCalendarUnavailableException("Interrumpido mientras se esperaba " + operation, e);
+        }
+    }
+
+    /**
+     * Indica si el circuito permite llamadas en este momento (cerrado o semiabierto).
+     */
+    public boolean isAvailable() {
+        CircuitBreaker.State state = googleCircuitBreaker.getState();
+        return state != CircuitBreaker.State.OPEN && state != CircuitBreaker.State.FORCED_OPEN;
+    }
+
+    private static boolean isClientError(Throwable error) {
+        if (!(error instanceof HttpResponseException responseException)) {
+            return false;
+        }
+        int status = responseException.getStatusCode();
+        return status >= 400 && status < 500 && status != 408 && status != 429;
+    }
+}
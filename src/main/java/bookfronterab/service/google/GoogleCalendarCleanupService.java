@@ -0,0 +1,117 @@
+package bookfronterab.service.google;
+
+import bookfronterab.exception.GoogleCalendarUnavailableException;
+import bookfronterab.model.User;
+import bookfronterab.repo.UserRepository;
+import com.google.api.client.auth.oauth2.Credential;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
+
+/**
+ * Limpia eventos de Google Calendar de forma masiva (por ejemplo, al eliminar una sala).
+ * <p>
+ * Las eliminaciones se agrupan por dueño: cada usuario obtiene su credencial una sola vez
+ * y sus eventos se eliminan con la Batch API. Los usuarios se procesan en paralelo sobre
+ * un executor acotado, fuera de la transacción de base de datos. Si el executor está lleno
+ * o una eliminación falla, pasa a la cola persistente de reintentos
+ * ({@link CalendarSyncRetryQueue}) en vez de ejecutarse en el hilo que la envió o perderse.
+ * </p>
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class GoogleCalendarCleanupService {
+
+    private final UserRepository userRepository;
+    private final GoogleCredentialsService googleCredentialsService;
+    private final GoogleCalendarService googleCalendarService;
+
+    /**
+     * Executor acotado para llamadas a Google (ver {@link bookfronterab.config.GoogleApiConfig}).
+     */
+    private final Executor googleCalendarExecutor;
+
+    private final CalendarSyncRetryQueue calendarSyncRetryQueue;
+
+    /**
+     * Se ejecuta solo si la transacción que publicó el evento se confirma.
+     * Si la transacción se revierte, las reservas siguen existiendo y sus eventos no se tocan.
+     * Corre en una transacción nueva: tras el commit, la original ya no confirma nada, y las
+     * eliminaciones diferidas a la cola deben guardarse.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onCleanupRequested(GoogleEventsCleanupEvent event) {
+        deleteEvents(event.events());
+    }
+
+    /**
+     * Agrupa los eventos por dueño y programa una eliminación en lote por usuario.
+     *
+     * @param events Los eventos a eliminar.
+     */
+    public void deleteEvents(List<CalendarEventRef> events) {
+        Map<Long, List<String>> eventIdsByOwner = events.stream()
+                .collect(Collectors.groupingBy(
+                        CalendarEventRef::userId,
+                        Collectors.mapping(CalendarEventRef::googleEventId, Collectors.toList())
+                ));
+
+        log.info("Programando eliminación de {} eventos de Google Calendar para {} usuarios.",
+                events.size(), eventIdsByOwner.size());
+
+        eventIdsByOwner.forEach(this::scheduleDeletion);
+    }
+
+    private void scheduleDeletion(Long userId, List<String> eventIds) {
+        try {
+            googleCalendarExecutor.execute(() -> deleteEventsForOwner(userId, eventIds));
+        } catch (RejectedExecutionException e) {
+            log.warn("Executor de Google Calendar lleno: se difieren {} eliminaciones del usuario {}.",
+                    eventIds.size(), userId);
+            eventIds.forEach(eventId -> calendarSyncRetryQueue.defer(CalendarSyncOperation.delete(userId, eventId)));
+        }
+    }
+
+    /**
+     * Los eventos que no se pudieron eliminar (Google no disponible, credencial, red o un
+     * error de Google en el lote) pasan a la cola de reintentos: los datos locales ya no existen y
+     * nadie más los volvería a borrar.
+     */
+    private void deleteEventsForOwner(Long userId, List<String> eventIds) {
+        List<String> failed;
+        try {
+            User owner = userRepository.findById(userId).orElse(null);
+            if (owner == null) {
+                log.warn("Usuario {} no encontrado; se omiten {} eventos de Google Calendar.", userId, eventIds.size());
+                return;
+            }
+
+            Credential credential = googleCredentialsService.getCredential(owner);
+            failed = googleCalendarService.deleteEvents(eventIds, credential.getAccessToken());
+
+        } catch (GoogleCalendarUnavailableException e) {
+            // Circuito abierto, bulkhead lleno o timeout: la cola reintenta cuando Google se recupere
+            log.info("Google no disponible; se difieren {} eliminaciones del usuario {}: {}",
+                    eventIds.size(), userId, e.getMessage());
+            failed = eventIds;
+        } catch (Exception e) {
+            // No se propaga: los datos locales ya fueron eliminados.
+            log.warn("Error al borrar {} eventos de Google del usuario {}; se reintentarán: {}",
+                    eventIds.size(), userId, e.getMessage());
+            failed = eventIds;
+        }
+        failed.forEach(eventId -> calendarSyncRetryQueue.defer(CalendarSyncOperation.delete(userId, eventId)));
+    }
+}
@@ -0,0 +1,155 @@
+package bookfronterab.service.google;
+
+import bookfronterab.exception.GoogleCalendarUnavailableException;
+import bookfronterab.model.Reservation;
+import bookfronterab.model.User;
+import bookfronterab.repo.ReservationRepository;
+import bookfronterab.repo.UserRepository;
+import bookfronterab.service.TimeService;
+import com.google.api.client.auth.oauth2.Credential;
+import com.google.api.client.http.HttpResponseException;
+import com.google.api.services.calendar.model.Event;
+import com.google.api.services.calendar.model.EventDateTime;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Reconciliación incremental entre las reservas y el Google Calendar de cada usuario.
+ * <p>
+ * Para cada usuario con reservas sincronizadas se leen solo los cambios desde la última
+ * pasada (events.list con syncToken) y se aplican sobre las reservas afectadas:
+ * </p>
+ * <ul>
+ *     <li>Evento eliminado en Google: la reserva se desvincula (googleEventId = null).</li>
+ *     <li>Evento movido en Google: se restaura el horario de la reserva con PATCH + If-Match,
+ *     ya que la reserva local es la fuente de verdad sobre la sala.</li>
+ *     <li>Otros cambios: solo se actualiza el ETag guardado.</li>
+ * </ul>
+ */
+@Component
+@ConditionalOnProperty(name = "app.google.reconcile.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class GoogleCalendarReconciliationService {
+
+    private static final int GONE = 410;
+
+    private final UserRepository userRepository;
+    private final ReservationRepository reservationRepository;
+    private final GoogleCredentialsService googleCredentialsService;
+    private final GoogleCalendarService googleCalendarService;
+    private final GoogleApiGateway googleApiGateway;
+    private final TimeService timeService;
+
+    // Ventana de la lectura completa inicial (solo sirve para obtener el primer syncToken).
+    @Value("${app.google.reconcile.full-sync-days:1}")
+    private long fullSyncDays;
+
+    @Scheduled(
+            fixedDelayString = "${app.google.reconcile.interval-ms:900000}",
+            initialDelayString = "${app.google.reconcile.initial-delay-ms:120000}"
+    )
+    public void reconcileAll() {
+        if (!googleApiGateway.isAvailable()) {
+            return;
+        }
+
+        List<User> users = userRepository.findUsersWithSyncedReservations(timeService.nowOffset().toZonedDateTime());
+        for (User user : users) {
+            try {
+                reconcileUser(user);
+            } catch (GoogleCalendarUnavailableException e) {
+                log.warn("Google no disponible; se interrumpe la reconciliación: {}", e.getMessage());
+                return;
+            } catch (IOException e) {
+                // Un usuario con el token revocado no debe frenar al resto.
+                log.warn("No se pudo reconciliar el calendario de {}: {}", user.getEmail(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Aplica los cambios del calendario del usuario desde la última pasada y guarda el nuevo syncToken.
+     *
+     * @param user El usuario a reconciliar.
+     * @throws IOException Si falla la comunicación con Google.
+     */
+    public void reconcileUser(User user) throws IOException {
+        Credential credential = googleCredentialsService.getCredential(user);
+        String accessToken = credential.getAccessToken();
+        ZonedDateTime fullSyncFrom = timeService.nowOffset().toZonedDateTime().minusDays(fullSyncDays);
+
+        CalendarChanges changes;
+        try {
+            changes = googleCalendarService.listChanges(user.getGoogleCalendarSyncToken(), fullSyncFrom, accessToken);
+        } catch (HttpResponseException e) {
+            if (e.getStatusCode() != GONE || user.getGoogleCalendarSyncToken() == null) {
+                throw e;
+            }
+            log.info("El syncToken de {} expiró; se hace una lectura completa.", user.getEmail());
+            changes = googleCalendarService.listChanges(null, fullSyncFrom, accessToken);
+        }
+
+        applyChanges(user, changes.events(), accessToken);
+        userRepository.updateCalendarSyncToken(user.getId(), changes.nextSyncToken());
+        user.setGoogleCalendarSyncToken(changes.nextSyncToken());
+    }
+
+    private void applyChanges(User user, List<Event> events, String accessToken) throws IOException {
+        if (events.isEmpty()) {
+            return;
+        }
+
+        Map<String, Event> eventsById = events.stream()
+                .collect(Collectors.toMap(Event::getId, Function.identity(), (first, last) -> last));
+
+        // Solo interesan los eventos creados por nosotros; el resto del calendario se ignora.
+        List<Reservation> affected = reservationRepository.findSyncedByUserAndEventIds(user.getId(), eventsById.keySet());
+
+        int unlinked = 0;
+        int restored = 0;
+        for (Reservation reservation : affected) {
+            Event remote = eventsById.get(reservation.getGoogleEventId());
+
+            if ("cancelled".equals(remote.getStatus())) {
+                reservationRepository.updateGoogleEventLink(reservation.getId(), null, null);
+                unlinked++;
+            } else if (!sameSchedule(remote, reservation)) {
+                reservation.setGoogleEventEtag(remote.getEtag());
+                googleCalendarService.updateEvent(reservation.getGoogleEventId(), reservation, accessToken);
+                reservationRepository.updateGoogleEventLink(
+                        reservation.getId(), reservation.getGoogleEventId(), reservation.getGoogleEventEtag());
+                restored++;
+            } else {
+                reservationRepository.updateGoogleEventLink(reservation.getId(), reservation.getGoogleEventId(), remote.getEtag());
+            }
+        }
+
+        if (!affected.isEmpty()) {
+            log.info("Reconciliación de {}: {} eventos cambiados, {} desvinculados, {} restaurados.",
+                    user.getEmail(), affected.size(), unlinked, restored);
+        }
+    }
+
+    private static boolean sameSchedule(Event remote, Reservation reservation) {
+        return sameInstant(remote.getStart(), reservation.getStartAt())
+                && sameInstant(remote.getEnd(), reservation.getEndAt());
+    }
+
+    private static boolean sameInstant(EventDateTime remote, ZonedDateTime local) {
+        return remote != null
+                && remote.getDateTime() != null
+                && remote.getDateTime().getValue() == local.toInstant().toEpochMilli();
+    }
+}
@@ -1,58 +1,117 @@
 package bookfronterab.service.google;
 
 import bookfronterab.model.Reservation;
+import com.google.api.client.googleapis.batch.BatchRequest;
+import com.google.api.client.googleapis.batch.json.JsonBatchCallback;
+import com.google.api.client.googleapis.json.GoogleJsonError;
+import com.google.api.client.http.HttpHeaders;
 import com.google.api.client.http.HttpRequestInitializer;
+import com.google.api.client.http.HttpResponseException;
 import com.google.api.client.http.HttpTransport;
-import com.google.api.client.http.javanet.NetHttpTransport;
-import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.client.json.JsonFactory;
 import com.google.api.services.calendar.Calendar;
 import com.google.api.services.calendar.model.Event;
 import com.google.api.services.calendar.model.EventDateTime;
+import com.google.api.services.calendar.model.Events;
 import com.google.api.client.util.DateTime;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
 
 /**
  * Servicio para interactuar con la API de Google Calendar.
- * Se encarga de la gestión de eventos (creación y eliminación).
+ * Se encarga de la gestión de eventos (creación, actualización, eliminación y lectura de cambios).
  */
 @Service
+@RequiredArgsConstructor
 @Slf4j
 public class GoogleCalendarService {
 
     private static final String APPLICATION_NAME = "BookFrontera Calendar";
     private static final String CALENDAR_ID = "primary";
 
+    // Google recomienda no superar 50 peticiones por lote en la API de Calendar.
+    static final int MAX_BATCH_SIZE = 50;
+
+    // Tamaño de página al leer cambios (máximo permitido por events.list: 2500).
+    static final int SYNC_PAGE_SIZE = 250;
+
+    // Prefijo de los IDs de evento que genera BookFrontera. Google solo admite
+    // caracteres base32hex (a-v y 0-9) y al menos 5 caracteres.
+    static final String EVENT_ID_PREFIX = "bookfronterab";
+
+    /**
+     * Transporte compartido con pool de conexiones (ver {@link bookfronterab.config.GoogleApiConfig}).
+     */
+    private final HttpTransport googleHttpTransport;
+
+    private final JsonFactory googleJsonFactory;
+
+    /**
+     * Circuit breaker, bulkhead y timeout por llamada (ver {@link GoogleApiGateway}).
+     */
+    private final GoogleApiGateway googleApiGateway;
+
+    // Permite apuntar el cliente a un servidor local (stubs de pruebas y benchmarks).
+    @Value("${app.google.calendar.root-url:https://www.googleapis.com/}")
+    private String rootUrl;
+
+    @Value("${app.google.http.connect-timeout-ms:5000}")
+    private int connectTimeoutMs;
+
+    @Value("${app.google.http.read-timeout-ms:10000}")
+    private int readTimeoutMs;
+
     /**
      * Construye y devuelve un cliente de Google Calendar autenticado.
      * <p>
-     * Se reemplaza el uso de la clase deprecada GoogleCredential por un
-     * HttpRequestInitializer simple mediante una expresión lambda.
+     * El cliente es liviano: reutiliza el transporte HTTP compartido, por lo que
+     * las conexiones y sesiones TLS se reaprovechan entre llamadas. Solo el
+     * HttpRequestInitializer es propio de cada usuario, ya que inyecta su token.
      * </p>
      *
      * @param accessToken El token de acceso OAuth2 del usuario.
      * @return Un cliente de Calendar configurado y listo para usar.
      */
     public Calendar getCalendarClient(String accessToken) {
-        HttpTransport transport = new NetHttpTransport();
-        GsonFactory jsonFactory = GsonFactory.getDefaultInstance();
-
-        // En lugar de 'new GoogleCredential().setAccessToken(...)', definimos
-        // manualmente cómo se inyecta el token en los headers.
-        HttpRequestInitializer requestInitializer = request ->
-                request.getHeaders().setAuthorization("Bearer " + accessToken);
-
-        return new Calendar.Builder(transport, jsonFactory, requestInitializer)
+        return new Calendar.Builder(googleHttpTransport, googleJsonFactory, requestInitializer(accessToken))
                 .setApplicationName(APPLICATION_NAME)
+                .setRootUrl(rootUrl)
                 .build();
     }
 
+    /**
+     * En lugar de 'new GoogleCredential().setAccessToken(...)', definimos
+     * manualmente cómo se inyecta el token en los headers de cada petición.
+     */
+    private HttpRequestInitializer requestInitializer(String accessToken) {
+        return request -> {
+            request.getHeaders().setAuthorization("Bearer " + accessToken);
+            request.setConnectTimeout(connectTimeoutMs);
+            request.setReadTimeout(readTimeoutMs);
+        };
+    }
+
     /**
      * Crea un nuevo evento en Google Calendar basado en una reserva.
+     * <p>
+     * El ID del evento se deriva del ID de la reserva ({@link #eventIdFor}), así que la
+     * inserción es idempotente: si un intento anterior llegó a Google aunque aquí se diera
+     * por fallido (p. ej. por superar el tiempo máximo), el reintento recibe 409 y se adopta
+     * el evento ya creado en lugar de duplicarlo. Si el usuario lo había borrado en Google,
+     * se restaura.
+     * </p>
+     * También deja el ETag del evento creado en {@code reservation.googleEventEtag}.
      *
-     * @param reservation La entidad de reserva con los detalles.
+     * @param reservation La entidad de reserva con los detalles (ya persistida).
      * @param accessToken El token de acceso del usuario.
      * @return El ID del evento de Google Calendar que se ha creado.
      * @throws IOException Si hay un error de comunicación con la API.
@@ -60,21 +119,29 @@ public class GoogleCalendarService {
     public String createEventForReservation(Reservation reservation, String accessToken) throws IOException {
         Calendar service = getCalendarClient(accessToken);
 
-        Event event = new Event()
-                .setSummary("Reserva de Sala: " + reservation.getRoom().getName())
-                .setDescription("Reserva realizada a través de BookFrontera.")
-                .setLocation(reservation.getRoom().getName());
+        String eventId = eventIdFor(reservation);
+        Event event = applyReservation(new Event(), reservation)
+                .setId(eventId)
+                .setDescription("Reserva realizada a través de BookFrontera.");
 
-        // Conversión segura de fechas
-        DateTime startDateTime = new DateTime(reservation.getStartAt().toInstant().toEpochMilli());
-        DateTime endDateTime = new DateTime(reservation.getEndAt().toInstant().toEpochMilli());
-
-        event.setStart(new EventDateTime().setDateTime(startDateTime).setTimeZone(reservation.getStartAt().getZone().getId()));
-        event.setEnd(new EventDateTime().setDateTime(endDateTime).setTimeZone(reservation.getEndAt().getZone().getId()));
-
-        Event createdEvent = service.events().insert(CALENDAR_ID, event).execute();
-        log.info("Evento de Google Calendar creado con ID: {}", createdEvent.getId());
+        Event createdEvent;
+        try {
+            createdEvent = googleApiGateway.call("events.insert", service.events().insert(CALENDAR_ID, event)::execute);
+            log.info("Evento de Google Calendar creado con ID: {}", createdEvent.getId());
+        } catch (HttpResponseException e) {
+            if (e.getStatusCode() != 409) {
+                throw e;
+            }
+            log.info("El evento {} de la reserva {} ya existía en Google; se reutiliza.", eventId, reservation.getId());
+            createdEvent = googleApiGateway.call("events.get", service.events().get(CALENDAR_ID, eventId)::execute);
+            if ("cancelled".equals(createdEvent.getStatus())) {
+                Event restored = applyReservation(new Event(), reservation).setStatus("confirmed");
+                createdEvent = patchEvent(service, eventId, restored, createdEvent.getEtag());
+            }
+        }
 
+        // Guardamos el ETag para las actualizaciones condicionales posteriores
+        reservation.setGoogleEventEtag(createdEvent.getEtag());
         return createdEvent.getId();
     }
 
@@ -93,7 +160,7 @@ public class GoogleCalendarService {
 
         try {
             Calendar service = getCalendarClient(accessToken);
-            service.events().delete(CALENDAR_ID, googleEventId).execute();
+            googleApiGateway.call("events.delete", service.events().delete(CALENDAR_ID, googleEventId)::execute);
             log.info("Evento de Google Calendar eliminado con ID: {}", googleEventId);
         } catch (IOException e) {
             if (e.getMessage().contains("404") || e.getMessage().contains("410")) {
@@ -105,31 +172,167 @@ public class GoogleCalendarService {
         }
     }
 
+    /**
+     * Elimina varios eventos del calendario de un mismo usuario usando la Batch API de Google.
+     * Se agrupan hasta {@value #MAX_BATCH_SIZE} eliminaciones por petición HTTP.
+     * Los eventos que ya no existen (404/410) se consideran eliminados.
+     *
+     * @param googleEventIds Los IDs de los eventos a eliminar (todos del mismo usuario).
+     * @param accessToken    El token de acceso del dueño de los eventos.
+     * @return Los IDs de los eventos que Google no eliminó por otro motivo (p. ej. 403 o 5xx),
+     *         para reintentarlos.
+     * @throws IOException Si falla la comunicación con la API.
+     */
+    public List<String> deleteEvents(List<String> googleEventIds, String accessToken) throws IOException {
+        if (googleEventIds == null || googleEventIds.isEmpty()) {
+            return List.of();
+        }
+
+        Calendar service = getCalendarClient(accessToken);
+        // Los callbacks corren en el hilo del bulkhead (ver GoogleApiGateway)
+        List<String> failed = Collections.synchronizedList(new ArrayList<>());
+
+        for (int from = 0; from < googleEventIds.size(); from += MAX_BATCH_SIZE) {
+            List<String> chunk = googleEventIds.subList(from, Math.min(from + MAX_BATCH_SIZE, googleEventIds.size()));
+            BatchRequest batch = service.batch(requestInitializer(accessToken));
+            for (String eventId : chunk) {
+                service.events().delete(CALENDAR_ID, eventId).queue(batch, deleteCallback(eventId, failed));
+            }
+            googleApiGateway.call("events.batchDelete", () -> {
+                batch.execute();
+                return null;
+            });
+        }
+
+        log.info("Eliminados {} de {} eventos de Google Calendar en lote.",
+                googleEventIds.size() - failed.size(), googleEventIds.size());
+        return List.copyOf(failed);
+    }
+
+    private static JsonBatchCallback<Void> deleteCallback(String eventId, List<String> failed) {
+        return new JsonBatchCallback<>() {
+            @Override
+            public void onSuccess(Void content, HttpHeaders responseHeaders) {
+            }
+
+            @Override
+            public void onFailure(GoogleJsonError error, HttpHeaders responseHeaders) {
+                if (error.getCode() != 404 && error.getCode() != 410) {
+                    log.error("Error al eliminar el evento {} en lote: {} {}", eventId, error.getCode(), error.getMessage());
+                    failed.add(eventId);
+                }
+            }
+        };
+    }
+
     /**
      * Actualiza un evento existente en Google Calendar con los nuevos datos de la reserva.
+     * <p>
+     * Usa PATCH con solo los campos que maneja BookFrontera (título, lugar y horario), de modo
+     * que se conservan los cambios que el usuario haya hecho en Google (recordatorios, notas).
+     * Si la reserva conoce el ETag del evento, se envía como If-Match; si Google responde
+     * 412, el evento cambió en el intermedio y se reintenta una vez con el ETag vigente.
+     * Al terminar, {@code reservation.googleEventEtag} queda con el ETag nuevo. Si el evento
+     * ya no existe en Google, se desvincula de la reserva.
+     * </p>
      */
     public void updateEvent(String googleEventId, Reservation reservation, String accessToken) throws IOException {
         if (googleEventId == null || googleEventId.isEmpty()) return;
 
         Calendar service = getCalendarClient(accessToken);
+        Event changes = applyReservation(new Event(), reservation);
 
-        // Buscamos el evento original
-        Event event = service.events().get(CALENDAR_ID, googleEventId).execute();
+        Event updated;
+        try {
+            updated = patchEvent(service, googleEventId, changes, reservation.getGoogleEventEtag());
+        } catch (HttpResponseException e) {
+            if (e.getStatusCode() == 412) {
+                log.info("El evento {} cambió en Google; se reintenta con el ETag vigente.", googleEventId);
+                Event current = googleApiGateway.call("events.get", service.events().get(CALENDAR_ID, googleEventId)::execute);
+                updated = patchEvent(service, googleEventId, changes, current.getEtag());
+            } else if (e.getStatusCode() == 404 || e.getStatusCode() == 410) {
+                log.warn("El evento {} ya no existe en Google Calendar; se desvincula de la reserva {}.",
+                        googleEventId, reservation.getId());
+                reservation.setGoogleEventId(null);
+                reservation.setGoogleEventEtag(null);
+                return;
+            } else {
+                throw e;
+            }
+        }
 
-        // Actualizamos los campos necesarios
-        event.setSummary("Reserva de Sala: " + reservation.getRoom().getName());
-        event.setLocation(reservation.getRoom().getName());
+        reservation.setGoogleEventEtag(updated.getEtag());
+        log.info("Evento de Google Calendar actualizado. ID: {}", googleEventId);
+    }
 
-        // Actualizar Fechas
-        DateTime startDateTime = new DateTime(reservation.getStartAt().toInstant().toEpochMilli());
-        DateTime endDateTime = new DateTime(reservation.getEndAt().toInstant().toEpochMilli());
+    /**
+     * Lee los cambios del calendario principal del usuario.
+     * <p>
+     * Con {@code syncToken} devuelve solo lo que cambió desde la lectura anterior (incluidos los
+     * eventos eliminados, con status "cancelled"). Sin token hace una lectura completa desde
+     * {@code fullSyncFrom}, cuyo único fin es obtener el primer token. Si Google responde
+     * 410 Gone, el token expiró y el llamador debe repetir sin token.
+     * </p>
+     *
+     * @param syncToken    Token de la lectura anterior, o null para una lectura completa.
+     * @param fullSyncFrom Inicio de la ventana de la lectura completa.
+     * @param accessToken  El token de acceso del usuario.
+     * @return Los eventos cambiados y el token para la próxima lectura.
+     * @throws IOException Si falla la comunicación con la API (410 si el token expiró).
+     */
+    public CalendarChanges listChanges(String syncToken, ZonedDateTime fullSyncFrom, String accessToken) throws IOException {
+        Calendar service = getCalendarClient(accessToken);
+        List<Event> changed = new ArrayList<>();
+        String pageToken = null;
+        Events page;
+
+        do {
+            Calendar.Events.List request = service.events().list(CALENDAR_ID)
+                    .setMaxResults(SYNC_PAGE_SIZE)
+                    .setPageToken(pageToken);
+            if (syncToken != null) {
+                request.setSyncToken(syncToken);
+            } else {
+                request.setTimeMin(new DateTime(fullSyncFrom.toInstant().toEpochMilli()));
+            }
 
-        event.setStart(new EventDateTime().setDateTime(startDateTime).setTimeZone(reservation.getStartAt().getZone().getId()));
-        event.setEnd(new EventDateTime().setDateTime(endDateTime).setTimeZone(reservation.getEndAt().getZone().getId()));
+            page = googleApiGateway.call("events.list", request::execute);
+            if (page.getItems() != null) {
+                changed.addAll(page.getItems());
+            }
+            pageToken = page.getNextPageToken();
+        } while (pageToken != null);
 
-        // Ejecutamos la actualización (update reemplaza metadata, patch actualiza parcial)
-        service.events().update(CALENDAR_ID, googleEventId, event).execute();
-        log.info("Evento de Google Calendar actualizado. ID: {}", googleEventId);
+        return new CalendarChanges(changed, page.getNextSyncToken());
     }
 
-}
\ No newline at end of file
+    /**
+     * ID del evento de Google de una reserva: el mismo en cada intento de creación.
+     */
+    static String eventIdFor(Reservation reservation) {
+        return EVENT_ID_PREFIX + Objects.requireNonNull(reservation.getId(), "La reserva debe estar persistida");
+    }
+
+    private Event patchEvent(Calendar service, String googleEventId, Event changes, String etag) throws IOException {
+        Calendar.Events.Patch patch = service.events().patch(CALENDAR_ID, googleEventId, changes);
+        if (etag != null) {
+            patch.getRequestHeaders().setIfMatch(etag);
+        }
+        return googleApiGateway.call("events.patch", patch::execute);
+    }
+
+    /**
+     * Copia al evento los campos que BookFrontera controla: título, lugar y horario.
+     */
+    private Event applyReservation(Event event, Reservation reservation) {
+        // Conversión segura de fechas
+        DateTime startDateTime = new DateTime(reservation.getStartAt().toInstant().toEpochMilli());
+        DateTime endDateTime = new DateTime(reservation.getEndAt().toInstant().toEpochMilli());
+
+        return event
+                .setSummary("Reserva de Sala: " + reservation.getRoom().getName())
+                .setLocation(reservation.getRoom().getName())
+                .setStart(new EventDateTime().setDateTime(startDateTime).setTimeZone(reservation.getStartAt().getZone().getId()))
+                .setEnd(new EventDateTime().setDateTime(endDateTime).setTimeZone(reservation.getEndAt().getZone().getId()));
+    }
+}
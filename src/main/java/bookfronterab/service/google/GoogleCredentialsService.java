@@ -1,5 +1,6 @@
 package bookfronterab.service.google;
 
+import bookfronterab.exception.GoogleCalendarUnavailableException;
 import bookfronterab.model.User;
 import bookfronterab.repo.UserRepository;
 import bookfronterab.service.TimeService;
@@ -9,8 +10,8 @@ import com.google.api.client.auth.oauth2.Credential;
 import com.google.api.client.auth.oauth2.TokenResponse;
 import com.google.api.client.googleapis.auth.oauth2.GoogleRefreshTokenRequest;
 import com.google.api.client.http.GenericUrl;
-import com.google.api.client.http.javanet.NetHttpTransport;
-import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.json.JsonFactory;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -18,10 +19,23 @@ import org.springframework.stereotype.Service;
 
 import java.io.IOException;
 import java.time.OffsetDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Servicio encargado de gestionar y validar las credenciales OAuth2 de Google.
  * Realiza el refresco de tokens automáticamente si estos han expirado.
+ * <p>
+ * Los refrescos son "single-flight" por usuario: si varios hilos necesitan refrescar
+ * el token del mismo usuario al mismo tiempo, solo uno llama a Google y persiste el
+ * resultado (solo las columnas de tokens); el resto espera y arma su credencial con ese
+ * mismo token, sin modificar su propia instancia de {@link User} (que Hibernate volvería
+ * a guardar en su transacción).
+ * </p>
  */
 @Service
 @RequiredArgsConstructor
@@ -31,6 +45,18 @@ public class GoogleCredentialsService {
     private final UserRepository userRepository;
     private final TimeService timeService;
 
+    /**
+     * Transporte compartido con pool de conexiones (ver {@link bookfronterab.config.GoogleApiConfig}).
+     */
+    private final HttpTransport googleHttpTransport;
+
+    private final JsonFactory googleJsonFactory;
+
+    /**
+     * Circuit breaker, bulkhead y timeout por llamada (ver {@link GoogleApiGateway}).
+     */
+    private final GoogleApiGateway googleApiGateway;
+
     // URL estándar de Google para obtener tokens
     private static final String TOKEN_SERVER_URL = "https://oauth2.googleapis.com/token";
 
@@ -40,6 +66,23 @@ public class GoogleCredentialsService {
     @Value("${spring.security.oauth2.client.registration.google.client-secret}")
     private String clientSecret;
 
+    // Margen para refrescar un poco antes de la expiración real y evitar 401 en vuelo.
+    @Value("${app.google.token-refresh.skew-seconds:60}")
+    private long refreshSkewSeconds;
+
+    // Tiempo máximo que un hilo espera el refresco iniciado por otro hilo.
+    private static final long REFRESH_WAIT_SECONDS = 30;
+
+    /**
+     * Refrescos en curso, indexados por email del usuario.
+     */
+    private final ConcurrentMap<String, CompletableFuture<RefreshedToken>> inFlightRefreshes = new ConcurrentHashMap<>();
+
+    /**
+     * Resultado de un refresco, compartido entre los hilos que lo esperaban.
+     */
+    private record RefreshedToken(String accessToken, String refreshToken, OffsetDateTime expiresAt) {}
+
     /**
      * Obtiene una Credencial válida para el usuario.
      * Si el token de acceso ha expirado, intenta refrescarlo utilizando el refresh token.
@@ -54,73 +97,158 @@ public class GoogleCredentialsService {
         }
 
         //  Verificamos si el token está expirado o cerca de expirar
-        boolean isExpired = user.getGoogleTokenExpiryDate() == null ||
-                user.getGoogleTokenExpiryDate().isBefore(timeService.nowOffset());
+        boolean isExpired = isExpiringBefore(user, timeService.nowOffset().plusSeconds(refreshSkewSeconds));
 
         if (isExpired) {
             log.info("El token de acceso para {} ha expirado. Iniciando refresco...", user.getEmail());
-            refreshAccessToken(user);
+            RefreshedToken token = refreshAccessToken(user);
+            String refreshToken = token.refreshToken() != null ? token.refreshToken() : user.getGoogleRefreshToken();
+            return createCredentialObject(token.accessToken(), refreshToken);
         }
 
         //  Construimos y devolvemos la credencial usando clases estándar no deprecadas
-        return createCredentialObject(user);
+        return createCredentialObject(user.getGoogleAccessToken(), user.getGoogleRefreshToken());
+    }
+
+    /**
+     * Refresca el token del usuario si expira antes del instante indicado.
+     * Lo usa el refresco proactivo en segundo plano ({@link GoogleTokenRefreshScheduler}).
+     *
+     * @param user      El usuario a revisar.
+     * @param threshold Instante límite; si el token expira antes, se refresca.
+     * @return {@code true} si se refrescó (o se esperó un refresco en curso).
+     * @throws IOException Si la petición de refresco falla.
+     */
+    public boolean refreshIfExpiringBefore(User user, OffsetDateTime threshold) throws IOException {
+        if (user.getGoogleRefreshToken() == null || !isExpiringBefore(user, threshold)) {
+            return false;
+        }
+        refreshAccessToken(user);
+        return true;
+    }
+
+    private boolean isExpiringBefore(User user, OffsetDateTime threshold) {
+        return user.getGoogleTokenExpiryDate() == null || user.getGoogleTokenExpiryDate().isBefore(threshold);
+    }
+
+    /**
+     * Refresca el token de acceso garantizando una sola petición en vuelo por usuario.
+     * El primer hilo hace la llamada, actualiza su usuario y guarda solo los tokens; los demás esperan
+     * su resultado y lo reciben como valor, sin tocar su instancia de {@link User}.
+     *
+     * @param user El usuario cuyo token se refresca.
+     * @return El token nuevo.
+     * @throws IOException Si la petición de refresco falla.
+     */
+    private RefreshedToken refreshAccessToken(User user) throws IOException {
+        String key = user.getEmail();
+        CompletableFuture<RefreshedToken> ownRefresh = new CompletableFuture<>();
+        CompletableFuture<RefreshedToken> inFlight = inFlightRefreshes.putIfAbsent(key, ownRefresh);
+
+        if (inFlight != null) {
+            log.info("Ya hay un refresco en curso para {}. Esperando su resultado...", key);
+            return awaitRefresh(inFlight);
+        }
+
+        try {
+            RefreshedToken token = requestNewToken(user);
+            applyToUser(user, token);
+            // El usuario puede venir cargado de antes (refresco proactivo): guardarlo entero
+            // pisaría un cambio de rol o de syncToken hecho entretanto
+            userRepository.updateGoogleTokens(user.getId(), token.accessToken(), token.refreshToken(), token.expiresAt());
+            ownRefresh.complete(token);
+            return token;
+        } catch (IOException | RuntimeException e) {
+            ownRefresh.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightRefreshes.remove(key, ownRefresh);
+        }
     }
 
     /**
      * Realiza la petición a Google para refrescar el token de acceso.
-     * Actualiza la entidad User con los nuevos valores.
      *
-     * @param user El usuario a actualizar.
+     * @param user El usuario cuyo refresh token se utiliza.
+     * @return El nuevo token con su fecha de expiración.
      * @throws IOException Si la petición de refresco falla.
      */
-    private void refreshAccessToken(User user) throws IOException {
+    private RefreshedToken requestNewToken(User user) throws IOException {
         try {
-            // Usamos GoogleRefreshTokenRequest en lugar de GoogleCredential.refreshToken()
-            TokenResponse response = new GoogleRefreshTokenRequest(
-                    new NetHttpTransport(),
-                    GsonFactory.getDefaultInstance(),
-                    user.getGoogleRefreshToken(),
-                    clientId,
-                    clientSecret
-            ).execute();
+            TokenResponse response = executeRefreshRequest(user);
 
             log.info("Token refrescado exitosamente para {}", user.getEmail());
 
-            // Actualizamos el usuario con el nuevo Access Token
-            user.setGoogleAccessToken(response.getAccessToken());
-
-            // A veces Google rota el Refresh Token también, si viene uno nuevo, lo guardamos
-            if (response.getRefreshToken() != null) {
-                user.setGoogleRefreshToken(response.getRefreshToken());
-            }
-
             // Calculamos la nueva fecha de expiración
             // getExpiresInSeconds() devuelve Long, si es null asumimos 3600 (1 hora)
             long expiresInSeconds = response.getExpiresInSeconds() != null ? response.getExpiresInSeconds() : 3600;
-            user.setGoogleTokenExpiryDate(
+
+            // A veces Google rota el Refresh Token también; si no viene uno nuevo, se conserva el actual
+            return new RefreshedToken(
+                    response.getAccessToken(),
+                    response.getRefreshToken(),
                     OffsetDateTime.now(timeService.zone()).plusSeconds(expiresInSeconds)
             );
 
-            userRepository.save(user);
-
+        } catch (GoogleCalendarUnavailableException e) {
+            // Google no está disponible: el refresh token sigue siendo válido
+            log.warn("No se pudo refrescar el token de {}: {}", user.getEmail(), e.getMessage());
+            throw e;
         } catch (IOException e) {
             log.error("Fallo al refrescar token para {}. El refresh token podría haber sido revocado.", user.getEmail());
             throw new IOException("Error al refrescar el token de Google: " + e.getMessage(), e);
         }
     }
 
+    protected TokenResponse executeRefreshRequest(User user) throws IOException {
+        // Usamos GoogleRefreshTokenRequest en lugar de GoogleCredential.refreshToken()
+        GoogleRefreshTokenRequest request = new GoogleRefreshTokenRequest(
+                googleHttpTransport,
+                googleJsonFactory,
+                user.getGoogleRefreshToken(),
+                clientId,
+                clientSecret
+        );
+        return googleApiGateway.call("oauth2.refresh", request::execute);
+    }
+
+    private RefreshedToken awaitRefresh(CompletableFuture<RefreshedToken> inFlight) throws IOException {
+        try {
+            return inFlight.get(REFRESH_WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IOException("Error al refrescar el token de Google: " + cause.getMessage(), cause);
+        } catch (TimeoutException e) {
+            throw new IOException("Tiempo de espera agotado aguardando el refresco del token de Google.", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrumpido mientras se esperaba el refresco del token de Google.", e);
+        }
+    }
+
+    private void applyToUser(User user, RefreshedToken token) {
+        user.setGoogleAccessToken(token.accessToken());
+        if (token.refreshToken() != null) {
+            user.setGoogleRefreshToken(token.refreshToken());
+        }
+        user.setGoogleTokenExpiryDate(token.expiresAt());
+    }
+
     /**
      * Crea el objeto Credential necesario para las librerías de Google API.
      * Reemplaza al builder deprecado de GoogleCredential.
      */
-    private Credential createCredentialObject(User user) {
+    private Credential createCredentialObject(String accessToken, String refreshToken) {
         return new Credential.Builder(BearerToken.authorizationHeaderAccessMethod())
-                .setTransport(new NetHttpTransport())
-                .setJsonFactory(GsonFactory.getDefaultInstance())
+                .setTransport(googleHttpTransport)
+                .setJsonFactory(googleJsonFactory)
                 .setTokenServerUrl(new GenericUrl(TOKEN_SERVER_URL))
                 .setClientAuthentication(new ClientParametersAuthentication(clientId, clientSecret))
                 .build()
-                .setAccessToken(user.getGoogleAccessToken())
-                .setRefreshToken(user.getGoogleRefreshToken());
+                .setAccessToken(accessToken)
+                .setRefreshToken(refreshToken);
     }
 }
\ No newline at end of file
@@ -0,0 +1,12 @@
+package bookfronterab.service.google;
+
+import java.util.List;
+
+/**
+ * Evento de aplicación que solicita eliminar eventos de Google Calendar una vez
+ * confirmada la transacción que borró las reservas correspondientes.
+ *
+ * @param events Los eventos a eliminar (pueden pertenecer a distintos usuarios).
+ */
+public record GoogleEventsCleanupEvent(List<CalendarEventRef> events) {
+}
@@ -0,0 +1,72 @@
+package bookfronterab.service.google;
+
+import bookfronterab.model.User;
+import bookfronterab.repo.UserRepository;
+import bookfronterab.service.TimeService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Tarea programada que renueva los tokens de Google poco antes de que expiren,
+ * solo para usuarios con reservas sincronizadas próximas. Así las rutas de
+ * sincronización (crear, modificar, cancelar) casi nunca pagan la latencia del refresco.
+ */
+@Component
+@ConditionalOnProperty(name = "app.google.token-refresh.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class GoogleTokenRefreshScheduler {
+
+    private final UserRepository userRepository;
+    private final GoogleCredentialsService googleCredentialsService;
+    private final TimeService timeService;
+
+    // Se renuevan los tokens que expiran dentro de este margen (debe ser mayor que el intervalo).
+    @Value("${app.google.token-refresh.lead-time-minutes:10}")
+    private long leadTimeMinutes;
+
+    // Solo se consideran reservas que comienzan dentro de este horizonte.
+    @Value("${app.google.token-refresh.horizon-days:7}")
+    private long horizonDays;
+
+    @Scheduled(
+            fixedDelayString = "${app.google.token-refresh.interval-ms:300000}",
+            initialDelayString = "${app.google.token-refresh.initial-delay-ms:60000}"
+    )
+    public void refreshExpiringTokens() {
+        OffsetDateTime now = timeService.nowOffset();
+        OffsetDateTime threshold = now.plusMinutes(leadTimeMinutes);
+
+        List<User> users = userRepository.findUsersWithPendingCalendarWork(
+                now.toZonedDateTime(),
+                now.plusDays(horizonDays).toZonedDateTime(),
+                threshold
+        );
+
+        if (users.isEmpty()) {
+            return;
+        }
+
+        int refreshed = 0;
+        for (User user : users) {
+            try {
+                if (googleCredentialsService.refreshIfExpiringBefore(user, threshold)) {
+                    refreshed++;
+                }
+            } catch (IOException e) {
+                // Un token revocado no debe impedir renovar el resto.
+                log.warn("No se pudo renovar de forma proactiva el token de {}: {}", user.getEmail(), e.getMessage());
+            }
+        }
+
+        log.info("Refresco proactivo de tokens: {} de {} usuarios renovados.", refreshed, users.size());
+    }
+}
@@ -0,0 +1,31 @@
+package bookfronterab.service.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Cálculo de la grilla de disponibilidad de un día.
+ */
+@Name("bookfronterab.AvailabilityComputation")
+@Label("Cálculo de disponibilidad")
+@Category({"BookFrontera", "Disponibilidad"})
+@Description("Consulta de salas y reservas del día y armado de la matriz sala × bloque")
+@StackTrace(false)
+public class AvailabilityComputationEvent extends Event {
+
+    @Label("Fecha")
+    public String date;
+
+    @Label("Salas")
+    public int rooms;
+
+    @Label("Reservas")
+    public int reservations;
+
+    @Label("Celdas")
+    public int cells;
+}
@@ -0,0 +1,37 @@
+package bookfronterab.service.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Una llamada a un servicio externo (Google o Cloudinary). Conserva el stack trace para
+ * saber qué flujo de la aplicación la originó.
+ */
+@Name("bookfronterab.ExternalCall")
+@Label("Llamada externa")
+@Category({"BookFrontera", "Servicios externos"})
+@Description("Llamada HTTP a Google o Cloudinary, con su resultado")
+public class ExternalCallEvent extends Event {
+
+    @Label("Servicio")
+    public String service;
+
+    @Label("Operación")
+    public String operation;
+
+    @Label("Resultado")
+    @Description("ok, client_error, error, timeout, rejected, circuit_open o interrupted")
+    public String status;
+
+    @Label("Estado HTTP")
+    @Description("Código HTTP de la respuesta de error, o 0 si no lo hubo")
+    public int httpStatus;
+
+    public ExternalCallEvent(String service, String operation) {
+        this.service = service;
+        this.operation = operation;
+    }
+}
@@ -0,0 +1,31 @@
+package bookfronterab.service.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Una operación de reserva completa; sus {@link ReservationPhaseEvent} ocurren dentro de
+ * ella en el mismo hilo.
+ */
+@Name("bookfronterab.ReservationOperation")
+@Label("Operación de reserva")
+@Category({"BookFrontera", "Reservas"})
+@Description("Duración total de create, create_on_behalf, modify o cancel")
+@StackTrace(false)
+public class ReservationOperationEvent extends Event {
+
+    @Label("Operación")
+    public String operation;
+
+    @Label("Resultado")
+    @Description("success o failure")
+    public String outcome;
+
+    public ReservationOperationEvent(String operation) {
+        this.operation = operation;
+    }
+}
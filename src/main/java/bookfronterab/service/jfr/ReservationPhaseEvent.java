@@ -0,0 +1,31 @@
+package bookfronterab.service.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Una fase de una operación de reserva (búsqueda del usuario, espera por el bloqueo de la
+ * sala, consulta de conflictos...). Lo emite {@code ReservationMetrics} junto con el timer.
+ */
+@Name("bookfronterab.ReservationPhase")
+@Label("Fase de reserva")
+@Category({"BookFrontera", "Reservas"})
+@Description("Duración de una fase de create, create_on_behalf, modify o cancel")
+@StackTrace(false)
+public class ReservationPhaseEvent extends Event {
+
+    @Label("Operación")
+    public String operation;
+
+    @Label("Fase")
+    public String phase;
+
+    public ReservationPhaseEvent(String operation, String phase) {
+        this.operation = operation;
+        this.phase = phase;
+    }
+}
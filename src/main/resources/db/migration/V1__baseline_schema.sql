@@ -0,0 +1,98 @@
+-- Esquema inicial: el mismo que generaba spring.jpa.hibernate.ddl-auto=update.
+-- Es idempotente (IF NOT EXISTS) para que las bases creadas antes por Hibernate pasen por
+-- esta versión sin cambios: Flyway las marca como versión 0 (spring.flyway.baseline-on-migrate)
+-- y desde aquí todas siguen el mismo camino de migraciones.
+
+CREATE SEQUENCE IF NOT EXISTS user_id_seq START WITH 100 INCREMENT BY 1;
+CREATE SEQUENCE IF NOT EXISTS room_id_seq START WITH 1 INCREMENT BY 1;
+CREATE SEQUENCE IF NOT EXISTS reservation_id_seq START WITH 100 INCREMENT BY 1;
+CREATE SEQUENCE IF NOT EXISTS calendar_sync_task_id_seq START WITH 1 INCREMENT BY 1;
+CREATE SEQUENCE IF NOT EXISTS room_decommission_job_id_seq START WITH 1 INCREMENT BY 1;
+
+CREATE TABLE IF NOT EXISTS users (
+    id                         BIGINT                      NOT NULL,
+    email                      VARCHAR(255)                NOT NULL,
+    nombre                     VARCHAR(255)                NOT NULL,
+    rol                        VARCHAR(255)                NOT NULL CHECK (rol IN ('STUDENT', 'ADMIN')),
+    creado_en                  TIMESTAMP(6) WITH TIME ZONE,
+    google_access_token        VARCHAR(1024),
+    google_refresh_token       VARCHAR(1024),
+    google_token_expiry_date   TIMESTAMP(6) WITH TIME ZONE,
+    google_calendar_sync_token VARCHAR(512),
+    CONSTRAINT users_pkey PRIMARY KEY (id),
+    CONSTRAINT uk_users_email UNIQUE (email)
+);
+
+CREATE TABLE IF NOT EXISTS rooms (
+    id                 BIGINT       NOT NULL,
+    name               VARCHAR(255),
+    capacity           INTEGER      NOT NULL,
+    floor              INTEGER      NOT NULL,
+    image_url          VARCHAR(255),
+    image_status       VARCHAR(16) CHECK (image_status IN ('READY', 'PENDING', 'FAILED')),
+    pending_image_hash VARCHAR(64),
+    retired            BOOLEAN DEFAULT FALSE NOT NULL,
+    CONSTRAINT rooms_pkey PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS room_equipment (
+    room_id   BIGINT       NOT NULL,
+    equipment VARCHAR(255),
+    CONSTRAINT fk_room_equipment_room FOREIGN KEY (room_id) REFERENCES rooms (id)
+);
+
+CREATE TABLE IF NOT EXISTS reservations (
+    id                BIGINT                      NOT NULL,
+    room_id           BIGINT                      NOT NULL,
+    user_id           BIGINT                      NOT NULL,
+    start_at          TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    end_at            TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    google_event_id   VARCHAR(255),
+    google_event_etag VARCHAR(64),
+    CONSTRAINT reservations_pkey PRIMARY KEY (id),
+    CONSTRAINT fk_reservations_room FOREIGN KEY (room_id) REFERENCES rooms (id),
+    CONSTRAINT fk_reservations_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+CREATE TABLE IF NOT EXISTS registry (
+    id_registry    INTEGER NOT NULL,
+    reservation_id BIGINT,
+    state          VARCHAR(255) CHECK (state IN ('CANCELLED', 'MAINTENANCE', 'MODIFIED', 'CREATED')),
+    CONSTRAINT registry_pkey PRIMARY KEY (id_registry),
+    CONSTRAINT fk_registry_reservation FOREIGN KEY (reservation_id) REFERENCES reservations (id)
+);
+
+CREATE TABLE IF NOT EXISTS image_assets (
+    content_hash VARCHAR(64)  NOT NULL,
+    secure_url   VARCHAR(512) NOT NULL,
+    created_at   TIMESTAMP(6) WITH TIME ZONE,
+    CONSTRAINT image_assets_pkey PRIMARY KEY (content_hash)
+);
+CREATE INDEX IF NOT EXISTS idx_image_assets_secure_url ON image_assets (secure_url);
+
+CREATE TABLE IF NOT EXISTS calendar_sync_tasks (
+    id              BIGINT                      NOT NULL,
+    type            VARCHAR(16)                 NOT NULL CHECK (type IN ('CREATE', 'UPDATE', 'DELETE')),
+    reservation_id  BIGINT,
+    user_id         BIGINT                      NOT NULL,
+    google_event_id VARCHAR(255),
+    attempts        INTEGER                     NOT NULL,
+    next_attempt_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    last_error      VARCHAR(1024),
+    created_at      TIMESTAMP(6) WITH TIME ZONE,
+    CONSTRAINT calendar_sync_tasks_pkey PRIMARY KEY (id)
+);
+CREATE INDEX IF NOT EXISTS idx_calendar_sync_tasks_next_attempt ON calendar_sync_tasks (next_attempt_at);
+
+CREATE TABLE IF NOT EXISTS room_decommission_jobs (
+    id                   BIGINT       NOT NULL,
+    room_id              BIGINT       NOT NULL,
+    room_name            VARCHAR(255),
+    status               VARCHAR(255) NOT NULL CHECK (status IN ('PENDING', 'RUNNING', 'COMPLETED', 'FAILED')),
+    total_reservations   BIGINT       NOT NULL,
+    deleted_reservations BIGINT       NOT NULL,
+    created_at           TIMESTAMP(6) WITH TIME ZONE,
+    finished_at          TIMESTAMP(6) WITH TIME ZONE,
+    error_message        VARCHAR(1024),
+    CONSTRAINT room_decommission_jobs_pkey PRIMARY KEY (id)
+);
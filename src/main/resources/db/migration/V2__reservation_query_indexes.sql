@@ -0,0 +1,27 @@
+-- Índices para las consultas calientes de reservas (ver ReservationRepository).
+-- Las reservas duran a lo sumo una hora, así que filtrar por end_at > :inicio recorre solo
+-- las reservas que terminan después del intervalo pedido (las futuras), no todo el historial
+-- como ocurriría empezando por start_at < :fin.
+
+-- findConflictingReservations: room_id = ? AND start_at < :fin AND end_at > :inicio
+-- El start_at en el índice permite descartar filas sin leer la tabla. También sirve para
+-- las búsquedas y borrados por sala (findByRoomIdOrderByStartAtAsc, countByRoomId, deleteByRoomId).
+CREATE INDEX IF NOT EXISTS idx_reservations_room_end_start
+    ON reservations (room_id, end_at, start_at);
+
+-- findAllReservationsBetween (grilla de disponibilidad): start_at < :finDia AND end_at > :inicioDia
+CREATE INDEX IF NOT EXISTS idx_reservations_end_start
+    ON reservations (end_at, start_at);
+
+-- countByUserEmailAndStartAtBetween(AndIdNot) y findByUserEmailOrderByStartAtAsc: el email
+-- se resuelve por el índice único de users y luego user_id = ? AND start_at BETWEEN ? AND ?.
+-- Incluye id para que el conteo (y su variante que excluye una reserva) sea index-only.
+CREATE INDEX IF NOT EXISTS idx_reservations_user_start
+    ON reservations (user_id, start_at) INCLUDE (id);
+
+-- findSyncedByUserAndEventIds: solo las reservas vinculadas a Google Calendar.
+CREATE INDEX IF NOT EXISTS idx_reservations_user_google_event
+    ON reservations (user_id, google_event_id)
+    WHERE google_event_id IS NOT NULL;
+
+ANALYZE reservations;
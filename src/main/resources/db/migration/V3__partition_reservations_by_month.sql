@@ -0,0 +1,145 @@
+-- Particiona reservations por mes de start_at (UTC) para que las consultas de conflictos,
+-- disponibilidad y límite semanal solo lean las particiones de las fechas pedidas y no el
+-- historial de semestres anteriores.
+--
+--   reservations            particionada; una partición por mes (reservations_AAAA_MM)
+--   reservations_default    recibe las filas de meses sin partición (no debería tener datos)
+--   reservations_archive    particionada; meses antiguos desacoplados de reservations
+--
+-- ReservationPartitionService crea los meses por adelantado y archiva los antiguos usando
+-- las funciones de abajo. Ambas toman el mismo bloqueo consultivo de transacción, así que
+-- dos instancias que mantienen las particiones a la vez no crean ni desacoplan el mismo mes
+-- en paralelo: la segunda espera y luego ve la partición ya creada o archivada.
+
+-- 1. Una tabla particionada no admite claves foráneas hacia reservations(id): la clave
+--    primaria debe incluir start_at. Se quita la de registry, que no se usa desde la aplicación.
+ALTER TABLE IF EXISTS registry DROP CONSTRAINT IF EXISTS fk_registry_reservation;
+
+-- En las bases creadas por Hibernate (versión 0) esa misma clave tiene un nombre generado.
+-- Cualquier otra clave hacia reservations detiene la migración en vez de borrarse a ciegas.
+DO $$
+DECLARE
+    v_name TEXT;
+BEGIN
+    IF to_regclass('registry') IS NOT NULL THEN
+        FOR v_name IN SELECT conname FROM pg_constraint
+                      WHERE contype = 'f' AND conrelid = 'registry'::regclass
+                        AND confrelid = 'reservations'::regclass
+        LOOP
+            EXECUTE format('ALTER TABLE registry DROP CONSTRAINT %I', v_name);
+        END LOOP;
+    END IF;
+    SELECT string_agg(conrelid::regclass::text || '.' || conname, ', ') INTO v_name
+    FROM pg_constraint
+    WHERE contype = 'f' AND confrelid = 'reservations'::regclass;
+    IF v_name IS NOT NULL THEN
+        RAISE EXCEPTION 'No se puede particionar reservations: claves foráneas inesperadas (%)', v_name;
+    END IF;
+END $$;
+
+-- 2. La tabla actual se conserva aparte hasta copiar sus filas. Los índices de V2 se
+--    recrean sobre la tabla particionada con los mismos nombres.
+DROP INDEX IF EXISTS idx_reservations_room_end_start;
+DROP INDEX IF EXISTS idx_reservations_end_start;
+DROP INDEX IF EXISTS idx_reservations_user_start;
+DROP INDEX IF EXISTS idx_reservations_user_google_event;
+ALTER TABLE reservations RENAME TO reservations_unpartitioned;
+ALTER INDEX IF EXISTS reservations_pkey RENAME TO reservations_unpartitioned_pkey;
+
+CREATE TABLE reservations (
+    id                BIGINT                      NOT NULL,
+    room_id           BIGINT                      NOT NULL,
+    user_id           BIGINT                      NOT NULL,
+    start_at          TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    end_at            TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    google_event_id   VARCHAR(255),
+    google_event_etag VARCHAR(64),
+    CONSTRAINT reservations_pkey PRIMARY KEY (id, start_at),
+    CONSTRAINT fk_reservations_room FOREIGN KEY (room_id) REFERENCES rooms (id),
+    CONSTRAINT fk_reservations_user FOREIGN KEY (user_id) REFERENCES users (id)
+) PARTITION BY RANGE (start_at);
+
+CREATE INDEX idx_reservations_room_end_start ON reservations (room_id, end_at, start_at);
+CREATE INDEX idx_reservations_end_start ON reservations (end_at, start_at);
+CREATE INDEX idx_reservations_user_start ON reservations (user_id, start_at) INCLUDE (id);
+CREATE INDEX idx_reservations_user_google_event ON reservations (user_id, google_event_id)
+    WHERE google_event_id IS NOT NULL;
+
+CREATE TABLE reservations_default PARTITION OF reservations DEFAULT;
+
+-- Historial archivado: solo se lee por usuario (mis reservas pasadas).
+CREATE TABLE reservations_archive (
+    LIKE reservations INCLUDING DEFAULTS,
+    CONSTRAINT reservations_archive_pkey PRIMARY KEY (id, start_at)
+) PARTITION BY RANGE (start_at);
+CREATE INDEX idx_reservations_archive_user_start ON reservations_archive (user_id, start_at);
+
+-- 3. Crea la partición del mes indicado (si no existe). Las filas de ese mes que hayan caído
+--    en reservations_default se mueven a la nueva partición antes de adjuntarla.
+--    Devuelve false si ya existía o si reservations no está particionada.
+CREATE OR REPLACE FUNCTION create_reservation_partition(p_month DATE) RETURNS BOOLEAN
+    LANGUAGE plpgsql AS $$
+DECLARE
+    v_month DATE        := make_date(extract(YEAR FROM p_month)::INT, extract(MONTH FROM p_month)::INT, 1);
+    v_from  TIMESTAMPTZ := v_month::TIMESTAMP AT TIME ZONE 'UTC';
+    v_to    TIMESTAMPTZ := (v_month + INTERVAL '1 month')::TIMESTAMP AT TIME ZONE 'UTC';
+    v_name  TEXT        := 'reservations_' || to_char(v_month, 'YYYY_MM');
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('reservation_partitions'));
+    IF to_regclass(v_name) IS NOT NULL
+            OR (SELECT relkind FROM pg_class WHERE oid = 'reservations'::regclass) <> 'p' THEN
+        RETURN FALSE;
+    END IF;
+    EXECUTE format('CREATE TABLE %I (LIKE reservations INCLUDING DEFAULTS)', v_name);
+    EXECUTE format('WITH moved AS (DELETE FROM reservations_default WHERE start_at >= %L AND start_at < %L RETURNING *) '
+                   'INSERT INTO %I SELECT * FROM moved', v_from, v_to, v_name);
+    EXECUTE format('ALTER TABLE reservations ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                   v_name, v_from, v_to);
+    RETURN TRUE;
+END $$;
+
+-- 4. Mueve la partición del mes indicado de reservations a reservations_archive.
+--    Devuelve false si no es una partición activa de reservations.
+CREATE OR REPLACE FUNCTION archive_reservation_partition(p_month DATE) RETURNS BOOLEAN
+    LANGUAGE plpgsql AS $$
+DECLARE
+    v_month DATE        := make_date(extract(YEAR FROM p_month)::INT, extract(MONTH FROM p_month)::INT, 1);
+    v_from  TIMESTAMPTZ := v_month::TIMESTAMP AT TIME ZONE 'UTC';
+    v_to    TIMESTAMPTZ := (v_month + INTERVAL '1 month')::TIMESTAMP AT TIME ZONE 'UTC';
+    v_name  TEXT        := 'reservations_' || to_char(v_month, 'YYYY_MM');
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('reservation_partitions'));
+    IF NOT EXISTS (SELECT 1 FROM pg_inherits
+                   WHERE inhrelid = to_regclass(v_name) AND inhparent = 'reservations'::regclass) THEN
+        RETURN FALSE;
+    END IF;
+    EXECUTE format('ALTER TABLE reservations DETACH PARTITION %I', v_name);
+    EXECUTE format('ALTER TABLE reservations_archive ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                   v_name, v_from, v_to);
+    RETURN TRUE;
+END $$;
+
+-- 5. Particiones desde el mes más antiguo con reservas hasta 4 meses adelante (horizonte de
+--    reserva de 3 meses más uno de margen), y copia de las filas existentes.
+DO $$
+DECLARE
+    v_month DATE;
+    v_last  DATE := (date_trunc('month', now() AT TIME ZONE 'UTC') + INTERVAL '4 months')::DATE;
+BEGIN
+    SELECT least(date_trunc('month', min(start_at) AT TIME ZONE 'UTC'),
+                 date_trunc('month', now() AT TIME ZONE 'UTC'))::DATE
+    INTO v_month
+    FROM reservations_unpartitioned;
+    WHILE v_month <= v_last LOOP
+        PERFORM create_reservation_partition(v_month);
+        v_month := (v_month + INTERVAL '1 month')::DATE;
+    END LOOP;
+END $$;
+
+INSERT INTO reservations (id, room_id, user_id, start_at, end_at, google_event_id, google_event_etag)
+SELECT id, room_id, user_id, start_at, end_at, google_event_id, google_event_etag
+FROM reservations_unpartitioned;
+
+DROP TABLE reservations_unpartitioned;
+
+ANALYZE reservations;
@@ -0,0 +1,3 @@
+-- Señal de vida de los trabajos de baja de salas: permite reclamar un trabajo de forma
+-- atómica y retomar solo los que quedaron huérfanos, aunque haya varias instancias.
+ALTER TABLE room_decommission_jobs ADD COLUMN IF NOT EXISTS heartbeat_at TIMESTAMP(6) WITH TIME ZONE;
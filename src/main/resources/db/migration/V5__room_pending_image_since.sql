@@ -0,0 +1,4 @@
+-- Momento en que quedó pendiente la subida de imagen de una sala: al arrancar (y cada cierto
+-- tiempo) solo se cierran como fallidas las subidas más antiguas que el corte, no las que otra
+-- instancia tiene en curso. Las pendientes de antes de esta migración se consideran huérfanas.
+ALTER TABLE rooms ADD COLUMN IF NOT EXISTS pending_image_since TIMESTAMP(6) WITH TIME ZONE;
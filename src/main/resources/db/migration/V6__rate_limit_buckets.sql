@@ -0,0 +1,24 @@
+-- Estado de los baldes de límite de peticiones compartidos entre instancias
+-- (bucket4j, ver RateLimitConfig). Antes la creaba la aplicación al arrancar.
+CREATE TABLE IF NOT EXISTS rate_limit_buckets (
+    id    VARCHAR(255) NOT NULL,
+    state BYTEA,
+    CONSTRAINT rate_limit_buckets_pkey PRIMARY KEY (id)
+);
+
+-- bucket4j solo escribe id y state: la fecha del último cambio la mantiene la base de datos.
+-- Un balde sin cambios durante un período completo de recarga está lleno y puede borrarse.
+ALTER TABLE rate_limit_buckets ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP(6) WITH TIME ZONE NOT NULL DEFAULT now();
+CREATE INDEX IF NOT EXISTS idx_rate_limit_buckets_updated_at ON rate_limit_buckets (updated_at);
+
+CREATE OR REPLACE FUNCTION touch_rate_limit_bucket() RETURNS TRIGGER
+    LANGUAGE plpgsql AS $$
+BEGIN
+    NEW.updated_at := now();
+    RETURN NEW;
+END $$;
+
+DROP TRIGGER IF EXISTS trg_rate_limit_buckets_touch ON rate_limit_buckets;
+CREATE TRIGGER trg_rate_limit_buckets_touch
+    BEFORE UPDATE ON rate_limit_buckets
+    FOR EACH ROW EXECUTE FUNCTION touch_rate_limit_bucket();
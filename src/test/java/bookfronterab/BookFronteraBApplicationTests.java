@@ -47,8 +47,9 @@ class BookFronteraBApplicationTests {
      * valores dinámicos generados por el {@link PostgreSQLContainer}
      * (como la URL y el puerto aleatorio asignado por Docker).</p>
      *
-     * <p>También establece {@code ddl-auto} en {@code create}, asegurando que el
-     * esquema de la base de datos se cree desde cero para cada ejecución de prueba.</p>
+     * <p>También establece {@code ddl-auto} en {@code validate}: el esquema lo crean las
+     * migraciones de Flyway, igual que en producción, y Hibernate solo comprueba que calce
+     * con las entidades.</p>
      *
      * @param registry El registro de propiedades dinámicas de Spring.
      */
@@ -58,7 +59,7 @@ class BookFronteraBApplicationTests {
         registry.add("spring.datasource.username", postgreSQLContainer::getUsername);
         registry.add("spring.datasource.password", postgreSQLContainer::getPassword);
         registry.add("spring.jpa.properties.hibernate.dialect", () -> "org.hibernate.dialect.PostgreSQLDialect");
-        registry.add("spring.jpa.hibernate.ddl-auto", () -> "create");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
     }
 
     /**
@@ -3,9 +3,11 @@ package bookfronterab.config;
 import bookfronterab.model.User;
 import bookfronterab.model.UserRole;
 import bookfronterab.repo.UserRepository;
+import bookfronterab.service.AccessTokenService;
 import bookfronterab.service.TimeService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -15,6 +17,8 @@ import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
 import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
 import org.springframework.security.oauth2.client.OAuth2AuthorizedClientService;
 import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
@@ -31,7 +35,10 @@ import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -40,6 +47,7 @@ class CustomAuthenticationSuccessHandlerTest {
     @Mock private OAuth2AuthorizedClientService authorizedClientService;
     @Mock private UserRepository userRepository;
     @Mock private TimeService timeService;
+    @Mock private AccessTokenService accessTokenService;
 
     @Mock private HttpServletRequest request;
     @Mock private HttpServletResponse response;
@@ -203,6 +211,33 @@ class CustomAuthenticationSuccessHandlerTest {
         verify(response).sendRedirect(frontendURL);
     }
 
+    @Test
+    @DisplayName("En modo token debe entregar los tokens y descartar la sesión")
+    void onAuthenticationSuccess_ShouldIssueTokens_WhenTokenModeEnabled() throws IOException {
+        // Arrange
+        when(userRepository.findByEmail(email)).thenReturn(Optional.empty());
+        when(timeService.nowOffset()).thenReturn(now);
+        when(authentication.getAuthorizedClientRegistrationId()).thenReturn("google");
+        when(authentication.getName()).thenReturn("sub-123");
+        when(authorizedClientService.loadAuthorizedClient(anyString(), anyString())).thenReturn(null);
+
+        HttpSession session = mock(HttpSession.class);
+        when(request.getSession(false)).thenReturn(session);
+        when(accessTokenService.isEnabled()).thenReturn(true);
+        when(accessTokenService.issueAccessToken(any(User.class), eq("sub-123"))).thenReturn("access.jwt");
+        when(accessTokenService.issueRefreshToken(any(User.class), eq("sub-123"))).thenReturn("refresh.jwt");
+        when(accessTokenService.refreshCookie("refresh.jwt"))
+                .thenReturn(ResponseCookie.from(AccessTokenService.REFRESH_COOKIE, "refresh.jwt").build());
+
+        // Act
+        successHandler.onAuthenticationSuccess(request, response, authentication);
+
+        // Assert
+        verify(response).addHeader(eq(HttpHeaders.SET_COOKIE), contains("refresh.jwt"));
+        verify(session).invalidate();
+        verify(response).sendRedirect(frontendURL + "#access_token=access.jwt");
+    }
+
     // --- Helper Method para configurar los mocks profundos de OAuth2 ---
     private void setupOAuth2ClientMock(String accessTokenVal, String refreshTokenVal, Instant expiresAt) {
         when(authentication.getAuthorizedClientRegistrationId()).thenReturn("google");
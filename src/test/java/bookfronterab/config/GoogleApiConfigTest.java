@@ -0,0 +1,56 @@
+package bookfronterab.config;
+
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.http.apache.v2.ApacheHttpTransport;
+import com.google.api.client.json.JsonFactory;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GoogleApiConfigTest {
+
+    private final GoogleApiConfig googleApiConfig = new GoogleApiConfig();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(googleApiConfig, "maxConnections", 10);
+        ReflectionTestUtils.setField(googleApiConfig, "maxConnectionsPerRoute", 5);
+        ReflectionTestUtils.setField(googleApiConfig, "connectionTtlSeconds", 60L);
+        ReflectionTestUtils.setField(googleApiConfig, "failureRateThreshold", 50f);
+        ReflectionTestUtils.setField(googleApiConfig, "slidingWindowSize", 20);
+        ReflectionTestUtils.setField(googleApiConfig, "minimumNumberOfCalls", 10);
+        ReflectionTestUtils.setField(googleApiConfig, "openStateSeconds", 30L);
+    }
+
+    @Test
+    void googleHttpTransport_shouldReturnPooledApacheTransport() throws IOException {
+        HttpTransport transport = googleApiConfig.googleHttpTransport();
+
+        assertNotNull(transport);
+        assertInstanceOf(ApacheHttpTransport.class, transport);
+        transport.shutdown();
+    }
+
+    @Test
+    void googleJsonFactory_shouldReturnSharedInstance() {
+        JsonFactory first = googleApiConfig.googleJsonFactory();
+        JsonFactory second = googleApiConfig.googleJsonFactory();
+
+        assertNotNull(first);
+        assertSame(first, second);
+    }
+
+    @Test
+    void googleCircuitBreaker_shouldStartClosedWithConfiguredThreshold() {
+        CircuitBreaker circuitBreaker = googleApiConfig.googleCircuitBreaker();
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertEquals(50f, circuitBreaker.getCircuitBreakerConfig().getFailureRateThreshold());
+        assertEquals(20, circuitBreaker.getCircuitBreakerConfig().getSlidingWindowSize());
+    }
+}
@@ -0,0 +1,56 @@
+package bookfronterab.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.ttddyy.dsproxy.QueryCountHolder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryCountFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final QueryCountFilter filter = new QueryCountFilter(meterRegistry, 30);
+
+    @AfterEach
+    void tearDown() {
+        QueryCountHolder.clear();
+    }
+
+    @Test
+    @DisplayName("Debe publicar las sentencias de la petición etiquetadas con el patrón de la ruta")
+    void doFilter_ShouldRecordStatementsPerRoutePattern() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/reservations/42");
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/v1/reservations/{id}");
+            QueryCountHolder.get(QueryInstrumentationConfig.DATA_SOURCE_NAME).incrementSelect();
+            QueryCountHolder.get(QueryInstrumentationConfig.DATA_SOURCE_NAME).incrementSelect();
+            QueryCountHolder.get(QueryInstrumentationConfig.DATA_SOURCE_NAME).incrementTotal();
+            QueryCountHolder.get(QueryInstrumentationConfig.DATA_SOURCE_NAME).incrementTotal();
+        });
+
+        DistributionSummary summary = meterRegistry.get("http.server.requests.queries")
+                .tag("method", "GET")
+                .tag("uri", "/api/v1/reservations/{id}")
+                .summary();
+        assertEquals(1, summary.count());
+        assertEquals(2.0, summary.totalAmount());
+    }
+
+    @Test
+    @DisplayName("Debe descartar las sentencias anteriores a la petición")
+    void doFilter_ShouldResetCounterAtStart() throws Exception {
+        QueryCountHolder.get(QueryInstrumentationConfig.DATA_SOURCE_NAME).incrementTotal();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/desconocida"), new MockHttpServletResponse(),
+                (req, res) -> { });
+
+        assertEquals(0.0, meterRegistry.get("http.server.requests.queries").tag("uri", "UNKNOWN").summary().totalAmount());
+    }
+}
@@ -0,0 +1,98 @@
+package bookfronterab.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de la tabla de baldes compartidos (migración V6) y de su limpieza.
+ */
+@DataJpaTest
+@Testcontainers
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // now() debe avanzar entre sentencias
+class RateLimitConfigTest {
+
+    @Container
+    public static PostgreSQLContainer<?> postgreSQLContainer = new PostgreSQLContainer<>("postgres:15-alpine")
+            .withDatabaseName("bookfronterab-test")
+            .withUsername("testuser")
+            .withPassword("testpass");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgreSQLContainer::getJdbcUrl);
+        registry.add("spring.datasource.username", postgreSQLContainer::getUsername);
+        registry.add("spring.datasource.password", postgreSQLContainer::getPassword);
+        registry.add("spring.jpa.properties.hibernate.dialect", () -> "org.hibernate.dialect.PostgreSQLDialect");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+    }
+
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    private RateLimitConfig rateLimitConfig;
+
+    @BeforeEach
+    void setUp() {
+        // Lectura: 120 tokens a 120/min (1 min). Escritura: 30 tokens a 10/min (3 min)
+        rateLimitConfig = new RateLimitConfig(jdbcTemplate, 120, 120, 30, 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM rate_limit_buckets");
+    }
+
+    @Test
+    @DisplayName("El período de limpieza debe ser el del balde que más tarda en recargarse")
+    void fullRefillPeriod_ShouldUseSlowestBucket() {
+        assertEquals(Duration.ofMinutes(3), rateLimitConfig.getFullRefillPeriod());
+        assertEquals(Duration.ofSeconds(7), new RateLimitConfig(jdbcTemplate, 7, 60, 1, 60).getFullRefillPeriod());
+    }
+
+    @Test
+    @DisplayName("purgeBuckets solo debe borrar los baldes inactivos por más de un período de recarga")
+    void purgeBuckets_ShouldOnlyDeleteIdleBuckets() {
+        insertBucket("ip-inactiva", "10 minutes");
+        insertBucket("ip-limitada", "1 minute");
+        insertBucket("ip-activa", "0 seconds");
+
+        assertEquals(1, rateLimitConfig.purgeBuckets());
+
+        assertEquals(List.of("ip-activa", "ip-limitada"), jdbcTemplate.queryForList(
+                "SELECT id FROM rate_limit_buckets ORDER BY id", String.class));
+    }
+
+    @Test
+    @DisplayName("Cada cambio de estado de un balde debe renovar su fecha de actualización")
+    void bucketUpdate_ShouldTouchUpdatedAt() {
+        insertBucket("ip-que-vuelve", "10 minutes");
+
+        // Es lo que hace bucket4j al consumir un token
+        jdbcTemplate.update("UPDATE rate_limit_buckets SET state = ? WHERE id = ?", new byte[]{2}, "ip-que-vuelve");
+
+        assertEquals(0, rateLimitConfig.purgeBuckets());
+    }
+
+    private void insertBucket(String id, String idleFor) {
+        jdbcTemplate.update("INSERT INTO rate_limit_buckets (id, state, updated_at) VALUES (?, ?, now() - ?::interval)",
+                id, new byte[]{1}, idleFor);
+    }
+}
@@ -1,18 +1,27 @@
 package bookfronterab.config;
 
+import bookfronterab.service.RateLimitPolicy;
+import bookfronterab.service.RateLimitRule;
 import bookfronterab.service.RateLimitingService;
 import io.github.bucket4j.Bucket;
+import io.github.bucket4j.ConsumptionProbe;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
 
 import java.io.PrintWriter;
+import java.util.List;
 
 // Importamos estáticamente Mockito core (según la doc estándar)
 import static org.mockito.Mockito.*;
@@ -38,19 +47,32 @@ class RateLimitFilterUnitTest {
     @Mock
     private PrintWriter printWriter;
 
-    @InjectMocks
     private RateLimitFilter rateLimitFilter;
 
+    private static final RateLimitRule READ_RULE = new RateLimitRule("default-read", RateLimitPolicy.READ, 1);
+
+    @BeforeEach
+    void setUp() {
+        // Proxies de confianza: el local y la red interna
+        rateLimitFilter = new RateLimitFilter(rateLimitingService, List.of("127.0.0.1", "192.168.0.0/16"));
+    }
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
     @Test
     void shouldAllowRequest_whenBucketHasTokens() throws Exception {
         // 1. Stubbing (Configurar comportamiento) usando 'when' y 'thenReturn'
         when(request.getRemoteAddr()).thenReturn("127.0.0.1");
 
         // Uso de Matcher explícito (anyString) como sugiere la sec. 0.3
-        when(rateLimitingService.resolveBucket(anyString())).thenReturn(bucket);
+        when(rateLimitingService.resolveRule(any(), any())).thenReturn(READ_RULE);
+        when(rateLimitingService.resolveBucket(anyString(), eq(RateLimitPolicy.READ))).thenReturn(bucket);
 
         // Comportamiento del bucket
-        when(bucket.tryConsume(1)).thenReturn(true);
+        when(bucket.tryConsumeAndReturnRemaining(1)).thenReturn(ConsumptionProbe.consumed(19, 0));
 
         // 2. Ejecución
         rateLimitFilter.doFilter(request, response, filterChain);
@@ -61,14 +83,20 @@ class RateLimitFilterUnitTest {
 
         // Verificamos que NUNCA se estableció el status 429
         verify(response, never()).setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+
+        // Cabeceras de límite en las respuestas exitosas
+        verify(response).setHeader("RateLimit-Remaining", "19");
+        verify(response, never()).setHeader(eq("Retry-After"), anyString());
     }
 
     @Test
     void shouldBlockRequest_whenBucketIsEmpty() throws Exception {
         // 1. Stubbing
         when(request.getRemoteAddr()).thenReturn("127.0.0.1");
-        when(rateLimitingService.resolveBucket(anyString())).thenReturn(bucket);
-        when(bucket.tryConsume(1)).thenReturn(false); // No quedan tokens
+        when(rateLimitingService.resolveRule(any(), any())).thenReturn(READ_RULE);
+        when(rateLimitingService.resolveBucket(anyString(), eq(RateLimitPolicy.READ))).thenReturn(bucket);
+        // No quedan tokens: el próximo estará disponible en 2,5 segundos
+        when(bucket.tryConsumeAndReturnRemaining(1)).thenReturn(ConsumptionProbe.rejected(0, 2_500_000_000L, 60_000_000_000L));
         when(response.getWriter()).thenReturn(printWriter);
 
         // 2. Ejecución
@@ -84,6 +112,11 @@ class RateLimitFilterUnitTest {
         // Verificamos que se escribió el mensaje de error.
         // Aquí usamos contains() que es un Matcher de Mockito para Strings.
         verify(printWriter).write(contains("Has excedido el límite"));
+
+        // El cliente sabe cuándo reintentar (2,5 s redondeado hacia arriba) y el rechazo queda en métricas
+        verify(response).setHeader("Retry-After", "3");
+        verify(response).setHeader("RateLimit-Remaining", "0");
+        verify(rateLimitingService).recordRejection(READ_RULE, "ip");
     }
 
     @Test
@@ -91,11 +124,13 @@ class RateLimitFilterUnitTest {
         // 1. Stubbing
         String clientIp = "203.0.113.195";
         String proxyIp = "192.168.1.1";
-        // Simulamos un header con múltiples IPs
+        // Simulamos un header con múltiples IPs, recibido a través del proxy de confianza
+        when(request.getRemoteAddr()).thenReturn("127.0.0.1");
         when(request.getHeader("X-Forwarded-For")).thenReturn(clientIp + ", " + proxyIp);
 
-        when(rateLimitingService.resolveBucket(anyString())).thenReturn(bucket);
-        when(bucket.tryConsume(1)).thenReturn(true);
+        when(rateLimitingService.resolveRule(any(), any())).thenReturn(READ_RULE);
+        when(rateLimitingService.resolveBucket(anyString(), eq(RateLimitPolicy.READ))).thenReturn(bucket);
+        when(bucket.tryConsumeAndReturnRemaining(1)).thenReturn(ConsumptionProbe.consumed(19, 0));
 
         // 2. Ejecución
         rateLimitFilter.doFilter(request, response, filterChain);
@@ -103,6 +138,66 @@ class RateLimitFilterUnitTest {
         // 3. Verificación
         // Aquí verificamos que el servicio fue llamado EXACTAMENTE con la IP del cliente (eq)
         // La documentación recomienda usar 'eq()' explícitamente si queremos estar seguros del valor.
-        verify(rateLimitingService).resolveBucket(clientIp);
+        verify(rateLimitingService).resolveBucket("ip:" + clientIp, RateLimitPolicy.READ);
+    }
+
+    @Test
+    void shouldKeyByUser_whenAuthenticated() throws Exception {
+        // Un usuario autenticado tiene su propio balde aunque comparta IP (NAT) con otros
+        SecurityContextHolder.getContext().setAuthentication(
+                new TestingAuthenticationToken("google-sub-123", null, "ROLE_STUDENT"));
+        when(rateLimitingService.resolveRule(any(), any())).thenReturn(READ_RULE);
+        when(rateLimitingService.resolveBucket(anyString(), eq(RateLimitPolicy.READ))).thenReturn(bucket);
+        when(bucket.tryConsumeAndReturnRemaining(1)).thenReturn(ConsumptionProbe.consumed(19, 0));
+
+        rateLimitFilter.doFilter(request, response, filterChain);
+
+        verify(rateLimitingService).resolveBucket("user:google-sub-123", RateLimitPolicy.READ);
+        verify(request, never()).getRemoteAddr();
+    }
+
+    @Test
+    void shouldKeyByIp_whenAnonymous() throws Exception {
+        SecurityContextHolder.getContext().setAuthentication(new AnonymousAuthenticationToken(
+                "key", "anonymousUser", AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS")));
+        when(request.getRemoteAddr()).thenReturn("10.1.1.1");
+        when(rateLimitingService.resolveRule(any(), any())).thenReturn(READ_RULE);
+        when(rateLimitingService.resolveBucket(anyString(), eq(RateLimitPolicy.READ))).thenReturn(bucket);
+        when(bucket.tryConsumeAndReturnRemaining(1)).thenReturn(ConsumptionProbe.consumed(19, 0));
+
+        rateLimitFilter.doFilter(request, response, filterChain);
+
+        verify(rateLimitingService).resolveBucket("ip:10.1.1.1", RateLimitPolicy.READ);
+    }
+
+    @Test
+    void shouldConsumeRouteCost_fromRoutePolicyBucket() throws Exception {
+        // Crear una reserva cuesta varios tokens del balde de escrituras
+        when(request.getMethod()).thenReturn("POST");
+        when(request.getRequestURI()).thenReturn("/api/v1/reservations");
+        when(request.getRemoteAddr()).thenReturn("127.0.0.1");
+        when(rateLimitingService.resolveRule("POST", "/api/v1/reservations"))
+                .thenReturn(new RateLimitRule("POST /api/v1/reservations/**", RateLimitPolicy.WRITE, 5));
+        when(rateLimitingService.resolveBucket("ip:127.0.0.1", RateLimitPolicy.WRITE)).thenReturn(bucket);
+        when(bucket.tryConsumeAndReturnRemaining(5)).thenReturn(ConsumptionProbe.consumed(25, 0));
+
+        rateLimitFilter.doFilter(request, response, filterChain);
+
+        verify(bucket).tryConsumeAndReturnRemaining(5);
+        verify(filterChain).doFilter(request, response);
+    }
+
+    @Test
+    void shouldIgnoreXForwardedFor_whenNotFromTrustedProxy() throws Exception {
+        // Un cliente que se conecta directo no puede elegir su IP con la cabecera
+        when(request.getRemoteAddr()).thenReturn("198.51.100.7");
+        when(request.getHeader("X-Forwarded-For")).thenReturn("1.2.3.4");
+        when(rateLimitingService.resolveRule(any(), any())).thenReturn(READ_RULE);
+        when(rateLimitingService.resolveBucket(anyString(), eq(RateLimitPolicy.READ))).thenReturn(bucket);
+        when(bucket.tryConsumeAndReturnRemaining(1)).thenReturn(ConsumptionProbe.consumed(19, 0));
+
+        rateLimitFilter.doFilter(request, response, filterChain);
+
+        verify(rateLimitingService).resolveBucket("ip:198.51.100.7", RateLimitPolicy.READ);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,75 @@
+package bookfronterab.config;
+
+import bookfronterab.service.TimeService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.session.web.http.CookieSerializer;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SessionConfigTest {
+
+    private static final OffsetDateTime NOW = OffsetDateTime.of(2025, 3, 10, 9, 0, 0, 0, ZoneOffset.UTC);
+
+    @Mock private JdbcTemplate jdbcTemplate;
+    @Mock private TimeService timeService;
+
+    private SessionConfig sessionConfig;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(timeService.nowOffset()).thenReturn(NOW);
+        sessionConfig = new SessionConfig(jdbcTemplate, timeService, 100, 5);
+    }
+
+    @Test
+    @DisplayName("Debe borrar lotes hasta que uno quede incompleto")
+    void purgeExpiredSessions_ShouldStopAfterPartialBatch() {
+        when(jdbcTemplate.update(anyString(), anyLong(), anyInt())).thenReturn(100, 100, 40);
+
+        sessionConfig.purgeExpiredSessions();
+
+        verify(jdbcTemplate, times(3))
+                .update(contains("FROM SPRING_SESSION WHERE EXPIRY_TIME < ?"), eq(NOW.toInstant().toEpochMilli()), eq(100));
+    }
+
+    @Test
+    @DisplayName("No debe superar el máximo de lotes por ejecución")
+    void purgeExpiredSessions_ShouldRespectMaxBatches() {
+        when(jdbcTemplate.update(anyString(), anyLong(), anyInt())).thenReturn(100);
+
+        sessionConfig.purgeExpiredSessions();
+
+        verify(jdbcTemplate, times(5)).update(anyString(), anyLong(), anyInt());
+    }
+
+    @Test
+    @DisplayName("La cookie de sesión debe poder viajar entre sitios (SameSite=None, Secure, HttpOnly)")
+    void cookieSerializer_ShouldWriteCrossSiteSessionCookie() {
+        CookieSerializer serializer = sessionConfig.cookieSerializer();
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        serializer.writeCookieValue(new CookieSerializer.CookieValue(request, response, "id-de-sesion"));
+
+        assertThat(response.getHeader(HttpHeaders.SET_COOKIE))
+                .startsWith("JSESSIONID=")
+                .contains("; Secure", "; HttpOnly", "; SameSite=None");
+    }
+}
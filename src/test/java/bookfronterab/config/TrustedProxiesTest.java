@@ -0,0 +1,52 @@
+package bookfronterab.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrustedProxiesTest {
+
+    private final TrustedProxies trustedProxies =
+            new TrustedProxies(List.of("127.0.0.1", "::1", "10.0.0.0/8", " 172.16.0.0/12"));
+
+    @Test
+    @DisplayName("Debe devolver la primera IP no confiable recorriendo X-Forwarded-For de derecha a izquierda")
+    void resolveClientIp_ShouldSkipTrustedHopsFromTheRight() {
+        // El cliente intentó falsificar 203.0.113.9; quien llegó al balanceador fue 198.51.100.4
+        String ip = trustedProxies.resolveClientIp("10.1.2.3", "203.0.113.9, 198.51.100.4 , 10.0.0.5");
+
+        assertEquals("198.51.100.4", ip);
+    }
+
+    @Test
+    @DisplayName("Debe ignorar X-Forwarded-For si la conexión no viene de un proxy de confianza")
+    void resolveClientIp_ShouldIgnoreHeader_WhenPeerNotTrusted() {
+        assertEquals("8.8.8.8", trustedProxies.resolveClientIp("8.8.8.8", "1.1.1.1"));
+    }
+
+    @Test
+    @DisplayName("Si todos los saltos son internos, el cliente es el primero de la cadena")
+    void resolveClientIp_ShouldReturnLeftmost_WhenAllHopsTrusted() {
+        assertEquals("10.0.0.1", trustedProxies.resolveClientIp("::1", "10.0.0.1,172.20.0.1"));
+    }
+
+    @Test
+    @DisplayName("Debe usar la IP de la conexión si la cabecera está vacía o no existe")
+    void resolveClientIp_ShouldFallBackToPeer_WhenHeaderEmpty() {
+        assertEquals("127.0.0.1", trustedProxies.resolveClientIp("127.0.0.1", null));
+        assertEquals("127.0.0.1", trustedProxies.resolveClientIp("127.0.0.1", " , "));
+    }
+
+    @Test
+    @DisplayName("parseIpv4 debe rechazar octetos fuera de rango y direcciones incompletas")
+    void parseIpv4_ShouldValidate() {
+        assertEquals(0xFFFFFFFFL, TrustedProxies.parseIpv4("255.255.255.255", 0, 15));
+        assertEquals(-1, TrustedProxies.parseIpv4("256.1.1.1", 0, 9));
+        assertEquals(-1, TrustedProxies.parseIpv4("1.2.3", 0, 5));
+        assertEquals(-1, TrustedProxies.parseIpv4("1.2.3.4.5", 0, 9));
+        assertEquals(-1, TrustedProxies.parseIpv4("a.b.c.d", 0, 7));
+    }
+}
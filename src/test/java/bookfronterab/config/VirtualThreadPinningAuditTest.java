@@ -0,0 +1,84 @@
+package bookfronterab.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VirtualThreadPinningAuditTest {
+
+    private final VirtualThreadPinningAudit audit = new VirtualThreadPinningAudit(20);
+
+    @Test
+    @DisplayName("Los eventos deben agruparse por el punto donde ocurren")
+    void recordPinning_ShouldGroupBySite() {
+        List<String> googleFrames = List.of(
+                "com.google.api.client.auth.oauth2.Credential.refreshToken:540",
+                "bookfronterab.service.google.GoogleCredentialsService.refresh:88");
+
+        audit.recordPinning(googleFrames, Duration.ofMillis(35));
+        audit.recordPinning(googleFrames, Duration.ofMillis(50));
+        audit.recordPinning(List.of("org.postgresql.core.v3.QueryExecutorImpl.execute:330"), Duration.ofMillis(25));
+
+        Map<String, Long> sites = audit.pinnedSites();
+        assertEquals(2L, sites.get("com.google.api.client.auth.oauth2.Credential.refreshToken:540"));
+        assertEquals(1L, sites.get("org.postgresql.core.v3.QueryExecutorImpl.execute:330"));
+    }
+
+    @Test
+    @DisplayName("La clave debe ser el primer marco fuera del JDK, no el de VirtualThread")
+    void recordPinning_ShouldSkipJdkFrames() {
+        List<String> jdbcFrames = List.of(
+                "jdk.internal.misc.Unsafe.park:-1",
+                "java.lang.VirtualThread.parkOnCarrierThread:687",
+                "java.lang.VirtualThread.park:603",
+                "java.util.concurrent.locks.LockSupport.park:219",
+                "org.postgresql.core.v3.QueryExecutorImpl.execute:330",
+                "bookfronterab.service.ReservationService.create:120");
+        List<String> googleFrames = List.of(
+                "jdk.internal.misc.Unsafe.park:-1",
+                "java.lang.VirtualThread.parkOnCarrierThread:687",
+                "java.lang.VirtualThread.park:603",
+                "com.google.api.client.auth.oauth2.Credential.refreshToken:540",
+                "bookfronterab.service.google.GoogleCredentialsService.refresh:88");
+
+        audit.recordPinning(jdbcFrames, Duration.ofMillis(30));
+        audit.recordPinning(jdbcFrames, Duration.ofMillis(40));
+        audit.recordPinning(googleFrames, Duration.ofMillis(25));
+
+        assertEquals(Map.of(
+                "org.postgresql.core.v3.QueryExecutorImpl.execute:330", 2L,
+                "com.google.api.client.auth.oauth2.Credential.refreshToken:540", 1L), audit.pinnedSites());
+    }
+
+    @Test
+    @DisplayName("Una pila solo del JDK debe agruparse por su primer marco")
+    void recordPinning_ShouldFallBackToFirstFrameForJdkOnlyStack() {
+        audit.recordPinning(List.of("java.lang.VirtualThread.parkOnCarrierThread:687",
+                "java.lang.VirtualThread.park:603"), Duration.ofMillis(30));
+
+        assertEquals(1L, audit.pinnedSites().get("java.lang.VirtualThread.parkOnCarrierThread:687"));
+    }
+
+    @Test
+    @DisplayName("Un evento sin pila debe contarse igual")
+    void recordPinning_ShouldHandleMissingStack() {
+        audit.recordPinning(List.of(), Duration.ofMillis(30));
+
+        assertEquals(1L, audit.pinnedSites().get("desconocido"));
+    }
+
+    @Test
+    @DisplayName("La cantidad de puntos distintos debe estar acotada")
+    void recordPinning_ShouldBoundDistinctSites() {
+        for (int i = 0; i < 500; i++) {
+            audit.recordPinning(List.of("lib.Clase.metodo:" + i), Duration.ofMillis(30));
+        }
+
+        assertEquals(200, audit.pinnedSites().size());
+    }
+}
@@ -0,0 +1,113 @@
+package bookfronterab.controller;
+
+import bookfronterab.model.User;
+import bookfronterab.model.UserRole;
+import bookfronterab.repo.UserRepository;
+import bookfronterab.service.AccessTokenClaims;
+import bookfronterab.service.AccessTokenService;
+import bookfronterab.service.RateLimitingService;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(AuthTokenController.class)
+@AutoConfigureMockMvc(addFilters = false)
+class AuthTokenControllerUnitTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private AccessTokenService accessTokenService;
+
+    @MockitoBean
+    private UserRepository userRepository;
+
+    @MockitoBean
+    private RateLimitingService rateLimitingService;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setId(7L);
+        user.setEmail("ana@ufromail.cl");
+        user.setRol(UserRole.STUDENT);
+
+        when(accessTokenService.isEnabled()).thenReturn(true);
+        when(accessTokenService.accessTtl()).thenReturn(Duration.ofMinutes(15));
+        when(accessTokenService.clearRefreshCookie())
+                .thenReturn(ResponseCookie.from(AccessTokenService.REFRESH_COOKIE, "").maxAge(0).build());
+    }
+
+    @Test
+    void refresh_DeberiaEmitirTokenYRotarCookie_CuandoCookieEsValida() throws Exception {
+        when(accessTokenService.verifyRefreshToken("refresh.viejo")).thenReturn(Optional.of(
+                new AccessTokenClaims("sub-7", 7L, null, null, null, Instant.now().plusSeconds(60))));
+        when(userRepository.findById(7L)).thenReturn(Optional.of(user));
+        when(accessTokenService.issueAccessToken(user, "sub-7")).thenReturn("access.nuevo");
+        when(accessTokenService.issueRefreshToken(user, "sub-7")).thenReturn("refresh.nuevo");
+        when(accessTokenService.refreshCookie("refresh.nuevo"))
+                .thenReturn(ResponseCookie.from(AccessTokenService.REFRESH_COOKIE, "refresh.nuevo").build());
+
+        mockMvc.perform(post("/api/v1/auth/token/refresh")
+                        .cookie(new Cookie(AccessTokenService.REFRESH_COOKIE, "refresh.viejo")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accessToken").value("access.nuevo"))
+                .andExpect(jsonPath("$.expiresInSeconds").value(900))
+                .andExpect(header().string(HttpHeaders.SET_COOKIE,
+                        containsString("refresh.nuevo")));
+    }
+
+    @Test
+    void refresh_DeberiaRetornarUnauthorized_CuandoCookieEsInvalida() throws Exception {
+        when(accessTokenService.verifyRefreshToken(any())).thenReturn(Optional.empty());
+
+        mockMvc.perform(post("/api/v1/auth/token/refresh")
+                        .cookie(new Cookie(AccessTokenService.REFRESH_COOKIE, "basura")))
+                .andExpect(status().isUnauthorized());
+
+        verify(accessTokenService, never()).issueAccessToken(any(), any());
+    }
+
+    @Test
+    void refresh_DeberiaRetornarUnauthorized_CuandoUsuarioYaNoExiste() throws Exception {
+        when(accessTokenService.verifyRefreshToken("refresh.viejo")).thenReturn(Optional.of(
+                new AccessTokenClaims("sub-7", 7L, null, null, null, Instant.now().plusSeconds(60))));
+        when(userRepository.findById(7L)).thenReturn(Optional.empty());
+
+        mockMvc.perform(post("/api/v1/auth/token/refresh")
+                        .cookie(new Cookie(AccessTokenService.REFRESH_COOKIE, "refresh.viejo")))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void refresh_DeberiaRetornarNotFound_EnModoSesion() throws Exception {
+        when(accessTokenService.isEnabled()).thenReturn(false);
+
+        mockMvc.perform(post("/api/v1/auth/token/refresh"))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,140 @@
+package bookfronterab.controller;
+
+import bookfronterab.model.Reservation;
+import bookfronterab.model.Room;
+import bookfronterab.model.User;
+import bookfronterab.model.UserRole;
+import bookfronterab.repo.ReservationRepository;
+import bookfronterab.repo.RoomRepository;
+import bookfronterab.repo.UserRepository;
+import bookfronterab.service.CloudinaryService;
+import bookfronterab.service.google.GoogleCalendarService;
+import bookfronterab.service.google.GoogleCredentialsService;
+import bookfronterab.support.QueryBudget;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.oauth2Login;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Presupuestos de consultas SQL de los endpoints más usados. Con {@value #ROOMS} salas y
+ * reservas, un N+1 sobre la sala, su equipamiento o el usuario superaría de lejos el presupuesto.
+ */
+@Testcontainers
+@SpringBootTest
+@AutoConfigureMockMvc
+class EndpointQueryBudgetTest {
+
+    private static final int ROOMS = 10;
+    private static final ZoneId ZONE = ZoneId.of("America/Santiago");
+
+    @Container
+    public static PostgreSQLContainer<?> postgreSQLContainer = new PostgreSQLContainer<>("postgres:15-alpine")
+            .withDatabaseName("bookfronterab-test")
+            .withUsername("testuser")
+            .withPassword("testpass");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgreSQLContainer::getJdbcUrl);
+        registry.add("spring.datasource.username", postgreSQLContainer::getUsername);
+        registry.add("spring.datasource.password", postgreSQLContainer::getPassword);
+        registry.add("spring.jpa.properties.hibernate.dialect", () -> "org.hibernate.dialect.PostgreSQLDialect");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+    }
+
+    @MockitoBean private GoogleCalendarService googleCalendarService;
+    @MockitoBean private GoogleCredentialsService googleCredentialsService;
+    @MockitoBean private CloudinaryService cloudinaryService;
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private MeterRegistry meterRegistry;
+    @Autowired private UserRepository userRepository;
+    @Autowired private RoomRepository roomRepository;
+    @Autowired private ReservationRepository reservationRepository;
+
+    private LocalDate nextMonday;
+
+    @BeforeEach
+    void setUp() {
+        nextMonday = LocalDate.now(ZONE).with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+        User student = userRepository.save(User.builder()
+                .email("estudiante@ufromail.cl").nombre("Estudiante").rol(UserRole.STUDENT).build());
+
+        // Una reserva por sala, todas el próximo lunes (a distinta hora)
+        for (int i = 0; i < ROOMS; i++) {
+            Room room = roomRepository.save(Room.builder()
+                    .name("Sala " + i).capacity(6).floor(1)
+                    .equipment(List.of("Pizarra", "TV"))
+                    .build());
+            ZonedDateTime start = ZonedDateTime.of(nextMonday, LocalTime.of(8, 0).plusHours(i), ZONE);
+            reservationRepository.save(Reservation.builder()
+                    .user(student).room(room).startAt(start).endAt(start.plusHours(1))
+                    .build());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        reservationRepository.deleteAllInBatch();
+        roomRepository.deleteAll();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("GET /availability no debe hacer una consulta por sala")
+    void availability_ShouldStayWithinQueryBudget() throws Exception {
+        QueryBudget.assertAtMost(6, "GET /api/v1/availability",
+                () -> mockMvc.perform(get("/api/v1/availability").param("date", nextMonday.toString()))
+                        .andExpect(status().isOk()));
+    }
+
+    @Test
+    @DisplayName("GET /reservations/my-reservations no debe cargar sala y usuario por cada reserva")
+    void myReservations_ShouldStayWithinQueryBudget() throws Exception {
+        QueryBudget.assertAtMost(8, "GET /api/v1/reservations/my-reservations",
+                () -> mockMvc.perform(get("/api/v1/reservations/my-reservations")
+                                .with(oauth2Login().attributes(attrs -> attrs.put("email", "estudiante@ufromail.cl"))))
+                        .andExpect(status().isOk()));
+    }
+
+    @Test
+    @DisplayName("Las sentencias de cada petición deben publicarse por endpoint")
+    void queryCount_ShouldBePublishedPerEndpoint() throws Exception {
+        mockMvc.perform(get("/api/v1/availability").param("date", nextMonday.toString()))
+                .andExpect(status().isOk());
+
+        DistributionSummary summary = meterRegistry.find("http.server.requests.queries")
+                .tag("method", "GET")
+                .tag("uri", "/api/v1/availability")
+                .summary();
+        assertNotNull(summary);
+        assertTrue(summary.count() >= 1);
+        assertTrue(summary.max() >= 1, "La grilla consulta al menos las salas");
+    }
+}
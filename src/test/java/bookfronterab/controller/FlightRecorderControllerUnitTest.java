@@ -0,0 +1,95 @@
+package bookfronterab.controller;
+
+import bookfronterab.dto.FlightRecordingDto;
+import bookfronterab.service.FlightRecorderService;
+import bookfronterab.service.RateLimitingService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(FlightRecorderController.class)
+@AutoConfigureMockMvc(addFilters = false)
+class FlightRecorderControllerUnitTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private FlightRecorderService flightRecorderService;
+
+    @MockitoBean
+    private RateLimitingService rateLimitingService;
+
+    @TempDir
+    Path tempDir;
+
+    private final FlightRecordingDto running =
+            new FlightRecordingDto(3L, "RUNNING", "profile", Instant.parse("2025-10-20T12:00:00Z"), 1800, 104857600);
+
+    @Test
+    void start_DeberiaIniciarGrabacionConLaConfiguracionPedida() throws Exception {
+        when(flightRecorderService.start("profile")).thenReturn(running);
+
+        mockMvc.perform(post("/api/v1/admin/jfr/start").param("settings", "profile"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(3))
+                .andExpect(jsonPath("$.state").value("RUNNING"))
+                .andExpect(jsonPath("$.settings").value("profile"));
+    }
+
+    @Test
+    void start_DeberiaRetornar400_SiYaHayUnaGrabacion() throws Exception {
+        when(flightRecorderService.start("default"))
+                .thenThrow(new IllegalStateException("Ya hay una grabación de JFR en curso (id 3)."));
+
+        mockMvc.perform(post("/api/v1/admin/jfr/start"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void status_DeberiaRetornar404_SinGrabacion() throws Exception {
+        when(flightRecorderService.status()).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/v1/admin/jfr"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void dump_DeberiaDescargarElArchivoYBorrarlo() throws Exception {
+        Path file = Files.write(tempDir.resolve("bookfronterab-1.jfr"), new byte[]{1, 2, 3});
+        when(flightRecorderService.dump()).thenReturn(file);
+
+        MvcResult result = mockMvc.perform(get("/api/v1/admin/jfr/dump"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, containsString("bookfronterab-1.jfr")))
+                .andExpect(content().bytes(new byte[]{1, 2, 3}));
+        assertFalse(Files.exists(file));
+    }
+}
@@ -4,6 +4,9 @@ import bookfronterab.config.CustomAuthenticationFailureHandler;
 import bookfronterab.config.CustomAuthenticationSuccessHandler;
 import bookfronterab.config.SecurityConfig;
 import bookfronterab.dto.ReservationDto;
+import bookfronterab.service.AccessTokenService;
+import bookfronterab.service.RateLimitPolicy;
+import bookfronterab.service.RateLimitRule;
 import bookfronterab.service.RateLimitingService; // <--- 1. IMPORTAR ESTO
 import bookfronterab.service.ReservationService;
 import bookfronterab.service.google.CustomOidcUserService;
@@ -36,6 +39,7 @@ import static org.springframework.security.test.web.servlet.request.SecurityMock
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import io.github.bucket4j.Bucket;
+import io.github.bucket4j.ConsumptionProbe;
 import org.junit.jupiter.api.BeforeEach;
 
 @WebMvcTest(ReservationController.class)
@@ -58,10 +62,12 @@ class ReservationControllerUnitTest {
         // 1. Crear un Bucket mock
         Bucket mockBucket = Mockito.mock(Bucket.class);
         // 2. Configurar el bucket para que siempre permita el consumo (devuelva true)
-        when(mockBucket.tryConsume(1)).thenReturn(true);
+        when(mockBucket.tryConsumeAndReturnRemaining(anyLong())).thenReturn(ConsumptionProbe.consumed(100, 0));
 
         // 3. Configurar el servicio para que devuelva ese bucket mock cuando se le llame
-        when(rateLimitingService.resolveBucket(anyString())).thenReturn(mockBucket);
+        when(rateLimitingService.resolveRule(anyString(), anyString()))
+                .thenReturn(new RateLimitRule("default-read", RateLimitPolicy.READ, 1));
+        when(rateLimitingService.resolveBucket(anyString(), any(RateLimitPolicy.class))).thenReturn(mockBucket);
     }
 
     //  CONFIGURACIÓN PARA MOCKS DE SEGURIDAD
@@ -79,6 +85,11 @@ class ReservationControllerUnitTest {
         CustomAuthenticationFailureHandler authenticationFailureHandler() {
             return Mockito.mock(CustomAuthenticationFailureHandler.class);
         }
+        @Bean
+        AccessTokenService accessTokenService() {
+            // Modo sesión (isEnabled() = false)
+            return Mockito.mock(AccessTokenService.class);
+        }
     }
 
     // --- DATOS DE PRUEBA ---
@@ -3,13 +3,20 @@ package bookfronterab.controller;
 import bookfronterab.config.CustomAuthenticationFailureHandler;
 import bookfronterab.config.CustomAuthenticationSuccessHandler;
 import bookfronterab.config.SecurityConfig;
+import bookfronterab.dto.RoomDecommissionDto;
 import bookfronterab.dto.RoomDto;
+import bookfronterab.model.DecommissionStatus;
+import bookfronterab.service.AccessTokenService;
+import bookfronterab.service.RateLimitPolicy;
+import bookfronterab.service.RateLimitRule;
 import bookfronterab.service.RateLimitingService;
+import bookfronterab.service.RoomDecommissionService;
 import bookfronterab.service.RoomService;
 import bookfronterab.service.google.CustomOidcUserService;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.github.bucket4j.Bucket;
+import io.github.bucket4j.ConsumptionProbe;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -26,12 +33,14 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.OffsetDateTime;
 import java.util.List;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(RoomController.class)
@@ -43,6 +52,7 @@ class RoomControllerUnitTest {
     @Autowired private ObjectMapper objectMapper;
 
     @MockitoBean private RoomService roomService;
+    @MockitoBean private RoomDecommissionService roomDecommissionService;
 
     // Inyectar el Mock del servicio que falta
     @MockitoBean private RateLimitingService rateLimitingService;
@@ -51,8 +61,10 @@ class RoomControllerUnitTest {
     @BeforeEach
     void setUpRateLimiter() {
         Bucket mockBucket = Mockito.mock(Bucket.class);
-        when(mockBucket.tryConsume(1)).thenReturn(true);
-        when(rateLimitingService.resolveBucket(anyString())).thenReturn(mockBucket);
+        when(mockBucket.tryConsumeAndReturnRemaining(anyLong())).thenReturn(ConsumptionProbe.consumed(100, 0));
+        when(rateLimitingService.resolveRule(anyString(), anyString()))
+                .thenReturn(new RateLimitRule("default-read", RateLimitPolicy.READ, 1));
+        when(rateLimitingService.resolveBucket(anyString(), any(RateLimitPolicy.class))).thenReturn(mockBucket);
     }
 
     // --- Objetos de Prueba ---
@@ -85,6 +97,12 @@ class RoomControllerUnitTest {
         CustomAuthenticationFailureHandler authenticationFailureHandler() {
             return Mockito.mock(CustomAuthenticationFailureHandler.class);
         }
+
+        @Bean
+        AccessTokenService accessTokenService() {
+            // Modo sesión (isEnabled() = false)
+            return Mockito.mock(AccessTokenService.class);
+        }
     }
 
     // =================================================================================================
@@ -153,16 +171,30 @@ class RoomControllerUnitTest {
     }
 
     @Test
-    @DisplayName("DELETE /rooms/{id} (ADMIN) debe eliminar y devolver 204 NO_CONTENT")
+    @DisplayName("DELETE /rooms/{id} (ADMIN) debe iniciar la baja y devolver 202 ACCEPTED")
     @WithMockUser(username = adminUser, roles = {"ADMIN"})
-    void deleteRoom_AsAdmin_ShouldReturnNoContent() throws Exception {
-        doNothing().when(roomService).deleteRoom(1L);
+    void deleteRoom_AsAdmin_ShouldReturnAccepted() throws Exception {
+        when(roomDecommissionService.start(1L)).thenReturn(mockJob(DecommissionStatus.PENDING, 0));
 
         mockMvc.perform(delete("/api/v1/rooms/{id}", 1L)
                         .with(csrf()))
-                .andExpect(status().isNoContent());
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.jobId").value(7))
+                .andExpect(jsonPath("$.status").value("PENDING"));
+
+        verify(roomDecommissionService).start(1L);
+    }
 
-        verify(roomService).deleteRoom(1L);
+    @Test
+    @DisplayName("GET /rooms/decommission-jobs/{jobId} (ADMIN) debe devolver el progreso")
+    @WithMockUser(username = adminUser, roles = {"ADMIN"})
+    void getDecommissionJob_AsAdmin_ShouldReturnProgress() throws Exception {
+        when(roomDecommissionService.getJob(7L)).thenReturn(mockJob(DecommissionStatus.RUNNING, 40));
+
+        mockMvc.perform(get("/api/v1/rooms/decommission-jobs/{jobId}", 7L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("RUNNING"))
+                .andExpect(jsonPath("$.progressPercent").value(40));
     }
 
     @Test
@@ -173,7 +205,7 @@ class RoomControllerUnitTest {
                         .with(csrf()))
                 .andExpect(status().isForbidden());
 
-        verify(roomService, never()).deleteRoom(anyLong());
+        verify(roomDecommissionService, never()).start(anyLong());
     }
 
     @Test
@@ -244,4 +276,9 @@ class RoomControllerUnitTest {
 
         verify(roomService, never()).putRoom(anyLong(), any());
     }
-}
\ No newline at end of file
+
+    private RoomDecommissionDto mockJob(DecommissionStatus status, int progress) {
+        return new RoomDecommissionDto(7L, 1L, "Sala 1", status, 100, progress, progress,
+                OffsetDateTime.now(), null, null);
+    }
+}
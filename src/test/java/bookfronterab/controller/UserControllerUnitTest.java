@@ -3,6 +3,7 @@ package bookfronterab.controller;
 import bookfronterab.model.User;
 import bookfronterab.model.UserRole;
 import bookfronterab.repo.UserRepository;
+import bookfronterab.service.AccessTokenService;
 import bookfronterab.service.RateLimitingService;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -14,6 +15,7 @@ import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
 import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.security.web.context.SecurityContextRepository;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
@@ -27,6 +29,7 @@ import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -45,6 +48,12 @@ class UserControllerUnitTest {
     @MockitoBean
     private RateLimitingService rateLimitingService;
 
+    @MockitoBean
+    private SecurityContextRepository securityContextRepository;
+
+    @MockitoBean
+    private AccessTokenService accessTokenService;
+
     // Variables para simular la seguridad compleja
     private OAuth2User oauth2UserMock;
     private OAuth2AuthenticationToken oauth2AuthToken;
@@ -125,6 +134,27 @@ class UserControllerUnitTest {
                 .andExpect(jsonPath("$.rol").value("ADMIN"));
 
         verify(userRepository).save(any(User.class));
+        // La autenticación con el nuevo rol se persiste en el repositorio de contexto (sesión)
+        verify(securityContextRepository).saveContext(any(), any(), any());
+    }
+
+    @Test
+    void toggleRole_DeberiaEntregarTokenNuevo_EnModoToken() throws Exception {
+        User userEntity = new User();
+        userEntity.setId(1L);
+        userEntity.setEmail("student@test.com");
+        userEntity.setRol(UserRole.STUDENT);
+
+        when(oauth2UserMock.getName()).thenReturn("sub-123");
+        when(userRepository.findByEmail("student@test.com")).thenReturn(Optional.of(userEntity));
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(accessTokenService.isEnabled()).thenReturn(true);
+        when(accessTokenService.issueAccessToken(userEntity, "sub-123")).thenReturn("nuevo.token");
+
+        mockMvc.perform(patch("/api/v1/users/toggle-role"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(AccessTokenService.ACCESS_TOKEN_HEADER, "nuevo.token"))
+                .andExpect(jsonPath("$.rol").value("ADMIN"));
     }
 
     @Test
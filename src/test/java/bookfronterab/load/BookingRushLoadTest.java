@@ -0,0 +1,375 @@
+package bookfronterab.load;
+
+import bookfronterab.model.Reservation;
+import bookfronterab.model.Room;
+import bookfronterab.model.User;
+import bookfronterab.model.UserRole;
+import bookfronterab.repo.ReservationRepository;
+import bookfronterab.repo.RoomRepository;
+import bookfronterab.repo.UserRepository;
+import bookfronterab.service.AccessTokenService;
+import bookfronterab.service.CloudinaryService;
+import bookfronterab.service.google.GoogleCalendarService;
+import bookfronterab.service.google.GoogleCredentialsService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Prueba de carga de "reserva masiva" contra la aplicación completa.
+ * <p>
+ * Levanta la aplicación en un puerto aleatorio sobre un PostgreSQL de Testcontainers, con
+ * Google y Cloudinary reemplazados por mocks (no sale nada a la red), y la autenticación en
+ * modo token para que cada estudiante sintético envíe su propio {@code Bearer}. Mide
+ * rendimiento (req/s), latencias p50/p99 y la espera por el bloqueo pesimista de la sala
+ * ({@code RoomRepository.findByIdWithLock}).
+ * </p>
+ * No corre con {@code mvn test}: {@code mvn -Pload test}. Tamaño configurable con
+ * {@code -Dload.users}, {@code -Dload.concurrency}, {@code -Dload.rooms} y {@code -Dload.poll-seconds}.
+ * El reporte queda en {@code target/load-test-report.json}.
+ */
+@Tag("load")
+@Testcontainers
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "app.auth.mode=token",
+        "app.auth.token.secret=clave-solo-para-la-prueba-de-carga-0123456789",
+        "app.rate-limit.read.capacity=1000000000",
+        "app.rate-limit.read.refill-per-minute=1000000000",
+        "app.rate-limit.write.capacity=1000000000",
+        "app.rate-limit.write.refill-per-minute=1000000000",
+        "spring.jpa.show-sql=false"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@Slf4j
+class BookingRushLoadTest {
+
+    private static final int USERS = Integer.getInteger("load.users", 500);
+    private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 50);
+    private static final int ROOMS = Integer.getInteger("load.rooms", 20);
+    private static final int POLL_SECONDS = Integer.getInteger("load.poll-seconds", 10);
+
+    private static final ZoneId ZONE = ZoneId.of("America/Santiago");
+
+    /**
+     * Inicio de los bloques de la grilla (ver AvailabilityService#generateTimeSlots).
+     */
+    private static final LocalTime[] SLOT_STARTS = {
+            LocalTime.of(8, 30), LocalTime.of(9, 40), LocalTime.of(10, 50), LocalTime.of(12, 0),
+            LocalTime.of(13, 10), LocalTime.of(14, 30), LocalTime.of(15, 40), LocalTime.of(16, 50),
+            LocalTime.of(18, 0), LocalTime.of(19, 10), LocalTime.of(20, 20)
+    };
+
+    /**
+     * Semanas hacia adelante con bloques únicos (las reservas se aceptan hasta 3 meses antes).
+     */
+    private static final int WEEKS_AHEAD = 11;
+    private static final int UNIQUE_SLOTS = WEEKS_AHEAD * 5 * SLOT_STARTS.length;
+
+    @Container
+    public static PostgreSQLContainer<?> postgreSQLContainer = new PostgreSQLContainer<>("postgres:15-alpine")
+            .withDatabaseName("bookfronterab-load")
+            .withUsername("testuser")
+            .withPassword("testpass");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgreSQLContainer::getJdbcUrl);
+        registry.add("spring.datasource.username", postgreSQLContainer::getUsername);
+        registry.add("spring.datasource.password", postgreSQLContainer::getPassword);
+        registry.add("spring.jpa.properties.hibernate.dialect", () -> "org.hibernate.dialect.PostgreSQLDialect");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+    }
+
+    @TestConfiguration
+    static class LoadTestConfig {
+        @Bean
+        static LockWaitProbe lockWaitProbe() {
+            return new LockWaitProbe();
+        }
+    }
+
+    // Servicios externos reemplazados: la prueba no depende de la red
+    @MockitoBean private GoogleCalendarService googleCalendarService;
+    @MockitoBean private GoogleCredentialsService googleCredentialsService;
+    @MockitoBean private CloudinaryService cloudinaryService;
+
+    @LocalServerPort private int port;
+
+    @Autowired private UserRepository userRepository;
+    @Autowired private RoomRepository roomRepository;
+    @Autowired private ReservationRepository reservationRepository;
+    @Autowired private AccessTokenService accessTokenService;
+    @Autowired private LockWaitProbe lockWaitProbe;
+    @Autowired private ObjectMapper objectMapper;
+
+    private final LoadReport report = new LoadReport();
+    private HttpClient httpClient;
+    private List<String> tokens;
+    private List<Long> roomIds;
+    private LocalDate nextMonday;
+
+    @BeforeAll
+    void seed() {
+        assumeTrue(USERS <= UNIQUE_SLOTS, "load.users no puede superar " + UNIQUE_SLOTS + " bloques únicos");
+
+        httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(4))
+                .build();
+        nextMonday = LocalDate.now(ZONE).with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+
+        roomIds = new ArrayList<>();
+        for (int i = 1; i <= ROOMS; i++) {
+            roomIds.add(roomRepository.save(Room.builder()
+                    .name("Sala " + i)
+                    .capacity(6)
+                    .floor(1 + i % 3)
+                    .equipment(List.of("Pizarra"))
+                    .build()).getId());
+        }
+
+        tokens = new ArrayList<>();
+        for (int i = 1; i <= USERS; i++) {
+            User user = new User();
+            user.setEmail("estudiante" + i + "@ufromail.cl");
+            user.setNombre("Estudiante " + i);
+            user.setRol(UserRole.STUDENT);
+            user = userRepository.save(user);
+            tokens.add(accessTokenService.issueAccessToken(user, "sub-" + i));
+        }
+        log.info("Prueba de carga: {} usuarios, {} salas, {} clientes concurrentes", USERS, ROOMS, CONCURRENCY);
+    }
+
+    @AfterAll
+    void writeReport() throws IOException {
+        report.write(Path.of("target", "load-test-report.json"));
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("Una sala: cada estudiante reserva un bloque distinto (todas compiten por el mismo bloqueo)")
+    void rushOneRoom() {
+        reservationRepository.deleteAllInBatch();
+
+        LoadReport.ScenarioResult result = run("rush-one-room", true, USERS, null,
+                i -> bookingRequest(i, roomIds.get(0), uniqueSlot(i)));
+
+        assertEquals(0, result.failed());
+        assertEquals(USERS, result.succeeded());
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Varias salas: los estudiantes se reparten entre salas y bloques")
+    void rushManyRooms() {
+        reservationRepository.deleteAllInBatch();
+
+        LoadReport.ScenarioResult result = run("rush-many-rooms", true, USERS, null,
+                i -> bookingRequest(i, roomIds.get(i % ROOMS), uniqueSlot(i / ROOMS)));
+
+        assertEquals(0, result.failed());
+        assertEquals(USERS, result.succeeded());
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("Mis reservas: cada estudiante consulta su listado")
+    void myReservations() {
+        // Usa las reservas que dejó el escenario anterior
+        LoadReport.ScenarioResult result = run("my-reservations", false, USERS * 4, null,
+                i -> authorized(i % USERS, "/api/v1/reservations/my-reservations").GET().build());
+
+        assertEquals(0, result.failed());
+    }
+
+    @Test
+    @Order(4)
+    @DisplayName("Grilla: consultas repetidas de la disponibilidad de la semana")
+    void gridPolling() {
+        LoadReport.ScenarioResult result = run("grid-polling", false, Integer.MAX_VALUE, Duration.ofSeconds(POLL_SECONDS),
+                i -> availabilityRequest(nextMonday.plusDays(i % 5)));
+
+        assertEquals(0, result.failed());
+    }
+
+    @Test
+    @Order(5)
+    @DisplayName("Lunes a primera hora: todos reservan el próximo lunes mientras la grilla se refresca")
+    void mondayMorningRush() throws Exception {
+        reservationRepository.deleteAllInBatch();
+
+        ExecutorService background = Executors.newSingleThreadExecutor();
+        try {
+            Future<LoadReport.ScenarioResult> polling = background.submit(() ->
+                    run("monday-grid", false, Integer.MAX_VALUE, Duration.ofSeconds(POLL_SECONDS),
+                            i -> availabilityRequest(nextMonday)));
+
+            LoadReport.ScenarioResult bookings = run("monday-bookings", true, USERS, null,
+                    i -> bookingRequest(i, roomIds.get(i % ROOMS), mondaySlot(i / ROOMS)));
+
+            assertEquals(0, bookings.failed());
+            assertEquals(0, polling.get().failed());
+        } finally {
+            background.shutdownNow();
+        }
+
+        // El bloqueo de la sala debe impedir reservas dobles del mismo bloque
+        List<Reservation> saved = reservationRepository.findAll();
+        Set<String> cells = new HashSet<>();
+        for (Reservation reservation : saved) {
+            assertTrue(cells.add(reservation.getRoom().getId() + "@" + reservation.getStartAt().toInstant()),
+                    "Reserva duplicada en " + reservation.getRoom().getId() + " " + reservation.getStartAt());
+        }
+        assertTrue(saved.size() <= ROOMS * SLOT_STARTS.length);
+    }
+
+    /**
+     * Ejecuta un escenario con {@link #CONCURRENCY} clientes en paralelo.
+     *
+     * @param measureLocks   Si se mide la espera por el bloqueo de la sala (solo un escenario a la vez).
+     * @param totalRequests  Cuántas peticiones enviar como máximo.
+     * @param maxDuration    Tiempo máximo (null = hasta completar las peticiones).
+     * @param requestFactory Construye la petición número {@code i}.
+     */
+    private LoadReport.ScenarioResult run(String scenario, boolean measureLocks, int totalRequests, Duration maxDuration,
+                                          IntFunction<HttpRequest> requestFactory) {
+        LatencyRecorder latencies = new LatencyRecorder();
+        LatencyRecorder lockWaits = measureLocks ? lockWaitProbe.startScenario() : new LatencyRecorder();
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        long deadline = maxDuration == null ? Long.MAX_VALUE : System.nanoTime() + maxDuration.toNanos();
+
+        ExecutorService clients = Executors.newFixedThreadPool(CONCURRENCY);
+        long start = System.nanoTime();
+        for (int c = 0; c < CONCURRENCY; c++) {
+            clients.execute(() -> {
+                int i;
+                while (System.nanoTime() < deadline && (i = next.getAndIncrement()) < totalRequests) {
+                    long sent = System.nanoTime();
+                    try {
+                        int status = httpClient.send(requestFactory.apply(i), HttpResponse.BodyHandlers.discarding()).statusCode();
+                        latencies.record(System.nanoTime() - sent);
+                        (status < 400 ? succeeded : status < 500 ? rejected : failed).incrementAndGet();
+                    } catch (IOException e) {
+                        failed.incrementAndGet();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            });
+        }
+        clients.shutdown();
+        try {
+            assertTrue(clients.awaitTermination(10, TimeUnit.MINUTES), "El escenario " + scenario + " no terminó");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail("Interrumpido durante " + scenario);
+        }
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        LoadReport.ScenarioResult result = new LoadReport.ScenarioResult(scenario, latencies.count(),
+                succeeded.get(), rejected.get(), failed.get(), latencies.count() / elapsedSeconds,
+                latencies.percentileMillis(50), latencies.percentileMillis(99),
+                lockWaits.count(), lockWaits.totalNanos() / 1e6, lockWaits.percentileMillis(99));
+        report.add(result);
+        return result;
+    }
+
+    private HttpRequest bookingRequest(int userIndex, Long roomId, ZonedDateTime startAt) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("roomId", roomId);
+        body.put("startAt", startAt.toOffsetDateTime().toString());
+        body.put("endAt", startAt.plusHours(1).toOffsetDateTime().toString());
+        body.put("addToGoogleCalendar", false);
+        try {
+            return authorized(userIndex, "/api/v1/reservations")
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                    .build();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private HttpRequest availabilityRequest(LocalDate date) {
+        return HttpRequest.newBuilder(uri("/api/v1/availability?date=" + date)).GET().build();
+    }
+
+    private HttpRequest.Builder authorized(int userIndex, String path) {
+        return HttpRequest.newBuilder(uri(path))
+                .header("Authorization", "Bearer " + tokens.get(userIndex));
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    /**
+     * El bloque número {@code index} entre los días hábiles de las próximas semanas, sin repetir.
+     */
+    private ZonedDateTime uniqueSlot(int index) {
+        int slot = index % SLOT_STARTS.length;
+        int day = index / SLOT_STARTS.length;
+        LocalDate date = nextMonday.plusWeeks(day / 5).plusDays(day % 5);
+        return ZonedDateTime.of(date, SLOT_STARTS[slot], ZONE);
+    }
+
+    /**
+     * Un bloque del próximo lunes: varios estudiantes compiten por cada uno.
+     */
+    private ZonedDateTime mondaySlot(int index) {
+        return ZonedDateTime.of(nextMonday, SLOT_STARTS[index % SLOT_STARTS.length], ZONE);
+    }
+}
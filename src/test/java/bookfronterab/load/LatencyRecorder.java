@@ -0,0 +1,45 @@
+package bookfronterab.load;
+
+import java.util.Arrays;
+
+/**
+ * Acumula latencias (en nanosegundos) desde varios hilos y calcula percentiles.
+ */
+final class LatencyRecorder {
+
+    private long[] samples = new long[1024];
+    private int size;
+
+    synchronized void record(long nanos) {
+        if (size == samples.length) {
+            samples = Arrays.copyOf(samples, size * 2);
+        }
+        samples[size++] = nanos;
+    }
+
+    synchronized int count() {
+        return size;
+    }
+
+    synchronized long totalNanos() {
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            total += samples[i];
+        }
+        return total;
+    }
+
+    /**
+     * @param percentile Entre 0 y 100.
+     * @return El percentil en milisegundos (0 si no hay muestras).
+     */
+    synchronized double percentileMillis(double percentile) {
+        if (size == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(samples, size);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * size) - 1;
+        return sorted[Math.max(0, Math.min(index, size - 1))] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,56 @@
+package bookfronterab.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resultados de la prueba de carga: se muestran como tabla en el log y se guardan en
+ * {@code target/load-test-report.json} para comparar entre ejecuciones.
+ */
+@Slf4j
+final class LoadReport {
+
+    /**
+     * Resultado de un escenario.
+     *
+     * @param scenario         Nombre del escenario.
+     * @param requests         Peticiones enviadas.
+     * @param succeeded        Respuestas 2xx.
+     * @param rejected         Respuestas 4xx (p. ej. sala ya ocupada).
+     * @param failed           Respuestas 5xx o errores de red.
+     * @param throughputPerSec Peticiones completadas por segundo.
+     * @param p50Ms            Latencia mediana.
+     * @param p99Ms            Latencia del percentil 99.
+     * @param lockWaits        Veces que se tomó el bloqueo de la sala.
+     * @param lockWaitTotalMs  Tiempo total esperando el bloqueo.
+     * @param lockWaitP99Ms    Espera por el bloqueo, percentil 99.
+     */
+    record ScenarioResult(String scenario, int requests, int succeeded, int rejected, int failed,
+                          double throughputPerSec, double p50Ms, double p99Ms,
+                          int lockWaits, double lockWaitTotalMs, double lockWaitP99Ms) {
+    }
+
+    private final List<ScenarioResult> results = new ArrayList<>();
+
+    synchronized void add(ScenarioResult result) {
+        results.add(result);
+        log.info(String.format("%-18s %6d req  ok=%-6d 4xx=%-6d 5xx=%-4d %8.1f req/s  p50=%7.1f ms  p99=%7.1f ms  "
+                        + "bloqueo: %d esperas, total=%.0f ms, p99=%.1f ms",
+                result.scenario(), result.requests(), result.succeeded(), result.rejected(), result.failed(),
+                result.throughputPerSec(), result.p50Ms(), result.p99Ms(),
+                result.lockWaits(), result.lockWaitTotalMs(), result.lockWaitP99Ms()));
+    }
+
+    synchronized void write(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), results);
+        log.info("Reporte de carga guardado en {}", file.toAbsolutePath());
+    }
+}
@@ -0,0 +1,46 @@
+package bookfronterab.load;
+
+import bookfronterab.repo.RoomRepository;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+/**
+ * Mide cuánto tarda {@link RoomRepository#findByIdWithLock} ({@code SELECT ... FOR UPDATE}).
+ * Casi todo ese tiempo es la espera por el bloqueo de la fila de la sala mientras otra
+ * transacción de reserva la tiene tomada.
+ */
+class LockWaitProbe implements BeanPostProcessor {
+
+    private volatile LatencyRecorder lockWaits = new LatencyRecorder();
+
+    /**
+     * Empieza a medir un escenario nuevo.
+     *
+     * @return El registro donde quedarán las esperas de este escenario.
+     */
+    LatencyRecorder startScenario() {
+        lockWaits = new LatencyRecorder();
+        return lockWaits;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof RoomRepository)) {
+            return bean;
+        }
+        ProxyFactory proxyFactory = new ProxyFactory(bean);
+        proxyFactory.addAdvice((MethodInterceptor) invocation -> {
+            if (!"findByIdWithLock".equals(invocation.getMethod().getName())) {
+                return invocation.proceed();
+            }
+            long start = System.nanoTime();
+            try {
+                return invocation.proceed();
+            } finally {
+                lockWaits.record(System.nanoTime() - start);
+            }
+        });
+        return proxyFactory.getProxy();
+    }
+}
@@ -0,0 +1,113 @@
+package bookfronterab.repo;
+
+import bookfronterab.model.CalendarSyncTask;
+import bookfronterab.model.CalendarSyncType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Prueba el reclamo de tareas de {@link CalendarSyncTaskRepository#claimDue} sobre PostgreSQL real.
+ */
+@DataJpaTest
+@Testcontainers
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // Cada reclamo confirma su propia transacción
+class CalendarSyncTaskRepositoryTest {
+
+    @Container
+    public static PostgreSQLContainer<?> postgreSQLContainer = new PostgreSQLContainer<>("postgres:15-alpine")
+            .withDatabaseName("bookfronterab-test")
+            .withUsername("testuser")
+            .withPassword("testpass");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgreSQLContainer::getJdbcUrl);
+        registry.add("spring.datasource.username", postgreSQLContainer::getUsername);
+        registry.add("spring.datasource.password", postgreSQLContainer::getPassword);
+        registry.add("spring.jpa.properties.hibernate.dialect", () -> "org.hibernate.dialect.PostgreSQLDialect");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+    }
+
+    private static final OffsetDateTime NOW = OffsetDateTime.of(2026, 11, 2, 10, 0, 0, 0, ZoneOffset.UTC);
+    private static final OffsetDateTime LEASE = NOW.plusMinutes(5);
+
+    @Autowired private CalendarSyncTaskRepository calendarSyncTaskRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        calendarSyncTaskRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("claimDue debe tomar las tareas vencidas más antiguas y correr su próximo intento")
+    void claimDue_ShouldTakeOldestDueTasksAndLeaseThem() {
+        CalendarSyncTask oldest = save(NOW.minusMinutes(30));
+        CalendarSyncTask older = save(NOW.minusMinutes(20));
+        CalendarSyncTask old = save(NOW.minusMinutes(10));
+        save(NOW.plusMinutes(1));
+
+        List<CalendarSyncTask> first = calendarSyncTaskRepository.claimDue(NOW, LEASE, 2);
+
+        assertEquals(List.of(oldest.getId(), older.getId()), first.stream().map(CalendarSyncTask::getId).sorted().toList());
+        assertTrue(first.stream().allMatch(task -> task.getNextAttemptAt().isEqual(LEASE)));
+
+        // Las reclamadas ya no vencen hasta el fin del plazo
+        List<CalendarSyncTask> second = calendarSyncTaskRepository.claimDue(NOW, LEASE, 2);
+        assertEquals(List.of(old.getId()), second.stream().map(CalendarSyncTask::getId).toList());
+        assertTrue(calendarSyncTaskRepository.claimDue(NOW, LEASE, 2).isEmpty());
+    }
+
+    @Test
+    @DisplayName("claimDue debe saltarse las tareas que otra instancia tiene bloqueadas")
+    void claimDue_ShouldSkipLockedTasks() {
+        CalendarSyncTask locked = save(NOW.minusMinutes(20));
+        CalendarSyncTask free = save(NOW.minusMinutes(10));
+
+        List<CalendarSyncTask> claimed = new TransactionTemplate(transactionManager).execute(status -> {
+            // Esta transacción simula a otra instancia a mitad de su reclamo
+            jdbcTemplate.queryForList("SELECT id FROM calendar_sync_tasks WHERE id = ? FOR UPDATE",
+                    Long.class, locked.getId());
+            return CompletableFuture.supplyAsync(() -> calendarSyncTaskRepository.claimDue(NOW, LEASE, 10))
+                    .orTimeout(10, TimeUnit.SECONDS)
+                    .join();
+        });
+
+        assertEquals(List.of(free.getId()), claimed.stream().map(CalendarSyncTask::getId).toList());
+    }
+
+    private CalendarSyncTask save(OffsetDateTime nextAttemptAt) {
+        return calendarSyncTaskRepository.save(CalendarSyncTask.builder()
+                .type(CalendarSyncType.DELETE)
+                .userId(10L)
+                .googleEventId("evt")
+                .attempts(0)
+                .nextAttemptAt(nextAttemptAt)
+                .createdAt(NOW)
+                .build());
+    }
+}
@@ -0,0 +1,203 @@
+package bookfronterab.repo;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifica con EXPLAIN que las consultas calientes de reservas usan los índices de
+ * {@code V2__reservation_query_indexes.sql} sobre un historial de tamaño realista, y que
+ * solo leen las particiones mensuales de las fechas pedidas (V3).
+ * <p>
+ * El esquema lo crea Flyway y Hibernate solo lo valida (ddl-auto=validate), así que esta
+ * prueba también falla si las migraciones dejan de calzar con las entidades.
+ * El SQL es el que genera Hibernate para cada método de {@link ReservationRepository}.
+ * </p>
+ */
+@DataJpaTest
+@Testcontainers
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // ANALYZE debe ver los datos confirmados
+class ReservationIndexPlanTest {
+
+    private static final int USERS = 500;
+    private static final int ROOMS = 20;
+    private static final int PAST_RESERVATIONS = 60_000;
+    private static final int FUTURE_RESERVATIONS = 2_000;
+    /**
+     * Los índices de cada partición se nombran a partir de ella (p. ej.
+     * reservations_2026_10_room_id_end_at_start_at_idx).
+     */
+    private static final String PARTITION = "reservations_\\d{4}_\\d{2}_";
+
+    @Container
+    public static PostgreSQLContainer<?> postgreSQLContainer = new PostgreSQLContainer<>("postgres:15-alpine")
+            .withDatabaseName("bookfronterab-test")
+            .withUsername("testuser")
+            .withPassword("testpass");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgreSQLContainer::getJdbcUrl);
+        registry.add("spring.datasource.username", postgreSQLContainer::getUsername);
+        registry.add("spring.datasource.password", postgreSQLContainer::getPassword);
+        registry.add("spring.jpa.properties.hibernate.dialect", () -> "org.hibernate.dialect.PostgreSQLDialect");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+    }
+
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private Flyway flyway;
+
+    private OffsetDateTime now;
+    private OffsetDateTime tomorrow;
+
+    @BeforeEach
+    void setUp() {
+        now = OffsetDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.HOURS);
+        tomorrow = now.truncatedTo(ChronoUnit.DAYS).plusDays(1);
+
+        jdbcTemplate.update("""
+                INSERT INTO users (id, email, nombre, rol)
+                SELECT g, 'estudiante' || g || '@ufromail.cl', 'Estudiante ' || g, 'STUDENT'
+                FROM generate_series(1, ?) g
+                """, USERS);
+        jdbcTemplate.update("""
+                INSERT INTO rooms (id, name, capacity, floor, retired)
+                SELECT g, 'Sala ' || g, 6, 1, false
+                FROM generate_series(1, ?) g
+                """, ROOMS);
+        // Historial: una reserva de una hora cada hora hacia atrás, repartida entre salas y usuarios
+        jdbcTemplate.update("""
+                INSERT INTO reservations (id, room_id, user_id, start_at, end_at)
+                SELECT g, 1 + g % ?, 1 + g % ?, ?::timestamptz - g * interval '1 hour',
+                       ?::timestamptz - (g - 1) * interval '1 hour'
+                FROM generate_series(1, ?) g
+                """, ROOMS, USERS, now, now, PAST_RESERVATIONS);
+        // Próximas 100 horas, todas las salas ocupadas: lo que consultan la grilla y los conflictos
+        jdbcTemplate.update("""
+                INSERT INTO reservations (id, room_id, user_id, start_at, end_at, google_event_id)
+                SELECT ? + g, 1 + g % ?, 1 + g % ?, ?::timestamptz + (g / ?) * interval '1 hour',
+                       ?::timestamptz + (g / ? + 1) * interval '1 hour', 'evento-' || g
+                FROM generate_series(1, ?) g
+                """, PAST_RESERVATIONS, ROOMS, USERS, now, ROOMS, now, ROOMS, FUTURE_RESERVATIONS);
+        // Las filas de meses sin partición quedaron en reservations_default: se crean sus particiones
+        jdbcTemplate.queryForList("""
+                SELECT create_reservation_partition(m::date)
+                FROM generate_series(date_trunc('month', ?::timestamptz AT TIME ZONE 'UTC'),
+                                     date_trunc('month', ?::timestamptz AT TIME ZONE 'UTC'),
+                                     interval '1 month') m
+                """, Boolean.class, now.minusHours(PAST_RESERVATIONS), now);
+        jdbcTemplate.execute("ANALYZE users");
+        jdbcTemplate.execute("ANALYZE rooms");
+        jdbcTemplate.execute("ANALYZE reservations");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("TRUNCATE reservations, reservations_archive, room_equipment, rooms, users CASCADE");
+    }
+
+    @Test
+    @DisplayName("Las migraciones deben quedar aplicadas hasta el particionado")
+    void migrations_ShouldBeApplied() {
+        assertThat(flyway.info().applied())
+                .extracting(migration -> migration.getVersion().getVersion())
+                .contains("1", "2", "3");
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM reservations_default", Long.class)).isZero();
+    }
+
+    @Test
+    @DisplayName("findConflictingReservations debe usar el índice por sala y fin, solo en su mes")
+    void conflictQuery_ShouldUseRoomEndIndex() {
+        OffsetDateTime newStartAt = now.plusHours(30);
+        String plan = explain("""
+                SELECT r.id, r.end_at, r.google_event_etag, r.google_event_id, r.room_id, r.start_at, r.user_id
+                FROM reservations r
+                WHERE r.room_id = 3 AND r.start_at > '%s' AND r.start_at < '%s' AND r.end_at > '%s'
+                """.formatted(newStartAt.minus(ReservationRepository.MAX_RESERVATION_SPAN),
+                newStartAt.plusHours(1), newStartAt));
+
+        assertThat(plan).containsPattern(PARTITION + "room_id_end_at_start_at_idx");
+        assertOnlyRecentPartitions(plan);
+    }
+
+    @Test
+    @DisplayName("findAllReservationsBetween (grilla del día) no debe recorrer el historial")
+    void dayRangeQuery_ShouldUseEndStartIndex() {
+        String plan = explain("""
+                SELECT r.id, r.end_at, r.google_event_etag, r.google_event_id, r.room_id, r.start_at, r.user_id
+                FROM reservations r
+                WHERE r.start_at > '%s' AND r.start_at < '%s' AND r.end_at > '%s'
+                """.formatted(tomorrow.minus(ReservationRepository.MAX_RESERVATION_SPAN),
+                tomorrow.plusDays(1), tomorrow));
+
+        assertThat(plan).containsPattern(PARTITION + "end_at_start_at_idx");
+        assertOnlyRecentPartitions(plan);
+    }
+
+    @Test
+    @DisplayName("El conteo del límite semanal debe resolverse por usuario y fecha de inicio")
+    void weeklyLimitCount_ShouldUseUserStartIndex() {
+        String plan = explain("""
+                SELECT count(r.id)
+                FROM reservations r
+                LEFT JOIN users u ON u.id = r.user_id
+                WHERE u.email = 'estudiante42@ufromail.cl' AND r.start_at BETWEEN '%s' AND '%s'
+                """.formatted(tomorrow.minusDays(1), tomorrow.plusDays(6)));
+
+        assertThat(plan).containsPattern(PARTITION + "user_id_start_at_");
+        assertOnlyRecentPartitions(plan);
+    }
+
+    @Test
+    @DisplayName("findSyncedByUserAndEventIds debe usar el índice parcial de eventos de Google")
+    void syncedEventsQuery_ShouldUsePartialGoogleEventIndex() {
+        String plan = explain("""
+                SELECT r.id, r.room_id
+                FROM reservations r
+                JOIN rooms ro ON ro.id = r.room_id
+                WHERE r.user_id = 42 AND r.google_event_id IN ('evento-41', 'evento-541')
+                """);
+
+        assertThat(plan).containsPattern(PARTITION + "user_id_google_event_id_idx");
+    }
+
+    /**
+     * Con la cota inferior de start_at, PostgreSQL descarta las particiones de meses pasados.
+     */
+    private void assertOnlyRecentPartitions(String plan) {
+        assertThat(plan).doesNotContain("reservations_default")
+                .doesNotContain(partitionName(YearMonth.from(now).minusMonths(2)))
+                .doesNotContain(partitionName(YearMonth.from(now).minusYears(1)));
+    }
+
+    private static String partitionName(YearMonth month) {
+        return "reservations_%d_%02d".formatted(month.getYear(), month.getMonthValue());
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.queryForList("EXPLAIN " + sql, String.class).stream()
+                .collect(Collectors.joining("\n"));
+    }
+}
@@ -10,6 +10,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 import org.testcontainers.containers.PostgreSQLContainer;
@@ -156,6 +157,39 @@ class ReservationRepositoryTest {
         assertThat(countExcludingR1).isEqualTo(1);
     }
 
+    // --- TEST: borrado por bloques (baja de salas) ---
+
+    @Test
+    @DisplayName("findIdsByRoomId + deleteByIdIn deben borrar la sala por bloques")
+    void deleteByIdIn_ShouldDeleteInChunks() {
+        for (int i = 0; i < 5; i++) {
+            persistReservation(baseTime.plusDays(i), baseTime.plusDays(i).plusHours(1));
+        }
+        assertThat(reservationRepository.countByRoomId(roomA.getId())).isEqualTo(5);
+
+        List<Long> firstChunk = reservationRepository.findIdsByRoomId(roomA.getId(), PageRequest.of(0, 2));
+        assertThat(firstChunk).hasSize(2);
+
+        int deleted = reservationRepository.deleteByIdIn(firstChunk);
+
+        assertThat(deleted).isEqualTo(2);
+        assertThat(reservationRepository.countByRoomId(roomA.getId())).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("findByIdInAndGoogleEventIdIsNotNull debe devolver solo reservas sincronizadas")
+    void findByIdInAndGoogleEventIdIsNotNull_ShouldFilterSynced() {
+        Reservation synced = persistReservation(baseTime, baseTime.plusHours(1));
+        synced.setGoogleEventId("evt-1");
+        reservationRepository.save(synced);
+        Reservation notSynced = persistReservation(baseTime.plusHours(2), baseTime.plusHours(3));
+
+        List<Reservation> result = reservationRepository.findByIdInAndGoogleEventIdIsNotNull(
+                List.of(synced.getId(), notSynced.getId()));
+
+        assertThat(result).extracting(Reservation::getGoogleEventId).containsExactly("evt-1");
+    }
+
     private Reservation persistReservation(ZonedDateTime start, ZonedDateTime end) {
         return reservationRepository.save(Reservation.builder()
                 .room(roomA)
@@ -1,17 +1,21 @@
 package bookfronterab.repo;
 
+import bookfronterab.model.ImageStatus;
 import bookfronterab.model.Room;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -38,6 +42,9 @@ class RoomRepositoryTest {
     @Autowired
     private RoomRepository roomRepository;
 
+    @Autowired
+    private TestEntityManager entityManager;
+
     @Test
     @DisplayName("findByIdWithLock debe recuperar la sala correctamente aplicando el bloqueo")
     void findByIdWithLock_ShouldReturnRoom() {
@@ -64,4 +71,36 @@ class RoomRepositoryTest {
         Optional<Room> found = roomRepository.findByIdWithLock(9999L);
         assertTrue(found.isEmpty());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("failStaleUploads solo debe cerrar las subidas pendientes más antiguas que el corte")
+    void failStaleUploads_ShouldSkipRecentUploads() {
+        OffsetDateTime now = OffsetDateTime.of(2026, 10, 18, 12, 0, 0, 0, ZoneOffset.UTC);
+        Room stale = roomRepository.save(pendingRoom("Sala Huérfana", now.minusHours(1)));
+        Room legacy = roomRepository.save(pendingRoom("Sala Sin Fecha", null));
+        Room inProgress = roomRepository.save(pendingRoom("Sala En Curso", now.minusMinutes(2)));
+        entityManager.flush();
+
+        int failed = roomRepository.failStaleUploads(ImageStatus.PENDING, ImageStatus.FAILED, now.minusMinutes(15));
+        entityManager.clear();
+
+        assertEquals(2, failed);
+        assertEquals(ImageStatus.FAILED, roomRepository.findById(stale.getId()).orElseThrow().getImageStatus());
+        assertNull(roomRepository.findById(stale.getId()).orElseThrow().getPendingImageHash());
+        assertEquals(ImageStatus.FAILED, roomRepository.findById(legacy.getId()).orElseThrow().getImageStatus());
+        Room stillPending = roomRepository.findById(inProgress.getId()).orElseThrow();
+        assertEquals(ImageStatus.PENDING, stillPending.getImageStatus());
+        assertEquals("hash-Sala En Curso", stillPending.getPendingImageHash());
+    }
+
+    private static Room pendingRoom(String name, OffsetDateTime pendingSince) {
+        return Room.builder()
+                .name(name)
+                .capacity(4)
+                .floor(1)
+                .imageStatus(ImageStatus.PENDING)
+                .pendingImageHash("hash-" + name)
+                .pendingImageSince(pendingSince)
+                .build();
+    }
+}
@@ -1,5 +1,7 @@
 package bookfronterab.repo;
 
+import bookfronterab.model.Reservation;
+import bookfronterab.model.Room;
 import bookfronterab.model.User;
 import bookfronterab.model.UserRole;
 import org.junit.jupiter.api.DisplayName;
@@ -7,6 +9,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 import org.testcontainers.containers.PostgreSQLContainer;
@@ -14,6 +17,9 @@ import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
 import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -40,6 +46,15 @@ class UserRepositoryTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
     @Test
     @DisplayName("findByEmail debe encontrar usuario ignorando mayúsculas/minúsculas si la BD lo permite o exacto")
     void findByEmail_ShouldReturnUser() {
@@ -66,4 +81,99 @@ class UserRepositoryTest {
         Optional<User> found = userRepository.findByEmail("noexiste@mail.com");
         assertTrue(found.isEmpty());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("findUsersWithPendingCalendarWork debe devolver solo usuarios con reservas sincronizadas y token por expirar")
+    void findUsersWithPendingCalendarWork_ShouldFilterByEventAndExpiry() {
+        OffsetDateTime now = OffsetDateTime.now();
+        Room room = roomRepository.save(Room.builder().name("Sala Sync").capacity(4).floor(1).build());
+
+        User expiring = userRepository.save(tokenUser("expira@ufromail.cl", now.plusMinutes(5)));
+        User fresh = userRepository.save(tokenUser("fresco@ufromail.cl", now.plusHours(1)));
+        User notSynced = userRepository.save(tokenUser("sinevento@ufromail.cl", now.plusMinutes(5)));
+
+        ZonedDateTime start = now.toZonedDateTime().plusDays(1);
+        reservationRepository.save(reservation(room, expiring, start, "evt-1"));
+        reservationRepository.save(reservation(room, expiring, start.plusHours(2), "evt-2"));
+        reservationRepository.save(reservation(room, fresh, start, "evt-3"));
+        reservationRepository.save(reservation(room, notSynced, start, null));
+
+        List<User> result = userRepository.findUsersWithPendingCalendarWork(
+                now.toZonedDateTime(), now.toZonedDateTime().plusDays(7), now.plusMinutes(10));
+
+        assertEquals(1, result.size());
+        assertEquals("expira@ufromail.cl", result.get(0).getEmail());
+    }
+
+    @Test
+    @DisplayName("findUsersWithSyncedReservations debe ignorar reservas pasadas y usuarios sin evento")
+    void findUsersWithSyncedReservations_ShouldOnlyReturnUpcomingSynced() {
+        OffsetDateTime now = OffsetDateTime.now();
+        Room room = roomRepository.save(Room.builder().name("Sala Reconciliación").capacity(4).floor(1).build());
+
+        User upcoming = userRepository.save(tokenUser("proxima@ufromail.cl", now.plusHours(1)));
+        User past = userRepository.save(tokenUser("pasada@ufromail.cl", now.plusHours(1)));
+        User notSynced = userRepository.save(tokenUser("local@ufromail.cl", now.plusHours(1)));
+
+        ZonedDateTime base = now.toZonedDateTime();
+        reservationRepository.save(reservation(room, upcoming, base.plusDays(1), "evt-a"));
+        reservationRepository.save(reservation(room, past, base.minusDays(1), "evt-b"));
+        reservationRepository.save(reservation(room, notSynced, base.plusDays(1), null));
+
+        List<User> result = userRepository.findUsersWithSyncedReservations(base);
+
+        assertEquals(1, result.size());
+        assertEquals("proxima@ufromail.cl", result.get(0).getEmail());
+    }
+
+    @Test
+    @DisplayName("updateGoogleTokens no debe pisar cambios hechos al usuario después de cargarlo")
+    void updateGoogleTokens_ShouldKeepConcurrentChanges() {
+        OffsetDateTime expiry = OffsetDateTime.now().plusHours(1).truncatedTo(ChronoUnit.SECONDS);
+        Long id = userRepository.save(tokenUser("refresco@ufromail.cl", OffsetDateTime.now())).getId();
+        entityManager.flush();
+        entityManager.clear();
+
+        // El refresco proactivo carga el usuario antes de llamar a Google...
+        User loaded = userRepository.findById(id).orElseThrow();
+        entityManager.detach(loaded);
+
+        // ...y mientras tanto un administrador le cambia el rol y la reconciliación guarda su syncToken
+        User current = userRepository.findById(id).orElseThrow();
+        current.setRol(UserRole.ADMIN);
+        entityManager.flush();
+        userRepository.updateCalendarSyncToken(id, "sync-nuevo");
+        entityManager.clear();
+
+        userRepository.updateGoogleTokens(loaded.getId(), "access-nuevo", null, expiry);
+        entityManager.clear();
+
+        User refreshed = userRepository.findById(id).orElseThrow();
+        assertEquals("access-nuevo", refreshed.getGoogleAccessToken());
+        assertEquals("refresh", refreshed.getGoogleRefreshToken());
+        assertTrue(expiry.isEqual(refreshed.getGoogleTokenExpiryDate()));
+        assertEquals(UserRole.ADMIN, refreshed.getRol());
+        assertEquals("sync-nuevo", refreshed.getGoogleCalendarSyncToken());
+    }
+
+    private User tokenUser(String email, OffsetDateTime expiry) {
+        return User.builder()
+                .email(email)
+                .nombre("Usuario")
+                .rol(UserRole.STUDENT)
+                .googleAccessToken("access")
+                .googleRefreshToken("refresh")
+                .googleTokenExpiryDate(expiry)
+                .build();
+    }
+
+    private Reservation reservation(Room room, User user, ZonedDateTime start, String eventId) {
+        return Reservation.builder()
+                .room(room)
+                .user(user)
+                .startAt(start)
+                .endAt(start.plusHours(1))
+                .googleEventId(eventId)
+                .build();
+    }
+}
@@ -0,0 +1,132 @@
+package bookfronterab.service;
+
+import bookfronterab.model.User;
+import bookfronterab.model.UserRole;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseCookie;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AccessTokenServiceTest {
+
+    private static final String SECRET = "clave-de-prueba-con-al-menos-32-bytes!!";
+    private static final OffsetDateTime NOW = OffsetDateTime.of(2025, 3, 10, 9, 0, 0, 0, ZoneOffset.UTC);
+
+    private TimeService timeService;
+    private AccessTokenService tokenService;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        timeService = mock(TimeService.class);
+        when(timeService.nowOffset()).thenReturn(NOW);
+        tokenService = new AccessTokenService(new ObjectMapper(), timeService, "token", SECRET, 15, 7);
+
+        user = new User();
+        user.setId(7L);
+        user.setEmail("ana@ufromail.cl");
+        user.setNombre("Ana Pérez");
+        user.setRol(UserRole.ADMIN);
+    }
+
+    @Test
+    @DisplayName("Un token de acceso emitido debe validarse con los mismos datos")
+    void issueAccessToken_ShouldRoundTrip() {
+        String token = tokenService.issueAccessToken(user, "sub-7");
+
+        Optional<AccessTokenClaims> claims = tokenService.verifyAccessToken(token);
+
+        assertTrue(claims.isPresent());
+        assertEquals("sub-7", claims.get().subject());
+        assertEquals(7L, claims.get().userId());
+        assertEquals("ana@ufromail.cl", claims.get().email());
+        assertEquals("Ana Pérez", claims.get().name());
+        assertEquals(UserRole.ADMIN, claims.get().role());
+        assertEquals(NOW.toInstant().plusSeconds(15 * 60), claims.get().expiresAt());
+    }
+
+    @Test
+    @DisplayName("Un token con la firma o el contenido alterado debe rechazarse")
+    void verifyAccessToken_ShouldRejectTamperedToken() {
+        String token = tokenService.issueAccessToken(user, "sub-7");
+        String[] parts = token.split("\\.");
+        String otherPayload = tokenService.issueAccessToken(otherUser(), "sub-8").split("\\.")[1];
+
+        assertTrue(tokenService.verifyAccessToken(parts[0] + "." + otherPayload + "." + parts[2]).isEmpty());
+        assertTrue(tokenService.verifyAccessToken(token.substring(0, token.length() - 2) + "xx").isEmpty());
+        assertTrue(tokenService.verifyAccessToken("no-es-un-token").isEmpty());
+        assertTrue(tokenService.verifyAccessToken(null).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Un token firmado con otra clave debe rechazarse")
+    void verifyAccessToken_ShouldRejectForeignKey() {
+        AccessTokenService otherService = new AccessTokenService(new ObjectMapper(), timeService, "token",
+                "otra-clave-distinta-de-al-menos-32-bytes", 15, 7);
+
+        assertTrue(tokenService.verifyAccessToken(otherService.issueAccessToken(user, "sub-7")).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Un token vencido debe rechazarse")
+    void verifyAccessToken_ShouldRejectExpiredToken() {
+        String token = tokenService.issueAccessToken(user, "sub-7");
+
+        when(timeService.nowOffset()).thenReturn(NOW.plusMinutes(15));
+
+        assertTrue(tokenService.verifyAccessToken(token).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Los tokens de refresco y de acceso no deben ser intercambiables")
+    void verify_ShouldRejectWrongTokenType() {
+        String access = tokenService.issueAccessToken(user, "sub-7");
+        String refresh = tokenService.issueRefreshToken(user, "sub-7");
+
+        assertTrue(tokenService.verifyAccessToken(refresh).isEmpty());
+        assertTrue(tokenService.verifyRefreshToken(access).isEmpty());
+
+        AccessTokenClaims claims = tokenService.verifyRefreshToken(refresh).orElseThrow();
+        assertEquals(7L, claims.userId());
+        assertNull(claims.role());
+    }
+
+    @Test
+    @DisplayName("La cookie de refresco debe ser HttpOnly y limitarse a los endpoints de tokens")
+    void refreshCookie_ShouldBeHttpOnlyAndScoped() {
+        ResponseCookie cookie = tokenService.refreshCookie("valor");
+
+        assertTrue(cookie.isHttpOnly());
+        assertTrue(cookie.isSecure());
+        assertEquals(AccessTokenService.REFRESH_PATH, cookie.getPath());
+        assertEquals(0, tokenService.clearRefreshCookie().getMaxAge().getSeconds());
+    }
+
+    @Test
+    @DisplayName("El modo token debe exigir una clave de al menos 32 bytes")
+    void constructor_ShouldRejectShortSecret() {
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        assertThrows(IllegalStateException.class,
+                () -> new AccessTokenService(objectMapper, timeService, "token", "corta", 15, 7));
+        assertFalse(new AccessTokenService(objectMapper, timeService, "session", "", 15, 7).isEnabled());
+    }
+
+    private User otherUser() {
+        User other = new User();
+        other.setId(8L);
+        other.setEmail("otro@ufromail.cl");
+        other.setNombre("Otro");
+        other.setRol(UserRole.STUDENT);
+        return other;
+    }
+}
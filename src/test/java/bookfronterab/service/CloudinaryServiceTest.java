@@ -1,5 +1,8 @@
 package bookfronterab.service;
 
+import bookfronterab.model.ImageAsset;
+import bookfronterab.repo.ImageAssetRepository;
+import bookfronterab.repo.RoomRepository;
 import com.cloudinary.Cloudinary;
 import com.cloudinary.Uploader;
 import com.cloudinary.utils.ObjectUtils;
@@ -7,17 +10,34 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.OffsetDateTime;
+import java.util.HexFormat;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -29,8 +49,6 @@ import static org.mockito.Mockito.when;
 @ExtendWith(MockitoExtension.class)
 class CloudinaryServiceTest {
 
-    // Inyecta los mocks en la clase a probar
-    @InjectMocks
     private CloudinaryService cloudinaryService;
 
     // Mockea la dependencia externa
@@ -41,6 +59,21 @@ class CloudinaryServiceTest {
     @Mock
     private Uploader uploader;
 
+    @Mock
+    private ImageOptimizer imageOptimizer;
+
+    @Mock
+    private ImageAssetRepository imageAssetRepository;
+
+    @Mock
+    private RoomRepository roomRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private TimeService timeService;
+
     private static final String FAKE_URL = "https://res.cloudinary.com/test/image/upload/v12345/test_id.jpg";
     private static final String PUBLIC_ID = "v12345/test_id";
     private MultipartFile mockFile;
@@ -48,8 +81,11 @@ class CloudinaryServiceTest {
 
     @BeforeEach
     void setUp() {
+        cloudinaryService = new CloudinaryService(cloudinary, imageOptimizer, imageAssetRepository, roomRepository,
+                new TransactionTemplate(transactionManager), timeService);
+
         // Configuramos la cadena de llamadas antes de cada test: cloudinary.uploader() -> uploader
-        when(cloudinary.uploader()).thenReturn(uploader);
+        lenient().when(cloudinary.uploader()).thenReturn(uploader);
 
         // Creamos un archivo simulado (MockMultipartFile)
         mockFile = new MockMultipartFile(
@@ -67,24 +103,103 @@ class CloudinaryServiceTest {
     }
 
     @Test
-    @DisplayName("uploadFile debe llamar a la API y retornar la URL segura")
-    void uploadFile_ShouldCallApiAndReturnUrl() throws IOException {
-        
-        // 1. Configurar el comportamiento del Mock:
-        // Cuando se llame a uploader.upload() con cualquier byte[] y cualquier Map de opciones,
-        // debe devolver nuestro resultado simulado (mockUploadResult).
-        when(uploader.upload(any(byte[].class), any(Map.class)))
-                .thenReturn(mockUploadResult);
+    @DisplayName("copyAndHash debe copiar el archivo a disco y devolver su SHA-256")
+    void copyAndHash_ShouldCopyAndHash() throws IOException, NoSuchAlgorithmException {
+        Path target = Files.createTempFile("copia-", ".tmp");
+        try {
+            String hash = cloudinaryService.copyAndHash(mockFile, target);
+
+            assertArrayEquals(mockFile.getBytes(), Files.readAllBytes(target));
+            assertEquals(HexFormat.of().formatHex(
+                    MessageDigest.getInstance("SHA-256").digest(mockFile.getBytes())), hash);
+        } finally {
+            Files.deleteIfExists(target);
+        }
+    }
 
-        // 2. Ejecutar el método del servicio:
-        String actualUrl = cloudinaryService.uploadFile(mockFile);
+    @Test
+    @DisplayName("uploadOptimized debe subir el archivo desde disco y registrar su hash")
+    void uploadOptimized_ShouldUploadFromDiskAndRememberHash() throws IOException {
+        OffsetDateTime now = OffsetDateTime.parse("2026-10-18T10:00:00-03:00");
+        when(timeService.nowOffset()).thenReturn(now);
+        Path original = Files.createTempFile("original-", ".jpg");
+        when(imageOptimizer.downscale(original)).thenReturn(null);
+        when(uploader.upload(any(File.class), any(Map.class))).thenReturn(mockUploadResult);
+
+        try {
+            assertEquals(FAKE_URL, cloudinaryService.uploadOptimized(original, "hash-1"));
+
+            // Nunca se sube un byte[] (no se carga la imagen en memoria)
+            verify(uploader).upload(original.toFile(), ObjectUtils.emptyMap());
+            verify(uploader, never()).upload(any(byte[].class), any(Map.class));
+            ArgumentCaptor<ImageAsset> saved = ArgumentCaptor.forClass(ImageAsset.class);
+            verify(imageAssetRepository).save(saved.capture());
+            assertEquals("hash-1", saved.getValue().getContentHash());
+            assertEquals(FAKE_URL, saved.getValue().getSecureUrl());
+            assertEquals(now, saved.getValue().getCreatedAt());
+        } finally {
+            Files.deleteIfExists(original);
+        }
+    }
 
-        // 3. Verificar el resultado:
-        assertEquals(FAKE_URL, actualUrl, "La URL devuelta debe ser la URL simulada.");
-        
-        // 4. Verificar la interacción (Opcional, pero bueno):
-        // Verificamos que uploader.upload fue llamado una vez con los argumentos correctos.
-        verify(uploader).upload(mockFile.getBytes(), ObjectUtils.emptyMap());
+    @Test
+    @DisplayName("uploadOptimized debe subir la versión reducida cuando la imagen supera el máximo")
+    void uploadOptimized_ShouldUploadDownscaledImage() throws IOException {
+        Path original = Files.createTempFile("original-", ".jpg");
+        Path downscaled = Files.createTempFile("reducida-", ".jpg");
+        when(imageOptimizer.downscale(original)).thenReturn(downscaled);
+        when(uploader.upload(any(File.class), any(Map.class))).thenReturn(mockUploadResult);
+
+        try {
+            cloudinaryService.uploadOptimized(original, "hash-1");
+
+            verify(uploader).upload(downscaled.toFile(), ObjectUtils.emptyMap());
+            assertFalse(Files.exists(downscaled), "El archivo reducido es temporal y debe borrarse.");
+            assertTrue(Files.exists(original), "El original lo borra quien lo creó.");
+        } finally {
+            Files.deleteIfExists(original);
+        }
+    }
+
+    @Test
+    @DisplayName("lockAsset debe bloquear la entrada del índice y confirmar que sigue apuntando a la URL")
+    void lockAsset_ShouldRequireExistingAssetWithSameUrl() {
+        when(imageAssetRepository.findByIdWithLock("hash-1"))
+                .thenReturn(Optional.of(ImageAsset.builder().contentHash("hash-1").secureUrl(FAKE_URL).build()));
+        when(imageAssetRepository.findByIdWithLock("hash-borrado")).thenReturn(Optional.empty());
+
+        assertTrue(cloudinaryService.lockAsset("hash-1", FAKE_URL));
+        assertFalse(cloudinaryService.lockAsset("hash-1", "https://res.cloudinary.com/test/image/upload/otra.jpg"));
+        assertFalse(cloudinaryService.lockAsset("hash-borrado", FAKE_URL));
+    }
+
+    @Test
+    @DisplayName("deleteIfUnreferenced no debe borrar una imagen que otra sala sigue usando")
+    void deleteIfUnreferenced_ShouldKeep_WhenStillReferenced() throws IOException {
+        when(roomRepository.existsByImageUrl(FAKE_URL)).thenReturn(true);
+
+        assertFalse(cloudinaryService.deleteIfUnreferenced(FAKE_URL));
+
+        verify(uploader, never()).destroy(any(), any());
+        verify(imageAssetRepository, never()).deleteBySecureUrl(any());
+    }
+
+    @Test
+    @DisplayName("deleteIfUnreferenced debe borrar la imagen y su entrada del índice si nadie la usa")
+    void deleteIfUnreferenced_ShouldDelete_WhenUnreferenced() throws IOException {
+        when(imageAssetRepository.findBySecureUrlWithLock(FAKE_URL))
+                .thenReturn(List.of(ImageAsset.builder().contentHash("hash-1").secureUrl(FAKE_URL).build()));
+        when(roomRepository.existsByImageUrl(FAKE_URL)).thenReturn(false);
+
+        assertTrue(cloudinaryService.deleteIfUnreferenced(FAKE_URL));
+
+        // El índice se bloquea antes de comprobar las referencias
+        var order = inOrder(imageAssetRepository, roomRepository);
+        order.verify(imageAssetRepository).findBySecureUrlWithLock(FAKE_URL);
+        order.verify(roomRepository).existsByImageUrl(FAKE_URL);
+
+        verify(imageAssetRepository).deleteBySecureUrl(FAKE_URL);
+        verify(uploader).destroy("test_id", ObjectUtils.emptyMap());
     }
 
     @Test
@@ -0,0 +1,88 @@
+package bookfronterab.service;
+
+import bookfronterab.dto.FlightRecordingDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlightRecorderServiceTest {
+
+    private final FlightRecorderService flightRecorderService = new FlightRecorderService(5, 10);
+
+    @AfterEach
+    void tearDown() {
+        flightRecorderService.closeCurrent();
+    }
+
+    @Test
+    @DisplayName("start debe iniciar una grabación con la configuración pedida")
+    void start_ShouldStartRecording() {
+        FlightRecordingDto recording = flightRecorderService.start("default");
+
+        assertEquals("RUNNING", recording.state());
+        assertEquals("default", recording.settings());
+        assertEquals(300, recording.maxAgeSeconds());
+        assertEquals(10L * 1024 * 1024, recording.maxSizeBytes());
+        assertTrue(flightRecorderService.status().isPresent());
+    }
+
+    @Test
+    @DisplayName("start debe rechazar una segunda grabación simultánea")
+    void start_ShouldFail_WhenAlreadyRunning() {
+        flightRecorderService.start("default");
+
+        assertThrows(IllegalStateException.class, () -> flightRecorderService.start("profile"));
+    }
+
+    @Test
+    @DisplayName("start debe rechazar configuraciones que no son del JDK")
+    void start_ShouldRejectUnknownSettings() {
+        assertThrows(IllegalArgumentException.class, () -> flightRecorderService.start("/etc/passwd"));
+        assertTrue(flightRecorderService.status().isEmpty());
+    }
+
+    @Test
+    @DisplayName("dump debe volcar los eventos propios de la aplicación a un archivo .jfr")
+    void dump_ShouldContainApplicationEvents() throws Exception {
+        flightRecorderService.start("default");
+        new ReservationMetrics(new SimpleMeterRegistry())
+                .phase(ReservationMetrics.Operation.CREATE, ReservationMetrics.Phase.CONFLICT_CHECK, () -> "ok");
+
+        Path file = flightRecorderService.dump();
+        try {
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            assertTrue(events.stream().anyMatch(event ->
+                    event.getEventType().getName().equals("bookfronterab.ReservationPhase")
+                            && "conflict_check".equals(event.getString("phase"))));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    @DisplayName("stop debe detener la grabación y permitir volcarla después")
+    void stop_ShouldKeepRecordingAvailableForDump() throws Exception {
+        flightRecorderService.start("default");
+
+        assertEquals("STOPPED", flightRecorderService.stop().state());
+
+        Path file = flightRecorderService.dump();
+        assertTrue(Files.size(file) > 0);
+        Files.delete(file);
+    }
+
+    @Test
+    @DisplayName("dump sin grabación debe fallar")
+    void dump_ShouldFail_WithoutRecording() {
+        assertThrows(IllegalStateException.class, flightRecorderService::dump);
+    }
+}
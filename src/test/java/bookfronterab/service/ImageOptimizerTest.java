@@ -0,0 +1,111 @@
+package bookfronterab.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para ImageOptimizer con imágenes reales generadas en disco.
+ */
+class ImageOptimizerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ImageOptimizer imageOptimizer;
+
+    @BeforeEach
+    void setUp() {
+        imageOptimizer = new ImageOptimizer();
+        ReflectionTestUtils.setField(imageOptimizer, "maxDimension", 100);
+        ReflectionTestUtils.setField(imageOptimizer, "jpegQuality", 0.8f);
+    }
+
+    @Test
+    @DisplayName("downscale debe reducir el lado mayor al máximo conservando la proporción")
+    void downscale_ShouldResizeLargeImage() throws IOException {
+        Path source = writeImage(400, 300, BufferedImage.TYPE_INT_RGB, "jpg");
+
+        Path result = imageOptimizer.downscale(source);
+
+        try {
+            assertNotNull(result);
+            BufferedImage resized = ImageIO.read(result.toFile());
+            assertEquals(100, resized.getWidth());
+            assertEquals(75, resized.getHeight());
+            assertTrue(result.toString().endsWith(".jpg"));
+        } finally {
+            Files.deleteIfExists(result);
+        }
+    }
+
+    @Test
+    @DisplayName("downscale debe conservar la transparencia re-codificando a PNG")
+    void downscale_ShouldKeepAlphaAsPng() throws IOException {
+        Path source = writeImage(90, 330, BufferedImage.TYPE_INT_ARGB, "png");
+
+        Path result = imageOptimizer.downscale(source);
+
+        try {
+            assertNotNull(result);
+            assertTrue(result.toString().endsWith(".png"));
+            BufferedImage resized = ImageIO.read(result.toFile());
+            assertEquals(100, resized.getHeight());
+            assertTrue(resized.getColorModel().hasAlpha());
+        } finally {
+            Files.deleteIfExists(result);
+        }
+    }
+
+    @Test
+    @DisplayName("downscale no debe tocar imágenes que ya están dentro del máximo")
+    void downscale_ShouldReturnNull_WhenSmallEnough() throws IOException {
+        Path source = writeImage(80, 100, BufferedImage.TYPE_INT_RGB, "png");
+
+        assertNull(imageOptimizer.downscale(source));
+    }
+
+    @Test
+    @DisplayName("downscale debe devolver null si el archivo no es una imagen conocida")
+    void downscale_ShouldReturnNull_WhenNotAnImage() throws IOException {
+        Path source = tempDir.resolve("datos.bin");
+        Files.write(source, "some-image-data".getBytes());
+
+        assertNull(imageOptimizer.downscale(source));
+    }
+
+    @Test
+    @DisplayName("parseOrientation debe leer la etiqueta Orientation de un bloque EXIF little-endian")
+    void parseOrientation_ShouldReadTag() {
+        byte[] exif = {
+                'E', 'x', 'i', 'f', 0, 0,
+                'I', 'I', 42, 0, 8, 0, 0, 0,          // cabecera TIFF, IFD0 en el offset 8
+                1, 0,                                 // una entrada
+                0x12, 0x01, 3, 0, 1, 0, 0, 0, 6, 0, 0, 0 // Orientation (SHORT) = 6
+        };
+
+        assertEquals(6, ImageOptimizer.parseOrientation(exif));
+    }
+
+    @Test
+    @DisplayName("parseOrientation debe ignorar bloques APP1 que no son EXIF")
+    void parseOrientation_ShouldIgnoreNonExif() {
+        assertEquals(0, ImageOptimizer.parseOrientation("http://ns.adobe.com/xap/1.0/".getBytes()));
+    }
+
+    private Path writeImage(int width, int height, int type, String format) throws IOException {
+        Path file = tempDir.resolve("original." + format);
+        ImageIO.write(new BufferedImage(width, height, type), format, file.toFile());
+        return file;
+    }
+}
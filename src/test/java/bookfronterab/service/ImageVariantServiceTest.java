@@ -0,0 +1,62 @@
+package bookfronterab.service;
+
+import bookfronterab.dto.RoomImageVariants;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para ImageVariantService.
+ */
+class ImageVariantServiceTest {
+
+    private static final String CLOUDINARY_URL = "https://res.cloudinary.com/demo/image/upload/v1/salas/sala.jpg";
+
+    private ImageVariantService imageVariantService;
+
+    @BeforeEach
+    void setUp() {
+        imageVariantService = new ImageVariantService(320, 960, 100);
+    }
+
+    @Test
+    @DisplayName("variantsFor debe insertar las transformaciones de Cloudinary después de /upload/")
+    void variantsFor_ShouldDeriveCloudinaryTransformations() {
+        RoomImageVariants variants = imageVariantService.variantsFor(CLOUDINARY_URL);
+
+        assertEquals("https://res.cloudinary.com/demo/image/upload/c_limit,w_320,f_auto,q_auto/v1/salas/sala.jpg",
+                variants.thumbnail());
+        assertEquals("https://res.cloudinary.com/demo/image/upload/c_limit,w_960,f_auto,q_auto/v1/salas/sala.jpg",
+                variants.medium());
+        assertEquals("https://res.cloudinary.com/demo/image/upload/f_auto,q_auto/v1/salas/sala.jpg",
+                variants.full());
+    }
+
+    @Test
+    @DisplayName("variantsFor debe devolver la URL original si no es de Cloudinary")
+    void variantsFor_ShouldKeepExternalUrl() {
+        RoomImageVariants variants = imageVariantService.variantsFor("http://old-url.com/sala.png");
+
+        assertEquals(new RoomImageVariants("http://old-url.com/sala.png", "http://old-url.com/sala.png",
+                "http://old-url.com/sala.png"), variants);
+    }
+
+    @Test
+    @DisplayName("variantsFor debe devolver null si la sala no tiene imagen")
+    void variantsFor_ShouldReturnNull_WhenNoImage() {
+        assertNull(imageVariantService.variantsFor(null));
+        assertNull(imageVariantService.variantsFor(" "));
+        assertNull(imageVariantService.thumbnailFor(null));
+    }
+
+    @Test
+    @DisplayName("variantsFor debe reutilizar las variantes cacheadas para la misma URL")
+    void variantsFor_ShouldCacheResult() {
+        RoomImageVariants first = imageVariantService.variantsFor(CLOUDINARY_URL);
+
+        assertSame(first, imageVariantService.variantsFor(CLOUDINARY_URL));
+        assertEquals(first.thumbnail(), imageVariantService.thumbnailFor(CLOUDINARY_URL));
+    }
+}
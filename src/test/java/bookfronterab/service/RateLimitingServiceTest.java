@@ -1,32 +1,55 @@
 package bookfronterab.service;
 
 import io.github.bucket4j.Bucket;
+import io.github.bucket4j.distributed.BucketProxy;
+import io.github.bucket4j.distributed.proxy.ProxyManager;
+import io.github.bucket4j.distributed.proxy.RemoteBucketBuilder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
 
 class RateLimitingServiceTest {
 
-    private final RateLimitingService rateLimitingService = new RateLimitingService();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RateLimitingService rateLimitingService = new RateLimitingService(Optional.empty(), meterRegistry, 1000);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(rateLimitingService, "readCapacity", 120L);
+        ReflectionTestUtils.setField(rateLimitingService, "readRefillPerMinute", 120L);
+        ReflectionTestUtils.setField(rateLimitingService, "writeCapacity", 30L);
+        ReflectionTestUtils.setField(rateLimitingService, "writeRefillPerMinute", 30L);
+        ReflectionTestUtils.setField(rateLimitingService, "maxUnsynchronizedTokens", 5L);
+        ReflectionTestUtils.setField(rateLimitingService, "maxUnsynchronizedMs", 500L);
+    }
 
     @Test
     @DisplayName("resolveBucket debe crear un nuevo bucket para una IP nueva")
     void resolveBucket_ShouldCreateNewBucket() {
-        String ip = "192.168.1.10";
-        Bucket bucket = rateLimitingService.resolveBucket(ip);
+        String ip = "ip:192.168.1.10";
+        Bucket bucket = rateLimitingService.resolveBucket(ip, RateLimitPolicy.READ);
 
         assertNotNull(bucket);
         // Verificar que tiene tokens disponibles (configuración inicial)
-        assertTrue(bucket.getAvailableTokens() > 0);
+        assertEquals(120, bucket.getAvailableTokens());
     }
 
     @Test
     @DisplayName("resolveBucket debe retornar el MISMO bucket para la misma IP (Cache)")
     void resolveBucket_ShouldReturnCachedBucket() {
-        String ip = "10.0.0.5";
-        Bucket bucket1 = rateLimitingService.resolveBucket(ip);
-        Bucket bucket2 = rateLimitingService.resolveBucket(ip);
+        String ip = "ip:10.0.0.5";
+        Bucket bucket1 = rateLimitingService.resolveBucket(ip, RateLimitPolicy.READ);
+        Bucket bucket2 = rateLimitingService.resolveBucket(ip, RateLimitPolicy.READ);
 
         assertSame(bucket1, bucket2, "Debe devolver la misma instancia de Bucket (cache funcionando)");
     }
@@ -34,9 +57,88 @@ class RateLimitingServiceTest {
     @Test
     @DisplayName("resolveBucket debe manejar diferentes IPs independientemente")
     void resolveBucket_ShouldHandleMultipleIps() {
-        Bucket bucketA = rateLimitingService.resolveBucket("1.1.1.1");
-        Bucket bucketB = rateLimitingService.resolveBucket("2.2.2.2");
+        Bucket bucketA = rateLimitingService.resolveBucket("ip:1.1.1.1", RateLimitPolicy.READ);
+        Bucket bucketB = rateLimitingService.resolveBucket("ip:2.2.2.2", RateLimitPolicy.READ);
 
         assertNotSame(bucketA, bucketB);
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Las lecturas y las escrituras del mismo cliente deben usar baldes distintos")
+    void resolveBucket_ShouldSeparatePolicies() {
+        Bucket read = rateLimitingService.resolveBucket("user:123", RateLimitPolicy.READ);
+        Bucket write = rateLimitingService.resolveBucket("user:123", RateLimitPolicy.WRITE);
+
+        assertNotSame(read, write);
+        assertEquals(30, write.getAvailableTokens());
+
+        // Agotar las escrituras no afecta a las lecturas
+        assertTrue(write.tryConsume(30));
+        assertFalse(write.tryConsume(1));
+        assertTrue(read.tryConsume(1));
+    }
+
+    @Test
+    @DisplayName("resolveRule debe dar un costo mayor a crear reservas que a consultar disponibilidad")
+    void resolveRule_ShouldWeightRoutes() {
+        RateLimitRule availability = rateLimitingService.resolveRule("GET", "/api/v1/availability");
+        RateLimitRule reservation = rateLimitingService.resolveRule("POST", "/api/v1/reservations");
+
+        assertEquals(new RateLimitRule("default-read", RateLimitPolicy.READ, 1), availability);
+        assertEquals(new RateLimitRule("POST /api/v1/reservations/**", RateLimitPolicy.WRITE, 5), reservation);
+        assertEquals(new RateLimitRule("PATCH /api/v1/rooms/**", RateLimitPolicy.WRITE, 10),
+                rateLimitingService.resolveRule("PATCH", "/api/v1/rooms/7"));
+    }
+
+    @Test
+    @DisplayName("resolveRule debe usar los valores por defecto en rutas sin regla propia")
+    void resolveRule_ShouldFallBackByMethod() {
+        assertEquals(new RateLimitRule("default-read", RateLimitPolicy.READ, 1),
+                rateLimitingService.resolveRule("GET", "/api/v1/users/me"));
+        assertEquals(new RateLimitRule("default-write", RateLimitPolicy.WRITE, 1),
+                rateLimitingService.resolveRule("PATCH", "/api/v1/users/toggle-role"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    @DisplayName("Con backend compartido, el balde debe crearse en el ProxyManager y reutilizarse localmente")
+    void resolveBucket_ShouldUseProxyManager_WhenConfigured() {
+        ProxyManager<String> proxyManager = mock(ProxyManager.class);
+        RemoteBucketBuilder<String> builder = mock(RemoteBucketBuilder.class);
+        BucketProxy remoteBucket = mock(BucketProxy.class);
+        when(proxyManager.builder()).thenReturn(builder);
+        when(builder.withOptimization(any())).thenReturn(builder);
+        when(builder.build(eq("WRITE|user:123"), any(Supplier.class))).thenReturn(remoteBucket);
+
+        RateLimitingService distributed = new RateLimitingService(Optional.of(proxyManager), new SimpleMeterRegistry(), 1000);
+        ReflectionTestUtils.setField(distributed, "writeCapacity", 30L);
+        ReflectionTestUtils.setField(distributed, "writeRefillPerMinute", 30L);
+        ReflectionTestUtils.setField(distributed, "maxUnsynchronizedTokens", 5L);
+        ReflectionTestUtils.setField(distributed, "maxUnsynchronizedMs", 500L);
+
+        Bucket first = distributed.resolveBucket("user:123", RateLimitPolicy.WRITE);
+        Bucket second = distributed.resolveBucket("user:123", RateLimitPolicy.WRITE);
+
+        assertSame(remoteBucket, first);
+        // El proxy guarda los tokens pendientes de sincronizar, así que no debe recrearse
+        assertSame(first, second);
+        verify(proxyManager, times(1)).builder();
+    }
+
+    @Test
+    @DisplayName("recordRejection debe contar los rechazos por ruta, clase y tipo de cliente")
+    void recordRejection_ShouldIncrementTaggedCounter() {
+        RateLimitRule rule = rateLimitingService.resolveRule("POST", "/api/v1/reservations");
+
+        rateLimitingService.recordRejection(rule, "user");
+        rateLimitingService.recordRejection(rule, "user");
+        rateLimitingService.recordRejection(rule, "ip");
+
+        assertEquals(2, meterRegistry.get("ratelimit.rejected")
+                .tag("route", "POST /api/v1/reservations/**")
+                .tag("policy", "WRITE")
+                .tag("client", "user")
+                .counter().count());
+        assertEquals(30, rateLimitingService.capacityOf(RateLimitPolicy.WRITE));
+    }
+}
@@ -0,0 +1,77 @@
+package bookfronterab.service;
+
+import bookfronterab.service.ReservationMetrics.Operation;
+import bookfronterab.service.ReservationMetrics.Phase;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReservationMetricsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ReservationMetrics metrics = new ReservationMetrics(meterRegistry);
+
+    @Test
+    @DisplayName("phase debe devolver el resultado y registrar el tiempo con operación y fase")
+    void phase_ShouldRecordTimerWithTags() {
+        String result = metrics.phase(Operation.CREATE, Phase.CONFLICT_CHECK, () -> "ok");
+
+        assertEquals("ok", result);
+        Timer timer = meterRegistry.find("reservation.phase")
+                .tag("operation", "create")
+                .tag("phase", "conflict_check")
+                .timer();
+        assertNotNull(timer);
+        assertEquals(1, timer.count());
+    }
+
+    @Test
+    @DisplayName("phase debe registrar el tiempo aunque la fase lance una excepción")
+    void phase_ShouldRecord_WhenStepThrows() {
+        assertThrows(IllegalStateException.class, () -> metrics.phase(Operation.MODIFY, Phase.WEEKLY_LIMIT, () -> {
+            throw new IllegalStateException("Límite alcanzado");
+        }));
+
+        assertEquals(1, meterRegistry.get("reservation.phase").tag("phase", "weekly_limit").timer().count());
+    }
+
+    @Test
+    @DisplayName("lockAcquire debe medir la espera por el bloqueo en su propio timer")
+    void lockAcquire_ShouldRecordDedicatedTimer() {
+        Optional<String> room = metrics.lockAcquire(Operation.CREATE_ON_BEHALF, () -> Optional.of("sala"));
+
+        assertEquals(Optional.of("sala"), room);
+        assertEquals(1, meterRegistry.get("reservation.lock.acquire").tag("operation", "create_on_behalf").timer().count());
+        assertNull(meterRegistry.find("reservation.phase").timer());
+    }
+
+    @Test
+    @DisplayName("La operación debe registrarse como failure si no se marca como exitosa")
+    void operation_ShouldRecordOutcome() {
+        try (ReservationMetrics.OperationTimer operation = metrics.operation(Operation.CANCEL)) {
+            operation.succeeded();
+        }
+        try (ReservationMetrics.OperationTimer ignored = metrics.operation(Operation.CANCEL)) {
+            // Simula una salida por excepción: nunca se llama a succeeded()
+        }
+
+        assertEquals(1, meterRegistry.get("reservation.operation").tag("outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get("reservation.operation").tag("outcome", "failure").timer().count());
+    }
+
+    @Test
+    @DisplayName("rejected debe contar por operación y motivo")
+    void rejected_ShouldIncrementCounter() {
+        metrics.rejected(Operation.CREATE, "conflict");
+        metrics.rejected(Operation.CREATE, "conflict");
+        metrics.rejected(Operation.CREATE, "weekly_limit");
+
+        assertEquals(2.0, meterRegistry.get("reservation.rejected").tag("reason", "conflict").counter().count());
+        assertEquals(1.0, meterRegistry.get("reservation.rejected").tag("reason", "weekly_limit").counter().count());
+    }
+}
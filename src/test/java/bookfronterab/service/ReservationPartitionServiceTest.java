@@ -0,0 +1,186 @@
+package bookfronterab.service;
+
+import bookfronterab.model.Reservation;
+import bookfronterab.model.Room;
+import bookfronterab.model.User;
+import bookfronterab.model.UserRole;
+import bookfronterab.repo.ReservationRepository;
+import bookfronterab.repo.RoomRepository;
+import bookfronterab.repo.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Pruebas de las particiones mensuales de reservations sobre PostgreSQL real (migración V3).
+ * Cada prueba usa meses distintos porque las particiones creadas persisten entre pruebas.
+ */
+@DataJpaTest
+@Testcontainers
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // Las funciones de particionado hacen DDL
+class ReservationPartitionServiceTest {
+
+    @Container
+    public static PostgreSQLContainer<?> postgreSQLContainer = new PostgreSQLContainer<>("postgres:15-alpine")
+            .withDatabaseName("bookfronterab-test")
+            .withUsername("testuser")
+            .withPassword("testpass");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgreSQLContainer::getJdbcUrl);
+        registry.add("spring.datasource.username", postgreSQLContainer::getUsername);
+        registry.add("spring.datasource.password", postgreSQLContainer::getPassword);
+        registry.add("spring.jpa.properties.hibernate.dialect", () -> "org.hibernate.dialect.PostgreSQLDialect");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+    }
+
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private ReservationRepository reservationRepository;
+    @Autowired private RoomRepository roomRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    private final TimeService timeService = mock(TimeService.class);
+    private ReservationPartitionService partitionService;
+
+    private Room room;
+    private User student;
+
+    @BeforeEach
+    void setUp() {
+        partitionService = new ReservationPartitionService(jdbcTemplate, timeService, 4, 12);
+        room = roomRepository.save(Room.builder().name("Sala A").capacity(5).floor(1).build());
+        student = userRepository.save(User.builder()
+                .email("student@ufromail.cl").nombre("Student").rol(UserRole.STUDENT).build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("TRUNCATE reservations, reservations_archive, room_equipment, rooms, users CASCADE");
+    }
+
+    @Test
+    @DisplayName("Debe crear las particiones del mes actual y del horizonte de reserva, una sola vez")
+    void createUpcomingPartitions_ShouldCoverBookingHorizon() {
+        givenNow(2031, 1, 15);
+
+        assertThat(partitionService.createUpcomingPartitions()).isEqualTo(5);
+        assertThat(partitionService.createUpcomingPartitions()).isZero();
+        assertThat(partitionService.activePartitions()).contains(
+                YearMonth.of(2031, 1), YearMonth.of(2031, 3), YearMonth.of(2031, 5));
+        assertThat(partitionService.activePartitions()).doesNotContain(YearMonth.of(2031, 6));
+    }
+
+    @Test
+    @DisplayName("Debe mover a la nueva partición las reservas que cayeron en la partición por defecto")
+    void createUpcomingPartitions_ShouldMoveRowsOutOfDefaultPartition() {
+        Reservation early = persistReservation(ZonedDateTime.of(2032, 8, 10, 10, 0, 0, 0, ZoneOffset.UTC));
+        assertThat(countIn("reservations_default")).isEqualTo(1);
+
+        givenNow(2032, 6, 15);
+        partitionService.createUpcomingPartitions();
+
+        assertThat(countIn("reservations_default")).isZero();
+        assertThat(countIn("reservations_2032_08")).isEqualTo(1);
+        assertThat(reservationRepository.findById(early.getId())).isPresent();
+    }
+
+    @Test
+    @DisplayName("Otra instancia debe esperar a que termine la creación en curso y no repetirla")
+    void createPartition_ShouldWaitForConcurrentMaintenance() {
+        String create = "SELECT create_reservation_partition('2036-03-01')";
+
+        CompletableFuture<Boolean> concurrent = new TransactionTemplate(transactionManager).execute(status -> {
+            // Esta transacción crea el mes y aún no confirma: tiene el bloqueo consultivo
+            assertThat(jdbcTemplate.queryForObject(create, Boolean.class)).isTrue();
+            CompletableFuture<Boolean> other = CompletableFuture.supplyAsync(
+                    () -> jdbcTemplate.queryForObject(create, Boolean.class));
+            assertThatThrownBy(() -> other.get(500, TimeUnit.MILLISECONDS)).isInstanceOf(TimeoutException.class);
+            return other;
+        });
+
+        assertThat(concurrent.orTimeout(10, TimeUnit.SECONDS).join()).isFalse();
+        assertThat(partitionService.activePartitions()).contains(YearMonth.of(2036, 3));
+    }
+
+    @Test
+    @DisplayName("Debe archivar los meses antiguos sin perderlos del historial del usuario")
+    void archiveExpiredPartitions_ShouldKeepHistoryReadable() {
+        // Meses anteriores a los del resto de las pruebas: la retención solo alcanza a enero de 2020
+        jdbcTemplate.queryForObject("SELECT create_reservation_partition('2020-01-01')", Boolean.class);
+        jdbcTemplate.queryForObject("SELECT create_reservation_partition('2021-02-01')", Boolean.class);
+        Reservation old = persistReservation(ZonedDateTime.of(2020, 1, 20, 10, 0, 0, 0, ZoneOffset.UTC));
+        Reservation recent = persistReservation(ZonedDateTime.of(2021, 2, 20, 10, 0, 0, 0, ZoneOffset.UTC));
+
+        givenNow(2021, 3, 15);
+        assertThat(partitionService.archiveExpiredPartitions()).isEqualTo(1);
+
+        assertThat(partitionService.activePartitions())
+                .doesNotContain(YearMonth.of(2020, 1))
+                .contains(YearMonth.of(2021, 2));
+        assertThat(countIn("reservations_archive")).isEqualTo(1);
+        assertThat(reservationRepository.findByUserEmailOrderByStartAtAsc(student.getEmail()))
+                .extracting(Reservation::getId).containsExactly(recent.getId());
+        assertThat(reservationRepository.findArchivedByUserEmail(student.getEmail()))
+                .extracting(Reservation::getId).containsExactly(old.getId());
+        assertThat(reservationRepository.findArchivedByRoomId(room.getId()))
+                .extracting(Reservation::getId).containsExactly(old.getId());
+    }
+
+    @Test
+    @DisplayName("Las reservas archivadas de una sala deben poder borrarse junto con la sala")
+    void deleteArchivedByRoomId_ShouldRemoveArchivedReservations() {
+        jdbcTemplate.queryForObject("SELECT create_reservation_partition('2035-01-01')", Boolean.class);
+        persistReservation(ZonedDateTime.of(2035, 1, 20, 10, 0, 0, 0, ZoneOffset.UTC));
+        jdbcTemplate.queryForObject("SELECT archive_reservation_partition('2035-01-01')", Boolean.class);
+
+        reservationRepository.deleteArchivedByRoomId(room.getId());
+        roomRepository.deleteById(room.getId());
+
+        assertThat(countIn("reservations_archive")).isZero();
+        assertThat(roomRepository.findById(room.getId())).isEmpty();
+    }
+
+    private void givenNow(int year, int month, int day) {
+        when(timeService.nowOffset()).thenReturn(OffsetDateTime.of(year, month, day, 12, 0, 0, 0, ZoneOffset.UTC));
+    }
+
+    private Reservation persistReservation(ZonedDateTime start) {
+        return reservationRepository.save(Reservation.builder()
+                .user(student).room(room).startAt(start).endAt(start.plusHours(1))
+                .build());
+    }
+
+    private long countIn(String table) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM " + table, Long.class);
+    }
+}
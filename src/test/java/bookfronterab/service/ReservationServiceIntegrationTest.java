@@ -54,7 +54,7 @@ class ReservationServiceIntegrationTest {
         registry.add("spring.datasource.password", postgreSQLContainer::getPassword);
         // Asegura que Spring use el dialecto correcto y que la DDL se cree en cada ejecución.
         registry.add("spring.jpa.properties.hibernate.dialect", () -> "org.hibernate.dialect.PostgreSQLDialect");
-        registry.add("spring.jpa.hibernate.ddl-auto", () -> "create");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
     }
 
     // Inyección de dependencias (el servicio bajo prueba y los repositorios para la configuración/verificación).
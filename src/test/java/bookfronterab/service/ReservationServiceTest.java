@@ -9,9 +9,13 @@ import bookfronterab.model.UserRole;
 import bookfronterab.repo.ReservationRepository;
 import bookfronterab.repo.RoomRepository;
 import bookfronterab.repo.UserRepository;
+import bookfronterab.exception.GoogleCalendarUnavailableException;
+import bookfronterab.service.google.CalendarSyncOperation;
+import bookfronterab.service.google.CalendarSyncRetryQueue;
 import bookfronterab.service.google.GoogleCalendarService;
 import bookfronterab.service.google.GoogleCredentialsService;
 import com.google.api.client.auth.oauth2.Credential;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -54,7 +58,7 @@ class ReservationServiceTest {
         registry.add("spring.datasource.username", postgreSQLContainer::getUsername);
         registry.add("spring.datasource.password", postgreSQLContainer::getPassword);
         registry.add("spring.jpa.properties.hibernate.dialect", () -> "org.hibernate.dialect.PostgreSQLDialect");
-        registry.add("spring.jpa.hibernate.ddl-auto", () -> "create");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
     }
 
     // Mocks de servicios externos
@@ -62,11 +66,13 @@ class ReservationServiceTest {
     @MockitoBean private GoogleCredentialsService googleCredentialsService;
     @MockitoBean private TimeService timeService;
     @MockitoBean private Credential mockCredential;
+    @MockitoBean private CalendarSyncRetryQueue calendarSyncRetryQueue;
 
     @Autowired private ReservationService reservationService;
     @Autowired private UserRepository userRepository;
     @Autowired private RoomRepository roomRepository;
     @Autowired private ReservationRepository reservationRepository;
+    @Autowired private MeterRegistry meterRegistry;
 
     private User testUser;
     private User otherUser;
@@ -139,6 +145,32 @@ class ReservationServiceTest {
         assertThrows(IllegalStateException.class, () -> reservationService.create(emailTestUser, request));
     }
 
+    @Test
+    @DisplayName("create() debe registrar la espera por el bloqueo y contar el rechazo por conflicto")
+    void create_ShouldRecordMetrics() {
+        ZonedDateTime start = nextMonday;
+        createTestReservation(testUser, testRoom, start, start.plusHours(1));
+        long lockWaitsBefore = lockAcquireCount();
+        double conflictsBefore = conflictCount();
+
+        ReservationDto.CreateRequest request = createValidRequest(testRoom.getId(), start, start.plusHours(1), false);
+        String emailOtherUser = otherUser.getEmail();
+        assertThrows(IllegalStateException.class, () -> reservationService.create(emailOtherUser, request));
+
+        assertEquals(lockWaitsBefore + 1, lockAcquireCount());
+        assertEquals(conflictsBefore + 1, conflictCount());
+    }
+
+    private long lockAcquireCount() {
+        var timer = meterRegistry.find("reservation.lock.acquire").tag("operation", "create").timer();
+        return timer != null ? timer.count() : 0;
+    }
+
+    private double conflictCount() {
+        var counter = meterRegistry.find("reservation.rejected").tag("operation", "create").tag("reason", "conflict").counter();
+        return counter != null ? counter.count() : 0;
+    }
+
     @Test
     @DisplayName("create() debe fallar si el estudiante excede el límite semanal")
     void create_ShouldFail_WhenWeeklyLimitExceeded() {
@@ -303,6 +335,26 @@ class ReservationServiceTest {
         assertEquals(1, reservationRepository.count());
         Reservation savedRes = reservationRepository.findAll().get(0);
         assertNull(savedRes.getGoogleEventId());
+        verify(calendarSyncRetryQueue).defer(CalendarSyncOperation.create(savedRes.getId(), testUser.getId()));
+    }
+
+    @Test
+    @DisplayName("create() debe diferir la sincronización si Google no está disponible (circuito abierto)")
+    void create_ShouldDeferSync_WhenGoogleUnavailable() throws IOException {
+        ZonedDateTime start = nextMonday;
+        ZonedDateTime end = nextMonday.plusHours(1);
+
+        when(googleCredentialsService.getCredential(any(User.class))).thenReturn(mockCredential);
+        when(googleCalendarService.createEventForReservation(any(Reservation.class), anyString()))
+                .thenThrow(new GoogleCalendarUnavailableException("circuito abierto"));
+
+        ReservationDto.CreateRequest request = createValidRequest(testRoom.getId(), start, end, true);
+
+        assertDoesNotThrow(() -> reservationService.create(testUser.getEmail(), request));
+
+        Reservation savedRes = reservationRepository.findAll().get(0);
+        assertNull(savedRes.getGoogleEventId());
+        verify(calendarSyncRetryQueue).defer(CalendarSyncOperation.create(savedRes.getId(), testUser.getId()));
     }
 
     // =================================================================================================
@@ -406,6 +458,7 @@ class ReservationServiceTest {
         assertDoesNotThrow(() -> reservationService.cancel(res.getId(), testUser.getEmail()));
 
         assertEquals(0, reservationRepository.count());
+        verify(calendarSyncRetryQueue).defer(CalendarSyncOperation.delete(testUser.getId(), mockGoogleId));
     }
 
     // =================================================================================================
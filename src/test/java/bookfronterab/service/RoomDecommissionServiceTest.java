@@ -0,0 +1,209 @@
+package bookfronterab.service;
+
+import bookfronterab.dto.RoomDecommissionDto;
+import bookfronterab.exception.ResourceNotFoundException;
+import bookfronterab.model.DecommissionStatus;
+import bookfronterab.model.Reservation;
+import bookfronterab.model.Room;
+import bookfronterab.model.RoomDecommissionJob;
+import bookfronterab.model.User;
+import bookfronterab.repo.ReservationRepository;
+import bookfronterab.repo.RoomDecommissionJobRepository;
+import bookfronterab.repo.RoomRepository;
+import bookfronterab.service.google.CalendarEventRef;
+import bookfronterab.service.google.GoogleEventsCleanupEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RoomDecommissionServiceTest {
+
+    @Mock private RoomRepository roomRepo;
+    @Mock private ReservationRepository reservationRepo;
+    @Mock private RoomDecommissionJobRepository jobRepo;
+    @Mock private CloudinaryService cloudinaryService;
+    @Mock private ApplicationEventPublisher eventPublisher;
+    @Mock private PlatformTransactionManager transactionManager;
+    @Mock private TimeService timeService;
+
+    private static final OffsetDateTime NOW = OffsetDateTime.parse("2026-10-18T10:00:00-03:00");
+
+    private RoomDecommissionService decommissionService;
+
+    @BeforeEach
+    void setUp() {
+        // Executor síncrono: el trabajo corre en el hilo del test
+        decommissionService = new RoomDecommissionService(roomRepo, reservationRepo, jobRepo, cloudinaryService,
+                eventPublisher, new TransactionTemplate(transactionManager), timeService, Runnable::run);
+        ReflectionTestUtils.setField(decommissionService, "chunkSize", 2);
+        ReflectionTestUtils.setField(decommissionService, "staleAfterSeconds", 300L);
+        lenient().when(timeService.nowOffset()).thenReturn(NOW);
+    }
+
+    @Test
+    @DisplayName("start debe retirar la sala, crear el trabajo y publicar el evento")
+    void start_ShouldRetireRoomAndCreateJob() {
+        Room room = Room.builder().id(5L).name("Sala Vieja").build();
+        when(roomRepo.findByIdWithLock(5L)).thenReturn(Optional.of(room));
+        when(jobRepo.findFirstByRoomIdAndStatusIn(eq(5L), any())).thenReturn(Optional.empty());
+        when(reservationRepo.countByRoomId(5L)).thenReturn(3L);
+        when(jobRepo.save(any(RoomDecommissionJob.class))).thenAnswer(i -> {
+            RoomDecommissionJob job = i.getArgument(0);
+            job.setId(9L);
+            return job;
+        });
+
+        RoomDecommissionDto dto = decommissionService.start(5L);
+
+        assertTrue(room.isRetired());
+        verify(roomRepo).save(room);
+        assertEquals(9L, dto.jobId());
+        assertEquals(DecommissionStatus.PENDING, dto.status());
+        assertEquals(3L, dto.totalReservations());
+        verify(eventPublisher).publishEvent(new RoomDecommissionRequestedEvent(9L));
+        assertEquals(NOW, dto.createdAt());
+    }
+
+    @Test
+    @DisplayName("start debe devolver el trabajo en curso sin crear otro")
+    void start_ShouldReuseActiveJob() {
+        Room room = Room.builder().id(5L).name("Sala Vieja").retired(true).build();
+        RoomDecommissionJob running = job(DecommissionStatus.RUNNING);
+        when(roomRepo.findByIdWithLock(5L)).thenReturn(Optional.of(room));
+        when(jobRepo.findFirstByRoomIdAndStatusIn(eq(5L), any())).thenReturn(Optional.of(running));
+
+        RoomDecommissionDto dto = decommissionService.start(5L);
+
+        assertEquals(DecommissionStatus.RUNNING, dto.status());
+        verify(jobRepo, never()).save(any());
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    @DisplayName("start debe lanzar ResourceNotFoundException si la sala no existe")
+    void start_ShouldThrow_WhenRoomMissing() {
+        when(roomRepo.findByIdWithLock(99L)).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> decommissionService.start(99L));
+    }
+
+    @Test
+    @DisplayName("El trabajo debe borrar por bloques, limpiar Google y eliminar la sala")
+    void onDecommissionRequested_ShouldDeleteInChunksAndRemoveRoom() throws IOException {
+        RoomDecommissionJob job = job(DecommissionStatus.PENDING);
+        Room room = Room.builder().id(5L).name("Sala Vieja")
+                .imageUrl("https://res.cloudinary.com/demo/image/upload/v1/salas/vieja.jpg").build();
+        User owner = User.builder().id(10L).build();
+        Reservation synced = Reservation.builder().id(1L).user(owner).googleEventId("evt-1").build();
+
+        givenClaimed(9L);
+        when(jobRepo.findById(9L)).thenReturn(Optional.of(job));
+        when(reservationRepo.findIdsByRoomId(eq(5L), any(Pageable.class)))
+                .thenReturn(List.of(1L, 2L), List.of(3L), List.of());
+        when(reservationRepo.findByIdInAndGoogleEventIdIsNotNull(List.of(1L, 2L))).thenReturn(List.of(synced));
+        when(reservationRepo.findByIdInAndGoogleEventIdIsNotNull(List.of(3L))).thenReturn(List.of());
+        when(reservationRepo.deleteByIdIn(List.of(1L, 2L))).thenReturn(2);
+        when(reservationRepo.deleteByIdIn(List.of(3L))).thenReturn(1);
+        when(roomRepo.findById(5L)).thenReturn(Optional.of(room));
+
+        decommissionService.onDecommissionRequested(new RoomDecommissionRequestedEvent(9L));
+
+        verify(reservationRepo, times(2)).deleteByIdIn(anyList());
+        verify(reservationRepo).deleteByRoomId(5L);
+        verify(reservationRepo).deleteArchivedByRoomId(5L);
+        verify(roomRepo).delete(room);
+        verify(cloudinaryService).deleteIfUnreferenced(room.getImageUrl());
+
+        ArgumentCaptor<GoogleEventsCleanupEvent> captor = ArgumentCaptor.forClass(GoogleEventsCleanupEvent.class);
+        verify(eventPublisher).publishEvent(captor.capture());
+        assertEquals(List.of(new CalendarEventRef(10L, "evt-1")), captor.getValue().events());
+
+        assertEquals(DecommissionStatus.COMPLETED, job.getStatus());
+        assertEquals(3L, job.getDeletedReservations());
+        assertEquals(NOW, job.getHeartbeatAt());
+        assertEquals(NOW, job.getFinishedAt());
+    }
+
+    @Test
+    @DisplayName("Si otra instancia ya reclamó el trabajo, no debe ejecutarse")
+    void onDecommissionRequested_ShouldSkip_WhenJobNotClaimed() {
+        when(jobRepo.claim(eq(9L), eq(DecommissionStatus.PENDING), eq(DecommissionStatus.RUNNING),
+                eq(NOW), eq(NOW.minusSeconds(300)))).thenReturn(0);
+
+        decommissionService.onDecommissionRequested(new RoomDecommissionRequestedEvent(9L));
+
+        verify(jobRepo, never()).findById(any());
+        verifyNoInteractions(reservationRepo, roomRepo, cloudinaryService);
+    }
+
+    @Test
+    @DisplayName("resumeInterruptedJobs debe retomar solo los trabajos huérfanos")
+    void resumeInterruptedJobs_ShouldRunStaleJobs() {
+        when(jobRepo.findStaleJobIds(DecommissionStatus.PENDING, DecommissionStatus.RUNNING, NOW.minusSeconds(300)))
+                .thenReturn(List.of(9L));
+
+        decommissionService.resumeInterruptedJobs();
+
+        verify(jobRepo).claim(eq(9L), any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Si un bloque falla, el trabajo debe quedar en FAILED con el motivo")
+    void onDecommissionRequested_ShouldMarkFailed_OnError() {
+        RoomDecommissionJob job = job(DecommissionStatus.PENDING);
+        givenClaimed(9L);
+        when(jobRepo.findById(9L)).thenReturn(Optional.of(job));
+        when(reservationRepo.findIdsByRoomId(eq(5L), any(Pageable.class)))
+                .thenThrow(new IllegalStateException("BD caída"));
+
+        decommissionService.onDecommissionRequested(new RoomDecommissionRequestedEvent(9L));
+
+        assertEquals(DecommissionStatus.FAILED, job.getStatus());
+        assertEquals("BD caída", job.getErrorMessage());
+        verify(roomRepo, never()).delete(any());
+    }
+
+    @Test
+    @DisplayName("getJob debe calcular el porcentaje de avance")
+    void getJob_ShouldComputeProgress() {
+        RoomDecommissionJob job = job(DecommissionStatus.RUNNING);
+        job.setTotalReservations(200);
+        job.setDeletedReservations(50);
+        when(jobRepo.findById(9L)).thenReturn(Optional.of(job));
+
+        assertEquals(25, decommissionService.getJob(9L).progressPercent());
+    }
+
+    private void givenClaimed(Long jobId) {
+        when(jobRepo.claim(eq(jobId), any(), any(), any(), any())).thenReturn(1);
+    }
+
+    private RoomDecommissionJob job(DecommissionStatus status) {
+        return RoomDecommissionJob.builder()
+                .id(9L)
+                .roomId(5L)
+                .roomName("Sala Vieja")
+                .status(status)
+                .createdAt(OffsetDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,227 @@
+package bookfronterab.service;
+
+import bookfronterab.model.ImageStatus;
+import bookfronterab.model.Room;
+import bookfronterab.repo.RoomRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RoomImageUploadServiceTest {
+
+    private static final String NEW_URL = "https://res.cloudinary.com/demo/image/upload/v2/salas/nueva.jpg";
+    private static final OffsetDateTime NOW = OffsetDateTime.parse("2026-10-18T10:00:00-03:00");
+    private static final String OLD_URL = "https://res.cloudinary.com/demo/image/upload/v1/salas/vieja.jpg";
+
+    @Mock private RoomRepository roomRepo;
+    @Mock private CloudinaryService cloudinaryService;
+    @Mock private ApplicationEventPublisher eventPublisher;
+    @Mock private PlatformTransactionManager transactionManager;
+    @Mock private TimeService timeService;
+
+    @TempDir
+    Path tempDir;
+
+    private RoomImageUploadService uploadService;
+    private StagedImage staged;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // Executor síncrono: la subida corre en el hilo del test
+        uploadService = new RoomImageUploadService(roomRepo, cloudinaryService, eventPublisher,
+                new TransactionTemplate(transactionManager), timeService, Runnable::run);
+        ReflectionTestUtils.setField(uploadService, "stagingDir", tempDir.toString());
+        ReflectionTestUtils.setField(uploadService, "maxAttempts", 3);
+        ReflectionTestUtils.setField(uploadService, "retryBackoffMs", 0L);
+        ReflectionTestUtils.setField(uploadService, "staleAfterSeconds", 900L);
+        lenient().when(timeService.nowOffset()).thenReturn(NOW);
+        lenient().when(cloudinaryService.lockAsset(any(), any())).thenReturn(true);
+
+        Path file = Files.createTempFile(tempDir, "room-", ".upload");
+        staged = new StagedImage(file, "hash-nueva");
+    }
+
+    @Test
+    @DisplayName("stage debe copiar la imagen al directorio temporal y devolver su hash")
+    void stage_ShouldCopyToStagingDir() throws IOException {
+        MockMultipartFile file = new MockMultipartFile("image", "sala.jpg", "image/jpeg", "contenido".getBytes());
+        when(cloudinaryService.copyAndHash(eq(file), any(Path.class))).thenReturn("hash-1");
+
+        StagedImage result = uploadService.stage(file);
+
+        assertEquals("hash-1", result.contentHash());
+        assertEquals(tempDir, result.file().getParent());
+    }
+
+    @Test
+    @DisplayName("requestUpload debe dejar la sala pendiente y publicar el evento")
+    void requestUpload_ShouldMarkPendingAndPublish() {
+        Room room = Room.builder().id(1L).build();
+
+        uploadService.requestUpload(room, staged);
+
+        assertEquals(ImageStatus.PENDING, room.getImageStatus());
+        assertEquals("hash-nueva", room.getPendingImageHash());
+        assertEquals(NOW, room.getPendingImageSince());
+        verify(eventPublisher).publishEvent(new RoomImageUploadRequestedEvent(1L, staged));
+    }
+
+    @Test
+    @DisplayName("La subida debe asignar la URL, liberar la imagen anterior y borrar el archivo temporal")
+    void upload_ShouldAssignUrlAndReleasePrevious() throws Exception {
+        Room room = pendingRoom("hash-nueva");
+        when(roomRepo.findByIdWithLock(1L)).thenReturn(Optional.of(room));
+        when(cloudinaryService.uploadOptimized(staged.file(), "hash-nueva")).thenReturn(NEW_URL);
+
+        uploadService.onUploadRequested(new RoomImageUploadRequestedEvent(1L, staged));
+
+        assertEquals(NEW_URL, room.getImageUrl());
+        assertEquals(ImageStatus.READY, room.getImageStatus());
+        assertNull(room.getPendingImageHash());
+        verify(cloudinaryService).deleteIfUnreferenced(OLD_URL);
+        assertFalse(Files.exists(staged.file()));
+    }
+
+    @Test
+    @DisplayName("Si el mismo archivo ya se subió, no debe volver a subirse")
+    void upload_ShouldReuseExistingAsset() throws Exception {
+        Room room = pendingRoom("hash-nueva");
+        when(roomRepo.findByIdWithLock(1L)).thenReturn(Optional.of(room));
+        when(cloudinaryService.findByContentHash("hash-nueva")).thenReturn(Optional.of(NEW_URL));
+
+        uploadService.upload(1L, staged);
+
+        assertEquals(NEW_URL, room.getImageUrl());
+        verify(cloudinaryService, never()).uploadOptimized(any(), any());
+    }
+
+    @Test
+    @DisplayName("Si la imagen reutilizada se borra antes de asignarla, debe subirse de nuevo")
+    void upload_ShouldReupload_WhenReusedAssetWasDeleted() throws Exception {
+        String deletedUrl = "https://res.cloudinary.com/demo/image/upload/v1/salas/borrada.jpg";
+        Room room = pendingRoom("hash-nueva");
+        when(roomRepo.findByIdWithLock(1L)).thenReturn(Optional.of(room));
+        when(cloudinaryService.findByContentHash("hash-nueva"))
+                .thenReturn(Optional.of(deletedUrl), Optional.empty());
+        when(cloudinaryService.lockAsset("hash-nueva", deletedUrl)).thenReturn(false);
+        when(cloudinaryService.uploadOptimized(staged.file(), "hash-nueva")).thenReturn(NEW_URL);
+
+        uploadService.upload(1L, staged);
+
+        assertEquals(NEW_URL, room.getImageUrl());
+        assertEquals(ImageStatus.READY, room.getImageStatus());
+        verify(cloudinaryService, never()).deleteIfUnreferenced(deletedUrl);
+    }
+
+    @Test
+    @DisplayName("La subida debe reintentarse ante fallos transitorios")
+    void upload_ShouldRetry_WhenCloudinaryFailsOnce() throws Exception {
+        Room room = pendingRoom("hash-nueva");
+        when(roomRepo.findByIdWithLock(1L)).thenReturn(Optional.of(room));
+        when(cloudinaryService.uploadOptimized(staged.file(), "hash-nueva"))
+                .thenThrow(new IOException("timeout"))
+                .thenReturn(NEW_URL);
+
+        uploadService.upload(1L, staged);
+
+        verify(cloudinaryService, times(2)).uploadOptimized(staged.file(), "hash-nueva");
+        assertEquals(ImageStatus.READY, room.getImageStatus());
+    }
+
+    @Test
+    @DisplayName("Agotados los reintentos, la sala queda FAILED y conserva su imagen anterior")
+    void upload_ShouldMarkFailed_WhenRetriesExhausted() throws Exception {
+        Room room = pendingRoom("hash-nueva");
+        when(roomRepo.findById(1L)).thenReturn(Optional.of(room));
+        when(cloudinaryService.uploadOptimized(staged.file(), "hash-nueva")).thenThrow(new IOException("caído"));
+
+        uploadService.upload(1L, staged);
+
+        verify(cloudinaryService, times(3)).uploadOptimized(staged.file(), "hash-nueva");
+        assertEquals(ImageStatus.FAILED, room.getImageStatus());
+        assertEquals(OLD_URL, room.getImageUrl());
+        assertFalse(Files.exists(staged.file()));
+    }
+
+    @Test
+    @DisplayName("Una subida superada por una imagen más nueva no debe pisar la URL")
+    void upload_ShouldNotOverwrite_WhenSuperseded() throws Exception {
+        Room room = pendingRoom("hash-mas-nueva");
+        when(roomRepo.findByIdWithLock(1L)).thenReturn(Optional.of(room));
+        when(cloudinaryService.uploadOptimized(staged.file(), "hash-nueva")).thenReturn(NEW_URL);
+
+        uploadService.upload(1L, staged);
+
+        assertEquals(OLD_URL, room.getImageUrl());
+        assertEquals(ImageStatus.PENDING, room.getImageStatus());
+        // La imagen recién subida quedó obsoleta
+        verify(cloudinaryService).deleteIfUnreferenced(NEW_URL);
+    }
+
+    @Test
+    @DisplayName("Si la cola de subidas está llena, la sala debe quedar FAILED sin subir en el hilo que llama")
+    void onUploadRequested_ShouldMarkFailed_WhenExecutorRejects() throws Exception {
+        RoomImageUploadService rejecting = new RoomImageUploadService(roomRepo, cloudinaryService, eventPublisher,
+                new TransactionTemplate(transactionManager), timeService, task -> {
+                    throw new RejectedExecutionException("cola llena");
+                });
+        Room room = pendingRoom("hash-nueva");
+        when(roomRepo.findById(1L)).thenReturn(Optional.of(room));
+
+        rejecting.onUploadRequested(new RoomImageUploadRequestedEvent(1L, staged));
+
+        assertEquals(ImageStatus.FAILED, room.getImageStatus());
+        assertNull(room.getPendingImageHash());
+        assertEquals(OLD_URL, room.getImageUrl());
+        assertFalse(Files.exists(staged.file()));
+        verify(cloudinaryService, never()).uploadOptimized(any(), any());
+    }
+
+    @Test
+    @DisplayName("Al arrancar solo deben cerrarse las subidas pendientes más antiguas que el corte")
+    void failInterruptedUploads_ShouldOnlyFailStaleUploads() {
+        uploadService.failInterruptedUploads();
+
+        verify(roomRepo).failStaleUploads(ImageStatus.PENDING, ImageStatus.FAILED, NOW.minusSeconds(900));
+    }
+
+    @Test
+    @DisplayName("Si se revierte el guardado de la sala, debe borrarse el archivo temporal")
+    void onUploadRolledBack_ShouldDeleteStagedFile() {
+        uploadService.onUploadRolledBack(new RoomImageUploadRequestedEvent(1L, staged));
+
+        assertFalse(Files.exists(staged.file()));
+        verifyNoInteractions(cloudinaryService);
+    }
+
+    private Room pendingRoom(String pendingHash) {
+        return Room.builder()
+                .id(1L)
+                .imageUrl(OLD_URL)
+                .imageStatus(ImageStatus.PENDING)
+                .pendingImageHash(pendingHash)
+                .pendingImageSince(NOW.minusMinutes(1))
+                .build();
+    }
+}
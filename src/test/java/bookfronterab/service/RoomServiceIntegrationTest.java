@@ -1,6 +1,9 @@
 package bookfronterab.service;
 
+import bookfronterab.dto.RoomDecommissionDto;
 import bookfronterab.dto.RoomDto;
+import bookfronterab.model.DecommissionStatus;
+import bookfronterab.model.ImageStatus;
 import bookfronterab.model.Room;
 import bookfronterab.repo.RoomRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -45,11 +48,12 @@ class RoomServiceIntegrationTest {
         registry.add("spring.datasource.username", postgreSQLContainer::getUsername);
         registry.add("spring.datasource.password", postgreSQLContainer::getPassword);
         registry.add("spring.jpa.properties.hibernate.dialect", () -> "org.hibernate.dialect.PostgreSQLDialect");
-        registry.add("spring.jpa.hibernate.ddl-auto", () -> "create");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
     }
 
     @Autowired private RoomService roomService;
     @Autowired private RoomRepository roomRepository;
+    @Autowired private RoomDecommissionService roomDecommissionService;
 
     // Se Mockea Cloudinary para no hacer subidas reales durante los tests
     @MockitoBean
@@ -78,18 +82,20 @@ class RoomServiceIntegrationTest {
         );
 
         String fakeUrl = "https://res.cloudinary.com/demo/image/upload/v1/sala.jpg";
-        when(cloudinaryService.uploadFile(any())).thenReturn(fakeUrl);
+        when(cloudinaryService.copyAndHash(any(), any())).thenReturn("hash-sala");
+        when(cloudinaryService.uploadOptimized(any(), eq("hash-sala"))).thenReturn(fakeUrl);
 
         RoomDto response = roomService.createRoom(request, fakeImage);
 
+        // La sala se guarda de inmediato, con la imagen pendiente
         assertNotNull(response.getId());
         assertEquals("Sala Con Imagen", response.getName());
-        assertEquals(fakeUrl, response.getImageUrl()); // Verificamos que se guardó la URL
+        assertEquals(ImageStatus.PENDING, response.getImageStatus());
 
-        // Verificación en base de datos real
-        Optional<Room> saved = roomRepository.findById(response.getId());
-        assertTrue(saved.isPresent());
-        assertEquals(fakeUrl, saved.get().getImageUrl());
+        // Verificación en base de datos real, una vez terminada la subida en segundo plano
+        Room saved = awaitImageStatus(response.getId(), ImageStatus.READY);
+        assertEquals(fakeUrl, saved.getImageUrl());
+        assertNull(saved.getPendingImageHash());
     }
 
     @Test
@@ -123,20 +129,23 @@ class RoomServiceIntegrationTest {
                 "image", "new.jpg", "image/jpeg", "new-content".getBytes()
         );
         String newUrl = "http://new-url.com/img.jpg";
-        when(cloudinaryService.uploadFile(any())).thenReturn(newUrl);
+        when(cloudinaryService.copyAndHash(any(), any())).thenReturn("hash-nueva");
+        when(cloudinaryService.uploadOptimized(any(), eq("hash-nueva"))).thenReturn(newUrl);
 
         // 4. Se ejecuta la consulta patch
         RoomDto updated = roomService.patchRoom(original.getId(), patchRequest, newImage);
 
-        // 5. Assertions
+        // 5. Assertions: mientras se sube, la sala conserva la imagen anterior
         assertEquals("Sala Actualizada", updated.getName()); // el nombre cambió
         assertEquals(5, updated.getCapacity()); // Capacidad se mantuvo igual (porque enviamos 0 en el DTO)
-        assertEquals(newUrl, updated.getImageUrl()); // la URL cambió
+        assertEquals("http://old-url.com", updated.getImageUrl());
+        assertEquals(ImageStatus.PENDING, updated.getImageStatus());
 
-        // Se verifica en la BD
-        Room inDb = roomRepository.findById(original.getId()).orElseThrow();
+        // Se verifica en la BD tras la subida, y que se liberó la imagen anterior
+        Room inDb = awaitImageStatus(original.getId(), ImageStatus.READY);
         assertEquals("Sala Actualizada", inDb.getName());
         assertEquals(newUrl, inDb.getImageUrl());
+        verify(cloudinaryService).deleteIfUnreferenced("http://old-url.com");
     }
 
     @Test
@@ -171,13 +180,51 @@ class RoomServiceIntegrationTest {
     }
 
     @Test
-    @DisplayName("delateRoom() debe eliminar la sala de la BD")
-    void deleteRoom_ShouldRemoveFromDb() {
+    @DisplayName("getAllRooms no debe incluir salas retiradas")
+    void getAllRooms_ShouldSkipRetiredRooms() {
+        roomRepository.save(Room.builder().name("Activa").capacity(5).floor(1).build());
+        roomRepository.save(Room.builder().name("Retirada").capacity(5).floor(1).retired(true).build());
+
+        List<RoomDto> dtos = roomService.getAllRooms();
+        assertEquals(1, dtos.size());
+        assertEquals("Activa", dtos.get(0).getName());
+    }
+
+    @Test
+    @DisplayName("La baja de una sala debe eliminarla de la BD en segundo plano")
+    void deleteRoom_ShouldRemoveFromDb() throws InterruptedException {
         Room r = roomRepository.save(Room.builder().name("Borrar").capacity(5).build());
 
-        roomService.deleteRoom(r.getId());
+        RoomDecommissionDto job = roomDecommissionService.start(r.getId());
+
+        // El trabajo corre en otro hilo: esperamos a que termine
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (roomDecommissionService.getJob(job.jobId()).status() != DecommissionStatus.COMPLETED
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
 
+        assertEquals(DecommissionStatus.COMPLETED, roomDecommissionService.getJob(job.jobId()).status());
         Optional<Room> check = roomRepository.findById(r.getId());
         assertTrue(check.isEmpty());
     }
-}
\ No newline at end of file
+
+    /**
+     * Espera (hasta 5 s) a que la subida en segundo plano deje la sala en el estado indicado.
+     */
+    private Room awaitImageStatus(Long roomId, ImageStatus expected) {
+        long deadline = System.currentTimeMillis() + 5000;
+        Room room = roomRepository.findById(roomId).orElseThrow();
+        while (room.getImageStatus() != expected && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            room = roomRepository.findById(roomId).orElseThrow();
+        }
+        assertEquals(expected, room.getImageStatus());
+        return room;
+    }
+}
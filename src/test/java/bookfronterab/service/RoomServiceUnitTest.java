@@ -2,8 +2,8 @@ package bookfronterab.service;
 
 import bookfronterab.dto.RoomDto;
 import bookfronterab.exception.ResourceNotFoundException;
+import bookfronterab.model.ImageStatus;
 import bookfronterab.model.Room;
-import bookfronterab.repo.ReservationRepository;
 import bookfronterab.repo.RoomRepository;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -14,6 +14,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -30,12 +31,13 @@ class RoomServiceUnitTest {
     @Mock
     private RoomRepository roomRepo;
 
-    // Mock del servicio Cloudinary para simular la subida de imágenes.
+    // Mock del servicio de subida de imágenes (la subida real ocurre en segundo plano).
     @Mock
-    private CloudinaryService cloudinaryService;
+    private RoomImageUploadService roomImageUploadService;
 
+    // Mock del servicio de variantes de imagen (tamaños derivados por URL).
     @Mock
-    private ReservationRepository reservationRepo;
+    private ImageVariantService imageVariantService;
 
     // Inyecta los mocks anteriores en la instancia real de RoomService (el SUT - System Under Test).
     @InjectMocks
@@ -54,7 +56,7 @@ class RoomServiceUnitTest {
         // Arrange (Configuración): Crea una sala mock para ser retornada por el repositorio.
         Room room = Room.builder().id(1L).name("Sala A").build();
         // Simula que el repositorio devuelve la lista con la sala mock.
-        when(roomRepo.findAll()).thenReturn(List.of(room));
+        when(roomRepo.findByRetiredFalse()).thenReturn(List.of(room));
 
         // Act (Ejecución): Llama al método a probar.
         List<RoomDto> result = roomService.getAllRooms();
@@ -64,7 +66,7 @@ class RoomServiceUnitTest {
         assertEquals(1, result.size());
         assertEquals("Sala A", result.get(0).getName());
         // Verifica que el método del repositorio fue llamado exactamente una vez.
-        verify(roomRepo).findAll();
+        verify(roomRepo).findByRetiredFalse();
     }
     
     /**
@@ -74,7 +76,7 @@ class RoomServiceUnitTest {
     @DisplayName("Unitario: getAllRooms retorna lista vacía si no hay salas")
     void getAllRooms_ShouldReturnEmptyList() {
         // Simula que el repositorio devuelve una lista vacía.
-        when(roomRepo.findAll()).thenReturn(Collections.emptyList());
+        when(roomRepo.findByRetiredFalse()).thenReturn(Collections.emptyList());
 
         List<RoomDto> result = roomService.getAllRooms();
 
@@ -86,18 +88,24 @@ class RoomServiceUnitTest {
     // ================================================================
 
     /**
-     * Prueba que createRoom() guarda la URL de la imagen si Cloudinary responde con éxito.
+     * Prueba que createRoom() guarda la sala de inmediato y deja la imagen pendiente de subida.
      */
     @Test
-    @DisplayName("Unitario: createRoom guarda URL si Cloudinary responde ok")
-    void createRoom_ShouldSaveUrl() throws IOException {
+    @DisplayName("Unitario: createRoom guarda la sala y programa la subida de la imagen")
+    void createRoom_ShouldSaveAndRequestUpload() throws IOException {
         // Arrange
         RoomDto dto = RoomDto.builder().name("Sala Test").capacity(5).floor(1).build();
         MultipartFile file = mock(MultipartFile.class);
+        StagedImage staged = new StagedImage(Path.of("/tmp/room-1.upload"), "hash-1");
 
-        // Simulamos que el archivo TIENE contenido y la subida es exitosa.
+        // Simulamos que el archivo TIENE contenido y se copia a disco sin problemas.
         when(file.isEmpty()).thenReturn(false);
-        when(cloudinaryService.uploadFile(file)).thenReturn("http://url-falsa.com/img.jpg");
+        when(roomImageUploadService.stage(file)).thenReturn(staged);
+        doAnswer(invocation -> {
+            Room r = invocation.getArgument(0);
+            r.setImageStatus(ImageStatus.PENDING);
+            return null;
+        }).when(roomImageUploadService).requestUpload(any(Room.class), eq(staged));
 
         // Simula el guardado en DB, asegurando que se asigne un ID al objeto retornado.
         when(roomRepo.save(any(Room.class))).thenAnswer(invocation -> {
@@ -109,11 +117,12 @@ class RoomServiceUnitTest {
         // Act
         RoomDto result = roomService.createRoom(dto, file);
 
-        // Assert
+        // Assert: la sala existe ya, con la imagen pendiente (sin URL todavía)
         assertNotNull(result.getId());
-        assertEquals("http://url-falsa.com/img.jpg", result.getImageUrl());
+        assertNull(result.getImageUrl());
+        assertEquals(ImageStatus.PENDING, result.getImageStatus());
         verify(roomRepo).save(any(Room.class));
-        verify(cloudinaryService).uploadFile(file); // Verifica que se llamó a Cloudinary
+        verify(roomImageUploadService).requestUpload(argThat(r -> r.getId() == 1L), eq(staged));
     }
 
     /**
@@ -138,15 +147,16 @@ class RoomServiceUnitTest {
         // Assert
         assertNotNull(result.getId());
         assertNull(result.getImageUrl());
-        // Verifica que Cloudinary nunca fue llamado, ya que el archivo era nulo.
-        verify(cloudinaryService, never()).uploadFile(any());
+        assertEquals(ImageStatus.READY, result.getImageStatus());
+        // Verifica que no se programó ninguna subida, ya que el archivo era nulo.
+        verify(roomImageUploadService, never()).stage(any());
     }
 
     /**
      * Prueba que createRoom() lanza una RuntimeException si Cloudinary falla.
      */
     @Test
-    @DisplayName("Unitario: createRoom lanza excepción RuntimeException si Cloudinary falla")
+    @DisplayName("Unitario: createRoom lanza excepción RuntimeException si no se puede leer la imagen")
     void createRoom_ShouldThrowException_WhenCloudinaryFails() throws IOException {
         // Arrange
         RoomDto dto = RoomDto.builder().name("Sala Error").build();
@@ -154,8 +164,8 @@ class RoomServiceUnitTest {
 
         // Simula que el archivo tiene contenido
         when(file.isEmpty()).thenReturn(false);
-        // Simula que la subida lanza una excepción.
-        when(cloudinaryService.uploadFile(file)).thenThrow(new IOException("Error de red simulado"));
+        // Simula que la copia de la imagen a disco lanza una excepción.
+        when(roomImageUploadService.stage(file)).thenThrow(new IOException("Error de lectura simulado"));
 
         // Act & Assert: Verifica que se lance la excepción esperada.
         RuntimeException ex = assertThrows(RuntimeException.class, () ->
@@ -167,30 +177,6 @@ class RoomServiceUnitTest {
         verify(roomRepo, never()).save(any());
     }
 
-    // ================================================================
-    // TESTS PARA: delateRoom() - Eliminar una sala
-    // ================================================================
-
-    /**
-     * Prueba que delateRoom() llama al método de eliminación por ID del repositorio.
-     */
-    @Test
-    @DisplayName("Unitario: delateRoom elimina por ID")
-    void deleteRoom_ShouldCallDeleteById() {
-        Long roomId = 5L;
-        Room mockRoom = new Room();
-        mockRoom.setId(roomId);
-        mockRoom.setName("Sala Test");
-
-        when(roomRepo.findById(roomId)).thenReturn(Optional.of(mockRoom));
-
-        when(reservationRepo.findByRoomIdOrderByStartAtAsc(roomId)).thenReturn(Collections.emptyList());
-
-        roomService.deleteRoom(roomId);
-
-        verify(roomRepo).delete(mockRoom);
-    }
-
     // ================================================================
     // TESTS PARA: patchRoom() - Actualización parcial (PATCH)
     // ================================================================
@@ -213,10 +199,11 @@ class RoomServiceUnitTest {
                 .equipment(List.of("Proyector"))
                 .build();
 
-        // Archivo nuevo y simulación de subida
+        // Archivo nuevo: se copia a disco y su subida queda programada
         MultipartFile file = mock(MultipartFile.class);
+        StagedImage staged = new StagedImage(Path.of("/tmp/room-1.upload"), "hash-1");
         when(file.isEmpty()).thenReturn(false);
-        when(cloudinaryService.uploadFile(file)).thenReturn("http://new-image.com");
+        when(roomImageUploadService.stage(file)).thenReturn(staged);
 
         // Simula el guardado: retorna el objeto modificado.
         when(roomRepo.save(any(Room.class))).thenAnswer(i -> i.getArgument(0));
@@ -229,7 +216,7 @@ class RoomServiceUnitTest {
         assertEquals(2, result.getFloor());
         assertEquals(20, result.getCapacity());
         assertEquals("Proyector", result.getEquipment().get(0));
-        assertEquals("http://new-image.com", result.getImageUrl());
+        verify(roomImageUploadService).requestUpload(existing, staged);
     }
 
     /**
@@ -270,7 +257,7 @@ class RoomServiceUnitTest {
         RoomDto patchDto = RoomDto.builder().build();
         MultipartFile file = mock(MultipartFile.class);
         when(file.isEmpty()).thenReturn(false);
-        when(cloudinaryService.uploadFile(file)).thenThrow(new IOException("Fallo Cloudinary"));
+        when(roomImageUploadService.stage(file)).thenThrow(new IOException("Fallo de disco"));
 
         // Act & Assert
         RuntimeException ex = assertThrows(RuntimeException.class, () -> 
@@ -0,0 +1,220 @@
+package bookfronterab.service.google;
+
+import bookfronterab.exception.GoogleCalendarUnavailableException;
+import bookfronterab.model.CalendarSyncTask;
+import bookfronterab.model.CalendarSyncType;
+import bookfronterab.model.Reservation;
+import bookfronterab.model.Room;
+import bookfronterab.model.User;
+import bookfronterab.repo.CalendarSyncTaskRepository;
+import bookfronterab.repo.ReservationRepository;
+import bookfronterab.repo.UserRepository;
+import bookfronterab.service.TimeService;
+import com.google.api.client.auth.oauth2.Credential;
+import com.google.api.client.http.HttpHeaders;
+import com.google.api.client.http.HttpResponseException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CalendarSyncRetryQueueTest {
+
+    @Mock private CalendarSyncTaskRepository calendarSyncTaskRepository;
+    @Mock private ReservationRepository reservationRepository;
+    @Mock private UserRepository userRepository;
+    @Mock private GoogleCredentialsService googleCredentialsService;
+    @Mock private GoogleCalendarService googleCalendarService;
+    @Mock private GoogleApiGateway googleApiGateway;
+    @Mock private TimeService timeService;
+    @Mock private Credential credential;
+    @InjectMocks private CalendarSyncRetryQueue retryQueue;
+
+    private final OffsetDateTime now = OffsetDateTime.of(2026, 11, 2, 10, 0, 0, 0, ZoneOffset.UTC);
+    private final User owner = User.builder().id(10L).email("dueno@ufromail.cl").build();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(retryQueue, "batchSize", 100);
+        ReflectionTestUtils.setField(retryQueue, "maxAttempts", 5);
+        ReflectionTestUtils.setField(retryQueue, "baseDelaySeconds", 30L);
+        ReflectionTestUtils.setField(retryQueue, "maxDelaySeconds", 3600L);
+        ReflectionTestUtils.setField(retryQueue, "claimSeconds", 300L);
+        lenient().when(timeService.nowOffset()).thenReturn(now);
+    }
+
+    @Test
+    @DisplayName("defer debe guardar la tarea con el primer intento programado a futuro")
+    void defer_ShouldPersistTask() {
+        retryQueue.defer(CalendarSyncOperation.delete(10L, "evt-1"));
+
+        ArgumentCaptor<CalendarSyncTask> saved = ArgumentCaptor.forClass(CalendarSyncTask.class);
+        verify(calendarSyncTaskRepository).save(saved.capture());
+        assertEquals(CalendarSyncType.DELETE, saved.getValue().getType());
+        assertEquals("evt-1", saved.getValue().getGoogleEventId());
+        assertEquals(0, saved.getValue().getAttempts());
+        assertTrue(saved.getValue().getNextAttemptAt().isAfter(now));
+    }
+
+    @Test
+    @DisplayName("defer no debe duplicar una actualización ya cubierta por otra tarea pendiente")
+    void defer_ShouldSkip_WhenAlreadyPending() {
+        when(calendarSyncTaskRepository.existsByReservationIdAndTypeIn(eq(1L), any())).thenReturn(true);
+
+        retryQueue.defer(CalendarSyncOperation.update(1L, 10L));
+
+        verify(calendarSyncTaskRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("drain debe crear el evento pendiente, guardar su ID y borrar la tarea")
+    void drain_ShouldCreatePendingEvent() throws IOException {
+        Reservation reservation = Reservation.builder().id(1L).user(owner).room(Room.builder().name("Sala").build()).build();
+        CalendarSyncTask task = task(CalendarSyncType.CREATE, 1L, null, 0);
+        givenDue(task);
+        when(reservationRepository.findWithUserAndRoomById(1L)).thenReturn(Optional.of(reservation));
+        when(googleCalendarService.createEventForReservation(reservation, "token")).thenReturn("evt-1");
+
+        retryQueue.drain();
+
+        verify(reservationRepository).updateGoogleEventLink(1L, "evt-1", null);
+        verify(calendarSyncTaskRepository).delete(task);
+    }
+
+    @Test
+    @DisplayName("drain debe pedir un solo token por usuario aunque tenga varias tareas")
+    void drain_ShouldBatchTasksPerUser() throws IOException {
+        CalendarSyncTask first = task(CalendarSyncType.DELETE, null, "evt-1", 0);
+        CalendarSyncTask second = task(CalendarSyncType.DELETE, null, "evt-2", 0);
+        givenDue(first, second);
+
+        retryQueue.drain();
+
+        verify(googleCredentialsService, times(1)).getCredential(owner);
+        verify(googleCalendarService).deleteEvent("evt-1", "token");
+        verify(googleCalendarService).deleteEvent("evt-2", "token");
+        verify(calendarSyncTaskRepository, times(2)).delete(any(CalendarSyncTask.class));
+    }
+
+    @Test
+    @DisplayName("drain no debe llamar a Google mientras el circuito está abierto")
+    void drain_ShouldSkip_WhenCircuitOpen() throws IOException {
+        when(googleApiGateway.isAvailable()).thenReturn(false);
+
+        retryQueue.drain();
+
+        verifyNoInteractions(calendarSyncTaskRepository);
+        verify(googleCalendarService, never()).updateEvent(anyString(), any(), anyString());
+    }
+
+    @Test
+    @DisplayName("Si Google sigue no disponible, la tarea se reprograma con backoff y se detiene la pasada")
+    void drain_ShouldReschedule_WhenStillUnavailable() throws IOException {
+        CalendarSyncTask first = task(CalendarSyncType.DELETE, null, "evt-1", 0);
+        CalendarSyncTask second = task(CalendarSyncType.DELETE, null, "evt-2", 0);
+        givenDue(first, second);
+        doThrow(new GoogleCalendarUnavailableException("circuito abierto"))
+                .when(googleCalendarService).deleteEvent("evt-1", "token");
+
+        retryQueue.drain();
+
+        assertEquals(1, first.getAttempts());
+        assertTrue(first.getNextAttemptAt().isAfter(now));
+        assertEquals("circuito abierto", first.getLastError());
+        verify(calendarSyncTaskRepository).save(first);
+        verify(googleCalendarService, never()).deleteEvent(eq("evt-2"), anyString());
+        verify(calendarSyncTaskRepository, never()).delete(any(CalendarSyncTask.class));
+    }
+
+    @Test
+    @DisplayName("Un error 4xx permanente debe descartar la tarea sin reintentar")
+    void drain_ShouldDrop_WhenErrorIsPermanent() throws IOException {
+        CalendarSyncTask task = task(CalendarSyncType.DELETE, null, "evt-1", 0);
+        givenDue(task);
+        doThrow(new HttpResponseException.Builder(403, "Forbidden", new HttpHeaders()).build())
+                .when(googleCalendarService).deleteEvent("evt-1", "token");
+
+        retryQueue.drain();
+
+        verify(calendarSyncTaskRepository).delete(task);
+        verify(calendarSyncTaskRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("La tarea se descarta al alcanzar el máximo de intentos")
+    void drain_ShouldDrop_WhenMaxAttemptsReached() throws IOException {
+        CalendarSyncTask task = task(CalendarSyncType.DELETE, null, "evt-1", 4);
+        givenDue(task);
+        doThrow(new HttpResponseException.Builder(503, "Unavailable", new HttpHeaders()).build())
+                .when(googleCalendarService).deleteEvent("evt-1", "token");
+
+        retryQueue.drain();
+
+        verify(calendarSyncTaskRepository).delete(task);
+    }
+
+    @Test
+    @DisplayName("Una reserva cancelada mientras esperaba no debe sincronizarse")
+    void drain_ShouldDropCreate_WhenReservationGone() throws IOException {
+        CalendarSyncTask task = task(CalendarSyncType.CREATE, 1L, null, 0);
+        givenDue(task);
+        when(reservationRepository.findWithUserAndRoomById(1L)).thenReturn(Optional.empty());
+
+        retryQueue.drain();
+
+        verify(calendarSyncTaskRepository).delete(task);
+        verify(googleCalendarService, never()).createEventForReservation(any(), anyString());
+    }
+
+    @Test
+    @DisplayName("El backoff debe crecer exponencialmente, con jitter y respetando el tope")
+    void backoff_ShouldGrowExponentiallyWithCap() {
+        for (int i = 0; i < 50; i++) {
+            Duration first = retryQueue.backoff(1);
+            assertTrue(first.toSeconds() >= 15 && first.toSeconds() <= 30);
+
+            Duration fourth = retryQueue.backoff(4);
+            assertTrue(fourth.toSeconds() >= 120 && fourth.toSeconds() <= 240);
+
+            Duration capped = retryQueue.backoff(30);
+            assertTrue(capped.toSeconds() >= 1800 && capped.toSeconds() <= 3600);
+        }
+    }
+
+    private void givenDue(CalendarSyncTask... tasks) throws IOException {
+        when(googleApiGateway.isAvailable()).thenReturn(true);
+        when(calendarSyncTaskRepository.claimDue(now, now.plusSeconds(300), 100)).thenReturn(List.of(tasks));
+        when(userRepository.findById(10L)).thenReturn(Optional.of(owner));
+        when(googleCredentialsService.getCredential(owner)).thenReturn(credential);
+        when(credential.getAccessToken()).thenReturn("token");
+    }
+
+    private CalendarSyncTask task(CalendarSyncType type, Long reservationId, String googleEventId, int attempts) {
+        return CalendarSyncTask.builder()
+                .type(type)
+                .reservationId(reservationId)
+                .userId(10L)
+                .googleEventId(googleEventId)
+                .attempts(attempts)
+                .nextAttemptAt(now)
+                .build();
+    }
+}
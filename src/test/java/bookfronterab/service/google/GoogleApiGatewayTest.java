@@ -0,0 +1,113 @@
+package bookfronterab.service.google;
+
+import bookfronterab.exception.GoogleCalendarUnavailableException;
+import bookfronterab.support.GoogleApiGateways;
+import com.google.api.client.http.HttpHeaders;
+import com.google.api.client.http.HttpResponseException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GoogleApiGatewayTest {
+
+    private CircuitBreaker circuitBreaker;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        circuitBreaker = CircuitBreaker.of("test", CircuitBreakerConfig.custom()
+                .slidingWindowSize(4)
+                .minimumNumberOfCalls(4)
+                .failureRateThreshold(50)
+                .waitDurationInOpenState(Duration.ofMinutes(1))
+                .build());
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Debe devolver el resultado de la llamada y registrar éxito")
+    void call_ShouldReturnResult() throws IOException {
+        GoogleApiGateway gateway = GoogleApiGateways.create(circuitBreaker, executor, 1000);
+
+        assertEquals("ok", gateway.call("test", () -> "ok"));
+        assertEquals(1, circuitBreaker.getMetrics().getNumberOfSuccessfulCalls());
+    }
+
+    @Test
+    @DisplayName("Una llamada lenta debe cortarse al superar el timeout")
+    void call_ShouldTimeout() {
+        GoogleApiGateway gateway = GoogleApiGateways.create(circuitBreaker, executor, 50);
+
+        assertThrows(GoogleCalendarUnavailableException.class, () -> gateway.call("lenta", () -> {
+            try {
+                Thread.sleep(2000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "tarde";
+        }));
+        assertEquals(1, circuitBreaker.getMetrics().getNumberOfFailedCalls());
+    }
+
+    @Test
+    @DisplayName("Tras fallos sostenidos el circuito se abre y no se vuelve a llamar a Google")
+    void call_ShouldOpenCircuit_AfterRepeatedFailures() {
+        GoogleApiGateway gateway = GoogleApiGateways.create(circuitBreaker, Runnable::run, 1000);
+        AtomicInteger attempts = new AtomicInteger();
+        GoogleApiGateway.GoogleCall<String> failing = () -> {
+            attempts.incrementAndGet();
+            throw new IOException("503 Service Unavailable");
+        };
+
+        for (int i = 0; i < 4; i++) {
+            assertThrows(IOException.class, () -> gateway.call("falla", failing));
+        }
+
+        assertFalse(gateway.isAvailable());
+        assertThrows(GoogleCalendarUnavailableException.class, () -> gateway.call("falla", failing));
+        assertEquals(4, attempts.get());
+    }
+
+    @Test
+    @DisplayName("Los errores 4xx de Google no deben abrir el circuito")
+    void call_ClientErrors_ShouldNotOpenCircuit() {
+        GoogleApiGateway gateway = GoogleApiGateways.create(circuitBreaker, Runnable::run, 1000);
+        GoogleApiGateway.GoogleCall<String> notFound = () -> {
+            throw new HttpResponseException.Builder(404, "Not Found", new HttpHeaders()).build();
+        };
+
+        for (int i = 0; i < 6; i++) {
+            assertThrows(HttpResponseException.class, () -> gateway.call("404", notFound));
+        }
+
+        assertTrue(gateway.isAvailable());
+    }
+
+    @Test
+    @DisplayName("Si el bulkhead está lleno debe rechazar de inmediato sin penalizar el circuito")
+    void call_ShouldRejectWhenBulkheadFull() {
+        GoogleApiGateway gateway = GoogleApiGateways.create(circuitBreaker, task -> {
+            throw new RejectedExecutionException("lleno");
+        }, 1000);
+
+        assertThrows(GoogleCalendarUnavailableException.class, () -> gateway.call("test", () -> "ok"));
+        assertEquals(0, circuitBreaker.getMetrics().getNumberOfBufferedCalls());
+    }
+}
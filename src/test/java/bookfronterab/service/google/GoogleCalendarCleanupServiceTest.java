@@ -0,0 +1,149 @@
+package bookfronterab.service.google;
+
+import bookfronterab.model.User;
+import bookfronterab.repo.UserRepository;
+import com.google.api.client.auth.oauth2.Credential;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GoogleCalendarCleanupServiceTest {
+
+    @Mock private UserRepository userRepository;
+    @Mock private GoogleCredentialsService googleCredentialsService;
+    @Mock private GoogleCalendarService googleCalendarService;
+    @Mock private Credential credential;
+    @Mock private CalendarSyncRetryQueue calendarSyncRetryQueue;
+
+    private GoogleCalendarCleanupService cleanupService;
+
+    @BeforeEach
+    void setUp() {
+        // Executor síncrono: las tareas corren en el hilo del test
+        cleanupService = new GoogleCalendarCleanupService(
+                userRepository, googleCredentialsService, googleCalendarService, Runnable::run, calendarSyncRetryQueue);
+    }
+
+    @Test
+    @DisplayName("Debe agrupar por dueño y pedir una credencial por usuario")
+    void deleteEvents_ShouldGroupByOwner() throws IOException {
+        User ana = User.builder().id(1L).email("ana@ufromail.cl").build();
+        User beto = User.builder().id(2L).email("beto@ufromail.cl").build();
+
+        when(userRepository.findById(1L)).thenReturn(Optional.of(ana));
+        when(userRepository.findById(2L)).thenReturn(Optional.of(beto));
+        when(googleCredentialsService.getCredential(any(User.class))).thenReturn(credential);
+        when(credential.getAccessToken()).thenReturn("token");
+
+        cleanupService.onCleanupRequested(new GoogleEventsCleanupEvent(List.of(
+                new CalendarEventRef(1L, "evt-a1"),
+                new CalendarEventRef(2L, "evt-b1"),
+                new CalendarEventRef(1L, "evt-a2")
+        )));
+
+        verify(googleCredentialsService, times(1)).getCredential(ana);
+        verify(googleCredentialsService, times(1)).getCredential(beto);
+        verify(googleCalendarService).deleteEvents(List.of("evt-a1", "evt-a2"), "token");
+        verify(googleCalendarService).deleteEvents(List.of("evt-b1"), "token");
+    }
+
+    @Test
+    @DisplayName("Un fallo con un usuario no debe impedir limpiar los eventos de los demás")
+    void deleteEvents_ShouldContinue_WhenOneOwnerFails() throws IOException {
+        User revoked = User.builder().id(1L).email("revocado@ufromail.cl").build();
+        User healthy = User.builder().id(2L).email("ok@ufromail.cl").build();
+
+        when(userRepository.findById(1L)).thenReturn(Optional.of(revoked));
+        when(userRepository.findById(2L)).thenReturn(Optional.of(healthy));
+        when(googleCredentialsService.getCredential(revoked)).thenThrow(new IOException("invalid_grant"));
+        when(googleCredentialsService.getCredential(healthy)).thenReturn(credential);
+        when(credential.getAccessToken()).thenReturn("token");
+
+        assertDoesNotThrow(() -> cleanupService.deleteEvents(List.of(
+                new CalendarEventRef(1L, "evt-1"),
+                new CalendarEventRef(2L, "evt-2")
+        )));
+
+        verify(googleCalendarService).deleteEvents(List.of("evt-2"), "token");
+        // Los eventos del usuario que falló quedan en la cola de reintentos
+        verify(calendarSyncRetryQueue).defer(CalendarSyncOperation.delete(1L, "evt-1"));
+        verify(calendarSyncRetryQueue, never()).defer(CalendarSyncOperation.delete(2L, "evt-2"));
+    }
+
+    @Test
+    @DisplayName("Los eventos que Google rechaza dentro del lote deben diferirse")
+    void deleteEvents_ShouldDeferFailedBatchItems() throws IOException {
+        User owner = User.builder().id(1L).email("ana@ufromail.cl").build();
+        when(userRepository.findById(1L)).thenReturn(Optional.of(owner));
+        when(googleCredentialsService.getCredential(owner)).thenReturn(credential);
+        when(credential.getAccessToken()).thenReturn("token");
+        when(googleCalendarService.deleteEvents(List.of("evt-1", "evt-2"), "token")).thenReturn(List.of("evt-2"));
+
+        cleanupService.deleteEvents(List.of(
+                new CalendarEventRef(1L, "evt-1"),
+                new CalendarEventRef(1L, "evt-2")
+        ));
+
+        verify(calendarSyncRetryQueue).defer(CalendarSyncOperation.delete(1L, "evt-2"));
+        verifyNoMoreInteractions(calendarSyncRetryQueue);
+    }
+
+    @Test
+    @DisplayName("Si la llamada a Google falla, todos los eventos del usuario deben diferirse")
+    void deleteEvents_ShouldDeferAll_WhenBatchCallFails() throws IOException {
+        User owner = User.builder().id(1L).email("ana@ufromail.cl").build();
+        when(userRepository.findById(1L)).thenReturn(Optional.of(owner));
+        when(googleCredentialsService.getCredential(owner)).thenReturn(credential);
+        when(credential.getAccessToken()).thenReturn("token");
+        when(googleCalendarService.deleteEvents(anyList(), anyString())).thenThrow(new IOException("Connection reset"));
+
+        cleanupService.deleteEvents(List.of(
+                new CalendarEventRef(1L, "evt-1"),
+                new CalendarEventRef(1L, "evt-2")
+        ));
+
+        verify(calendarSyncRetryQueue).defer(CalendarSyncOperation.delete(1L, "evt-1"));
+        verify(calendarSyncRetryQueue).defer(CalendarSyncOperation.delete(1L, "evt-2"));
+    }
+
+    @Test
+    @DisplayName("Debe omitir los eventos de usuarios que ya no existen")
+    void deleteEvents_ShouldSkip_WhenOwnerMissing() throws IOException {
+        when(userRepository.findById(99L)).thenReturn(Optional.empty());
+
+        cleanupService.deleteEvents(List.of(new CalendarEventRef(99L, "evt-x")));
+
+        verify(googleCalendarService, never()).deleteEvents(anyList(), anyString());
+    }
+
+    @Test
+    @DisplayName("Si el executor está lleno, las eliminaciones deben diferirse y no ejecutarse en el hilo que llama")
+    void deleteEvents_ShouldDefer_WhenExecutorRejects() {
+        GoogleCalendarCleanupService saturated = new GoogleCalendarCleanupService(
+                userRepository, googleCredentialsService, googleCalendarService,
+                task -> { throw new RejectedExecutionException("cola llena"); }, calendarSyncRetryQueue);
+
+        assertDoesNotThrow(() -> saturated.deleteEvents(List.of(
+                new CalendarEventRef(1L, "evt-1"),
+                new CalendarEventRef(1L, "evt-2")
+        )));
+
+        verify(calendarSyncRetryQueue).defer(CalendarSyncOperation.delete(1L, "evt-1"));
+        verify(calendarSyncRetryQueue).defer(CalendarSyncOperation.delete(1L, "evt-2"));
+        verifyNoInteractions(userRepository, googleCredentialsService, googleCalendarService);
+    }
+}
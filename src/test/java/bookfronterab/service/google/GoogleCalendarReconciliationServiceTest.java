@@ -0,0 +1,150 @@
+package bookfronterab.service.google;
+
+import bookfronterab.model.Reservation;
+import bookfronterab.model.Room;
+import bookfronterab.model.User;
+import bookfronterab.repo.ReservationRepository;
+import bookfronterab.repo.UserRepository;
+import bookfronterab.service.TimeService;
+import com.google.api.client.auth.oauth2.Credential;
+import com.google.api.client.http.HttpHeaders;
+import com.google.api.client.http.HttpResponseException;
+import com.google.api.client.util.DateTime;
+import com.google.api.services.calendar.model.Event;
+import com.google.api.services.calendar.model.EventDateTime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GoogleCalendarReconciliationServiceTest {
+
+    @Mock private UserRepository userRepository;
+    @Mock private ReservationRepository reservationRepository;
+    @Mock private GoogleCredentialsService googleCredentialsService;
+    @Mock private GoogleCalendarService googleCalendarService;
+    @Mock private GoogleApiGateway googleApiGateway;
+    @Mock private TimeService timeService;
+    @Mock private Credential credential;
+    @InjectMocks private GoogleCalendarReconciliationService reconciliationService;
+
+    private final ZonedDateTime start = ZonedDateTime.of(2026, 11, 2, 10, 0, 0, 0, ZoneId.of("America/Santiago"));
+    private User user;
+    private Reservation reservation;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ReflectionTestUtils.setField(reconciliationService, "fullSyncDays", 1L);
+
+        user = User.builder().id(10L).email("dueno@ufromail.cl").googleCalendarSyncToken("sync-1").build();
+        reservation = Reservation.builder()
+                .id(1L)
+                .user(user)
+                .room(Room.builder().name("Sala").build())
+                .startAt(start)
+                .endAt(start.plusHours(1))
+                .googleEventId("evt-1")
+                .googleEventEtag("\"e1\"")
+                .build();
+
+        lenient().when(timeService.nowOffset()).thenReturn(OffsetDateTime.now());
+        lenient().when(googleCredentialsService.getCredential(user)).thenReturn(credential);
+        lenient().when(credential.getAccessToken()).thenReturn("token");
+    }
+
+    @Test
+    @DisplayName("Un evento eliminado en Google debe desvincular la reserva")
+    void reconcileUser_ShouldUnlink_WhenEventCancelled() throws IOException {
+        Event cancelled = new Event().setId("evt-1").setStatus("cancelled");
+        when(googleCalendarService.listChanges(eq("sync-1"), any(), eq("token")))
+                .thenReturn(new CalendarChanges(List.of(cancelled), "sync-2"));
+        when(reservationRepository.findSyncedByUserAndEventIds(eq(10L), anyCollection())).thenReturn(List.of(reservation));
+
+        reconciliationService.reconcileUser(user);
+
+        verify(reservationRepository).updateGoogleEventLink(1L, null, null);
+        verify(userRepository).updateCalendarSyncToken(10L, "sync-2");
+        assertEquals("sync-2", user.getGoogleCalendarSyncToken());
+    }
+
+    @Test
+    @DisplayName("Un evento movido en Google debe volver al horario de la reserva")
+    void reconcileUser_ShouldRestoreSchedule_WhenEventMoved() throws IOException {
+        Event moved = new Event().setId("evt-1").setEtag("\"e2\"")
+                .setStart(at(start.plusHours(3)))
+                .setEnd(at(start.plusHours(4)));
+        when(googleCalendarService.listChanges(eq("sync-1"), any(), eq("token")))
+                .thenReturn(new CalendarChanges(List.of(moved), "sync-2"));
+        when(reservationRepository.findSyncedByUserAndEventIds(eq(10L), anyCollection())).thenReturn(List.of(reservation));
+
+        reconciliationService.reconcileUser(user);
+
+        // El PATCH debe usar el ETag que informó Google, no el guardado
+        verify(googleCalendarService).updateEvent("evt-1", reservation, "token");
+        assertEquals("\"e2\"", reservation.getGoogleEventEtag());
+        verify(reservationRepository).updateGoogleEventLink(eq(1L), eq("evt-1"), anyString());
+    }
+
+    @Test
+    @DisplayName("Un cambio que no afecta el horario solo debe actualizar el ETag")
+    void reconcileUser_ShouldOnlyRefreshEtag_WhenScheduleUnchanged() throws IOException {
+        Event renamed = new Event().setId("evt-1").setEtag("\"e3\"").setSummary("Otro título")
+                .setStart(at(start))
+                .setEnd(at(start.plusHours(1)));
+        when(googleCalendarService.listChanges(eq("sync-1"), any(), eq("token")))
+                .thenReturn(new CalendarChanges(List.of(renamed), "sync-2"));
+        when(reservationRepository.findSyncedByUserAndEventIds(eq(10L), anyCollection())).thenReturn(List.of(reservation));
+
+        reconciliationService.reconcileUser(user);
+
+        verify(googleCalendarService, never()).updateEvent(anyString(), any(), anyString());
+        verify(reservationRepository).updateGoogleEventLink(1L, "evt-1", "\"e3\"");
+    }
+
+    @Test
+    @DisplayName("Si el syncToken expiró (410), debe hacer una lectura completa")
+    void reconcileUser_ShouldFullResync_WhenSyncTokenGone() throws IOException {
+        when(googleCalendarService.listChanges(eq("sync-1"), any(), eq("token")))
+                .thenThrow(new HttpResponseException.Builder(410, "Gone", new HttpHeaders()).build());
+        when(googleCalendarService.listChanges(isNull(), any(), eq("token")))
+                .thenReturn(new CalendarChanges(List.of(), "sync-full"));
+
+        reconciliationService.reconcileUser(user);
+
+        verify(reservationRepository, never()).findSyncedByUserAndEventIds(any(), anyCollection());
+        verify(userRepository).updateCalendarSyncToken(10L, "sync-full");
+    }
+
+    @Test
+    @DisplayName("reconcileAll no debe hacer nada mientras Google no esté disponible")
+    void reconcileAll_ShouldSkip_WhenCircuitOpen() {
+        when(googleApiGateway.isAvailable()).thenReturn(false);
+
+        reconciliationService.reconcileAll();
+
+        verifyNoInteractions(userRepository, googleCalendarService);
+    }
+
+    private static EventDateTime at(ZonedDateTime time) {
+        return new EventDateTime().setDateTime(new DateTime(time.toInstant().toEpochMilli()));
+    }
+}
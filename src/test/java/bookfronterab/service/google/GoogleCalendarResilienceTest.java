@@ -0,0 +1,167 @@
+package bookfronterab.service.google;
+
+import bookfronterab.exception.GoogleCalendarUnavailableException;
+import bookfronterab.model.Reservation;
+import bookfronterab.model.Room;
+import bookfronterab.model.User;
+import bookfronterab.repo.UserRepository;
+import bookfronterab.support.GoogleApiGateways;
+import bookfronterab.support.GoogleCalendarStubServer;
+import com.google.api.client.auth.oauth2.Credential;
+import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.api.client.json.gson.GsonFactory;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Pruebas de {@link GoogleCalendarService} contra el stub local de Google Calendar,
+ * inyectando latencia y errores para verificar el timeout y el circuit breaker.
+ */
+class GoogleCalendarResilienceTest {
+
+    private static final String TOKEN = "stub-token";
+
+    private GoogleCalendarStubServer stub;
+    private ExecutorService executor;
+    private CircuitBreaker circuitBreaker;
+    private GoogleApiGateway gateway;
+    private GoogleCalendarService service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        stub = new GoogleCalendarStubServer();
+        executor = Executors.newFixedThreadPool(4);
+
+        circuitBreaker = CircuitBreaker.of("stub", CircuitBreakerConfig.custom()
+                .slidingWindowSize(4)
+                .minimumNumberOfCalls(4)
+                .failureRateThreshold(50)
+                .waitDurationInOpenState(Duration.ofMinutes(1))
+                .build());
+        gateway = GoogleApiGateways.create(circuitBreaker, executor, 200);
+
+        service = new GoogleCalendarService(new NetHttpTransport(), GsonFactory.getDefaultInstance(), gateway);
+        ReflectionTestUtils.setField(service, "rootUrl", stub.getRootUrl());
+        ReflectionTestUtils.setField(service, "connectTimeoutMs", 2000);
+        ReflectionTestUtils.setField(service, "readTimeoutMs", 2000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        stub.close();
+    }
+
+    @Test
+    @DisplayName("Con Google lento, la llamada debe cortarse en el timeout y no en el read timeout")
+    void slowGoogle_ShouldFailFastWithTimeout() {
+        stub.setLatency(Duration.ofMillis(1500));
+
+        long start = System.nanoTime();
+        assertThrows(GoogleCalendarUnavailableException.class,
+                () -> service.createEventForReservation(reservation(), TOKEN));
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(elapsedMs < 1000, "La llamada debió cortarse cerca de 200 ms, tardó " + elapsedMs + " ms");
+    }
+
+    @Test
+    @DisplayName("Con errores 503 repetidos, el circuito debe abrirse y dejar de llamar al stub")
+    void failingGoogle_ShouldOpenCircuit() throws IOException {
+        stub.failNext(4, 503);
+        for (int i = 0; i < 4; i++) {
+            assertThrows(IOException.class, () -> service.createEventForReservation(reservation(), TOKEN));
+        }
+        int requestsBeforeOpen = stub.getRequestCount();
+
+        assertThrows(GoogleCalendarUnavailableException.class,
+                () -> service.createEventForReservation(reservation(), TOKEN));
+
+        assertFalse(gateway.isAvailable());
+        assertEquals(requestsBeforeOpen, stub.getRequestCount());
+    }
+
+    @Test
+    @DisplayName("Con Google sano, la llamada debe pasar normalmente por el gateway")
+    void healthyGoogle_ShouldCreateEvent() throws IOException {
+        Reservation reservation = reservation();
+        String eventId = service.createEventForReservation(reservation, TOKEN);
+
+        assertEquals(GoogleCalendarService.eventIdFor(reservation), eventId);
+        assertTrue(gateway.isAvailable());
+    }
+
+    @Test
+    @DisplayName("Si el insert superó el timeout pero Google lo completó, el reintento no debe duplicar el evento")
+    void timedOutInsert_ShouldNotDuplicateEventOnRetry() throws Exception {
+        Reservation reservation = reservation();
+        stub.setLatency(Duration.ofMillis(600));
+        assertThrows(GoogleCalendarUnavailableException.class,
+                () -> service.createEventForReservation(reservation, TOKEN));
+
+        // El hilo del bulkhead sigue esperando la respuesta y Google termina creando el evento
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (stub.getCreatedEventIds().isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+        stub.setLatency(Duration.ZERO);
+
+        String eventId = service.createEventForReservation(reservation, TOKEN);
+
+        assertEquals(GoogleCalendarService.eventIdFor(reservation), eventId);
+        assertEquals(Set.of(eventId), stub.getCreatedEventIds());
+        assertEquals("\"1\"", reservation.getGoogleEventEtag());
+    }
+
+    @Test
+    @DisplayName("Con el circuito abierto, la limpieza masiva debe diferir los borrados sin llamar a Google")
+    void openCircuit_ShouldDeferBulkCleanup() throws IOException {
+        UserRepository userRepository = mock(UserRepository.class);
+        GoogleCredentialsService credentialsService = mock(GoogleCredentialsService.class);
+        CalendarSyncRetryQueue retryQueue = mock(CalendarSyncRetryQueue.class);
+        Credential credential = mock(Credential.class);
+        User owner = User.builder().id(7L).email("ana@ufromail.cl").build();
+        when(userRepository.findById(7L)).thenReturn(Optional.of(owner));
+        when(credentialsService.getCredential(owner)).thenReturn(credential);
+        when(credential.getAccessToken()).thenReturn(TOKEN);
+        GoogleCalendarCleanupService cleanupService = new GoogleCalendarCleanupService(
+                userRepository, credentialsService, service, Runnable::run, retryQueue);
+
+        circuitBreaker.transitionToForcedOpenState();
+        cleanupService.deleteEvents(List.of(new CalendarEventRef(7L, "evt-1"), new CalendarEventRef(7L, "evt-2")));
+
+        verify(retryQueue).defer(CalendarSyncOperation.delete(7L, "evt-1"));
+        verify(retryQueue).defer(CalendarSyncOperation.delete(7L, "evt-2"));
+        assertEquals(0, stub.getRequestCount());
+    }
+
+    private static Reservation reservation() {
+        ZonedDateTime start = ZonedDateTime.now(ZoneId.of("America/Santiago"));
+        return Reservation.builder()
+                .id(42L)
+                .room(Room.builder().name("Sala Stub").build())
+                .startAt(start)
+                .endAt(start.plusHours(1))
+                .build();
+    }
+}
@@ -2,38 +2,62 @@ package bookfronterab.service.google;
 
 import bookfronterab.model.Reservation;
 import bookfronterab.model.Room;
+import bookfronterab.support.GoogleApiGateways;
+import com.google.api.client.googleapis.batch.BatchRequest;
+import com.google.api.client.googleapis.batch.json.JsonBatchCallback;
+import com.google.api.client.googleapis.json.GoogleJsonError;
+import com.google.api.client.http.HttpHeaders;
+import com.google.api.client.http.HttpRequestInitializer;
+import com.google.api.client.http.HttpResponseException;
+import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.api.client.json.gson.GsonFactory;
 import com.google.api.services.calendar.Calendar;
 import com.google.api.services.calendar.model.Event;
+import com.google.api.services.calendar.model.Events;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.MockedConstruction;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.io.IOException;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class GoogleCalendarServiceTest {
 
-    @InjectMocks
     private GoogleCalendarService service;
 
     private final String accessToken = "dummy-token";
 
+    @BeforeEach
+    void setUp() {
+        service = new GoogleCalendarService(new NetHttpTransport(), GsonFactory.getDefaultInstance(),
+                GoogleApiGateways.direct());
+        ReflectionTestUtils.setField(service, "rootUrl", Calendar.DEFAULT_ROOT_URL);
+    }
+
     @Test
     @DisplayName("getCalendarClient debe devolver un cliente configurado")
     void getCalendarClient_ShouldReturnClient() {
         Calendar client = service.getCalendarClient(accessToken);
         assertNotNull(client);
         assertEquals("BookFrontera Calendar", client.getApplicationName());
+        assertEquals(Calendar.DEFAULT_ROOT_URL, client.getRootUrl());
     }
 
     @Test
@@ -55,6 +79,7 @@ class GoogleCalendarServiceTest {
         try (MockedConstruction<Calendar.Builder> ignored = mockConstruction(Calendar.Builder.class,
                 (mock, context) -> {
                     when(mock.setApplicationName(anyString())).thenReturn(mock);
+                    when(mock.setRootUrl(anyString())).thenReturn(mock);
                     when(mock.build()).thenReturn(calendarMock);
                 })) {
 
@@ -62,6 +87,42 @@ class GoogleCalendarServiceTest {
 
             assertEquals("generated-google-id", eventId);
             verify(insertMock).execute();
+            ArgumentCaptor<Event> sent = ArgumentCaptor.forClass(Event.class);
+            verify(eventsMock).insert(anyString(), sent.capture());
+            assertEquals("bookfronterab42", sent.getValue().getId());
+        }
+    }
+
+    @Test
+    @DisplayName("createEventForReservation debe reutilizar el evento si un intento anterior ya lo creó (409)")
+    void createEvent_ShouldReuseExistingEvent_OnConflict() throws IOException {
+        Reservation res = mockReservation();
+
+        Calendar calendarMock = mock(Calendar.class);
+        Calendar.Events eventsMock = mock(Calendar.Events.class);
+        Calendar.Events.Insert insertMock = mock(Calendar.Events.Insert.class);
+        Calendar.Events.Get getMock = mock(Calendar.Events.Get.class);
+
+        when(calendarMock.events()).thenReturn(eventsMock);
+        when(eventsMock.insert(anyString(), any(Event.class))).thenReturn(insertMock);
+        when(insertMock.execute())
+                .thenThrow(new HttpResponseException.Builder(409, "Conflict", new HttpHeaders()).build());
+        when(eventsMock.get(anyString(), eq("bookfronterab42"))).thenReturn(getMock);
+        when(getMock.execute()).thenReturn(new Event().setId("bookfronterab42").setEtag("\"existente\"")
+                .setStatus("confirmed"));
+
+        try (MockedConstruction<Calendar.Builder> ignored = mockConstruction(Calendar.Builder.class,
+                (mock, context) -> {
+                    when(mock.setApplicationName(anyString())).thenReturn(mock);
+                    when(mock.setRootUrl(anyString())).thenReturn(mock);
+                    when(mock.build()).thenReturn(calendarMock);
+                })) {
+
+            String eventId = service.createEventForReservation(res, accessToken);
+
+            assertEquals("bookfronterab42", eventId);
+            assertEquals("\"existente\"", res.getGoogleEventEtag());
+            verify(eventsMock, never()).patch(anyString(), anyString(), any(Event.class));
         }
     }
 
@@ -87,6 +148,7 @@ class GoogleCalendarServiceTest {
         try (MockedConstruction<Calendar.Builder> ignored = mockConstruction(Calendar.Builder.class,
                 (mock, context) -> {
                     when(mock.setApplicationName(anyString())).thenReturn(mock);
+                    when(mock.setRootUrl(anyString())).thenReturn(mock);
                     when(mock.build()).thenReturn(calendarMock);
                 })) {
 
@@ -112,6 +174,7 @@ class GoogleCalendarServiceTest {
         try (MockedConstruction<Calendar.Builder> ignored = mockConstruction(Calendar.Builder.class,
                 (mock, context) -> {
                     when(mock.setApplicationName(anyString())).thenReturn(mock);
+                    when(mock.setRootUrl(anyString())).thenReturn(mock);
                     when(mock.build()).thenReturn(calendarMock);
                 })) {
 
@@ -120,42 +183,109 @@ class GoogleCalendarServiceTest {
     }
 
     @Test
-    @DisplayName("updateEvent debe buscar el evento, modificarlo y guardarlo")
-    void updateEvent_Success() throws IOException {
+    @DisplayName("updateEvent debe hacer un único PATCH con If-Match, sin GET previo")
+    void updateEvent_ShouldPatchWithIfMatch() throws IOException {
         Reservation res = mockReservation();
+        res.setGoogleEventEtag("\"etag-1\"");
         String eventId = "google-evt-id";
 
         Calendar calendarMock = mock(Calendar.class);
         Calendar.Events eventsMock = mock(Calendar.Events.class);
-        Calendar.Events.Get getMock = mock(Calendar.Events.Get.class);
-        Calendar.Events.Update updateMock = mock(Calendar.Events.Update.class);
-
-        // Evento existente que devuelve Google
-        Event existingEvent = new Event();
-        existingEvent.setSummary("Viejo Título");
+        Calendar.Events.Patch patchMock = mock(Calendar.Events.Patch.class);
+        HttpHeaders requestHeaders = new HttpHeaders();
 
         when(calendarMock.events()).thenReturn(eventsMock);
+        when(eventsMock.patch(anyString(), eq(eventId), any(Event.class))).thenReturn(patchMock);
+        when(patchMock.getRequestHeaders()).thenReturn(requestHeaders);
+        when(patchMock.execute()).thenReturn(new Event().setId(eventId).setEtag("\"etag-2\""));
 
-        // 1. Mockear el GET (recuperar evento)
-        when(eventsMock.get(anyString(), eq(eventId))).thenReturn(getMock);
-        when(getMock.execute()).thenReturn(existingEvent);
+        try (MockedConstruction<Calendar.Builder> ignored = mockConstruction(Calendar.Builder.class,
+                (mock, context) -> {
+                    when(mock.setApplicationName(anyString())).thenReturn(mock);
+                    when(mock.setRootUrl(anyString())).thenReturn(mock);
+                    when(mock.build()).thenReturn(calendarMock);
+                })) {
+
+            service.updateEvent(eventId, res, accessToken);
+
+            ArgumentCaptor<Event> sent = ArgumentCaptor.forClass(Event.class);
+            verify(eventsMock).patch(anyString(), eq(eventId), sent.capture());
+            // Solo se envían los campos que controla BookFrontera
+            assertEquals("Reserva de Sala: Sala Test", sent.getValue().getSummary());
+            assertNull(sent.getValue().getDescription());
+
+            assertEquals("\"etag-1\"", requestHeaders.getIfMatch());
+            verify(eventsMock, never()).get(anyString(), anyString());
+            assertEquals("\"etag-2\"", res.getGoogleEventEtag());
+        }
+    }
+
+    @Test
+    @DisplayName("updateEvent debe reintentar con el ETag vigente si Google responde 412")
+    void updateEvent_ShouldRetryWithFreshEtag_OnPreconditionFailed() throws IOException {
+        Reservation res = mockReservation();
+        res.setGoogleEventEtag("\"viejo\"");
+        String eventId = "google-evt-id";
 
-        // 2. Mockear el UPDATE (guardar cambios)
-        when(eventsMock.update(anyString(), eq(eventId), any(Event.class))).thenReturn(updateMock);
-        when(updateMock.execute()).thenReturn(existingEvent); // Devuelve el evento actualizado
+        Calendar calendarMock = mock(Calendar.class);
+        Calendar.Events eventsMock = mock(Calendar.Events.class);
+        Calendar.Events.Patch patchMock = mock(Calendar.Events.Patch.class);
+        Calendar.Events.Get getMock = mock(Calendar.Events.Get.class);
+        HttpHeaders requestHeaders = new HttpHeaders();
+
+        when(calendarMock.events()).thenReturn(eventsMock);
+        when(eventsMock.patch(anyString(), eq(eventId), any(Event.class))).thenReturn(patchMock);
+        when(patchMock.getRequestHeaders()).thenReturn(requestHeaders);
+        when(patchMock.execute())
+                .thenThrow(new HttpResponseException.Builder(412, "Precondition Failed", new HttpHeaders()).build())
+                .thenReturn(new Event().setId(eventId).setEtag("\"nuevo-2\""));
+        when(eventsMock.get(anyString(), eq(eventId))).thenReturn(getMock);
+        when(getMock.execute()).thenReturn(new Event().setId(eventId).setEtag("\"nuevo-1\""));
 
         try (MockedConstruction<Calendar.Builder> ignored = mockConstruction(Calendar.Builder.class,
                 (mock, context) -> {
                     when(mock.setApplicationName(anyString())).thenReturn(mock);
+                    when(mock.setRootUrl(anyString())).thenReturn(mock);
                     when(mock.build()).thenReturn(calendarMock);
                 })) {
 
             service.updateEvent(eventId, res, accessToken);
 
-            // Verificar que se llamó a update
-            verify(updateMock).execute();
-            // Verificar que el evento se modificó antes de enviarse
-            assertEquals("Reserva de Sala: Sala Test", existingEvent.getSummary());
+            verify(patchMock, times(2)).execute();
+            assertEquals("\"nuevo-1\"", requestHeaders.getIfMatch());
+            assertEquals("\"nuevo-2\"", res.getGoogleEventEtag());
+        }
+    }
+
+    @Test
+    @DisplayName("listChanges debe recorrer todas las páginas y devolver el nextSyncToken")
+    void listChanges_ShouldFollowPagesAndReturnSyncToken() throws IOException {
+        Calendar calendarMock = mock(Calendar.class);
+        Calendar.Events eventsMock = mock(Calendar.Events.class);
+        Calendar.Events.List listMock = mock(Calendar.Events.List.class);
+
+        when(calendarMock.events()).thenReturn(eventsMock);
+        when(eventsMock.list(anyString())).thenReturn(listMock);
+        when(listMock.setMaxResults(anyInt())).thenReturn(listMock);
+        when(listMock.setPageToken(any())).thenReturn(listMock);
+        when(listMock.setSyncToken(anyString())).thenReturn(listMock);
+        when(listMock.execute()).thenReturn(
+                new Events().setItems(List.of(new Event().setId("a"))).setNextPageToken("p2"),
+                new Events().setItems(List.of(new Event().setId("b").setStatus("cancelled"))).setNextSyncToken("sync-2"));
+
+        try (MockedConstruction<Calendar.Builder> ignored = mockConstruction(Calendar.Builder.class,
+                (mock, context) -> {
+                    when(mock.setApplicationName(anyString())).thenReturn(mock);
+                    when(mock.setRootUrl(anyString())).thenReturn(mock);
+                    when(mock.build()).thenReturn(calendarMock);
+                })) {
+
+            CalendarChanges changes = service.listChanges("sync-1", ZonedDateTime.now(), accessToken);
+
+            assertEquals(2, changes.events().size());
+            assertEquals("sync-2", changes.nextSyncToken());
+            verify(listMock, times(2)).setSyncToken("sync-1");
+            verify(listMock, never()).setTimeMin(any());
         }
     }
 
@@ -165,10 +295,92 @@ class GoogleCalendarServiceTest {
         assertDoesNotThrow(()->service.updateEvent(null, mockReservation(), accessToken));
     }
 
+    @Test
+    @DisplayName("deleteEvents debe encolar los borrados en lotes de hasta 50 eventos")
+    void deleteEvents_ShouldUseBatchesOfFifty() throws IOException {
+        List<String> eventIds = IntStream.range(0, 120).mapToObj(i -> "evt-" + i).toList();
+
+        Calendar calendarMock = mock(Calendar.class);
+        Calendar.Events eventsMock = mock(Calendar.Events.class);
+        Calendar.Events.Delete deleteMock = mock(Calendar.Events.Delete.class);
+        BatchRequest batchMock = mock(BatchRequest.class);
+
+        when(calendarMock.events()).thenReturn(eventsMock);
+        when(calendarMock.batch(any(HttpRequestInitializer.class))).thenReturn(batchMock);
+        when(eventsMock.delete(anyString(), anyString())).thenReturn(deleteMock);
+
+        try (MockedConstruction<Calendar.Builder> ignored = mockConstruction(Calendar.Builder.class,
+                (mock, context) -> {
+                    when(mock.setApplicationName(anyString())).thenReturn(mock);
+                    when(mock.setRootUrl(anyString())).thenReturn(mock);
+                    when(mock.build()).thenReturn(calendarMock);
+                })) {
+
+            service.deleteEvents(eventIds, accessToken);
+
+            // 120 eventos => 3 peticiones HTTP (50 + 50 + 20)
+            verify(batchMock, times(3)).execute();
+            verify(deleteMock, times(120)).queue(eq(batchMock), any(JsonBatchCallback.class));
+        }
+    }
+
+    @Test
+    @DisplayName("deleteEvents debe devolver los eventos que fallaron en el lote, salvo 404/410")
+    void deleteEvents_ShouldReturnFailedItems() throws IOException {
+        Calendar calendarMock = mock(Calendar.class);
+        Calendar.Events eventsMock = mock(Calendar.Events.class);
+        BatchRequest batchMock = mock(BatchRequest.class);
+        Map<String, JsonBatchCallback<Void>> callbacks = new LinkedHashMap<>();
+
+        when(calendarMock.events()).thenReturn(eventsMock);
+        when(calendarMock.batch(any(HttpRequestInitializer.class))).thenReturn(batchMock);
+        when(eventsMock.delete(anyString(), anyString())).thenAnswer(invocation -> {
+            String eventId = invocation.getArgument(1);
+            Calendar.Events.Delete deleteMock = mock(Calendar.Events.Delete.class);
+            doAnswer(queued -> callbacks.put(eventId, queued.getArgument(1)))
+                    .when(deleteMock).queue(eq(batchMock), any(JsonBatchCallback.class));
+            return deleteMock;
+        });
+        doAnswer(invocation -> {
+            callbacks.get("evt-ok").onSuccess(null, new HttpHeaders());
+            callbacks.get("evt-gone").onFailure(batchError(410), new HttpHeaders());
+            callbacks.get("evt-forbidden").onFailure(batchError(403), new HttpHeaders());
+            callbacks.get("evt-down").onFailure(batchError(503), new HttpHeaders());
+            return null;
+        }).when(batchMock).execute();
+
+        try (MockedConstruction<Calendar.Builder> ignored = mockConstruction(Calendar.Builder.class,
+                (mock, context) -> {
+                    when(mock.setApplicationName(anyString())).thenReturn(mock);
+                    when(mock.setRootUrl(anyString())).thenReturn(mock);
+                    when(mock.build()).thenReturn(calendarMock);
+                })) {
+
+            List<String> failed = service.deleteEvents(
+                    List.of("evt-ok", "evt-gone", "evt-forbidden", "evt-down"), accessToken);
+
+            assertEquals(List.of("evt-forbidden", "evt-down"), failed);
+        }
+    }
+
+    @Test
+    @DisplayName("deleteEvents no debe llamar a Google si la lista está vacía")
+    void deleteEvents_ShouldReturnNothing_WhenEmpty() throws IOException {
+        assertTrue(service.deleteEvents(List.of(), accessToken).isEmpty());
+    }
+
+    private static GoogleJsonError batchError(int code) {
+        GoogleJsonError error = new GoogleJsonError();
+        error.setCode(code);
+        error.setMessage("error " + code);
+        return error;
+    }
+
     // Helper
     private Reservation mockReservation() {
         Room room = Room.builder().name("Sala Test").build();
         return Reservation.builder()
+                .id(42L)
                 .room(room)
                 .startAt(ZonedDateTime.now(ZoneId.of("UTC")))
                 .endAt(ZonedDateTime.now(ZoneId.of("UTC")).plusHours(1))
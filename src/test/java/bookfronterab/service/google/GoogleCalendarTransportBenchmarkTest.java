@@ -0,0 +1,131 @@
+package bookfronterab.service.google;
+
+import bookfronterab.config.GoogleApiConfig;
+import bookfronterab.model.Reservation;
+import bookfronterab.model.Room;
+import bookfronterab.support.GoogleApiGateways;
+import bookfronterab.support.GoogleCalendarStubServer;
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.api.client.json.gson.GsonFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Benchmark de latencia por llamada de {@link GoogleCalendarService} contra un stub local.
+ * <p>
+ * Compara el comportamiento anterior (un transporte nuevo por llamada) con el
+ * transporte compartido con pool de {@link GoogleApiConfig}, para create, update y delete,
+ * y falla si el transporte compartido resulta más lento en alguna de ellas.
+ * No corre en la suite normal: se activa con {@code mvn test -Dbenchmark=true -Dtest=GoogleCalendarTransportBenchmarkTest}.
+ * </p>
+ */
+@Tag("benchmark")
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class GoogleCalendarTransportBenchmarkTest {
+
+    private static final int WARMUP = 50;
+    private static final int ITERATIONS = 500;
+    private static final String TOKEN = "bench-token";
+    // Cada creación usa una reserva distinta: el ID del evento se deriva de ella
+    private static final AtomicLong RESERVATION_IDS = new AtomicLong();
+
+    private static GoogleCalendarStubServer stub;
+    private static HttpTransport pooledTransport;
+
+    @BeforeAll
+    static void startStub() throws IOException {
+        stub = new GoogleCalendarStubServer();
+
+        GoogleApiConfig config = new GoogleApiConfig();
+        ReflectionTestUtils.setField(config, "maxConnections", 50);
+        ReflectionTestUtils.setField(config, "maxConnectionsPerRoute", 20);
+        ReflectionTestUtils.setField(config, "connectionTtlSeconds", 300L);
+        pooledTransport = config.googleHttpTransport();
+    }
+
+    @AfterAll
+    static void stopStub() throws IOException {
+        pooledTransport.shutdown();
+        stub.close();
+    }
+
+    @Test
+    @DisplayName("El transporte compartido reduce la latencia por llamada en create, update y delete")
+    void sharedTransport_ShouldReduceLatencyPerCall() throws IOException {
+        GoogleCalendarService shared = serviceWith(pooledTransport);
+        Supplier<GoogleCalendarService> perCall = () -> serviceWith(new NetHttpTransport());
+
+        double freshCreate = measure(() -> perCall.get().createEventForReservation(reservation(), TOKEN));
+        double sharedCreate = measure(() -> shared.createEventForReservation(reservation(), TOKEN));
+
+        double freshUpdate = measure(() -> perCall.get().updateEvent("evt-1", reservation(), TOKEN));
+        double sharedUpdate = measure(() -> shared.updateEvent("evt-1", reservation(), TOKEN));
+
+        double freshDelete = measure(() -> perCall.get().deleteEvent("evt-1", TOKEN));
+        double sharedDelete = measure(() -> shared.deleteEvent("evt-1", TOKEN));
+
+        log.info("create: transporte nuevo {} us/llamada, compartido {} us/llamada", round(freshCreate), round(sharedCreate));
+        log.info("update: transporte nuevo {} us/llamada, compartido {} us/llamada", round(freshUpdate), round(sharedUpdate));
+        log.info("delete: transporte nuevo {} us/llamada, compartido {} us/llamada", round(freshDelete), round(sharedDelete));
+
+        assertTrue(stub.getRequestCount() >= 6 * (WARMUP + ITERATIONS), "Todas las llamadas deben llegar al stub");
+        assertTrue(sharedCreate <= freshCreate, "create: el transporte compartido no debe ser más lento");
+        assertTrue(sharedUpdate <= freshUpdate, "update: el transporte compartido no debe ser más lento");
+        assertTrue(sharedDelete <= freshDelete, "delete: el transporte compartido no debe ser más lento");
+    }
+
+    private double measure(CalendarCall call) throws IOException {
+        for (int i = 0; i < WARMUP; i++) {
+            call.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            call.run();
+        }
+        return (System.nanoTime() - start) / 1_000.0 / ITERATIONS;
+    }
+
+    private static String round(double micros) {
+        return String.format("%.1f", micros);
+    }
+
+    private GoogleCalendarService serviceWith(HttpTransport transport) {
+        GoogleCalendarService service = new GoogleCalendarService(transport, GsonFactory.getDefaultInstance(),
+                GoogleApiGateways.direct());
+        ReflectionTestUtils.setField(service, "rootUrl", stub.getRootUrl());
+        ReflectionTestUtils.setField(service, "connectTimeoutMs", 5000);
+        ReflectionTestUtils.setField(service, "readTimeoutMs", 5000);
+        return service;
+    }
+
+    private static Reservation reservation() {
+        ZonedDateTime start = ZonedDateTime.now(ZoneId.of("America/Santiago"));
+        return Reservation.builder()
+                .id(RESERVATION_IDS.incrementAndGet())
+                .room(Room.builder().name("Sala Bench").build())
+                .startAt(start)
+                .endAt(start.plusHours(1))
+                .build();
+    }
+
+    @FunctionalInterface
+    private interface CalendarCall {
+        void run() throws IOException;
+    }
+}
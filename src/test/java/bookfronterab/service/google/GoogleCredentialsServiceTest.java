@@ -3,9 +3,12 @@ package bookfronterab.service.google;
 import bookfronterab.model.User;
 import bookfronterab.repo.UserRepository;
 import bookfronterab.service.TimeService;
+import bookfronterab.support.GoogleApiGateways;
 import com.google.api.client.auth.oauth2.Credential;
 import com.google.api.client.googleapis.auth.oauth2.GoogleRefreshTokenRequest;
 import com.google.api.client.googleapis.auth.oauth2.GoogleTokenResponse;
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.json.JsonFactory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -13,14 +16,24 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockedConstruction;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import java.io.IOException;
 import java.time.OffsetDateTime;
 import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -28,6 +41,9 @@ class GoogleCredentialsServiceTest {
 
     @Mock private UserRepository userRepository;
     @Mock private TimeService timeService;
+    @Mock private HttpTransport googleHttpTransport;
+    @Mock private JsonFactory googleJsonFactory;
+    @Spy private GoogleApiGateway googleApiGateway = GoogleApiGateways.direct();
     @InjectMocks private GoogleCredentialsService service;
 
     @BeforeEach
@@ -80,7 +96,10 @@ class GoogleCredentialsServiceTest {
             assertNotNull(credential);
             assertEquals("NEW-ACCESS-TOKEN", credential.getAccessToken());
             assertEquals("NEW-ACCESS-TOKEN", user.getGoogleAccessToken());
-            verify(userRepository).save(user);
+            // Solo se escriben los tokens: Google no rotó el refresh token
+            verify(userRepository).updateGoogleTokens(eq(user.getId()), eq("NEW-ACCESS-TOKEN"), isNull(),
+                    eq(user.getGoogleTokenExpiryDate()));
+            verify(userRepository, never()).save(any());
         }
     }
 
@@ -92,4 +111,78 @@ class GoogleCredentialsServiceTest {
 
         assertThrows(IOException.class, () -> service.getCredential(user));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Refrescos concurrentes del mismo usuario deben compartir una sola petición a Google")
+    void getCredential_ConcurrentRefresh_ShouldCallGoogleOnce() throws Exception {
+        when(timeService.nowOffset()).thenReturn(OffsetDateTime.now());
+        when(timeService.zone()).thenReturn(ZoneId.of("UTC"));
+
+        GoogleCredentialsService spyService = spy(service);
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLeader = new CountDownLatch(1);
+        AtomicInteger googleCalls = new AtomicInteger();
+
+        doAnswer(invocation -> {
+            googleCalls.incrementAndGet();
+            leaderStarted.countDown();
+            releaseLeader.await(5, TimeUnit.SECONDS);
+            GoogleTokenResponse response = new GoogleTokenResponse();
+            response.setAccessToken("SHARED-ACCESS-TOKEN");
+            response.setExpiresInSeconds(3600L);
+            return response;
+        }).when(spyService).executeRefreshRequest(any(User.class));
+
+        int callers = 4;
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        List<User> followers = new ArrayList<>();
+        try {
+            List<Future<Credential>> results = new ArrayList<>();
+            results.add(pool.submit(() -> spyService.getCredential(expiredUser())));
+            assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+
+            for (int i = 1; i < callers; i++) {
+                User follower = expiredUser();
+                followers.add(follower);
+                results.add(pool.submit(() -> spyService.getCredential(follower)));
+            }
+            // Damos tiempo a que los demás hilos se registren como espera del refresco en curso
+            Thread.sleep(200);
+            releaseLeader.countDown();
+
+            for (Future<Credential> result : results) {
+                assertEquals("SHARED-ACCESS-TOKEN", result.get(5, TimeUnit.SECONDS).getAccessToken());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(1, googleCalls.get());
+        verify(userRepository, times(1)).updateGoogleTokens(any(), eq("SHARED-ACCESS-TOKEN"), any(), any());
+        // Solo el hilo que refrescó modifica su entidad: las demás no generan otro UPDATE
+        for (User follower : followers) {
+            assertEquals("expired-access", follower.getGoogleAccessToken());
+        }
+    }
+
+    @Test
+    @DisplayName("refreshIfExpiringBefore no debe refrescar si el token vence después del umbral")
+    void refreshIfExpiringBefore_ShouldSkip_WhenTokenStillValid() throws IOException {
+        User user = expiredUser();
+        user.setGoogleTokenExpiryDate(OffsetDateTime.now().plusHours(1));
+
+        boolean refreshed = service.refreshIfExpiringBefore(user, OffsetDateTime.now().plusMinutes(10));
+
+        assertFalse(refreshed);
+        verifyNoInteractions(userRepository);
+    }
+
+    private User expiredUser() {
+        User user = new User();
+        user.setEmail("concurrent@ufromail.cl");
+        user.setGoogleAccessToken("expired-access");
+        user.setGoogleRefreshToken("refresh-token");
+        user.setGoogleTokenExpiryDate(OffsetDateTime.now().minusMinutes(5));
+        return user;
+    }
+}
@@ -0,0 +1,84 @@
+package bookfronterab.service.google;
+
+import bookfronterab.model.User;
+import bookfronterab.repo.UserRepository;
+import bookfronterab.service.TimeService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.time.OffsetDateTime;
+import java.util.Collections;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GoogleTokenRefreshSchedulerTest {
+
+    @Mock private UserRepository userRepository;
+    @Mock private GoogleCredentialsService googleCredentialsService;
+    @Mock private TimeService timeService;
+    @InjectMocks private GoogleTokenRefreshScheduler scheduler;
+
+    private final OffsetDateTime now = OffsetDateTime.parse("2025-11-20T10:00:00-03:00");
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(scheduler, "leadTimeMinutes", 10L);
+        ReflectionTestUtils.setField(scheduler, "horizonDays", 7L);
+        when(timeService.nowOffset()).thenReturn(now);
+    }
+
+    @Test
+    @DisplayName("Debe refrescar los tokens de los usuarios con trabajo pendiente en Calendar")
+    void refreshExpiringTokens_ShouldRefreshEachUser() throws IOException {
+        User first = User.builder().email("a@ufromail.cl").build();
+        User second = User.builder().email("b@ufromail.cl").build();
+        OffsetDateTime threshold = now.plusMinutes(10);
+
+        when(userRepository.findUsersWithPendingCalendarWork(
+                now.toZonedDateTime(), now.plusDays(7).toZonedDateTime(), threshold))
+                .thenReturn(List.of(first, second));
+
+        scheduler.refreshExpiringTokens();
+
+        verify(googleCredentialsService).refreshIfExpiringBefore(first, threshold);
+        verify(googleCredentialsService).refreshIfExpiringBefore(second, threshold);
+    }
+
+    @Test
+    @DisplayName("Un fallo de refresco no debe detener la renovación del resto de usuarios")
+    void refreshExpiringTokens_ShouldContinue_WhenOneRefreshFails() throws IOException {
+        User revoked = User.builder().email("revocado@ufromail.cl").build();
+        User healthy = User.builder().email("ok@ufromail.cl").build();
+
+        when(userRepository.findUsersWithPendingCalendarWork(any(), any(), any()))
+                .thenReturn(List.of(revoked, healthy));
+        when(googleCredentialsService.refreshIfExpiringBefore(eq(revoked), any()))
+                .thenThrow(new IOException("invalid_grant"));
+
+        scheduler.refreshExpiringTokens();
+
+        verify(googleCredentialsService).refreshIfExpiringBefore(eq(healthy), any());
+    }
+
+    @Test
+    @DisplayName("No debe llamar a Google si no hay usuarios con trabajo pendiente")
+    void refreshExpiringTokens_ShouldDoNothing_WhenNoUsers() throws IOException {
+        when(userRepository.findUsersWithPendingCalendarWork(any(), any(), any()))
+                .thenReturn(Collections.emptyList());
+
+        scheduler.refreshExpiringTokens();
+
+        verifyNoInteractions(googleCredentialsService);
+    }
+}
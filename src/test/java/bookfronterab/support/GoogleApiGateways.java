@@ -0,0 +1,30 @@
+package bookfronterab.support;
+
+import bookfronterab.service.google.GoogleApiGateway;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Fábricas de {@link GoogleApiGateway} para pruebas.
+ */
+public final class GoogleApiGateways {
+
+    private GoogleApiGateways() {
+    }
+
+    /**
+     * Gateway que ejecuta las llamadas en el hilo del test, con un circuito por defecto.
+     * Útil con mocks de construcción de Mockito, que solo aplican al hilo actual.
+     */
+    public static GoogleApiGateway direct() {
+        return create(CircuitBreaker.ofDefaults("test"), Runnable::run, 5000);
+    }
+
+    public static GoogleApiGateway create(CircuitBreaker circuitBreaker, Executor executor, long callTimeoutMs) {
+        GoogleApiGateway gateway = new GoogleApiGateway(circuitBreaker, executor);
+        ReflectionTestUtils.setField(gateway, "callTimeoutMs", callTimeoutMs);
+        return gateway;
+    }
+}
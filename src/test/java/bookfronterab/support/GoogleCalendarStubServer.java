@@ -0,0 +1,174 @@
+package bookfronterab.support;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Servidor HTTP local que imita los endpoints de eventos de Google Calendar
+ * ({@code /calendar/v3/calendars/{id}/events}).
+ * <p>
+ * Permite inyectar latencia y errores para probar el comportamiento del
+ * cliente sin salir a Internet. Igual que Google, respeta el ID que envía el
+ * cliente al insertar y responde 409 si ese ID ya existe. Se usa apuntando
+ * {@code app.google.calendar.root-url} a {@link #getRootUrl()}.
+ * </p>
+ */
+public class GoogleCalendarStubServer implements AutoCloseable {
+
+    private static final String EVENTS_PATH = "/calendar/v3/calendars/primary/events";
+    private static final Pattern EVENT_ID = Pattern.compile("\"id\"\\s*:\\s*\"([^\"]+)\"");
+
+    private final HttpServer server;
+    private final AtomicInteger eventSequence = new AtomicInteger();
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private final AtomicInteger pendingFailures = new AtomicInteger();
+    private final Set<String> createdEventIds = ConcurrentHashMap.newKeySet();
+
+    private volatile Duration latency = Duration.ZERO;
+    private volatile int failureStatus = 500;
+
+    public GoogleCalendarStubServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    /**
+     * URL raíz a configurar en el cliente de Calendar (termina en "/").
+     */
+    public String getRootUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+    }
+
+    /**
+     * Latencia artificial aplicada a cada respuesta.
+     */
+    public void setLatency(Duration latency) {
+        this.latency = latency;
+    }
+
+    /**
+     * Hace que las próximas {@code count} peticiones respondan con el código indicado.
+     */
+    public void failNext(int count, int status) {
+        this.failureStatus = status;
+        this.pendingFailures.set(count);
+    }
+
+    public int getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * IDs de los eventos insertados con un ID elegido por el cliente.
+     */
+    public Set<String> getCreatedEventIds() {
+        return Set.copyOf(createdEventIds);
+    }
+
+    public void reset() {
+        latency = Duration.ZERO;
+        pendingFailures.set(0);
+        requestCount.set(0);
+        createdEventIds.clear();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requestCount.incrementAndGet();
+        String requestBody;
+        try (InputStream body = exchange.getRequestBody()) {
+            requestBody = new String(body.readAllBytes(), StandardCharsets.UTF_8);
+        }
+
+        sleep(latency);
+
+        if (pendingFailures.getAndUpdate(n -> n > 0 ? n - 1 : 0) > 0) {
+            respond(exchange, failureStatus,
+                    "{\"error\":{\"code\":" + failureStatus + ",\"message\":\"Stub failure\"}}");
+            return;
+        }
+
+        String path = exchange.getRequestURI().getPath();
+        String method = exchange.getRequestMethod();
+
+        if (!path.startsWith(EVENTS_PATH)) {
+            respond(exchange, 404, "{\"error\":{\"code\":404,\"message\":\"Not Found\"}}");
+            return;
+        }
+
+        String eventId = path.length() > EVENTS_PATH.length() + 1
+                ? path.substring(EVENTS_PATH.length() + 1)
+                : null;
+
+        switch (method) {
+            case "POST" -> insert(exchange, requestBody);
+            case "GET" -> respond(exchange, 200, eventId == null ? eventListJson() : eventJson(eventId));
+            case "PUT", "PATCH" -> respond(exchange, 200, eventJson(eventId));
+            case "DELETE" -> {
+                exchange.sendResponseHeaders(204, -1);
+                exchange.close();
+            }
+            default -> respond(exchange, 405, "{}");
+        }
+    }
+
+    private void insert(HttpExchange exchange, String requestBody) throws IOException {
+        Matcher clientId = EVENT_ID.matcher(requestBody);
+        if (!clientId.find()) {
+            respond(exchange, 200, eventJson("stub-evt-" + eventSequence.incrementAndGet()));
+        } else if (createdEventIds.add(clientId.group(1))) {
+            respond(exchange, 200, eventJson(clientId.group(1)));
+        } else {
+            respond(exchange, 409, "{\"error\":{\"code\":409,\"message\":\"The requested identifier already exists.\"}}");
+        }
+    }
+
+    // Lista vacía con un syncToken nuevo (events.list completo o incremental)
+    private String eventListJson() {
+        return "{\"kind\":\"calendar#events\",\"items\":[],\"nextSyncToken\":\"stub-sync-"
+                + eventSequence.incrementAndGet() + "\"}";
+    }
+
+    private static String eventJson(String id) {
+        return "{\"kind\":\"calendar#event\",\"id\":\"" + id + "\",\"etag\":\"\\\"1\\\"\",\"status\":\"confirmed\"}";
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+
+    private static void sleep(Duration duration) {
+        if (duration.isZero()) {
+            return;
+        }
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package bookfronterab.support;
+
+import net.ttddyy.dsproxy.QueryCount;
+import net.ttddyy.dsproxy.QueryCountHolder;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Presupuesto de sentencias SQL para una prueba: falla si la acción ejecuta más consultas
+ * de las declaradas (típicamente por un N+1 nuevo).
+ * <p>
+ * Requiere el contexto completo de Spring (el DataSource envuelto por
+ * {@code QueryInstrumentationConfig}). Con MockMvc la petición corre en el hilo del test,
+ * así que se cuentan sus sentencias; las de hilos {@code @Async} no.
+ * </p>
+ * <pre>{@code
+ * QueryBudget.assertAtMost(4, "GET my-reservations",
+ *         () -> mockMvc.perform(get("/api/v1/reservations/my-reservations")));
+ * }</pre>
+ */
+public final class QueryBudget {
+
+    @FunctionalInterface
+    public interface Action<T> {
+        T run() throws Exception;
+    }
+
+    private QueryBudget() {
+    }
+
+    /**
+     * Ejecuta la acción y verifica que no supere {@code maxStatements} sentencias.
+     *
+     * @return El resultado de la acción.
+     */
+    public static <T> T assertAtMost(int maxStatements, String description, Action<T> action) throws Exception {
+        QueryCountHolder.clear();
+        T result = action.run();
+        QueryCount count = QueryCountHolder.getGrandTotal();
+        if (count.getTotal() > maxStatements) {
+            fail(String.format("%s ejecutó %d sentencias SQL, presupuesto: %d (select=%d, insert=%d, update=%d, delete=%d, otras=%d)",
+                    description, count.getTotal(), maxStatements, count.getSelect(), count.getInsert(),
+                    count.getUpdate(), count.getDelete(), count.getOther()));
+        }
+        return result;
+    }
+}